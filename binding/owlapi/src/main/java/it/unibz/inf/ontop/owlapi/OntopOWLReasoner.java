@@ -1,6 +1,8 @@
 package it.unibz.inf.ontop.owlapi;
 
+import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.owlapi.connection.OntopOWLConnection;
+import it.unibz.inf.ontop.owlapi.validation.QuestOWLEmptyEntitiesChecker;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.semanticweb.owlapi.reasoner.ReasonerInternalException;
 
@@ -11,5 +13,18 @@ public interface OntopOWLReasoner extends OWLReasoner, AutoCloseable {
 
     OntopOWLConnection getConnection() throws ReasonerInternalException;
 
+    /**
+     * First axiom found violated by the last consistency check (null if none)
+     */
     Object getInconsistentAxiom();
+
+    /**
+     * All the axioms found violated by the last consistency check
+     */
+    ImmutableList<Object> getInconsistentAxioms();
+
+    /**
+     * Checks the emptiness of the classes and properties directly against the saturated mapping
+     */
+    QuestOWLEmptyEntitiesChecker getEmptyEntitiesChecker();
 }
@@ -0,0 +1,163 @@
+package it.unibz.inf.ontop.owlapi.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.semanticweb.owlapi.model.OWLException;
+import org.semanticweb.owlapi.reasoner.ReasonerInterruptedException;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Checks the disjointness and functionality axioms of a TBox against the data.
+ *
+ * Instead of one ASK query per axiom, the violation witnesses of the axioms are grouped into batches.
+ * Each batch is a single SELECT query: a UNION of one branch per axiom, tagged by the index of the axiom
+ * and limited to one witness. The batches are evaluated concurrently, each on its own connection.
+ *
+ * All the violated axioms are reported, in the order of the TBox.
+ */
+class ConsistencyChecker {
+
+    private static final int BATCH_SIZE = 50;
+    private static final String AXIOM_VARIABLE = "axiom";
+
+    private static final String DISJOINT_CLASSES = "?x a <%s>; a <%s>";
+    private static final String DISJOINT_PROPERTIES = "?x <%s> ?y; <%s> ?y";
+    private static final String FUNCTIONAL_PROPERTY = "?x <%s> ?y; <%s> ?z. FILTER (?z != ?y)";
+
+    private final OntopQueryEngine queryEngine;
+    private final InputQueryFactory inputQueryFactory;
+    private final int parallelism;
+
+    ConsistencyChecker(OntopQueryEngine queryEngine, InputQueryFactory inputQueryFactory, int parallelism) {
+        this.queryEngine = queryEngine;
+        this.inputQueryFactory = inputQueryFactory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Empty if the data is consistent with the TBox
+     */
+    ImmutableList<Object> getViolatedAxioms(ClassifiedTBox tbox) throws OWLException {
+        List<Object> axioms = new ArrayList<>();
+        List<String> witnesses = new ArrayList<>();
+
+        for (NaryAxiom<ClassExpression> dda : tbox.disjointClasses()) {
+            // TODO: handle complex class expressions and many pairs of disjoint classes
+            Iterator<ClassExpression> iterator = dda.getComponents().iterator();
+            axioms.add(dda);
+            witnesses.add(String.format(DISJOINT_CLASSES, iterator.next(), iterator.next()));
+        }
+        for (NaryAxiom<ObjectPropertyExpression> dda : tbox.disjointObjectProperties()) {
+            // TODO: handle role inverses and multiple arguments
+            Iterator<ObjectPropertyExpression> iterator = dda.getComponents().iterator();
+            axioms.add(dda);
+            witnesses.add(String.format(DISJOINT_PROPERTIES, iterator.next(), iterator.next()));
+        }
+        for (NaryAxiom<DataPropertyExpression> dda : tbox.disjointDataProperties()) {
+            // TODO: handle role inverses and multiple arguments
+            Iterator<DataPropertyExpression> iterator = dda.getComponents().iterator();
+            axioms.add(dda);
+            witnesses.add(String.format(DISJOINT_PROPERTIES, iterator.next(), iterator.next()));
+        }
+        for (ObjectPropertyExpression pfa : tbox.functionalObjectProperties()) {
+            // TODO: handle inverses
+            String property = pfa.getIRI().getIRIString();
+            axioms.add(pfa);
+            witnesses.add(String.format(FUNCTIONAL_PROPERTY, property, property));
+        }
+        for (DataPropertyExpression pfa : tbox.functionalDataProperties()) {
+            String property = pfa.getIRI().getIRIString();
+            axioms.add(pfa);
+            witnesses.add(String.format(FUNCTIONAL_PROPERTY, property, property));
+        }
+
+        List<List<Integer>> batches = Lists.partition(
+                IntStream.range(0, axioms.size()).boxed().collect(ImmutableCollectors.toList()),
+                BATCH_SIZE);
+
+        BitSet violations = new BitSet(axioms.size());
+        if (batches.size() <= 1 || parallelism == 1) {
+            for (List<Integer> batch : batches)
+                violations.or(executeBatch(batch, witnesses));
+        }
+        else {
+            ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, batches.size()),
+                    new ThreadFactoryBuilder()
+                            .setNameFormat("ontop-consistency-check-%d")
+                            .setDaemon(true)
+                            .build());
+            try {
+                List<Future<BitSet>> futures = new ArrayList<>();
+                for (List<Integer> batch : batches)
+                    futures.add(executorService.submit(() -> executeBatch(batch, witnesses)));
+                for (Future<BitSet> future : futures)
+                    violations.or(future.get());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ReasonerInterruptedException(e);
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof OWLException)
+                    throw (OWLException) cause;
+                throw new OWLException(cause);
+            }
+            finally {
+                executorService.shutdownNow();
+            }
+        }
+
+        return violations.stream()
+                .mapToObj(axioms::get)
+                .collect(ImmutableCollectors.toList());
+    }
+
+    /**
+     * Returns the indexes of the violated axioms of the batch
+     */
+    private BitSet executeBatch(List<Integer> batch, List<String> witnesses) throws OWLException {
+        String strQuery = "SELECT DISTINCT ?" + AXIOM_VARIABLE + " WHERE {\n"
+                + batch.stream()
+                    .map(i -> "  { SELECT (" + i + " AS ?" + AXIOM_VARIABLE + ") WHERE { "
+                            + witnesses.get(i) + " } LIMIT 1 }")
+                    .collect(Collectors.joining("\n  UNION\n"))
+                + "\n}";
+
+        BitSet violations = new BitSet();
+        try (OntopConnection connection = queryEngine.getConnection();
+             OntopStatement st = connection.createStatement()) {
+
+            SelectQuery query = inputQueryFactory.createSelectQuery(strQuery);
+            TupleResultSet rs = st.execute(query);
+            if (rs != null) {
+                try {
+                    while (rs.hasNext())
+                        violations.set(Integer.parseInt(rs.next().getConstant(AXIOM_VARIABLE).getValue()));
+                }
+                finally {
+                    rs.close();
+                }
+            }
+            return violations;
+        } catch (Exception e) {
+            throw new OWLException(e);
+        }
+    }
+}
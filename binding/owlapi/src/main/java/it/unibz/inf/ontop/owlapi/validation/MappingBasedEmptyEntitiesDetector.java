@@ -0,0 +1,250 @@
+package it.unibz.inf.ontop.owlapi.validation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.atom.TriplePredicate;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.semanticweb.owlapi.model.OWLException;
+import org.semanticweb.owlapi.reasoner.ReasonerInterruptedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Detects the classes and properties without instances directly from the saturated mapping,
+ * without going through SPARQL queries.
+ *
+ * An entity without definition in the saturated mapping is empty: no query is needed.
+ * Otherwise, each mapping assertion of the entity (child of the top union of its definition)
+ * is probed by a native query returning at most one row (see OntopStatement.executeDBQuery()).
+ *
+ * Mapping assertions over the same source (same tree below the top construction node,
+ * same variables for building the RDF terms) share the same probe, which is evaluated once.
+ * The probes are grouped into batches, evaluated concurrently, each batch on its own connection.
+ */
+class MappingBasedEmptyEntitiesDetector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappingBasedEmptyEntitiesDetector.class);
+
+    private static final int BATCH_SIZE = 20;
+
+    private final Mapping mapping;
+    private final OntopQueryEngine queryEngine;
+    private final IntermediateQueryFactory iqFactory;
+    private final TermFactory termFactory;
+    private final int parallelism;
+
+    MappingBasedEmptyEntitiesDetector(Mapping saturatedMapping, OntopQueryEngine queryEngine,
+                                      IntermediateQueryFactory iqFactory, TermFactory termFactory,
+                                      int parallelism) {
+        this.mapping = saturatedMapping;
+        this.queryEngine = queryEngine;
+        this.iqFactory = iqFactory;
+        this.termFactory = termFactory;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the empty entities, in the given order
+     */
+    ImmutableList<IRI> getEmptyEntities(ImmutableList<IRI> entities, boolean areClasses) throws OWLException {
+        Optional<TriplePredicate> triplePredicate = mapping.getRDFAtomPredicates().stream()
+                .filter(p -> p instanceof TriplePredicate)
+                .map(p -> (TriplePredicate) p)
+                .findFirst();
+
+        // Probes indexed by their source
+        Map<Source, IQ> probes = new LinkedHashMap<>();
+        Map<IRI, ImmutableList<Source>> entitySources = new HashMap<>();
+        for (IRI entity : entities) {
+            Optional<IQ> definition = triplePredicate
+                    .flatMap(p -> areClasses
+                            ? mapping.getRDFClassDefinition(p, entity)
+                            : mapping.getRDFPropertyDefinition(p, entity));
+
+            ImmutableList<IQ> assertions = definition
+                    .map(this::splitIntoMappingAssertions)
+                    .orElseGet(ImmutableList::of);
+
+            ImmutableList.Builder<Source> sourceBuilder = ImmutableList.builder();
+            for (IQ assertion : assertions) {
+                Source source = new Source(assertion);
+                probes.computeIfAbsent(source, s -> createProbe(assertion));
+                sourceBuilder.add(source);
+            }
+            entitySources.put(entity, sourceBuilder.build());
+        }
+        LOGGER.debug("{} probes for {} entities", probes.size(), entities.size());
+
+        Set<Source> nonEmptySources = evaluate(ImmutableList.copyOf(probes.entrySet()));
+
+        return entities.stream()
+                .filter(e -> entitySources.get(e).stream().noneMatch(nonEmptySources::contains))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private Set<Source> evaluate(ImmutableList<Map.Entry<Source, IQ>> probes) throws OWLException {
+        Set<Source> nonEmptySources = ConcurrentHashMap.newKeySet();
+        List<List<Map.Entry<Source, IQ>>> batches = Lists.partition(probes, BATCH_SIZE);
+
+        if (batches.size() <= 1 || parallelism == 1) {
+            for (List<Map.Entry<Source, IQ>> batch : batches)
+                evaluateBatch(batch, nonEmptySources);
+            return nonEmptySources;
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, batches.size()),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("ontop-empty-entities-%d")
+                        .setDaemon(true)
+                        .build());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<Map.Entry<Source, IQ>> batch : batches)
+                futures.add(executorService.submit(() -> {
+                    evaluateBatch(batch, nonEmptySources);
+                    return null;
+                }));
+            for (Future<?> future : futures)
+                future.get();
+            return nonEmptySources;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReasonerInterruptedException(e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OWLException)
+                throw (OWLException) cause;
+            throw new OWLException(cause);
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void evaluateBatch(List<Map.Entry<Source, IQ>> batch, Set<Source> nonEmptySources) throws OWLException {
+        try (OntopConnection connection = queryEngine.getConnection();
+             OntopStatement st = connection.createStatement()) {
+            for (Map.Entry<Source, IQ> probe : batch) {
+                TupleResultSet rs = st.executeDBQuery(probe.getValue());
+                try {
+                    if (rs.hasNext())
+                        nonEmptySources.add(probe.getKey());
+                }
+                finally {
+                    rs.close();
+                }
+            }
+        } catch (Exception e) {
+            throw new OWLException(e);
+        }
+    }
+
+    /**
+     * At most one triple. The variables used for building the RDF terms must not be null.
+     */
+    private IQ createProbe(IQ assertion) {
+        IQTree tree = assertion.getTree();
+        IQTree probeTree = tree;
+        if (tree.getRootNode() instanceof ConstructionNode) {
+            ConstructionNode constructionNode = (ConstructionNode) tree.getRootNode();
+            ImmutableSet<Variable> termVariables = constructionNode.getChildVariables();
+            if (!termVariables.isEmpty())
+                probeTree = iqFactory.createUnaryIQTree(constructionNode,
+                        iqFactory.createUnaryIQTree(
+                                iqFactory.createFilterNode(termFactory.getConjunction(termVariables.stream()
+                                        .map(termFactory::getDBIsNotNull)
+                                        .collect(ImmutableCollectors.toList()))),
+                                ((UnaryIQTree) tree).getChild()));
+        }
+        return iqFactory.createIQ(assertion.getProjectionAtom(),
+                iqFactory.createUnaryIQTree(iqFactory.createSliceNode(0, 1), probeTree));
+    }
+
+    /**
+     * See DefaultOntopRDFMaterializer
+     */
+    private ImmutableList<IQ> splitIntoMappingAssertions(IQ definition) {
+        IQTree tree = definition.getTree();
+        if (!(tree.getRootNode() instanceof ConstructionNode))
+            return ImmutableList.of(definition);
+
+        ConstructionNode constructionNode = (ConstructionNode) tree.getRootNode();
+        IQTree child = ((UnaryIQTree) tree).getChild();
+        if (!(child.getRootNode() instanceof UnionNode))
+            return ImmutableList.of(definition);
+
+        return child.getChildren().stream()
+                .map(c -> iqFactory.createIQ(definition.getProjectionAtom(),
+                        iqFactory.createUnaryIQTree(constructionNode, c)))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    /**
+     * Source of a mapping assertion: the tree below its top construction node,
+     * together with the variables used for building the RDF terms.
+     *
+     * Assuming that an RDF term is null only when one of its variables is null,
+     * two mapping assertions with the same source are both empty or both non-empty.
+     */
+    private static final class Source {
+        private final IQTree tree;
+        private final ImmutableSet<Variable> termVariables;
+        private final int hashCode;
+
+        Source(IQ assertion) {
+            IQTree assertionTree = assertion.getTree();
+            if (assertionTree.getRootNode() instanceof ConstructionNode) {
+                this.tree = ((UnaryIQTree) assertionTree).getChild();
+                this.termVariables = ((ConstructionNode) assertionTree.getRootNode()).getChildVariables();
+            }
+            else {
+                this.tree = assertionTree;
+                this.termVariables = ImmutableSet.copyOf(assertion.getProjectionAtom().getArguments());
+            }
+            // Consistent with isEquivalentTo()
+            this.hashCode = tree.getEquivalenceHashCode() ^ termVariables.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other)
+                return true;
+            if (!(other instanceof Source))
+                return false;
+            Source o = (Source) other;
+            return hashCode == o.hashCode
+                    && termVariables.equals(o.termVariables)
+                    && tree.isEquivalentTo(o.tree);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
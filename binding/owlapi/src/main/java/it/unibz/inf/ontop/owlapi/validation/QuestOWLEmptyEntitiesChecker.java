@@ -20,16 +20,26 @@ package it.unibz.inf.ontop.owlapi.validation;
  * #L%
  */
 
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
 import it.unibz.inf.ontop.owlapi.connection.OWLStatement;
 import it.unibz.inf.ontop.owlapi.resultset.TupleOWLResultSet;
+import it.unibz.inf.ontop.spec.OBDASpecification;
 import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.apache.commons.rdf.api.IRI;
 import org.semanticweb.owlapi.model.OWLException;
+import org.semanticweb.owlapi.model.OWLRuntimeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Return empty concepts and roles, based on the mappings. Given an ontology,
@@ -40,7 +50,10 @@ import java.util.Iterator;
 public class QuestOWLEmptyEntitiesChecker {
 
 	private final ClassifiedTBox onto;
+	@Nullable
 	private final OWLConnection conn;
+	@Nullable
+	private final MappingBasedEmptyEntitiesDetector detector;
 
 	private int nEmptyConcepts = 0;
 	private int nEmptyRoles = 0;
@@ -54,16 +67,65 @@ public class QuestOWLEmptyEntitiesChecker {
 	public QuestOWLEmptyEntitiesChecker(ClassifiedTBox tbox, OWLConnection conn)	 {
 		this.onto = tbox;
 		this.conn = conn;
+		this.detector = null;
+	}
+
+	/**
+	 * Checks the emptiness directly against the saturated mapping of the specification
+	 * (see OntopOWLReasoner.getEmptyEntitiesChecker())
+	 *
+	 * @param parallelism maximal number of connections used concurrently
+	 */
+	public QuestOWLEmptyEntitiesChecker(ClassifiedTBox tbox, OBDASpecification specification,
+										OntopQueryEngine queryEngine, IntermediateQueryFactory iqFactory,
+										TermFactory termFactory, int parallelism) {
+		this.onto = tbox;
+		this.conn = null;
+		this.detector = new MappingBasedEmptyEntitiesDetector(specification.getSaturatedMapping(), queryEngine,
+				iqFactory, termFactory, parallelism);
 	}
 
 	public Iterator<IRI> iEmptyConcepts() {
+		if (detector != null) {
+			ImmutableList<IRI> emptyConcepts = detectEmptyEntities(stream(onto.classes())
+					.filter(c -> !c.isTop() && !c.isBottom())
+					.map(OClass::getIRI), true);
+			nEmptyConcepts = emptyConcepts.size();
+			return emptyConcepts.iterator();
+		}
 		return new EmptyEntitiesIterator(onto.classes().iterator(), conn);
 	}
 
 	public Iterator<IRI> iEmptyRoles() {
+		if (detector != null) {
+			ImmutableList<IRI> emptyRoles = detectEmptyEntities(Stream.concat(
+					stream(onto.objectProperties())
+							.filter(p -> !p.isTop() && !p.isBottom())
+							.map(ObjectPropertyExpression::getIRI),
+					stream(onto.dataProperties())
+							.filter(p -> !p.isTop() && !p.isBottom())
+							.map(DataPropertyExpression::getIRI)), false);
+			nEmptyRoles = emptyRoles.size();
+			return emptyRoles.iterator();
+		}
 		return new EmptyEntitiesIterator(onto.objectProperties().iterator(), onto.dataProperties().iterator(), conn);
 	}
 
+	private static <T> Stream<T> stream(Iterable<T> entities) {
+		return StreamSupport.stream(entities.spliterator(), false);
+	}
+
+	private ImmutableList<IRI> detectEmptyEntities(Stream<IRI> entities, boolean areClasses) {
+		try {
+			return detector.getEmptyEntities(entities
+					.distinct()
+					.collect(ImmutableCollectors.toList()), areClasses);
+		}
+		catch (OWLException e) {
+			throw new OWLRuntimeException(e);
+		}
+	}
+
 	public int getEConceptsSize() {
 		return nEmptyConcepts;
 	}
@@ -169,4 +169,36 @@ public class QuestOWLEmptyEntitiesCheckerTest {
 		assertEquals(2, emptyRoles.size());
 		assertEquals(2, empties.getERolesSize());
 	}
+
+	/**
+	 * Test numbers of empty concepts, checked against the saturated mapping
+	 */
+	@Test
+	public void testEmptyConceptsFromMapping() {
+		QuestOWLEmptyEntitiesChecker empties = reasoner.getEmptyEntitiesChecker();
+		Iterator<IRI> iterator = empties.iEmptyConcepts();
+		while (iterator.hasNext()){
+			emptyConcepts.add(iterator.next());
+		}
+
+		log.info("Empty concept/s: " + emptyConcepts);
+		assertEquals(1, emptyConcepts.size());
+		assertEquals(1, empties.getEConceptsSize());
+	}
+
+	/**
+	 * Test numbers of empty roles, checked against the saturated mapping
+	 */
+	@Test
+	public void testEmptyRolesFromMapping() {
+		QuestOWLEmptyEntitiesChecker empties = reasoner.getEmptyEntitiesChecker();
+		Iterator<IRI> iterator = empties.iEmptyRoles();
+		while (iterator.hasNext()){
+			emptyRoles.add(iterator.next());
+		}
+
+		log.info("Empty role/s: " + emptyRoles);
+		assertEquals(2, emptyRoles.size());
+		assertEquals(2, empties.getERolesSize());
+	}
 }
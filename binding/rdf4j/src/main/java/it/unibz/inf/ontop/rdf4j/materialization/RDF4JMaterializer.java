@@ -27,6 +27,17 @@ public interface RDF4JMaterializer {
     MaterializationGraphQuery materialize(@Nonnull ImmutableSet<IRI> selectedVocabulary)
             throws RepositoryException;
 
+    /**
+     * Incremental materialization: triples derived from the inserted or updated rows
+     * (see MaterializationParams.getRelationChanges())
+     */
+    MaterializationGraphQuery materializeAddedTriples() throws RepositoryException;
+
+    /**
+     * Incremental materialization: triples derived from the deleted rows
+     */
+    MaterializationGraphQuery materializeRemovedTriples() throws RepositoryException;
+
     /**
      * Default implementation
      */
@@ -90,6 +90,24 @@ public class DefaultRDF4JMaterializer implements RDF4JMaterializer {
 		}
 	}
 
+	@Override
+	public MaterializationGraphQuery materializeAddedTriples() throws RepositoryException {
+		try {
+			return new DefaultMaterializedGraphQuery(materializer.materializeAddedTriples());
+		} catch (OBDASpecificationException e) {
+			throw new RepositoryException(e);
+		}
+	}
+
+	@Override
+	public MaterializationGraphQuery materializeRemovedTriples() throws RepositoryException {
+		try {
+			return new DefaultMaterializedGraphQuery(materializer.materializeRemovedTriples());
+		} catch (OBDASpecificationException e) {
+			throw new RepositoryException(e);
+		}
+	}
+
 	@Override
 	public ImmutableSet<IRI> getClasses() {
 		return materializer.getClasses();
@@ -19,7 +19,9 @@
  */
 package it.unibz.inf.ontop.rdf4j.query.impl;
 
+import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.dbschema.RelationID;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Value;
@@ -31,6 +33,8 @@ import org.eclipse.rdf4j.query.impl.MapBindingSet;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.QueryParserUtil;
 
+import java.util.Optional;
+
 /**
  * TODO: get rid of the query string and keeps the bindings separated from the ParsedQuery
  */
@@ -45,6 +49,8 @@ public abstract class AbstractOntopQuery implements Query {
     protected final OntopConnection conn;
     protected int queryTimeout;
     protected MapBindingSet bindings = new MapBindingSet();
+    // Of the last evaluation
+    private Optional<ImmutableSet<RelationID>> sourceRelations = Optional.empty();
 
     protected AbstractOntopQuery(String queryString, String baseIRI,
                                  ParsedQuery initialParsedQuery, OntopConnection conn) {
@@ -109,6 +115,18 @@ public abstract class AbstractOntopQuery implements Query {
         this.queryTimeout = maxQueryTime;
     }
 
+    /**
+     * Relations of the data source the answers of the last evaluation depend on, if known
+     * (e.g. for invalidating cached results)
+     */
+    public Optional<ImmutableSet<RelationID>> getSourceRelations() {
+        return sourceRelations;
+    }
+
+    protected void setSourceRelations(Optional<ImmutableSet<RelationID>> sourceRelations) {
+        this.sourceRelations = sourceRelations;
+    }
+
     //all code below is copy-pasted from org.eclipse.rdf4j.repository.sparql.query.SPARQLOperation
     protected String getQueryString() {
         if (bindings.size() == 0)
@@ -49,6 +49,7 @@ public class OntopBooleanQuery extends AbstractOntopQuery implements BooleanQuer
 
 		try (OntopStatement stm = conn.createStatement();
 			 BooleanResultSet rs = stm.execute(query)) {
+			setSourceRelations(stm.getSourceRelations());
 			return rs.getValue();
 
 		} catch (OntopConnectionException | OntopQueryAnsweringException e) {
@@ -78,6 +78,7 @@ public class OntopGraphQuery extends AbstractOntopQuery implements GraphQuery {
 				OntopStatement stm = conn.createStatement();
 				SimpleGraphResultSet res = stm.execute(query)
 		){
+			setSourceRelations(stm.getSourceRelations());
 			
 			Map<String, String> namespaces = new HashMap<>();
 			List<Statement> results = new LinkedList<>();
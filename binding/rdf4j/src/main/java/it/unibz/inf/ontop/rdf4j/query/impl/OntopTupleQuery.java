@@ -59,6 +59,7 @@ public class OntopTupleQuery extends AbstractOntopQuery implements TupleQuery {
 			try {
 				SelectQuery inputQuery = factory.createSelectQuery(getQueryString(), getParsedQuery());
 				res = stm.execute(inputQuery);
+				setSourceRelations(stm.getSourceRelations());
 			} catch (OntopQueryAnsweringException e) {
 				long end = System.currentTimeMillis();
 				if (this.queryTimeout > 0 && (end - start) >= this.queryTimeout * 1000){
@@ -81,12 +82,13 @@ public class OntopTupleQuery extends AbstractOntopQuery implements TupleQuery {
     @Override
 	public void evaluate(TupleQueryResultHandler handler) 
 			throws QueryEvaluationException, TupleQueryResultHandlerException {
-		TupleQueryResult result = evaluate();
-		handler.startQueryResult(result.getBindingNames());
-		while (result.hasNext()) {
-			handler.handleSolution(result.next());
+		try (TupleQueryResult result = evaluate()) {
+			handler.startQueryResult(result.getBindingNames());
+			while (result.hasNext()) {
+				handler.handleSolution(result.next());
+			}
+			handler.endQueryResult();
 		}
-		handler.endQueryResult();
 	}
 
     @Override
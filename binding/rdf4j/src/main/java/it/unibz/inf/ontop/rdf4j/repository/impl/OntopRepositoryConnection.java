@@ -32,8 +32,9 @@ import it.unibz.inf.ontop.rdf4j.query.impl.OntopTupleQuery;
 import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
 import org.eclipse.rdf4j.IsolationLevel;
 import org.eclipse.rdf4j.IsolationLevels;
-import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.common.iteration.ExceptionConvertingIteration;
 import org.eclipse.rdf4j.model.*;
 import org.eclipse.rdf4j.model.impl.NamespaceImpl;
 import org.eclipse.rdf4j.model.impl.ValueFactoryImpl;
@@ -182,12 +183,14 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
 
         handler.startRDF();
         // handle
-        if (stms != null) {
+        try {
             while (stms.hasNext()) {
                 Statement st = stms.next();
                 if (st != null)
                     handler.handleStatement(st);
             }
+        } finally {
+            stms.close();
         }
         handler.endRDF();
 
@@ -245,43 +248,43 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
         //predicate and/or object from the repository.
         //The result is optionally restricted to the specified set of named contexts.
 
-        //construct query for it
-        StringBuilder queryString = new StringBuilder("CONSTRUCT {");
-
-        StringBuilder spo = subj == null ? new StringBuilder("?s ") : RenderUtils.toSPARQL(subj, new StringBuilder());
-
-        spo = pred == null ? spo.append(" ?p ") : RenderUtils.toSPARQL(pred, spo);
+        if (!isDefaultContext(contexts))
+            return new RepositoryResult<>(new EmptyIteration<>());
 
-        spo = obj == null ? spo.append(" ?o ") : RenderUtils.toSPARQL(obj, spo);
-
-        queryString.append(spo).append("} WHERE {").append(spo).append("}");
+        //construct query for it
+        String spo = renderTriplePattern(subj, pred, obj);
+        String queryString = "CONSTRUCT {" + spo + "} WHERE {" + spo + "}";
 
-        //execute construct query
+        //the statements are streamed from the live result set: the caller is in charge of closing the result
         try {
-            List<Statement> list = new LinkedList<Statement>();
-
-            if (contexts.length == 0 || (contexts.length > 0 && contexts[0] == null)) {
-                GraphQuery query = prepareGraphQuery(QueryLanguage.SPARQL,
-                        queryString.toString());
-                GraphQueryResult result = query.evaluate();
+            GraphQueryResult result = prepareGraphQuery(QueryLanguage.SPARQL, queryString).evaluate();
+            return new RepositoryResult<>(new ExceptionConvertingIteration<Statement, RepositoryException>(result) {
+                @Override
+                protected RepositoryException convert(Exception e) {
+                    return (e instanceof RepositoryException)
+                            ? (RepositoryException) e
+                            : new RepositoryException(e);
+                }
+            });
+        } catch (MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException(e);
+        }
+    }
 
-                // System.out.println("result: "+result.hasNext());
-                while (result.hasNext())
-                    list.add(result.next());
-                // result.close();
-            }
-            CloseableIteration<Statement, RepositoryException> iter = new CloseableIteratorIteration<Statement, RepositoryException>(
-                    list.iterator());
-            RepositoryResult<Statement> repoResult = new RepositoryResult<Statement>(iter);
+    /**
+     * Only the default context is supported
+     */
+    private static boolean isDefaultContext(Resource... contexts) {
+        return contexts.length == 0 || contexts[0] == null;
+    }
 
-            return repoResult;
-        } catch (MalformedQueryException e) {
-            throw new RepositoryException(e);
+    private static String renderTriplePattern(Resource subj, IRI pred, Value obj) {
+        StringBuilder spo = subj == null ? new StringBuilder("?s ") : RenderUtils.toSPARQL(subj, new StringBuilder());
 
-        } catch (QueryEvaluationException e) {
-            throw new RepositoryException(e);
+        spo = pred == null ? spo.append(" ?p ") : RenderUtils.toSPARQL(pred, spo);
 
-        }
+        spo = obj == null ? spo.append(" ?o ") : RenderUtils.toSPARQL(obj, spo);
+        return spo.toString();
     }
 
     @Override
@@ -304,12 +307,14 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
                                 boolean includeInferred, Resource... contexts) throws RepositoryException {
         //Checks whether the repository contains statements with a specific subject,
         //predicate and/or object, optionally in the specified contexts.
-        RepositoryResult<Statement> stIter = getStatements(subj, pred,
-                obj, includeInferred, contexts);
+        if (!isDefaultContext(contexts))
+            return false;
+
         try {
-            return stIter.hasNext();
-        } finally {
-            stIter.close();
+            return prepareBooleanQuery(QueryLanguage.SPARQL,
+                    "ASK {" + renderTriplePattern(subj, pred, obj) + "}").evaluate();
+        } catch (MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException(e);
         }
     }
 
@@ -327,7 +332,7 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
     @Override
     public boolean isEmpty() throws RepositoryException {
         //Returns true if this repository does not contain any (explicit) statements.
-        return size() == 0;
+        return !hasStatement(null, null, null, false);
     }
 
     @Override
@@ -545,7 +550,21 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
     @Override
     public long size(Resource... contexts) throws RepositoryException {
         //Returns the number of (explicit) statements that are in the specified contexts in this repository.
-        return 0;
+        if (!isDefaultContext(contexts))
+            return 0;
+
+        // the count is evaluated by the DB
+        String queryString = "SELECT (COUNT(*) AS ?c) WHERE { SELECT DISTINCT ?s ?p ?o WHERE { ?s ?p ?o } }";
+        try (TupleQueryResult result = prepareTupleQuery(QueryLanguage.SPARQL, queryString).evaluate()) {
+            if (!result.hasNext())
+                return 0;
+            Value count = result.next().getValue("c");
+            return (count instanceof Literal)
+                    ? ((Literal) count).longValue()
+                    : 0;
+        } catch (MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException(e);
+        }
     }
 
 
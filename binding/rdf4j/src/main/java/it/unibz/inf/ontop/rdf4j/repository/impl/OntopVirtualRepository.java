@@ -22,6 +22,7 @@ package it.unibz.inf.ontop.rdf4j.repository.impl;
 
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.monitoring.QueryMetrics;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQueryFactory;
 import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
 import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
@@ -100,6 +101,16 @@ public class OntopVirtualRepository extends AbstractRepository implements OntopR
         }
     }
 
+    /**
+     * Empty before the initialization
+     */
+    public QueryMetrics getQueryMetrics() {
+        OntopQueryEngine engine = queryEngine;
+        return (engine == null)
+                ? QueryMetrics.empty()
+                : engine.getQueryMetrics();
+    }
+
     @Override
     public boolean isWritable() throws RepositoryException {
         return false;
@@ -0,0 +1,78 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import static org.junit.Assert.*;
+
+public class RDF4JStatementsTest extends AbstractRDF4JTest {
+
+    private static final String CREATE_DB_FILE = "/label_comment.sql";
+    private static final String OBDA_FILE = "/label_comment.obda";
+
+    private static final ValueFactory VALUE_FACTORY = SimpleValueFactory.getInstance();
+    private static final IRI INDIVIDUAL_1 = VALUE_FACTORY.createIRI("http://example.org/Individual1");
+    private static final IRI INDIVIDUAL_2 = VALUE_FACTORY.createIRI("http://example.org/Individual2");
+
+    @BeforeClass
+    public static void before() throws IOException, SQLException {
+        initOBDA(CREATE_DB_FILE, OBDA_FILE);
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        release();
+    }
+
+    @Test
+    public void testGetStatements() {
+        RepositoryConnection connection = getRepositoryConnection();
+        int count = 0;
+        try (RepositoryResult<Statement> statements = connection.getStatements(null, RDFS.LABEL, null, false)) {
+            while (statements.hasNext()) {
+                Statement statement = statements.next();
+                assertEquals(INDIVIDUAL_1, statement.getSubject());
+                assertEquals(RDFS.LABEL, statement.getPredicate());
+                count++;
+            }
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void testGetStatementsEarlyClose() {
+        RepositoryConnection connection = getRepositoryConnection();
+        try (RepositoryResult<Statement> statements = connection.getStatements(INDIVIDUAL_1, null, null, false)) {
+            assertTrue(statements.hasNext());
+            assertEquals(INDIVIDUAL_1, statements.next().getSubject());
+        }
+    }
+
+    @Test
+    public void testHasStatement() {
+        RepositoryConnection connection = getRepositoryConnection();
+        assertTrue(connection.hasStatement(INDIVIDUAL_1, RDFS.COMMENT, null, false));
+        assertTrue(connection.hasStatement(INDIVIDUAL_1, RDFS.LABEL,
+                VALUE_FACTORY.createLiteral("testdaten", "de"), false));
+        assertFalse(connection.hasStatement(INDIVIDUAL_2, null, null, false));
+        assertFalse(connection.hasStatement(INDIVIDUAL_1, RDFS.LABEL, null, false, INDIVIDUAL_1));
+    }
+
+    @Test
+    public void testSize() {
+        RepositoryConnection connection = getRepositoryConnection();
+        assertEquals(4, connection.size());
+        assertFalse(connection.isEmpty());
+    }
+}
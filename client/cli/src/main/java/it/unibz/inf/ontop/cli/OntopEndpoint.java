@@ -4,6 +4,8 @@ import com.github.jsonldjava.shaded.com.google.common.collect.Lists;
 import com.github.rvesse.airline.annotations.Command;
 import com.github.rvesse.airline.annotations.Option;
 import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.annotations.help.BashCompletion;
+import com.github.rvesse.airline.help.cli.bash.CompletionBehaviour;
 import it.unibz.inf.ontop.endpoint.OntopEndpointApplication;
 
 import java.util.ArrayList;
@@ -29,6 +31,40 @@ public class OntopEndpoint extends OntopMappingOntologyRelatedCommand {
             description = "development mode")
     private boolean dev = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--db-metadata-cache"}, title = "DB metadata cache file",
+            description = "caches the DB metadata (can be written in advance by the extract-db-metadata command)")
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    private String dbMetadataCacheFile;
+
+    @Option(type = OptionType.COMMAND, name = {"--slow-query-threshold"}, title = "milliseconds",
+            description = "logs the queries whose response takes longer")
+    private Integer slowQueryThreshold;
+
+    @Option(type = OptionType.COMMAND, name = {"--result-cache"}, title = "result cache",
+            description = "caches the query results (to be invalidated by POST /ontop/result-cache/invalidate?relation=...)")
+    private boolean resultCache = false;
+
+    @Option(type = OptionType.COMMAND, name = {"--result-cache-max-memory"}, title = "MB",
+            description = "memory budget of the result cache (default: 64)")
+    private Integer resultCacheMaxMemory;
+
+    @Option(type = OptionType.COMMAND, name = {"--result-cache-max-disk"}, title = "MB",
+            description = "disk budget of the result cache, for the results evicted from the memory (default: 0)")
+    private Integer resultCacheMaxDisk;
+
+    @Option(type = OptionType.COMMAND, name = {"--result-cache-dir"}, title = "directory",
+            description = "directory of the disk tier of the result cache (default: temporary directory)")
+    @BashCompletion(behaviour = CompletionBehaviour.DIRECTORIES)
+    private String resultCacheDirectory;
+
+    @Option(type = OptionType.COMMAND, name = {"--result-cache-max-entry-size"}, title = "MB",
+            description = "larger results are not cached (default: 8)")
+    private Integer resultCacheMaxEntrySize;
+
+    @Option(type = OptionType.COMMAND, name = {"--result-cache-ttl"}, title = "seconds",
+            description = "expiration of the cached results (default: none)")
+    private Integer resultCacheTTL;
+
     @Override
     public void run() {
 
@@ -48,6 +84,31 @@ public class OntopEndpoint extends OntopMappingOntologyRelatedCommand {
         if (this.constraintFile != null)
             argList.add("--constraint=" + this.constraintFile);
 
+        if (this.dbMetadataCacheFile != null)
+            argList.add("--db-metadata-cache=" + this.dbMetadataCacheFile);
+
+        if (this.slowQueryThreshold != null)
+            argList.add("--slow-query-threshold=" + this.slowQueryThreshold);
+
+        if (this.resultCache) {
+            argList.add("--result-cache=true");
+
+            if (this.resultCacheMaxMemory != null)
+                argList.add("--result-cache-max-memory=" + this.resultCacheMaxMemory);
+
+            if (this.resultCacheMaxDisk != null)
+                argList.add("--result-cache-max-disk=" + this.resultCacheMaxDisk);
+
+            if (this.resultCacheDirectory != null)
+                argList.add("--result-cache-dir=" + this.resultCacheDirectory);
+
+            if (this.resultCacheMaxEntrySize != null)
+                argList.add("--result-cache-max-entry-size=" + this.resultCacheMaxEntrySize);
+
+            if (this.resultCacheTTL != null)
+                argList.add("--result-cache-ttl=" + this.resultCacheTTL);
+        }
+
         String[] args = new String[argList.size()];
         argList.toArray(args);
 
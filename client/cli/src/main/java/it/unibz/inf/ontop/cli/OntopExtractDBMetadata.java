@@ -0,0 +1,96 @@
+package it.unibz.inf.ontop.cli;
+
+/*
+ * #%L
+ * ontop-cli
+ * %%
+ * Copyright (C) 2009 - 2014 Free University of Bozen-Bolzano
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.annotations.help.BashCompletion;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import com.github.rvesse.airline.help.cli.bash.CompletionBehaviour;
+import it.unibz.inf.ontop.dbschema.DBMetadata;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**
+ * Writes the DB metadata cache in advance: same file as the one written at boot time
+ * when the property ontop.dbMetadataCacheFile is set.
+ */
+@Command(name = "extract-db-metadata",
+        description = "Extract the DB metadata needed by the mapping into a DB metadata cache file " +
+                "(option --db-metadata-cache of the endpoint or property " +
+                OntopMappingSQLSettings.DB_METADATA_CACHE_FILE + ")")
+public class OntopExtractDBMetadata extends OntopMappingOntologyRelatedCommand {
+
+    @Option(type = OptionType.COMMAND, name = {"-o", "--output"},
+            title = "output", description = "output DB metadata cache file")
+    @Required
+    @BashCompletion(behaviour = CompletionBehaviour.FILENAMES)
+    String outputFile;
+
+    @Override
+    public void run() {
+
+        try {
+            Properties properties = new Properties();
+            try (Reader reader = new FileReader(propertiesFile)) {
+                properties.load(reader);
+            }
+            properties.setProperty(OntopMappingSQLSettings.DB_METADATA_CACHE_FILE, outputFile);
+            // Always extracted from the database
+            Files.deleteIfExists(new File(outputFile).toPath());
+
+            OntopSQLOWLAPIConfiguration.Builder<? extends OntopSQLOWLAPIConfiguration.Builder> builder =
+                    OntopSQLOWLAPIConfiguration.defaultBuilder()
+                            .properties(properties);
+
+            if (isR2rmlFile(mappingFile))
+                builder.r2rmlMappingFile(mappingFile);
+            else
+                builder.nativeOntopMappingFile(mappingFile);
+
+            if (owlFile != null)
+                builder.ontologyFile(owlFile);
+
+            if (constraintFile != null)
+                builder.basicImplicitConstraintFile(constraintFile);
+
+            // Also validates the mapping
+            DBMetadata dbMetadata = builder.build().loadSpecification().getDBMetadata();
+            if (!new File(outputFile).exists())
+                throw new IllegalStateException("The DB metadata cache could not be written");
+
+            System.out.format("DB metadata of %d relations saved into %s\n",
+                    dbMetadata.getDatabaseRelations().size(), outputFile);
+        }
+        catch (Exception e) {
+            System.out.format("ERROR: cannot extract the DB metadata of the mapping %s\n", mappingFile);
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
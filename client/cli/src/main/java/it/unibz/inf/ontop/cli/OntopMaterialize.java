@@ -29,7 +29,9 @@ import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.exception.OBDASpecificationException;
 import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
 import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration.Builder;
+import it.unibz.inf.ontop.materialization.MaterializationOutput;
 import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.materialization.RelationChanges;
 import it.unibz.inf.ontop.rdf4j.materialization.RDF4JMaterializer;
 import org.apache.commons.rdf.api.IRI;
 import org.eclipse.rdf4j.query.GraphQueryResult;
@@ -44,12 +46,21 @@ import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.io.FilenameUtils.removeExtension;
@@ -101,6 +112,32 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             description = "All the SQL results of one big query will be stored in memory. Not recommended. Default: false.")
     private boolean noStream = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--threads"}, title = "number of threads",
+            description = "Number of classes/properties materialized concurrently, each of them using its own " +
+                    "DB connection. Default: 1.")
+    private int threads = 1;
+
+    @Option(type = OptionType.COMMAND, name = {"--checkpoint"}, title = "checkpoint file",
+            description = "File recording the classes/properties whose triples have been written into the output " +
+                    "file. When resuming an interrupted materialization, they are skipped and the output file is " +
+                    "truncated after the last of them. Requires --output and the ntriples format, and is " +
+                    "incompatible with --separate-files.")
+    private String checkpointFile;
+
+    @Option(type = OptionType.COMMAND, name = {"--watermark"}, title = "relation,column,lastValue",
+            description = "Incremental materialization: the rows of the relation whose column is greater than the " +
+                    "last value (e.g. a creation timestamp) are considered as inserted. The triples of the old " +
+                    "version of updated rows are not removed: use --change-table for relations with updates or " +
+                    "deletions. Can be repeated. The added triples are written into <output>-added.")
+    private List<String> watermarks = new ArrayList<>();
+
+    @Option(type = OptionType.COMMAND, name = {"--change-table"}, title = "relation,changeTable,operationColumn",
+            description = "Incremental materialization: the change table has the columns of the relation plus an " +
+                    "operation column (I for the inserted rows, D for the deleted ones; an update is a D row " +
+                    "with the old values and an I row with the new ones). Can be repeated. " +
+                    "The added and removed triples are written into <output>-added and <output>-removed.")
+    private List<String> changeTables = new ArrayList<>();
+
     private boolean doStreamResults = true;
 
     public OntopMaterialize() {
@@ -114,18 +151,37 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         if (noStream) {
             doStreamResults = false;
         }
-        RDF4JMaterializer materializer = createMaterializer();
+        if (threads < 1)
+            throw new IllegalArgumentException("The number of threads must be positive");
+        if (checkpointFile != null && (outputFile == null || separate || (!format.equals(NTRIPLES))))
+            throw new IllegalArgumentException("--checkpoint requires --output and the ntriples format, " +
+                    "and is incompatible with --separate-files");
+        boolean isIncremental = !(watermarks.isEmpty() && changeTables.isEmpty());
+        if (isIncremental && (outputFile == null || separate || checkpointFile != null))
+            throw new IllegalArgumentException("The incremental materialization requires --output and is " +
+                    "incompatible with --separate-files and --checkpoint");
         OutputSpec outputSpec = (outputFile == null) ?
                 new OutputSpec(format) :
                 new OutputSpec(outputFile, format);
-        if (separate) {
+        Optional<CheckpointOutput> checkpointOutput;
+        try {
+            checkpointOutput = (checkpointFile == null)
+                    ? Optional.empty()
+                    : Optional.of(new CheckpointOutput(outputSpec.getFile()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        RDF4JMaterializer materializer = createMaterializer(checkpointOutput);
+        if (isIncremental) {
+            runIncrementally(materializer, outputSpec);
+        } else if (separate) {
             runWithSeparateFiles(materializer, outputSpec);
         } else {
-            runWithSingleFile(materializer, outputSpec);
+            runWithSingleFile(materializer, outputSpec, checkpointOutput);
         }
     }
 
-    private RDF4JMaterializer createMaterializer() {
+    private RDF4JMaterializer createMaterializer(Optional<CheckpointOutput> checkpointOutput) {
 
         RDF4JMaterializer materializer;
         try {
@@ -133,18 +189,44 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             OntopSQLOWLAPIConfiguration materializerConfiguration = createAndInitConfigurationBuilder()
                     .ontology(ontology)
                     .build();
-            materializer = RDF4JMaterializer.defaultMaterializer(
-                    materializerConfiguration,
-                    MaterializationParams.defaultBuilder()
-                            .enableDBResultsStreaming(doStreamResults)
-                            .build()
-            );
+            MaterializationParams.Builder paramsBuilder = MaterializationParams.defaultBuilder()
+                    .enableDBResultsStreaming(doStreamResults)
+                    // In separate-files mode, the classes/properties are materialized one by one
+                    .parallelism(separate ? 1 : threads);
+            if (checkpointOutput.isPresent())
+                paramsBuilder.checkpoint(new File(checkpointFile), checkpointOutput.get());
+            for (String watermark : watermarks) {
+                String[] arguments = splitRelationChangesArguments(watermark, "--watermark");
+                paramsBuilder.relationChanges(RelationChanges.watermark(arguments[0], arguments[1], arguments[2]));
+            }
+            for (String changeTable : changeTables) {
+                String[] arguments = splitRelationChangesArguments(changeTable, "--change-table");
+                paramsBuilder.relationChanges(RelationChanges.changeTable(arguments[0], arguments[1], arguments[2]));
+            }
+            if (!separate)
+                paramsBuilder.progressListener((iri, count, isPossiblyIncomplete, completed, total) ->
+                        System.err.println(String.format("Materialized %s: %d triples%s (%d/%d)", iri, count,
+                                isPossiblyIncomplete ? " (possibly incomplete)" : "", completed, total)));
+
+            materializer = RDF4JMaterializer.defaultMaterializer(materializerConfiguration, paramsBuilder.build());
         } catch (OBDASpecificationException | OWLOntologyCreationException e) {
             throw new RuntimeException(e);
         }
         return materializer;
     }
 
+    /**
+     * The last argument (e.g. a timestamp) may contain commas
+     */
+    private static String[] splitRelationChangesArguments(String value, String optionName) {
+        String[] arguments = value.split(",", 3);
+        if (arguments.length != 3)
+            throw new IllegalArgumentException(optionName + " expects three comma-separated arguments: " + value);
+        return Arrays.stream(arguments)
+                .map(String::trim)
+                .toArray(String[]::new);
+    }
+
     private OWLOntology loadOntology() throws OWLOntologyCreationException {
         if (owlFile != null) {
             OWLOntology ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(new File(owlFile));
@@ -156,7 +238,8 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         return OWLManager.createOWLOntologyManager().createOntology();
     }
 
-    private void runWithSingleFile(RDF4JMaterializer materializer, OutputSpec outputSpec) {
+    private void runWithSingleFile(RDF4JMaterializer materializer, OutputSpec outputSpec,
+                                   Optional<CheckpointOutput> checkpointOutput) {
         int tripleCount = 0;
 
         final long startTime = System.currentTimeMillis();
@@ -164,7 +247,9 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         GraphQueryResult result = materializer.materialize().evaluate();
 
         try {
-            BufferedWriter writer = outputSpec.createWriter(Optional.empty());
+            BufferedWriter writer = checkpointOutput.isPresent()
+                    ? checkpointOutput.get().writer
+                    : outputSpec.createWriter(Optional.empty());
             tripleCount += serializeTripleBatch(
                     result,
                     Optional.empty(),
@@ -182,31 +267,73 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         System.out.println("Elapsed time to materialize: " + time + " {ms}");
     }
 
+    /**
+     * The added and removed triples are written into two separate files
+     */
+    private void runIncrementally(RDF4JMaterializer materializer, OutputSpec outputSpec) {
+        final long startTime = System.currentTimeMillis();
+
+        try {
+            try (GraphQueryResult result = materializer.materializeAddedTriples().evaluate()) {
+                BufferedWriter writer = outputSpec.createWriter("-added");
+                System.out.println("NR of ADDED TRIPLES: " + serializeTripleBatch(result, Optional.empty(), writer,
+                        outputSpec.createRDFHandler(writer)));
+            }
+            try (GraphQueryResult result = materializer.materializeRemovedTriples().evaluate()) {
+                BufferedWriter writer = outputSpec.createWriter("-removed");
+                System.out.println("NR of REMOVED TRIPLES: " + serializeTripleBatch(result, Optional.empty(), writer,
+                        outputSpec.createRDFHandler(writer)));
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        final long time = System.currentTimeMillis() - startTime;
+        System.out.println("Elapsed time to materialize: " + time + " {ms}");
+    }
+
     private void runWithSeparateFiles(RDF4JMaterializer materializer, OutputSpec outputSpec) {
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
         try {
-            materializeClassesByFile(materializer, outputSpec);
-            materializePropertiesByFile(materializer, outputSpec);
+            List<Future<?>> futures = new ArrayList<>();
+            materializeClassesByFile(materializer, outputSpec, executorService, futures);
+            materializePropertiesByFile(materializer, outputSpec, executorService, futures);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            executorService.shutdownNow();
         }
     }
 
-    private void materializeClassesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec) throws Exception {
+    private void materializeClassesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec,
+                                          ExecutorService executorService, List<Future<?>> futures) {
         ImmutableSet<IRI> classes = materializer.getClasses();
         int total = classes.size();
         AtomicInteger i = new AtomicInteger();
         for (IRI c : classes) {
-            serializePredicate(materializer, c, PredicateType.CLASS, i.incrementAndGet(), total, outputSpec);
+            futures.add(executorService.submit(() -> {
+                serializePredicate(materializer, c, PredicateType.CLASS, i.incrementAndGet(), total, outputSpec);
+                return null;
+            }));
         }
     }
 
-    private void materializePropertiesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec) throws Exception {
+    private void materializePropertiesByFile(RDF4JMaterializer materializer, OutputSpec outputSpec,
+                                             ExecutorService executorService, List<Future<?>> futures) {
         ImmutableSet<IRI> properties = materializer.getProperties();
 
         int total = properties.size();
         AtomicInteger i = new AtomicInteger();
         for (IRI p : properties) {
-            serializePredicate(materializer, p, PredicateType.PROPERTY, i.incrementAndGet(), total, outputSpec);
+            futures.add(executorService.submit(() -> {
+                serializePredicate(materializer, p, PredicateType.PROPERTY, i.incrementAndGet(), total, outputSpec);
+                return null;
+            }));
         }
     }
 
@@ -215,7 +342,7 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
      */
     private void serializePredicate(RDF4JMaterializer materializer, IRI predicateIRI,
                                     PredicateType predicateType, int index, int total,
-                                    OutputSpec outputSpec) throws Exception {
+                                    OutputSpec outputSpec) throws IOException {
         final long startTime = System.currentTimeMillis();
 
 
@@ -282,6 +409,32 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
                 .enableOntologyAnnotationQuerying(true);
     }
 
+    /**
+     * Single output file, appended when resuming the materialization
+     */
+    private static class CheckpointOutput implements MaterializationOutput {
+        private final FileOutputStream stream;
+        private final BufferedWriter writer;
+
+        private CheckpointOutput(File file) throws IOException {
+            this.stream = new FileOutputStream(file, true);
+            this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public long sync() throws IOException {
+            writer.flush();
+            stream.getFD().sync();
+            return stream.getChannel().size();
+        }
+
+        @Override
+        public void truncate(long position) throws IOException {
+            writer.flush();
+            stream.getChannel().truncate(position);
+        }
+    }
+
     private class OutputSpec {
         private final Optional<String> prefix;
         private final String format;
@@ -310,6 +463,17 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             return new BufferedWriter(new OutputStreamWriter(System.out, "UTF-8"));
         }
 
+        private File getFile() {
+            return new File(prefix.get() + getSuffix());
+        }
+
+        /**
+         * Appends the infix to the output file name, before its extension
+         */
+        private BufferedWriter createWriter(String infix) throws IOException {
+            return Files.newBufferedWriter(Paths.get(prefix.get() + infix + getSuffix()), Charset.forName("UTF-8"));
+        }
+
         private String getSuffix() {
             switch (format) {
                 case RDF_XML:
@@ -334,6 +498,7 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
                 case NTRIPLES:
                     NTriplesWriter btw  = new NTriplesWriter(writer);
                     btw.set(BasicWriterSettings.PRETTY_PRINT, false);
+                    return btw;
                 default:
                     throw new RuntimeException("Unknown output format: " + format);
             }
@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.cli;
 
+import com.google.common.io.ByteStreams;
 import org.eclipse.rdf4j.query.*;
 import org.eclipse.rdf4j.repository.Repository;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
@@ -9,6 +10,17 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.ExternalResource;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
 public class OntopEndpointTest {
 
     @ClassRule
@@ -22,7 +34,8 @@ public class OntopEndpointTest {
         String[] argv = {"endpoint", "-m", "src/test/resources/books/exampleBooks.obda",
                 "-p", "src/test/resources/books/exampleBooks.properties",
                 "-t", "src/test/resources/books/exampleBooks.owl",
-                "--port=" + PORT};
+                "--port=" + PORT,
+                "--result-cache"};
         Ontop.main(argv);
     }
 
@@ -53,6 +66,67 @@ public class OntopEndpointTest {
         }
     }
 
+    @Test
+    public void testResultCache() throws IOException {
+        String queryString = "PREFIX : <http://meraka/moss/exampleBooks.owl#>\n" +
+                "SELECT ?x ?title\n" +
+                "WHERE { ?x a :Book; :title ?title }";
+
+        HttpURLConnection firstResponse = sendQuery(queryString, null);
+        assertEquals(200, firstResponse.getResponseCode());
+        String eTag = firstResponse.getHeaderField("ETag");
+        assertNotNull(eTag);
+        String body = readBody(firstResponse);
+
+        // Same query, up to the layout
+        HttpURLConnection secondResponse = sendQuery(queryString.replace("\n", "\n   # comment\n"), null);
+        assertEquals(200, secondResponse.getResponseCode());
+        assertEquals(eTag, secondResponse.getHeaderField("ETag"));
+        assertEquals(body, readBody(secondResponse));
+
+        assertEquals(304, sendQuery(queryString, eTag).getResponseCode());
+
+        // Not used by the query
+        invalidate("tb_editor");
+        assertEquals(304, sendQuery(queryString, eTag).getResponseCode());
+
+        invalidate("tb_books");
+        HttpURLConnection thirdResponse = sendQuery(queryString, eTag);
+        assertEquals(200, thirdResponse.getResponseCode());
+        String thirdETag = thirdResponse.getHeaderField("ETag");
+        assertNotEquals(eTag, thirdETag);
+        assertEquals(body, readBody(thirdResponse));
+
+        // The schema of tb_books is not given in the mapping
+        invalidate("public.tb_books");
+        HttpURLConnection fourthResponse = sendQuery(queryString, thirdETag);
+        assertEquals(200, fourthResponse.getResponseCode());
+        assertNotEquals(thirdETag, fourthResponse.getHeaderField("ETag"));
+    }
+
+    private static HttpURLConnection sendQuery(String queryString, String ifNoneMatch) throws IOException {
+        URL url = new URL("http://localhost:" + PORT + "/sparql?query="
+                + URLEncoder.encode(queryString, StandardCharsets.UTF_8.name()));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestProperty("Accept", "application/sparql-results+json");
+        if (ifNoneMatch != null)
+            connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        return connection;
+    }
+
+    private static void invalidate(String relation) throws IOException {
+        URL url = new URL("http://localhost:" + PORT + "/ontop/result-cache/invalidate?relation=" + relation);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        assertEquals(200, connection.getResponseCode());
+    }
+
+    private static String readBody(HttpURLConnection connection) throws IOException {
+        try (InputStream inputStream = connection.getInputStream()) {
+            return new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8);
+        }
+    }
+
     @Test(expected = QueryEvaluationException.class)
     public void testInvalidQuery() {
 
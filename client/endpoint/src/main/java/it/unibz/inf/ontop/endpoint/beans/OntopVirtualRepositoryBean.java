@@ -16,6 +16,7 @@ public class OntopVirtualRepositoryBean {
                                                           @Value("${ontology:#{null}}") String ontology,
                                                           @Value("${properties}") String properties,
                                                           @Value("${constraint:#{null}}") String constraint,
+                                                          @Value("${db-metadata-cache:#{null}}") String dbMetadataCache,
                                                           @Value("${lazy:false}") boolean lazy) throws RepositoryException {
         OntopSQLOWLAPIConfiguration.Builder<? extends OntopSQLOWLAPIConfiguration.Builder> builder = OntopSQLOWLAPIConfiguration.defaultBuilder()
                 .propertyFile(properties);
@@ -31,6 +32,9 @@ public class OntopVirtualRepositoryBean {
         if (constraint !=null && !constraint.isEmpty())
             builder.basicImplicitConstraintFile(constraint);
 
+        if (dbMetadataCache != null && !dbMetadataCache.isEmpty())
+            builder.dbMetadataCacheFile(dbMetadataCache);
+
         OntopSQLOWLAPIConfiguration configuration = builder.build();
         OntopVirtualRepository repository = OntopRepository.defaultRepository(configuration);
 
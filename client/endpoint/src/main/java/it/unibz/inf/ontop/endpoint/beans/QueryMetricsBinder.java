@@ -0,0 +1,65 @@
+package it.unibz.inf.ontop.endpoint.beans;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import it.unibz.inf.ontop.answering.monitoring.QueryCounter;
+import it.unibz.inf.ontop.answering.monitoring.QueryStage;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the metrics of the query monitor of the repository to Micrometer
+ * (only recorded when ontop.queryMonitoring is enabled).
+ */
+@Component
+public class QueryMetricsBinder implements MeterBinder {
+
+    private final OntopVirtualRepository repository;
+
+    @Autowired
+    public QueryMetricsBinder(OntopVirtualRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("ontop.query", repository,
+                r -> r.getQueryMetrics().getQueryCount(),
+                r -> r.getQueryMetrics().getTotalTime(),
+                TimeUnit.NANOSECONDS)
+                .description("Queries, from their reformulation until their results are consumed")
+                .register(registry);
+
+        FunctionCounter.builder("ontop.query.failed", repository, r -> r.getQueryMetrics().getFailedQueryCount())
+                .register(registry);
+
+        FunctionCounter.builder("ontop.query.slow", repository, r -> r.getQueryMetrics().getSlowQueryCount())
+                .register(registry);
+
+        FunctionCounter.builder("ontop.query.slow.running", repository,
+                r -> r.getQueryMetrics().getRunningSlowQueryCount())
+                .description("Slow queries reported before their results were consumed")
+                .register(registry);
+
+        for (QueryStage stage : QueryStage.values()) {
+            FunctionTimer.builder("ontop.query.stage", repository,
+                    r -> r.getQueryMetrics().getQueryCount(),
+                    r -> r.getQueryMetrics().getStageTotalTime(stage),
+                    TimeUnit.NANOSECONDS)
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(registry);
+        }
+
+        for (QueryCounter counter : QueryCounter.values()) {
+            FunctionCounter.builder("ontop.query.counter", repository,
+                    r -> r.getQueryMetrics().getCounterTotal(counter))
+                    .tag("counter", counter.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+}
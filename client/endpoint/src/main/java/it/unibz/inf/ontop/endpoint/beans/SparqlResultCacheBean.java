@@ -0,0 +1,35 @@
+package it.unibz.inf.ontop.endpoint.beans;
+
+import it.unibz.inf.ontop.endpoint.cache.SparqlResultCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+@Component
+public class SparqlResultCacheBean {
+
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * Sizes in MB, TTL in seconds (negative for no expiration)
+     */
+    @Bean
+    private SparqlResultCache setupSparqlResultCache(@Value("${result-cache:false}") boolean isEnabled,
+                                                     @Value("${result-cache-max-memory:64}") long maxMemorySize,
+                                                     @Value("${result-cache-max-disk:0}") long maxDiskSize,
+                                                     @Value("${result-cache-dir:#{null}}") String directory,
+                                                     @Value("${result-cache-max-entry-size:8}") long maxEntrySize,
+                                                     @Value("${result-cache-ttl:-1}") long ttl) throws IOException {
+        if (!isEnabled)
+            return SparqlResultCache.disabled();
+
+        return new SparqlResultCache(maxMemorySize * MB, maxDiskSize * MB,
+                (directory == null || directory.isEmpty()) ? null : new File(directory),
+                maxEntrySize * MB,
+                (ttl < 0) ? Optional.empty() : Optional.of(ttl));
+    }
+}
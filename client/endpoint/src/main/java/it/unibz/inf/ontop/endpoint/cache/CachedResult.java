@@ -0,0 +1,64 @@
+package it.unibz.inf.ontop.endpoint.cache;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Optional;
+
+/**
+ * Serialized results of a query, together with the relations of the data source they depend on.
+ *
+ * Immutable class.
+ */
+public class CachedResult {
+
+    private final String eTag;
+    private final byte[] body;
+    private final Optional<ImmutableSet<String>> relationNames;
+    private final long creationTime;
+    private final long invalidationCount;
+
+    CachedResult(String eTag, byte[] body, Optional<ImmutableSet<String>> relationNames, long creationTime,
+                 long invalidationCount) {
+        this.eTag = eTag;
+        this.body = body;
+        this.relationNames = relationNames;
+        this.creationTime = creationTime;
+        this.invalidationCount = invalidationCount;
+    }
+
+    /**
+     * Quoted, as expected in the ETag header
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Not to be modified
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * Normalized names (see SparqlResultCache.invalidate()).
+     * Empty if the dependencies are unknown (e.g. for mappings over SQL views).
+     */
+    Optional<ImmutableSet<String>> getRelationNames() {
+        return relationNames;
+    }
+
+    /**
+     * In milliseconds
+     */
+    long getCreationTime() {
+        return creationTime;
+    }
+
+    /**
+     * Number of invalidations of the cache before the evaluation of the query
+     */
+    long getInvalidationCount() {
+        return invalidationCount;
+    }
+}
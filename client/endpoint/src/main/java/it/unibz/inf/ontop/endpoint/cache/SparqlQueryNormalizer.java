@@ -0,0 +1,80 @@
+package it.unibz.inf.ontop.endpoint.cache;
+
+/**
+ * Removes the comments and collapses the whitespaces outside the string literals and the IRIs,
+ * so that queries only differing by their layout share the same cached results.
+ */
+public class SparqlQueryNormalizer {
+
+    public static String normalize(String query) {
+        StringBuilder sb = new StringBuilder(query.length());
+        int length = query.length();
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            char c = query.charAt(i);
+            int end;
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            else if (c == '#') {
+                // Comment until the end of the line
+                while (i < length && query.charAt(i) != '\n' && query.charAt(i) != '\r')
+                    i++;
+                pendingSpace = true;
+                continue;
+            }
+            else if (c == '"' || c == '\'')
+                end = getStringLiteralEnd(query, i);
+            else if (c == '<')
+                end = getIRIEnd(query, i);
+            else
+                end = i + 1;
+
+            if (pendingSpace && sb.length() > 0)
+                sb.append(' ');
+            pendingSpace = false;
+            sb.append(query, i, end);
+            i = end;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Exclusive. Short and long (triple-quoted) literals, with escaped characters.
+     */
+    private static int getStringLiteralEnd(String query, int start) {
+        char quote = query.charAt(start);
+        String delimiter = query.startsWith(new String(new char[]{quote, quote, quote}), start)
+                ? new String(new char[]{quote, quote, quote})
+                : String.valueOf(quote);
+
+        int i = start + delimiter.length();
+        while (i < query.length()) {
+            if (query.charAt(i) == '\\')
+                i += 2;
+            else if (query.startsWith(delimiter, i))
+                return i + delimiter.length();
+            else
+                i++;
+        }
+        // Unterminated: left as such for the parser to report it
+        return query.length();
+    }
+
+    /**
+     * Exclusive. A "<" not followed by an IRI reference (e.g. the less-than operator) is a single character.
+     */
+    private static int getIRIEnd(String query, int start) {
+        for (int i = start + 1; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '>')
+                return i + 1;
+            if (Character.isWhitespace(c) || c == '<' || c == '"' || c == '{' || c == '}')
+                break;
+        }
+        return start + 1;
+    }
+}
@@ -0,0 +1,396 @@
+package it.unibz.inf.ontop.endpoint.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.RelationID;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the serialized answers of the SPARQL endpoint, keyed by the normalized query
+ * (see SparqlQueryNormalizer) and the content type of the response.
+ *
+ * Two tiers:
+ *   - in memory, bounded by the total size of the cached responses;
+ *   - optionally on disk, receiving the entries evicted from the memory for lack of space.
+ *     Also bounded, the least-recently used entries being deleted first.
+ *
+ * The entries expire after the TTL (if any) and are removed when one of the relations of the data source
+ * they depend on is invalidated (see invalidate()). Entries whose dependencies are unknown
+ * are removed by any invalidation.
+ *
+ * Thread-safe.
+ */
+public class SparqlResultCache implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SparqlResultCache.class);
+
+    private final boolean isEnabled;
+    private final long maxEntrySize;
+    private final long maxDiskSize;
+    @Nullable
+    private final File directory;
+    private final boolean isTemporaryDirectory;
+    // In milliseconds
+    private final Optional<Long> ttl;
+
+    @Nullable
+    private final Cache<CacheKey, CachedResult> memoryCache;
+
+    // Access order: the least-recently used entry comes first. Guarded by this.
+    private final LinkedHashMap<CacheKey, DiskEntry> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    // Guarded by this
+    private long diskSize = 0;
+
+    // Incremented by each invalidation. Guarded by this.
+    private long invalidationCount = 0;
+
+    private final String eTagPrefix = Long.toHexString(System.currentTimeMillis());
+    private final AtomicLong eTagCounter = new AtomicLong(0);
+
+    private SparqlResultCache() {
+        this.isEnabled = false;
+        this.maxEntrySize = 0;
+        this.maxDiskSize = 0;
+        this.directory = null;
+        this.isTemporaryDirectory = false;
+        this.ttl = Optional.empty();
+        this.memoryCache = null;
+    }
+
+    /**
+     * Sizes in bytes. The disk tier is disabled if maxDiskSize is 0.
+     *
+     * ttl: in seconds (none if empty)
+     */
+    public SparqlResultCache(long maxMemorySize, long maxDiskSize, @Nullable File directory, long maxEntrySize,
+                             Optional<Long> ttl) throws IOException {
+        this.isEnabled = true;
+        this.maxEntrySize = maxEntrySize;
+        this.maxDiskSize = maxDiskSize;
+        this.ttl = ttl.map(TimeUnit.SECONDS::toMillis);
+
+        this.isTemporaryDirectory = (maxDiskSize > 0) && (directory == null);
+        if (isTemporaryDirectory)
+            this.directory = Files.createTempDirectory("ontop-result-cache").toFile();
+        else if (maxDiskSize > 0) {
+            Files.createDirectories(directory.toPath());
+            this.directory = directory;
+        }
+        else
+            this.directory = null;
+
+        CacheBuilder<CacheKey, CachedResult> cacheBuilder = CacheBuilder.newBuilder()
+                .maximumWeight(maxMemorySize)
+                .weigher((CacheKey k, CachedResult r) -> r.getBody().length)
+                .removalListener(this::onMemoryRemoval);
+        this.memoryCache = ttl
+                .map(t -> cacheBuilder.expireAfterWrite(t, TimeUnit.SECONDS))
+                .orElse(cacheBuilder)
+                .build();
+    }
+
+    public static SparqlResultCache disabled() {
+        return new SparqlResultCache();
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * In bytes. Larger responses are not cached.
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public Optional<CachedResult> get(String query, String contentType) {
+        if (!isEnabled)
+            return Optional.empty();
+
+        CacheKey key = new CacheKey(query, contentType);
+        CachedResult result = memoryCache.getIfPresent(key);
+        if (result != null)
+            return Optional.of(result);
+
+        return (maxDiskSize > 0)
+                ? readFromDisk(key)
+                : Optional.empty();
+    }
+
+    /**
+     * Quoted, as expected in the ETag header. Unique for the lifetime of the cache (and, in practice, across restarts).
+     */
+    public String createETag() {
+        return "\"" + eTagPrefix + "-" + Long.toHexString(eTagCounter.incrementAndGet()) + "\"";
+    }
+
+    /**
+     * To be read before the evaluation of a query and given back to put().
+     */
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * relations: the relations the results depend on (empty if unknown).
+     *
+     * Ignored if some invalidation took place since the invalidation count was read
+     * (the results may have been computed from outdated data).
+     */
+    public void put(String query, String contentType, String eTag, byte[] body,
+                    Optional<ImmutableSet<RelationID>> relations, long initialInvalidationCount) {
+        if ((!isEnabled) || body.length > maxEntrySize)
+            return;
+
+        Optional<ImmutableSet<String>> relationNames = relations
+                .map(rs -> rs.stream()
+                        .map(SparqlResultCache::getName)
+                        .collect(ImmutableCollectors.toSet()));
+
+        CachedResult result = new CachedResult(eTag, body, relationNames, System.currentTimeMillis(),
+                initialInvalidationCount);
+        CacheKey key = new CacheKey(query, contentType);
+
+        synchronized (this) {
+            if (invalidationCount != initialInvalidationCount) {
+                LOGGER.debug("Results not cached: the data source has been invalidated during the evaluation");
+                return;
+            }
+            removeFromDisk(key);
+            memoryCache.put(key, result);
+        }
+    }
+
+    /**
+     * Removes the entries depending on one of the given relations or on unknown relations.
+     *
+     * Relation names are matched case-insensitively, with or without their schema (e.g. "address" or "public.address").
+     * A qualified name also matches the relations of the same table whose schema is unknown (not given in the mapping).
+     * Quotation marks are ignored.
+     *
+     * Returns the number of removed entries.
+     */
+    public synchronized int invalidate(Collection<String> relations) {
+        if (!isEnabled)
+            return 0;
+
+        invalidationCount++;
+        ImmutableSet<String> names = relations.stream()
+                .map(SparqlResultCache::normalizeName)
+                .collect(ImmutableCollectors.toSet());
+
+        int count = 0;
+        Iterator<CachedResult> memoryIterator = memoryCache.asMap().values().iterator();
+        while (memoryIterator.hasNext()) {
+            if (dependsOn(memoryIterator.next().getRelationNames(), names)) {
+                memoryIterator.remove();
+                count++;
+            }
+        }
+
+        Iterator<DiskEntry> diskIterator = diskEntries.values().iterator();
+        while (diskIterator.hasNext()) {
+            DiskEntry entry = diskIterator.next();
+            if (dependsOn(entry.relationNames, names)) {
+                diskIterator.remove();
+                deleteFile(entry);
+                count++;
+            }
+        }
+        LOGGER.debug("{} cached results invalidated by {}", count, names);
+        return count;
+    }
+
+    /**
+     * Removes all the entries
+     */
+    public synchronized void clear() {
+        if (!isEnabled)
+            return;
+
+        invalidationCount++;
+        memoryCache.invalidateAll();
+        diskEntries.values().forEach(this::deleteFile);
+        diskEntries.clear();
+    }
+
+    /**
+     * Deletes the files of the disk tier
+     */
+    @Override
+    public synchronized void close() {
+        clear();
+        if (isTemporaryDirectory && !directory.delete())
+            LOGGER.debug("Cannot delete {}", directory);
+    }
+
+    private static boolean dependsOn(Optional<ImmutableSet<String>> relationNames, ImmutableSet<String> names) {
+        return relationNames
+                .map(rs -> rs.stream()
+                        .anyMatch(r -> names.stream().anyMatch(n -> matches(r, n))))
+                .orElse(true);
+    }
+
+    /**
+     * An unqualified name matches the table part of the qualified ones
+     */
+    private static boolean matches(String relationName, String name) {
+        return relationName.equals(name)
+                || (!isQualified(relationName) && relationName.equals(getTableName(name)))
+                || (!isQualified(name) && name.equals(getTableName(relationName)));
+    }
+
+    /**
+     * Prefixed by its schema, if known
+     */
+    private static String getName(RelationID relationID) {
+        String tableName = relationID.getTableName().toLowerCase();
+        String schemaName = relationID.getSchemaName();
+        return (schemaName == null)
+                ? tableName
+                : schemaName.toLowerCase() + "." + tableName;
+    }
+
+    private static boolean isQualified(String name) {
+        return name.indexOf('.') >= 0;
+    }
+
+    private static String getTableName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static String normalizeName(String name) {
+        return name.replaceAll("[\"`\\[\\]]", "").trim().toLowerCase();
+    }
+
+    /**
+     * The entries evicted for lack of space are moved to the disk
+     */
+    private void onMemoryRemoval(RemovalNotification<CacheKey, CachedResult> notification) {
+        if (notification.getCause() == RemovalCause.SIZE && maxDiskSize > 0)
+            writeToDisk(notification.getKey(), notification.getValue());
+    }
+
+    private synchronized void writeToDisk(CacheKey key, CachedResult result) {
+        byte[] body = result.getBody();
+        // The entry may have been evicted before an invalidation and be notified after it
+        if (body.length > maxDiskSize || result.getInvalidationCount() != invalidationCount)
+            return;
+
+        try {
+            File file = File.createTempFile("result", ".bin", directory);
+            Files.write(file.toPath(), body);
+            removeFromDisk(key);
+            diskEntries.put(key, new DiskEntry(result.getETag(), file, body.length, result.getRelationNames(),
+                    result.getCreationTime(), result.getInvalidationCount()));
+            diskSize += body.length;
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write cached results to the disk: {}", e.getMessage());
+            return;
+        }
+
+        Iterator<DiskEntry> iterator = diskEntries.values().iterator();
+        while (diskSize > maxDiskSize && iterator.hasNext()) {
+            DiskEntry entry = iterator.next();
+            iterator.remove();
+            deleteFile(entry);
+        }
+    }
+
+    private Optional<CachedResult> readFromDisk(CacheKey key) {
+        DiskEntry entry;
+        synchronized (this) {
+            entry = diskEntries.get(key);
+            if (entry == null)
+                return Optional.empty();
+            if (ttl.isPresent() && System.currentTimeMillis() - entry.creationTime >= ttl.get()) {
+                removeFromDisk(key);
+                return Optional.empty();
+            }
+        }
+
+        try {
+            return Optional.of(new CachedResult(entry.eTag, Files.readAllBytes(entry.file.toPath()),
+                    entry.relationNames, entry.creationTime, entry.invalidationCount));
+        }
+        // E.g. removed concurrently
+        catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Guarded by this
+     */
+    private void removeFromDisk(CacheKey key) {
+        DiskEntry entry = diskEntries.remove(key);
+        if (entry != null)
+            deleteFile(entry);
+    }
+
+    /**
+     * Guarded by this
+     */
+    private void deleteFile(DiskEntry entry) {
+        diskSize -= entry.size;
+        if (!entry.file.delete())
+            LOGGER.debug("Cannot delete {}", entry.file);
+    }
+
+
+    private static class CacheKey {
+        private final String query;
+        private final String contentType;
+
+        CacheKey(String query, String contentType) {
+            this.query = SparqlQueryNormalizer.normalize(query);
+            this.contentType = contentType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return query.equals(cacheKey.query) && contentType.equals(cacheKey.contentType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, contentType);
+        }
+    }
+
+    private static class DiskEntry {
+        private final String eTag;
+        private final File file;
+        private final long size;
+        private final Optional<ImmutableSet<String>> relationNames;
+        private final long creationTime;
+        private final long invalidationCount;
+
+        DiskEntry(String eTag, File file, long size, Optional<ImmutableSet<String>> relationNames, long creationTime,
+                  long invalidationCount) {
+            this.eTag = eTag;
+            this.file = file;
+            this.size = size;
+            this.relationNames = relationNames;
+            this.creationTime = creationTime;
+            this.invalidationCount = invalidationCount;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package it.unibz.inf.ontop.endpoint.controllers;
+
+import it.unibz.inf.ontop.endpoint.cache.SparqlResultCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * To be called when the data source changes.
+ *
+ * Without relation, invalidates all the cached results.
+ */
+@RestController
+@ConditionalOnExpression("${result-cache:false}")
+public class ResultCacheController {
+
+    private final SparqlResultCache resultCache;
+
+    @Autowired
+    public ResultCacheController(SparqlResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    @PostMapping("/ontop/result-cache/invalidate")
+    public ResponseEntity<String> invalidate(@RequestParam(value = "relation", required = false) String[] relations) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(CONTENT_TYPE, "text/plain; charset=UTF-8");
+
+        if (relations == null || relations.length == 0) {
+            resultCache.clear();
+            return new ResponseEntity<>("All the cached results have been invalidated\n", headers, HttpStatus.OK);
+        }
+
+        int count = resultCache.invalidate(Arrays.asList(relations));
+        return new ResponseEntity<>(count + " cached results have been invalidated\n", headers, HttpStatus.OK);
+    }
+}
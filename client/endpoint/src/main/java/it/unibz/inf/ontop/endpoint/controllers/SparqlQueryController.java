@@ -1,14 +1,27 @@
 package it.unibz.inf.ontop.endpoint.controllers;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CountingOutputStream;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.unibz.inf.ontop.dbschema.RelationID;
+import it.unibz.inf.ontop.endpoint.cache.CachedResult;
+import it.unibz.inf.ontop.endpoint.cache.SparqlResultCache;
+import it.unibz.inf.ontop.rdf4j.query.impl.AbstractOntopQuery;
 import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
 import it.unibz.inf.ontop.utils.VersionInfo;
 
 import org.eclipse.rdf4j.query.BooleanQuery;
 import org.eclipse.rdf4j.query.GraphQuery;
+import org.eclipse.rdf4j.query.GraphQueryResult;
 import org.eclipse.rdf4j.query.MalformedQueryException;
 import org.eclipse.rdf4j.query.Query;
 import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.QueryResults;
 import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
 import org.eclipse.rdf4j.query.Update;
 import org.eclipse.rdf4j.query.resultio.BooleanQueryResultWriter;
 import org.eclipse.rdf4j.query.resultio.sparqljson.SPARQLBooleanJSONWriter;
@@ -21,26 +34,35 @@ import org.eclipse.rdf4j.query.resultio.text.tsv.SPARQLResultsTSVWriter;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandler;
 import org.eclipse.rdf4j.rio.rdfjson.RDFJSONWriter;
 import org.eclipse.rdf4j.rio.rdfxml.RDFXMLWriter;
 import org.eclipse.rdf4j.rio.turtle.TurtleWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
 
 @RestController
@@ -49,10 +71,22 @@ public class SparqlQueryController {
     private static final Logger log = LoggerFactory.getLogger(SparqlQueryController.class);
 
     private final OntopVirtualRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final SparqlResultCache resultCache;
+    // In nanoseconds, negative if disabled
+    private final long slowQueryThreshold;
 
+    /**
+     * slowQueryThreshold: in milliseconds (negative for not logging the slow queries)
+     */
     @Autowired
-    public SparqlQueryController(OntopVirtualRepository repository) {
+    public SparqlQueryController(OntopVirtualRepository repository, MeterRegistry meterRegistry,
+                                 SparqlResultCache resultCache,
+                                 @Value("${slow-query-threshold:-1}") long slowQueryThreshold) {
         this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.resultCache = resultCache;
+        this.slowQueryThreshold = (slowQueryThreshold < 0) ? -1 : TimeUnit.MILLISECONDS.toNanos(slowQueryThreshold);
     }
 
     @GetMapping(value = "/")
@@ -66,129 +100,323 @@ public class SparqlQueryController {
             method = {RequestMethod.GET}
     )
     @ResponseBody
-    public HttpEntity<String> query_get(
+    public ResponseEntity<StreamingResponseBody> query_get(
             @RequestHeader(ACCEPT) String accept,
+            @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestParam(value = "query") String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
             @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri) {
-        return execQuery(accept, query, defaultGraphUri, namedGraphUri);
+        return execQuery(accept, ifNoneMatch, query, defaultGraphUri, namedGraphUri);
     }
 
     @RequestMapping(value = "/sparql",
             method = RequestMethod.POST,
             consumes = APPLICATION_FORM_URLENCODED_VALUE)
     @ResponseBody
-    public HttpEntity<String> query_post_URL_encoded(
+    public ResponseEntity<StreamingResponseBody> query_post_URL_encoded(
             @RequestHeader(ACCEPT) String accept,
+            @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestParam(value = "query") String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
             @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri) {
-        return execQuery(accept, query, defaultGraphUri, namedGraphUri);
+        return execQuery(accept, ifNoneMatch, query, defaultGraphUri, namedGraphUri);
     }
 
     @RequestMapping(value = "/sparql",
             method = RequestMethod.POST,
             consumes = "application/sparql-query")
     @ResponseBody
-    public HttpEntity<String> query_post_directly(
+    public ResponseEntity<StreamingResponseBody> query_post_directly(
             @RequestHeader(ACCEPT) String accept,
+            @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestBody String query,
             @RequestParam(value = "default-graph-uri", required = false) String[] defaultGraphUri,
             @RequestParam(value = "named-graph-uri", required = false) String[] namedGraphUri) {
-        return execQuery(accept, query, defaultGraphUri, namedGraphUri);
+        return execQuery(accept, ifNoneMatch, query, defaultGraphUri, namedGraphUri);
     }
 
-    private ResponseEntity<String> execQuery(String accept,
-                                             String query, String[] defaultGraphUri, String[] namedGraphUri) {
+    /**
+     * The results are not buffered: they are written to the output stream as they are fetched from the DB.
+     *
+     * The query is evaluated before the response is committed, so that evaluation errors
+     * can still be reported with an error status.
+     *
+     * The response time (until the results are written) and size are recorded, see monitor().
+     *
+     * If the result cache is enabled, the query is only evaluated if its results for the negotiated content type
+     * are not cached (see cache()). Cached results are not sent again if the client already has them (If-None-Match).
+     */
+    private ResponseEntity<StreamingResponseBody> execQuery(String accept, String ifNoneMatch,
+                                                            String query, String[] defaultGraphUri, String[] namedGraphUri) {
 
+        long startTime = System.nanoTime();
         HttpHeaders headers = new HttpHeaders();
-        HttpStatus status = HttpStatus.OK;
-
-        try (RepositoryConnection connection = repository.getConnection()) {
+        RepositoryConnection connection = repository.getConnection();
+        try {
             Query q = connection.prepareQuery(QueryLanguage.SPARQL, query);
-            ByteArrayOutputStream bao = new ByteArrayOutputStream();
-            final String result;
 
             if (q instanceof TupleQuery) {
                 TupleQuery selectQuery = (TupleQuery) q;
+                final Function<OutputStream, TupleQueryResultHandler> writerFactory;
 
                 if ("*/*".equals(accept) || accept.contains("json")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "application/sparql-results+json");
-                    selectQuery.evaluate(new SPARQLResultsJSONWriter(bao));
-                    result = bao.toString();
+                    writerFactory = SPARQLResultsJSONWriter::new;
                 } else if (accept.contains("xml")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "application/sparql-results+xml");
-                    selectQuery.evaluate(new SPARQLResultsXMLWriter(bao));
-                    result = bao.toString();
+                    writerFactory = SPARQLResultsXMLWriter::new;
                 } else if (accept.contains("csv")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "text/sparql-results+csv");
-                    selectQuery.evaluate(new SPARQLResultsCSVWriter(bao));
-                    result = bao.toString();
+                    writerFactory = SPARQLResultsCSVWriter::new;
                 } else if (accept.contains("tsv")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "text/sparql-results+tsv");
-                    selectQuery.evaluate(new SPARQLResultsTSVWriter(bao));
-                    result = bao.toString();
+                    writerFactory = SPARQLResultsTSVWriter::new;
                 } else {
-                    result = "";
-                    status = HttpStatus.BAD_REQUEST;
                     //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
+                    return emptyResponse(connection, HttpStatus.BAD_REQUEST);
                 }
 
+                Optional<CachedResult> cachedResult = resultCache.get(query, headers.getFirst(CONTENT_TYPE));
+                if (cachedResult.isPresent())
+                    return cachedResponse(connection, cachedResult.get(), ifNoneMatch, query, "select", headers, startTime);
+
+                long invalidationCount = resultCache.getInvalidationCount();
+                TupleQueryResult result = selectQuery.evaluate();
+                return new ResponseEntity<>(monitor(query, "select", headers, startTime,
+                        cache(query, headers, invalidationCount, getSourceRelations(q), out -> {
+                            try (RepositoryConnection c = connection; TupleQueryResult r = result) {
+                                QueryResults.report(r, writerFactory.apply(out));
+                            }
+                        })), headers, HttpStatus.OK);
+
             } else if (q instanceof BooleanQuery) {
                 BooleanQuery askQuery = (BooleanQuery) q;
-                boolean b = askQuery.evaluate();
+                final Function<OutputStream, BooleanQueryResultWriter> writerFactory;
 
                 if ("*/*".equals(accept) || accept.contains("json")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "application/sparql-results+json");
-                    BooleanQueryResultWriter writer = new SPARQLBooleanJSONWriter(bao);
-                    writer.handleBoolean(b);
-                    result = bao.toString();
+                    writerFactory = SPARQLBooleanJSONWriter::new;
                 } else if (accept.contains("xml")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "application/sparql-results+xml");
-                    BooleanQueryResultWriter writer = new SPARQLBooleanXMLWriter(bao);
-                    writer.handleBoolean(b);
-                    result = bao.toString();
+                    writerFactory = SPARQLBooleanXMLWriter::new;
                 } else if (accept.contains("text")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "text/boolean");
-                    BooleanQueryResultWriter writer = new BooleanTextWriter(bao);
-                    writer.handleBoolean(b);
-                    result = bao.toString();
+                    writerFactory = BooleanTextWriter::new;
                 } else {
-                    result = "";
-                    status = HttpStatus.BAD_REQUEST;
                     //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
+                    return emptyResponse(connection, HttpStatus.BAD_REQUEST);
                 }
+
+                Optional<CachedResult> cachedResult = resultCache.get(query, headers.getFirst(CONTENT_TYPE));
+                if (cachedResult.isPresent())
+                    return cachedResponse(connection, cachedResult.get(), ifNoneMatch, query, "ask", headers, startTime);
+
+                long invalidationCount = resultCache.getInvalidationCount();
+                boolean b = askQuery.evaluate();
+                connection.close();
+                return new ResponseEntity<>(monitor(query, "ask", headers, startTime,
+                        cache(query, headers, invalidationCount, getSourceRelations(q),
+                                out -> writerFactory.apply(out).handleBoolean(b))),
+                        headers, HttpStatus.OK);
+
             } else if (q instanceof GraphQuery) {
                 GraphQuery graphQuery = (GraphQuery) q;
+                final Function<OutputStream, RDFHandler> writerFactory;
+
                 if ("*/*".equals(accept) || accept.contains("turtle")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "text/turtle");
-                    graphQuery.evaluate(new TurtleWriter(bao));
-                    result = bao.toString();
+                    writerFactory = TurtleWriter::new;
                 } else if (accept.contains("json")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
-                    graphQuery.evaluate(new RDFJSONWriter(bao, RDFFormat.JSONLD));
-                    result = bao.toString();
+                    writerFactory = out -> new RDFJSONWriter(out, RDFFormat.JSONLD);
                 } else if (accept.contains("xml")) {
                     headers.set(HttpHeaders.CONTENT_TYPE, "application/rdf+xml");
-                    graphQuery.evaluate(new RDFXMLWriter(bao));
-                    result = bao.toString();
+                    writerFactory = RDFXMLWriter::new;
                 } else {
                     //throw new IllegalArgumentException("unsupported ACCEPT : " + accept);
-                    result = "";
-                    status = HttpStatus.BAD_REQUEST;
+                    return emptyResponse(connection, HttpStatus.BAD_REQUEST);
                 }
+
+                Optional<CachedResult> cachedResult = resultCache.get(query, headers.getFirst(CONTENT_TYPE));
+                if (cachedResult.isPresent())
+                    return cachedResponse(connection, cachedResult.get(), ifNoneMatch, query, "construct", headers,
+                            startTime);
+
+                long invalidationCount = resultCache.getInvalidationCount();
+                GraphQueryResult result = graphQuery.evaluate();
+                return new ResponseEntity<>(monitor(query, "construct", headers, startTime,
+                        cache(query, headers, invalidationCount, getSourceRelations(q), out -> {
+                            try (RepositoryConnection c = connection; GraphQueryResult r = result) {
+                                QueryResults.report(r, writerFactory.apply(out));
+                            }
+                        })), headers, HttpStatus.OK);
+
             } else if (q instanceof Update) {
                 //else if (q instanceof Update)
-                result = "";
-                status = HttpStatus.NOT_IMPLEMENTED;
+                return emptyResponse(connection, HttpStatus.NOT_IMPLEMENTED);
             } else {
-                result = "";
-                status = HttpStatus.BAD_REQUEST;
+                return emptyResponse(connection, HttpStatus.BAD_REQUEST);
             }
-            return new ResponseEntity<>(result, headers, status);
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
         }
     }
 
+    /**
+     * Once the results are written, records the response time and size (meters ontop.endpoint.query
+     * and ontop.endpoint.response.size) and logs the query if it exceeds the slow query threshold.
+     *
+     * The reformulation and evaluation stages are traced by the query monitor of Ontop (see QueryMetricsBinder).
+     */
+    private StreamingResponseBody monitor(String query, String queryType, HttpHeaders headers, long startTime,
+                                          StreamingResponseBody body) {
+        return out -> {
+            CountingOutputStream countingOutputStream = new CountingOutputStream(out);
+            try {
+                body.writeTo(countingOutputStream);
+            } finally {
+                long duration = System.nanoTime() - startTime;
+                long size = countingOutputStream.getCount();
+
+                Timer.builder("ontop.endpoint.query")
+                        .tag("type", queryType)
+                        .register(meterRegistry)
+                        .record(duration, TimeUnit.NANOSECONDS);
+                DistributionSummary.builder("ontop.endpoint.response.size")
+                        .baseUnit("bytes")
+                        .tag("type", queryType)
+                        .register(meterRegistry)
+                        .record(size);
+
+                if (slowQueryThreshold >= 0 && duration >= slowQueryThreshold)
+                    log.warn("Slow SPARQL query ({} ms, {} bytes of {}):\n{}", TimeUnit.NANOSECONDS.toMillis(duration),
+                            size, headers.getFirst(CONTENT_TYPE), query);
+            }
+        };
+    }
+
+    /**
+     * Once completely written, the response is stored in the result cache (if not larger than its maximal entry size),
+     * together with the relations of the data source the query depends on.
+     *
+     * The ETag is sent with the response.
+     */
+    private StreamingResponseBody cache(String query, HttpHeaders headers, long invalidationCount,
+                                        Optional<ImmutableSet<RelationID>> sourceRelations,
+                                        StreamingResponseBody body) {
+        if (!resultCache.isEnabled())
+            return body;
+
+        meterRegistry.counter("ontop.endpoint.result.cache", "result", "miss").increment();
+        String eTag = resultCache.createETag();
+        headers.setETag(eTag);
+        String contentType = headers.getFirst(CONTENT_TYPE);
+
+        return out -> {
+            CopyingOutputStream copyingOutputStream = new CopyingOutputStream(out, resultCache.getMaxEntrySize());
+            body.writeTo(copyingOutputStream);
+            copyingOutputStream.flush();
+
+            Optional<byte[]> copy = copyingOutputStream.getCopy();
+            if (copy.isPresent())
+                resultCache.put(query, contentType, eTag, copy.get(), sourceRelations, invalidationCount);
+        };
+    }
+
+    /**
+     * Not modified if the client already has the cached results
+     */
+    private ResponseEntity<StreamingResponseBody> cachedResponse(RepositoryConnection connection,
+                                                                 CachedResult cachedResult, String ifNoneMatch,
+                                                                 String query, String queryType, HttpHeaders headers,
+                                                                 long startTime) {
+        connection.close();
+        meterRegistry.counter("ontop.endpoint.result.cache", "result", "hit").increment();
+        headers.setETag(cachedResult.getETag());
+
+        if (matchesETag(ifNoneMatch, cachedResult.getETag()))
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+
+        byte[] body = cachedResult.getBody();
+        return new ResponseEntity<>(monitor(query, queryType, headers, startTime, out -> out.write(body)),
+                headers, HttpStatus.OK);
+    }
+
+    /**
+     * Weak comparison, as recommended for If-None-Match
+     */
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null)
+            return false;
+
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmedTag = tag.trim();
+            if (trimmedTag.equals("*")
+                    || (trimmedTag.startsWith("W/") ? trimmedTag.substring(2) : trimmedTag).equals(eTag))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Collected while reformulating the query.
+     * Empty if unknown, in which case the cached results are dropped by any invalidation.
+     */
+    private static Optional<ImmutableSet<RelationID>> getSourceRelations(Query query) {
+        return (query instanceof AbstractOntopQuery)
+                ? ((AbstractOntopQuery) query).getSourceRelations()
+                : Optional.empty();
+    }
+
+    private static ResponseEntity<StreamingResponseBody> emptyResponse(RepositoryConnection connection,
+                                                                       HttpStatus status) {
+        connection.close();
+        return new ResponseEntity<>(out -> {}, status);
+    }
+
+
+    /**
+     * Keeps a copy of what is written, unless it exceeds the maximal size
+     */
+    private static class CopyingOutputStream extends FilterOutputStream {
+
+        private final long maxSize;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CopyingOutputStream(OutputStream out, long maxSize) {
+            super(out);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkSize();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkSize();
+            }
+        }
+
+        private void checkSize() {
+            if (copy.size() > maxSize)
+                copy = null;
+        }
+
+        Optional<byte[]> getCopy() {
+            return Optional.ofNullable(copy)
+                    .map(ByteArrayOutputStream::toByteArray);
+        }
+    }
 
     @ExceptionHandler({MalformedQueryException.class})
     public ResponseEntity<String> handleMalformedQueryException(Exception ex) {
@@ -0,0 +1,181 @@
+package it.unibz.inf.ontop.endpoint.controllers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.unibz.inf.ontop.endpoint.cache.SparqlResultCache;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
+import it.unibz.inf.ontop.rdf4j.repository.impl.OntopVirtualRepository;
+import org.eclipse.rdf4j.query.TupleQueryResultHandlerException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The table "person" has PERSON_COUNT rows. The mapping of :ratio divides by zero.
+ */
+public class SparqlQueryControllerTest {
+
+    private static final String OBDA_FILE = "src/test/resources/streaming/streaming.obda";
+    private static final String JDBC_URL = "jdbc:h2:mem:endpoint-streaming";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final int PERSON_COUNT = 50000;
+    private static final String PERSON_PREFIX = "http://example.org/person/";
+    private static final String PERSON_QUERY = "PREFIX : <http://example.org/streaming/voc#>\n" +
+            "SELECT ?x WHERE { ?x a :Person . }";
+    private static final String RATIO_QUERY = "PREFIX : <http://example.org/streaming/voc#>\n" +
+            "SELECT ?x ?r WHERE { ?x :ratio ?r . }";
+    private static final String JSON = "application/sparql-results+json";
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+    private static OntopVirtualRepository REPOSITORY;
+    private static SparqlQueryController CONTROLLER;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"person\" (\"id\" INT PRIMARY KEY) " +
+                    "AS SELECT X FROM SYSTEM_RANGE(1, " + PERSON_COUNT + ")");
+        }
+        CONN.commit();
+
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSQLSettings.FETCH_SIZE, "100");
+
+        OntopSQLOWLAPIConfiguration configuration = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUrl(JDBC_URL)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .properties(properties)
+                .enableTestMode()
+                .build();
+        REPOSITORY = OntopRepository.defaultRepository(configuration);
+        REPOSITORY.init();
+
+        CONTROLLER = new SparqlQueryController(REPOSITORY, new SimpleMeterRegistry(), SparqlResultCache.disabled(), -1);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        REPOSITORY.shutDown();
+        CONN.close();
+    }
+
+    /**
+     * The results are written in many small chunks, not as a single buffer
+     */
+    @Test
+    public void testLargeSelectReadIncrementally() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = CONTROLLER.query_get(JSON, null, PERSON_QUERY, null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        RecordingOutputStream out = new RecordingOutputStream(Long.MAX_VALUE);
+        response.getBody().writeTo(out);
+
+        String body = new String(out.content.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(PERSON_COUNT, countOccurrences(body, PERSON_PREFIX));
+        assertTrue(out.writeCount > 10);
+        assertTrue(out.maxWriteSize < out.content.size() / 10);
+    }
+
+    /**
+     * When the client stops reading, the remaining results are not produced
+     * and the connection is released
+     */
+    @Test
+    public void testLargeSelectClientDisconnection() throws Exception {
+        long limit = 64 * 1024;
+        ResponseEntity<StreamingResponseBody> response = CONTROLLER.query_get(JSON, null, PERSON_QUERY, null, null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        RecordingOutputStream out = new RecordingOutputStream(limit);
+        try {
+            response.getBody().writeTo(out);
+            fail("The client has disconnected");
+        }
+        catch (TupleQueryResultHandlerException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertTrue(out.content.size() <= limit + out.maxWriteSize);
+        assertTrue(countOccurrences(new String(out.content.toByteArray(), StandardCharsets.UTF_8), PERSON_PREFIX)
+                < PERSON_COUNT / 10);
+
+        // The endpoint still answers
+        RecordingOutputStream secondOut = new RecordingOutputStream(Long.MAX_VALUE);
+        CONTROLLER.query_get(JSON, null, PERSON_QUERY, null, null).getBody().writeTo(secondOut);
+        assertEquals(PERSON_COUNT, countOccurrences(
+                new String(secondOut.content.toByteArray(), StandardCharsets.UTF_8), PERSON_PREFIX));
+    }
+
+    /**
+     * The error is reported with an error status, not as a truncated 200 response
+     */
+    @Test
+    public void testEvaluationError() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(CONTROLLER).build();
+
+        mvc.perform(get("/sparql").param("query", RATIO_QUERY).header("Accept", JSON))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isInternalServerError());
+    }
+
+    private static int countOccurrences(String body, String substring) {
+        int count = 0;
+        for (int i = body.indexOf(substring); i >= 0; i = body.indexOf(substring, i + 1))
+            count++;
+        return count;
+    }
+
+    /**
+     * Records what is written, and fails (as a disconnected client) once the limit is exceeded
+     */
+    private static class RecordingOutputStream extends OutputStream {
+        private final long limit;
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private int writeCount = 0;
+        private int maxWriteSize = 0;
+
+        RecordingOutputStream(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (content.size() > limit)
+                throw new IOException("Broken pipe");
+            content.write(b, off, len);
+            writeCount++;
+            maxWriteSize = Math.max(maxWriteSize, len);
+        }
+    }
+}
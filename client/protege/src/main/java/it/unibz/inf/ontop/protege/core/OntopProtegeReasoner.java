@@ -7,8 +7,6 @@ import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
 import it.unibz.inf.ontop.owlapi.connection.OntopOWLConnection;
 import it.unibz.inf.ontop.owlapi.connection.OntopOWLStatement;
 import it.unibz.inf.ontop.owlapi.validation.QuestOWLEmptyEntitiesChecker;
-import it.unibz.inf.ontop.spec.ontology.ClassifiedTBox;
-import it.unibz.inf.ontop.spec.ontology.Ontology;
 import it.unibz.inf.ontop.spec.ontology.impl.ClassifiedTBoxImpl;
 import it.unibz.inf.ontop.spec.ontology.owlapi.OWLAPITranslatorOWL2QL;
 import org.semanticweb.owlapi.model.*;
@@ -326,11 +324,7 @@ public class OntopProtegeReasoner extends OWLReasonerBase implements AutoCloseab
      * @throws Exception
      */
     public QuestOWLEmptyEntitiesChecker getEmptyEntitiesChecker() throws Exception {
-        OWLOntology rootOntology = getRootOntology();
-        Ontology mergeOntology = owlapiTranslator.translateAndClassify(rootOntology);
-        ClassifiedTBox tBox = mergeOntology.tbox();
-
-        return new QuestOWLEmptyEntitiesChecker(tBox, owlConnection);
+        return reasoner.getEmptyEntitiesChecker();
     }
 
     /**
@@ -107,8 +107,13 @@ public class LinearInclusionDependencies<P extends AtomPredicate> {
         return Optional.of(atomFactory.getDataAtom(id.getHead().getPredicate(), newArguments));
     }
 
+    /**
+     * The variable generator is shared by the concurrent chases
+     */
     protected void registerVariables(DataAtom<P> atom) {
-        variableGenerator.registerAdditionalVariables(atom.getVariables());
+        synchronized (variableGenerator) {
+            variableGenerator.registerAdditionalVariables(atom.getVariables());
+        }
     }
 
     protected void registerVariables(ImmutableCollection<DataAtom<P>> atoms) {
@@ -120,10 +125,16 @@ public class LinearInclusionDependencies<P extends AtomPredicate> {
         ImmutableSet<Variable> bodyVariables = id.getBody().getVariables();
         id.getHead().getVariables().stream()
                 .filter(v -> !bodyVariables.contains(v))
-                .forEach(v -> builder.extend(v, variableGenerator.generateNewVariableFromVar(v)));
+                .forEach(v -> builder.extend(v, generateNewVariableFromVar(v)));
         return builder.build();
     }
 
+    private Variable generateNewVariableFromVar(Variable variable) {
+        synchronized (variableGenerator) {
+            return variableGenerator.generateNewVariableFromVar(variable);
+        }
+    }
+
     @Override
     public String toString() {
         return dependencies.toString();
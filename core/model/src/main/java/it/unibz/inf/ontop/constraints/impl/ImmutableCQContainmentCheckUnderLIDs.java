@@ -4,12 +4,15 @@ import com.google.common.collect.*;
 import it.unibz.inf.ontop.constraints.*;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.model.atom.DataAtom;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ImmutableCQContainmentCheckUnderLIDs<P extends AtomPredicate> implements ImmutableCQContainmentCheck<P> {
 
-    private final Map<ImmutableList<DataAtom<P>>, ImmutableSet<DataAtom<P>>> chaseCache = new HashMap<>();
+    // Thread-safe: the saturation of the mapping may check containments concurrently
+    private final Map<ImmutableList<DataAtom<P>>, Chase<P>> chaseCache = new ConcurrentHashMap<>();
 
     private final LinearInclusionDependencies<P> dependencies;
 
@@ -24,11 +27,7 @@ public class ImmutableCQContainmentCheckUnderLIDs<P extends AtomPredicate> imple
         // this will ensure that all answer variables are mapped either to constants or
         //       to answer variables in the base (but not to the labelled nulls generated by the chase)
         if (builder.extend(cq2.getAnswerVariables(), cq1.getAnswerVariables()).isValid()) {
-            ImmutableHomomorphismIterator<P> iterator = new ImmutableHomomorphismIterator<>(
-                    builder.build(),
-                    cq2.getAtoms(),
-                    chaseCache.computeIfAbsent(cq1.getAtoms(), dependencies::chaseAllAtoms));
-            return iterator.hasNext();
+            return searchHomomorphism(builder.build(), cq2.getAtoms(), cq1.getAtoms()).isPresent();
         }
         return false;
     }
@@ -37,6 +36,41 @@ public class ImmutableCQContainmentCheckUnderLIDs<P extends AtomPredicate> imple
          return new ImmutableHomomorphismIterator<>(
                 base,
                 from,
-                chaseCache.computeIfAbsent(to, dependencies::chaseAllAtoms));
+                getChase(to).atoms);
+    }
+
+    /**
+     * Returns the first homomorphism (if any) that extends base and maps the atoms from
+     * into the chase of the atoms to
+     */
+    public Optional<ImmutableHomomorphism> findHomomorphism(ImmutableHomomorphism base, ImmutableList<DataAtom<P>> from, ImmutableList<DataAtom<P>> to) {
+        return searchHomomorphism(base, from, to);
+    }
+
+    protected final Optional<ImmutableHomomorphism> searchHomomorphism(ImmutableHomomorphism base, ImmutableList<DataAtom<P>> from, ImmutableList<DataAtom<P>> to) {
+        Chase<P> chase = getChase(to);
+        // cheap pre-filter: each predicate of from must occur in the chase
+        for (DataAtom<P> atom : from)
+            if (!chase.predicates.contains(atom.getPredicate()))
+                return Optional.empty();
+
+        ImmutableHomomorphismIterator<P> iterator = new ImmutableHomomorphismIterator<>(base, from, chase.atoms);
+        return iterator.hasNext() ? Optional.of(iterator.next()) : Optional.empty();
+    }
+
+    private Chase<P> getChase(ImmutableList<DataAtom<P>> atoms) {
+        return chaseCache.computeIfAbsent(atoms, a -> new Chase<>(dependencies.chaseAllAtoms(a)));
+    }
+
+    private static final class Chase<P extends AtomPredicate> {
+        private final ImmutableSet<DataAtom<P>> atoms;
+        private final ImmutableSet<P> predicates;
+
+        Chase(ImmutableSet<DataAtom<P>> atoms) {
+            this.atoms = atoms;
+            this.predicates = atoms.stream()
+                    .map(DataAtom::getPredicate)
+                    .collect(ImmutableCollectors.toSet());
+        }
     }
 }
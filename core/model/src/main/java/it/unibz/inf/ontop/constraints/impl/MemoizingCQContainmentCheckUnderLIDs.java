@@ -0,0 +1,152 @@
+package it.unibz.inf.ontop.constraints.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.constraints.ImmutableCQ;
+import it.unibz.inf.ontop.constraints.ImmutableHomomorphism;
+import it.unibz.inf.ontop.constraints.LinearInclusionDependencies;
+import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.atom.DataAtom;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Containment check under linear inclusion dependencies that memoizes its results.
+ *
+ * Meant for the saturation of the mapping, where the same pairs of CQs are compared
+ * again and again over the sub-DAGs of the class and property hierarchies.
+ * Not for long-lived usages (the memo tables are never evicted).
+ *
+ * Containments are memoized on a canonical fingerprint of the two CQs (invariant under variable renaming).
+ * Homomorphisms are memoized on their arguments, as they are applied to the variables of these arguments.
+ *
+ * Thread-safe
+ */
+public class MemoizingCQContainmentCheckUnderLIDs<P extends AtomPredicate> extends ImmutableCQContainmentCheckUnderLIDs<P> {
+
+    private final Map<ImmutableList<ImmutableList<Object>>, Boolean> containments = new ConcurrentHashMap<>();
+    private final Map<HomomorphismKey<P>, Optional<ImmutableHomomorphism>> homomorphisms = new ConcurrentHashMap<>();
+
+    private final LongAdder checkCount = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+
+    public MemoizingCQContainmentCheckUnderLIDs(LinearInclusionDependencies<P> dependencies) {
+        super(dependencies);
+    }
+
+    @Override
+    public boolean isContainedIn(ImmutableCQ<P> cq1, ImmutableCQ<P> cq2) {
+        checkCount.increment();
+        ImmutableList<ImmutableList<Object>> key = ImmutableList.of(getFingerprint(cq1), getFingerprint(cq2));
+        Boolean cached = containments.get(key);
+        if (cached != null) {
+            cacheHitCount.increment();
+            return cached;
+        }
+        long start = System.nanoTime();
+        boolean result = super.isContainedIn(cq1, cq2);
+        searchNanos.add(System.nanoTime() - start);
+        containments.putIfAbsent(key, result);
+        return result;
+    }
+
+    @Override
+    public Optional<ImmutableHomomorphism> findHomomorphism(ImmutableHomomorphism base, ImmutableList<DataAtom<P>> from, ImmutableList<DataAtom<P>> to) {
+        checkCount.increment();
+        HomomorphismKey<P> key = new HomomorphismKey<>(base, from, to);
+        Optional<ImmutableHomomorphism> cached = homomorphisms.get(key);
+        if (cached != null) {
+            cacheHitCount.increment();
+            return cached;
+        }
+        long start = System.nanoTime();
+        Optional<ImmutableHomomorphism> result = searchHomomorphism(base, from, to);
+        searchNanos.add(System.nanoTime() - start);
+        homomorphisms.putIfAbsent(key, result);
+        return result;
+    }
+
+    /**
+     * Number of containment checks and homomorphism searches requested
+     */
+    public long getCheckCount() {
+        return checkCount.sum();
+    }
+
+    /**
+     * Number of requests answered from the memo tables
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount.sum();
+    }
+
+    /**
+     * Time spent in the requests that were not answered from the memo tables
+     */
+    public long getSearchTime(TimeUnit unit) {
+        return unit.convert(searchNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "CQC: " + getCheckCount() + " checks, " + getCacheHitCount() + " cache hits, "
+                + getSearchTime(TimeUnit.MILLISECONDS) + " ms of search";
+    }
+
+    /**
+     * Answer variables followed by the atoms, where variables are replaced by the index of their first occurrence.
+     *
+     * Ground terms are kept as they are: they cannot be confused with these indexes.
+     */
+    private static ImmutableList<Object> getFingerprint(ImmutableCQ<?> cq) {
+        Map<Variable, Integer> indexes = new HashMap<>();
+        ImmutableList.Builder<Object> builder = ImmutableList.builder();
+        for (Variable variable : cq.getAnswerVariables())
+            builder.add(indexes.computeIfAbsent(variable, v -> indexes.size()));
+        for (DataAtom<?> atom : cq.getAtoms()) {
+            builder.add(atom.getPredicate());
+            for (VariableOrGroundTerm term : atom.getArguments())
+                builder.add((term instanceof Variable)
+                        ? indexes.computeIfAbsent((Variable) term, v -> indexes.size())
+                        : term);
+        }
+        return builder.build();
+    }
+
+    private static final class HomomorphismKey<P extends AtomPredicate> {
+        private final ImmutableHomomorphism base;
+        private final ImmutableList<DataAtom<P>> from;
+        private final ImmutableList<DataAtom<P>> to;
+        private final int hashCode;
+
+        HomomorphismKey(ImmutableHomomorphism base, ImmutableList<DataAtom<P>> from, ImmutableList<DataAtom<P>> to) {
+            this.base = base;
+            this.from = from;
+            this.to = to;
+            this.hashCode = Objects.hash(base, from, to);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other)
+                return true;
+            if (!(other instanceof HomomorphismKey))
+                return false;
+            HomomorphismKey<?> o = (HomomorphismKey<?>) other;
+            return hashCode == o.hashCode && base.equals(o.base) && from.equals(o.from) && to.equals(o.to);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
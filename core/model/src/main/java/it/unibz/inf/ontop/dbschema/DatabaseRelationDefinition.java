@@ -24,6 +24,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.model.type.DBTermType;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -42,6 +43,8 @@ public class DatabaseRelationDefinition extends RelationDefinition {
 	private final List<ForeignKeyConstraint> fks = new LinkedList<>();
 	private final List<FunctionalDependency> otherFunctionalDependencies = new ArrayList<>();
 	private UniqueConstraint pk;	
+	@Nullable
+	private RelationStatistics statistics;
 	
 	
 	/**
@@ -181,6 +184,20 @@ public class DatabaseRelationDefinition extends RelationDefinition {
 		return ImmutableList.copyOf(fks);
 	}
 
+	/**
+	 * sets the statistics of the relation (replacing the previous ones, if any)
+	 *
+	 * @param statistics
+	 */
+
+	public void setStatistics(RelationStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	@Override
+	public Optional<RelationStatistics> getStatistics() {
+		return Optional.ofNullable(statistics);
+	}
 
 	@Override
 	public String toString() {
@@ -98,6 +98,20 @@ public class QuotedID {
 		
 		return quoteString + id + quoteString;
 	}
+
+	/**
+	 * (used only for serializing the DB metadata)
+	 */
+	String getQuoteString() {
+		return quoteString;
+	}
+
+	/**
+	 * (used only for serializing the DB metadata)
+	 */
+	boolean isCaseSensitive() {
+		return caseSensitive;
+	}
 	
 	@Override
 	public String toString() {
@@ -25,6 +25,7 @@ import it.unibz.inf.ontop.model.atom.RelationPredicate;
 
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Optional;
 
 
 /**
@@ -75,4 +76,11 @@ public abstract class RelationDefinition {
 	public abstract UniqueConstraint getPrimaryKey();
 
 	public abstract ImmutableList<ForeignKeyConstraint> getForeignKeys();
+
+	/**
+	 * Empty if no statistics have been extracted for the relation
+	 */
+	public Optional<RelationStatistics> getStatistics() {
+		return Optional.empty();
+	}
 }
@@ -110,6 +110,20 @@ public class RelationID {
 	public String getTableName() {
 		return table.getName();
 	}
+
+	/**
+	 * (used only for serializing the DB metadata)
+	 */
+	QuotedID getSchemaID() {
+		return schema;
+	}
+
+	/**
+	 * (used only for serializing the DB metadata)
+	 */
+	QuotedID getTableID() {
+		return table;
+	}
 	
 	/**
 	 * 
@@ -0,0 +1,83 @@
+package it.unibz.inf.ontop.dbschema;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Optional;
+
+/**
+ * Statistics of a database relation, as reported by the catalog of the DBMS (possibly approximate):
+ * number of rows, number of distinct values of the attributes that are the only column of an index
+ * and attributes that are the first column of an index.
+ *
+ * Attributes are identified by their index (starting at 1, see Attribute.getIndex()).
+ *
+ * Immutable
+ */
+public class RelationStatistics {
+
+	private final long rowCount;
+	private final ImmutableMap<Integer, Long> distinctValueCounts;
+	private final ImmutableSet<Integer> indexedAttributes;
+
+	private RelationStatistics(long rowCount, ImmutableMap<Integer, Long> distinctValueCounts,
+							   ImmutableSet<Integer> indexedAttributes) {
+		this.rowCount = rowCount;
+		this.distinctValueCounts = distinctValueCounts;
+		this.indexedAttributes = indexedAttributes;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	public Optional<Long> getDistinctValueCount(int attributeIndex) {
+		return Optional.ofNullable(distinctValueCounts.get(attributeIndex));
+	}
+
+	public boolean isIndexed(int attributeIndex) {
+		return indexedAttributes.contains(attributeIndex);
+	}
+
+	public ImmutableMap<Integer, Long> getDistinctValueCounts() {
+		return distinctValueCounts;
+	}
+
+	public ImmutableSet<Integer> getIndexedAttributes() {
+		return indexedAttributes;
+	}
+
+	@Override
+	public String toString() {
+		return "rows: " + rowCount + ", distinct values: " + distinctValueCounts + ", indexed: " + indexedAttributes;
+	}
+
+	public static Builder builder(long rowCount) {
+		return new Builder(rowCount);
+	}
+
+	public static class Builder {
+		private final long rowCount;
+		private final ImmutableMap.Builder<Integer, Long> distinctValueCountBuilder = ImmutableMap.builder();
+		private final ImmutableSet.Builder<Integer> indexedAttributeBuilder = ImmutableSet.builder();
+
+		private Builder(long rowCount) {
+			this.rowCount = rowCount;
+		}
+
+		public Builder addDistinctValueCount(int attributeIndex, long count) {
+			distinctValueCountBuilder.put(attributeIndex, count);
+			return this;
+		}
+
+		public Builder addIndexedAttribute(int attributeIndex) {
+			indexedAttributeBuilder.add(attributeIndex);
+			return this;
+		}
+
+		public RelationStatistics build() {
+			return new RelationStatistics(rowCount, distinctValueCountBuilder.build(),
+					indexedAttributeBuilder.build());
+		}
+	}
+}
@@ -59,6 +59,25 @@ public interface IntermediateQueryFactory {
                                 @Assisted("columnNames") ImmutableMap<Variable, String> columnNames,
                                 String nativeQueryString, VariableNullability variableNullability);
 
+    /**
+     * For native query strings with positional parameters
+     */
+    NativeNode createNativeNode(ImmutableSortedSet<Variable> variables,
+                                @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                                @Assisted("columnNames") ImmutableMap<Variable, String> columnNames,
+                                String nativeQueryString, ImmutableList<DBConstant> parameters,
+                                VariableNullability variableNullability);
+
+    /**
+     * For native query strings with positional parameters whose values are not known yet
+     * (see NativeNode.getParameterIndexes())
+     */
+    NativeNode createParameterizedNativeNode(ImmutableSortedSet<Variable> variables,
+                                @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                                @Assisted("columnNames") ImmutableMap<Variable, String> columnNames,
+                                String nativeQueryString, ImmutableList<Integer> parameterIndexes,
+                                VariableNullability variableNullability);
+
     TrueNode createTrueNode();
 
     DistinctNode createDistinctNode();
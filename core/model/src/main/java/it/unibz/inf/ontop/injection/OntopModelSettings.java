@@ -12,6 +12,14 @@ public interface OntopModelSettings {
 
     boolean isTestModeEnabled();
 
+    /**
+     * Hash-consing of the functional terms and of the substitutions by their factories:
+     * equal instances are shared, so that most equality checks are reference comparisons.
+     *
+     * Saves memory and time on large queries (e.g. big unions), at the price of a (weak) global table.
+     */
+    boolean isHashConsingEnabled();
+
     /**
      * Not for end-users!
      *
@@ -44,4 +52,5 @@ public interface OntopModelSettings {
 
     String CARDINALITY_MODE = "ontop.cardinalityMode";
     String TEST_MODE = "ontop.testMode";
+    String HASH_CONSING = "ontop.hashConsing";
 }
@@ -18,6 +18,7 @@ public class OntopModelSettingsImpl implements OntopModelSettings {
     private final Properties properties;
     private final CardinalityPreservationMode cardinalityMode;
     private final boolean testMode;
+    private final boolean hashConsing;
 
     /**
      * Beware: immutable class!
@@ -39,6 +40,7 @@ public class OntopModelSettingsImpl implements OntopModelSettings {
 
         cardinalityMode = extractCardinalityMode(properties);
         testMode = extractBoolean(properties, OntopModelSettings.TEST_MODE);
+        hashConsing = extractBoolean(properties, OntopModelSettings.HASH_CONSING);
     }
 
     private static CardinalityPreservationMode extractCardinalityMode(Properties properties)
@@ -107,6 +109,11 @@ public class OntopModelSettingsImpl implements OntopModelSettings {
         return testMode;
     }
 
+    @Override
+    public boolean isHashConsingEnabled() {
+        return hashConsing;
+    }
+
     /**
      * Returns the boolean value of the given key.
      */
@@ -138,8 +145,14 @@ public class OntopModelSettingsImpl implements OntopModelSettings {
      * Returns the integer value of the given key.
      */
     Optional<Integer> getInteger(String key) {
-        String value = (String) get(key);
-        return Optional.ofNullable(Integer.parseInt(value));
+        return Optional.ofNullable((String) get(key))
+                .map(v -> {
+                    try {
+                        return Integer.parseInt(v);
+                    } catch (NumberFormatException e) {
+                        throw new InvalidOntopConfigurationException(key + " was expecting a number");
+                    }
+                });
     }
 
     int getRequiredInteger(String key) {
@@ -148,6 +161,26 @@ public class OntopModelSettingsImpl implements OntopModelSettings {
                         "(must have a default value)"));
     }
 
+    /**
+     * Returns the long value of the given key.
+     */
+    Optional<Long> getLong(String key) {
+        return Optional.ofNullable((String) get(key))
+                .map(v -> {
+                    try {
+                        return Long.parseLong(v);
+                    } catch (NumberFormatException e) {
+                        throw new InvalidOntopConfigurationException(key + " was expecting a number");
+                    }
+                });
+    }
+
+    long getRequiredLong(String key) {
+        return getLong(key)
+                .orElseThrow(() -> new InvalidOntopConfigurationException(key + " is required but missing " +
+                        "(must have a default value)"));
+    }
+
     /**
      * Returns the string value of the given key.
      */
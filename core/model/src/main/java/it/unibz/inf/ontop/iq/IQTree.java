@@ -87,6 +87,13 @@ public interface IQTree {
 
     boolean isEquivalentTo(IQTree tree);
 
+    /**
+     * Structural hash code compatible with isEquivalentTo(IQTree).
+     *
+     * For composite trees, computed at construction time and returned by hashCode().
+     */
+    int getEquivalenceHashCode();
+
     /**
      * TODO: explain
      *
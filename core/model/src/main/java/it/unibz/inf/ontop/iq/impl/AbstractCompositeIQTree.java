@@ -24,6 +24,8 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
     private final N rootNode;
     private final ImmutableList<IQTree> children;
     private final IQProperties iqProperties;
+    // Structural, computed at construction time
+    private final int hashCode;
     private static final String TAB_STR = "   ";
 
     /**
@@ -48,6 +50,7 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
         this.rootNode = rootNode;
         this.children = children;
         this.iqProperties = iqProperties;
+        this.hashCode = computeHashCode(rootNode, children);
         // To be computed on-demand
         knownVariables = null;
         hasBeenSuccessfullyValidate = false;
@@ -109,11 +112,30 @@ public abstract class AbstractCompositeIQTree<N extends QueryNode> implements Co
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hashCode;
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return hashCode;
+    }
+
+    private static int computeHashCode(QueryNode rootNode, ImmutableList<IQTree> children) {
+        int hashCode = rootNode.getEquivalenceHashCode();
+        for (IQTree child : children)
+            hashCode = 31 * hashCode + child.getEquivalenceHashCode();
+        return hashCode;
+    }
+
+    /**
+     * Trees with different hash codes are not compared any further
+     */
     @Override
     public boolean isEquivalentTo(IQTree tree) {
+        if (tree == this)
+            return true;
+        if (hashCode != tree.getEquivalenceHashCode())
+            return false;
         if (!getRootNode().isEquivalentTo(tree.getRootNode()))
             return false;
 
@@ -21,6 +21,8 @@ public class IQImpl implements IQ {
     private final IQTree tree;
     private final IntermediateQueryFactory iqFactory;
     private final CoreUtilsFactory coreUtilsFactory;
+    // Structural, computed at construction time
+    private final int hashCode;
 
     /**
      * Lazy (created on demand)
@@ -38,6 +40,7 @@ public class IQImpl implements IQ {
         this.iqFactory = iqFactory;
         this.coreUtilsFactory = coreUtilsFactory;
         this.variableGenerator = null;
+        this.hashCode = 31 * projectionAtom.hashCode() + tree.getEquivalenceHashCode();
 
         if (settings.isTestModeEnabled())
             validate();
@@ -97,6 +100,9 @@ public class IQImpl implements IQ {
         if (otherObject == this)
             return true;
 
+        if ((otherObject instanceof IQImpl) && (hashCode != ((IQImpl) otherObject).hashCode))
+            return false;
+
         return (otherObject instanceof IQ)
                 && projectionAtom.equals(((IQ) otherObject).getProjectionAtom())
                 && tree.isEquivalentTo(((IQ) otherObject).getTree());
@@ -104,6 +110,6 @@ public class IQImpl implements IQ {
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hashCode;
     }
 }
@@ -1,8 +1,10 @@
 package it.unibz.inf.ontop.iq.node;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
 import it.unibz.inf.ontop.iq.LeafIQTree;
+import it.unibz.inf.ontop.model.term.DBConstant;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.type.DBTermType;
 
@@ -31,4 +33,20 @@ public interface NativeNode extends LeafIQTree {
     ImmutableMap<Variable, String> getColumnNames();
 
     String getNativeQueryString();
+
+    /**
+     * Values of the positional parameters of the native query string, in their order of appearance.
+     *
+     * Empty if the native query string has no parameter or if their values are not known yet.
+     */
+    ImmutableList<DBConstant> getParameters();
+
+    /**
+     * For a native query string generated from a query with parameters (see DBParameterFunctionSymbol)
+     * whose values are not known yet: index of the parameter of each positional parameter of the
+     * native query string, in their order of appearance.
+     *
+     * Empty otherwise.
+     */
+    ImmutableList<Integer> getParameterIndexes();
 }
@@ -93,4 +93,11 @@ public interface QueryNode extends Cloneable {
      * Is syntactically equivalent
      */
     boolean isEquivalentTo(QueryNode queryNode);
+
+    /**
+     * Hash code compatible with isEquivalentTo(QueryNode): equivalent nodes have the same one.
+     *
+     * Unlike hashCode(), which remains compatible with the identity-based equals(...).
+     */
+    int getEquivalenceHashCode();
 }
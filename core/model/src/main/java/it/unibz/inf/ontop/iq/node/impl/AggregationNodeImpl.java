@@ -26,6 +26,7 @@ import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -158,6 +159,11 @@ public class AggregationNodeImpl extends ExtendedProjectionNodeImpl implements A
         return isSyntacticallyEquivalentTo(queryNode);
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(AGGREGATE_NODE_STR, groupingVariables, substitution);
+    }
+
     @Override
     public void validateNode(IQTree child) throws InvalidIntermediateQueryException {
         validateNode();
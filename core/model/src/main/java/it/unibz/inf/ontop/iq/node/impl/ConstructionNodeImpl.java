@@ -30,6 +30,7 @@ import it.unibz.inf.ontop.utils.VariableGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -346,6 +347,11 @@ public class ConstructionNodeImpl extends ExtendedProjectionNodeImpl implements
         return isSyntacticallyEquivalentTo(queryNode);
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(CONSTRUCTION_NODE_STR, projectedVariables, substitution);
+    }
+
     @Override
     public void acceptVisitor(QueryNodeVisitor visitor) {
         visitor.visit(this);
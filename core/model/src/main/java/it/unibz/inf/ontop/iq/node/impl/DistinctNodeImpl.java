@@ -132,6 +132,11 @@ public class DistinctNodeImpl extends QueryModifierNodeImpl implements DistinctN
         return queryNode instanceof DistinctNode;
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return DISTINCT_NODE_STR.hashCode();
+    }
+
     @Override
     public String toString() {
         return DISTINCT_NODE_STR;
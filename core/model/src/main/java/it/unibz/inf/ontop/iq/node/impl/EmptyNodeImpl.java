@@ -16,6 +16,7 @@ import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.iq.*;
 import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
+import java.util.Objects;
 
 
 public class EmptyNodeImpl extends LeafIQTreeImpl implements EmptyNode {
@@ -149,4 +150,9 @@ public class EmptyNodeImpl extends LeafIQTreeImpl implements EmptyNode {
             return false;
         return projectedVariables.equals(((EmptyNode) queryNode).getVariables());
     }
+
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(PREFIX, projectedVariables);
+    }
 }
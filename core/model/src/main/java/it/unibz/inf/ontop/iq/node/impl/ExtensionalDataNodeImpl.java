@@ -23,6 +23,7 @@ import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import javax.annotation.Nullable;
+import java.util.Objects;
 import java.util.stream.IntStream;
 
 /**
@@ -165,6 +166,11 @@ public class ExtensionalDataNodeImpl extends DataNodeImpl<RelationPredicate> imp
                 && getProjectionAtom().equals(((ExtensionalDataNode) queryNode).getProjectionAtom());
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(EXTENSIONAL_NODE_STR, getProjectionAtom());
+    }
+
 
     @Override
     public String toString() {
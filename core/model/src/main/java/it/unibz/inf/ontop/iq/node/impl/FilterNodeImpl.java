@@ -27,6 +27,7 @@ import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
+import java.util.Objects;
 import java.util.Optional;
 
 
@@ -227,6 +228,11 @@ public class FilterNodeImpl extends JoinOrFilterNodeImpl implements FilterNode {
                 && getFilterCondition().equals(((FilterNode) queryNode).getFilterCondition());
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(FILTER_NODE_STR, getFilterCondition());
+    }
+
     @Override
     public String toString() {
         return FILTER_NODE_STR + getOptionalFilterString();
@@ -16,6 +16,7 @@ import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.iq.*;
 import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
+import java.util.Objects;
 
 
 public class IntensionalDataNodeImpl extends DataNodeImpl<AtomPredicate> implements IntensionalDataNode {
@@ -108,6 +109,11 @@ public class IntensionalDataNodeImpl extends DataNodeImpl<AtomPredicate> impleme
                 && getProjectionAtom().equals(((IntensionalDataNode) queryNode).getProjectionAtom());
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(INTENSIONAL_DATA_NODE_STR, getProjectionAtom());
+    }
+
     @Override
     public String toString() {
         return INTENSIONAL_DATA_NODE_STR + " " + getProjectionAtom();
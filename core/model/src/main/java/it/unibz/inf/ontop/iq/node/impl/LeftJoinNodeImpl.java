@@ -27,6 +27,7 @@ import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -141,6 +142,11 @@ public class LeftJoinNodeImpl extends JoinLikeNodeImpl implements LeftJoinNode {
                 && getOptionalFilterCondition().equals(((LeftJoinNode) queryNode).getOptionalFilterCondition());
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(LEFT_JOIN_NODE_STR, getOptionalFilterCondition());
+    }
+
     @Override
     public String toString() {
         return LEFT_JOIN_NODE_STR + getOptionalFilterString();
@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.iq.node.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
@@ -18,23 +19,29 @@ import it.unibz.inf.ontop.iq.node.*;
 import it.unibz.inf.ontop.iq.transform.IQTreeVisitingTransformer;
 import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
 import it.unibz.inf.ontop.iq.visit.IQVisitor;
+import it.unibz.inf.ontop.model.term.DBConstant;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
 
+import java.util.Objects;
 import java.util.Optional;
 
 
 public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
 
     private static final String NATIVE_STRING = "NATIVE ";
+    private static final String PARAMETERS_STRING = "PARAMETERS ";
+    private static final String PARAMETER_INDEXES_STRING = "PARAMETER INDEXES ";
 
     private final ImmutableMap<Variable, DBTermType> variableTypeMap;
     private final String nativeQueryString;
     private final VariableNullability variableNullability;
     private final ImmutableSortedSet<Variable> variables;
     private final ImmutableMap<Variable, String> columnNames;
+    private final ImmutableList<DBConstant> parameters;
+    private final ImmutableList<Integer> parameterIndexes;
 
     @AssistedInject
     private NativeNodeImpl(@Assisted ImmutableSortedSet<Variable> variables,
@@ -44,9 +51,54 @@ public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
                            @Assisted VariableNullability variableNullability,
                            IQTreeTools iqTreeTools, IntermediateQueryFactory iqFactory,
                            OntopModelSettings settings) {
+        this(variables, variableTypeMap, columnNames, nativeQueryString, ImmutableList.of(), ImmutableList.of(),
+                variableNullability, iqTreeTools, iqFactory, settings);
+    }
+
+    @AssistedInject
+    private NativeNodeImpl(@Assisted ImmutableSortedSet<Variable> variables,
+                           @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                           @Assisted("columnNames") ImmutableMap<Variable, String> columnNames,
+                           @Assisted String nativeQueryString,
+                           @Assisted ImmutableList<DBConstant> parameters,
+                           @Assisted VariableNullability variableNullability,
+                           IQTreeTools iqTreeTools, IntermediateQueryFactory iqFactory,
+                           OntopModelSettings settings) {
+        this(variables, variableTypeMap, columnNames, nativeQueryString, parameters, ImmutableList.of(),
+                variableNullability, iqTreeTools, iqFactory, settings);
+    }
+
+    /**
+     * The parameter indexes come after the variable nullability to distinguish this constructor
+     * from the one with the parameter values
+     */
+    @AssistedInject
+    private NativeNodeImpl(@Assisted ImmutableSortedSet<Variable> variables,
+                           @Assisted("variableTypeMap") ImmutableMap<Variable, DBTermType> variableTypeMap,
+                           @Assisted("columnNames") ImmutableMap<Variable, String> columnNames,
+                           @Assisted String nativeQueryString,
+                           @Assisted VariableNullability variableNullability,
+                           @Assisted ImmutableList<Integer> parameterIndexes,
+                           IQTreeTools iqTreeTools, IntermediateQueryFactory iqFactory,
+                           OntopModelSettings settings) {
+        this(variables, variableTypeMap, columnNames, nativeQueryString, ImmutableList.of(), parameterIndexes,
+                variableNullability, iqTreeTools, iqFactory, settings);
+    }
+
+    private NativeNodeImpl(ImmutableSortedSet<Variable> variables,
+                           ImmutableMap<Variable, DBTermType> variableTypeMap,
+                           ImmutableMap<Variable, String> columnNames,
+                           String nativeQueryString,
+                           ImmutableList<DBConstant> parameters,
+                           ImmutableList<Integer> parameterIndexes,
+                           VariableNullability variableNullability,
+                           IQTreeTools iqTreeTools, IntermediateQueryFactory iqFactory,
+                           OntopModelSettings settings) {
         super(iqTreeTools, iqFactory);
         this.variables = variables;
         this.nativeQueryString = nativeQueryString;
+        this.parameters = parameters;
+        this.parameterIndexes = parameterIndexes;
         this.variableNullability = variableNullability;
         this.variableTypeMap = variableTypeMap;
         this.columnNames = columnNames;
@@ -68,6 +120,16 @@ public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
         return nativeQueryString;
     }
 
+    @Override
+    public ImmutableList<DBConstant> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public ImmutableList<Integer> getParameterIndexes() {
+        return parameterIndexes;
+    }
+
     @Override
     public void acceptVisitor(QueryNodeVisitor visitor) {
         throw new UnsupportedOperationException("Should NativeNode support visitors?");
@@ -112,7 +174,14 @@ public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
     public boolean isEquivalentTo(QueryNode queryNode) {
         return (queryNode instanceof NativeNode)
                 && ((NativeNode) queryNode).getVariables().equals(variables)
-                && ((NativeNode) queryNode).getNativeQueryString().equals(nativeQueryString);
+                && ((NativeNode) queryNode).getNativeQueryString().equals(nativeQueryString)
+                && ((NativeNode) queryNode).getParameters().equals(parameters)
+                && ((NativeNode) queryNode).getParameterIndexes().equals(parameterIndexes);
+    }
+
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(NATIVE_STRING, variables, nativeQueryString, parameters, parameterIndexes);
     }
 
     @Override
@@ -177,6 +246,8 @@ public class NativeNodeImpl extends LeafIQTreeImpl implements NativeNode {
 
     @Override
     public String toString() {
-        return NATIVE_STRING + variables + "\n" + nativeQueryString;
+        return NATIVE_STRING + variables + "\n" + nativeQueryString
+                + (parameters.isEmpty() ? "" : "\n" + PARAMETERS_STRING + parameters)
+                + (parameterIndexes.isEmpty() ? "" : "\n" + PARAMETER_INDEXES_STRING + parameterIndexes);
     }
 }
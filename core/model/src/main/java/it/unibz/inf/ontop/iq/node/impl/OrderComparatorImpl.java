@@ -36,6 +36,11 @@ public class OrderComparatorImpl implements OrderByNode.OrderComparator {
                 && ((OrderByNode.OrderComparator) other).isAscending() == isAscending;
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * term.hashCode() + Boolean.hashCode(isAscending);
+    }
+
     @Override
     public String toString() {
         String prefix = isAscending ? ASC_PREFIX : DESC_PREFIX;
@@ -21,6 +21,7 @@ import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
 import javax.annotation.Nullable;
+import java.util.Objects;
 import java.util.Optional;
 
 public class SliceNodeImpl extends QueryModifierNodeImpl implements SliceNode {
@@ -172,6 +173,11 @@ public class SliceNodeImpl extends QueryModifierNodeImpl implements SliceNode {
                 && ((SliceNode) queryNode).getLimit().equals(getLimit());
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return Objects.hash(SLICE_STR, offset, limit);
+    }
+
     @Override
     public ImmutableSet<Variable> getLocalVariables() {
         return ImmutableSet.of();
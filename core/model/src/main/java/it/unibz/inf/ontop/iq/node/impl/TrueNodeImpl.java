@@ -88,6 +88,11 @@ public class TrueNodeImpl extends LeafIQTreeImpl implements TrueNode {
         return (queryNode instanceof TrueNode);
     }
 
+    @Override
+    public int getEquivalenceHashCode() {
+        return PREFIX.hashCode();
+    }
+
     @Override
     public ImmutableSet<Variable> getVariables() {
         return EMPTY_VARIABLE_SET;
@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.model.atom.DataAtom;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.impl.StructuralEqualityTools;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 
@@ -20,6 +21,8 @@ public abstract class AbstractDataAtomImpl<P extends AtomPredicate>
 
     private final P predicate;
     private final ImmutableList<? extends VariableOrGroundTerm> arguments;
+    // Structural, computed at construction time
+    private final int hashCode;
 
     // Lazy (cache)
     @Nullable
@@ -34,11 +37,13 @@ public abstract class AbstractDataAtomImpl<P extends AtomPredicate>
             throw new IllegalArgumentException("Arity violation: " + predicate + " was expecting " + predicate.getArity()
                     + ", not " + arguments.size());
         }
+        this.hashCode = 31 * predicate.hashCode() + arguments.hashCode();
     }
 
     protected AbstractDataAtomImpl(P predicate, VariableOrGroundTerm... variableOrGroundTerms) {
         this.predicate = predicate;
         this.arguments = ImmutableList.copyOf(variableOrGroundTerms);
+        this.hashCode = 31 * predicate.hashCode() + arguments.hashCode();
     }
 
     @Override
@@ -91,21 +96,24 @@ public abstract class AbstractDataAtomImpl<P extends AtomPredicate>
     }
 
     /**
-     * TODO: improve
+     * Structural equality (see StructuralEqualityTools)
      */
     @Override
     public boolean equals(Object other) {
-        if (other instanceof DataAtom) {
-            return toString().equals(other.toString());
-        }
-        else {
+        if (this == other)
+            return true;
+        if (!(other instanceof AbstractDataAtomImpl))
             return false;
-        }
+
+        AbstractDataAtomImpl<?> otherAtom = (AbstractDataAtomImpl<?>) other;
+        return hashCode == otherAtom.hashCode
+                && predicate.equals(otherAtom.predicate)
+                && StructuralEqualityTools.areStructurallyEqual(arguments, otherAtom.arguments);
     }
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hashCode;
     }
 
     /**
@@ -571,6 +571,11 @@ public interface TermFactory {
 
 	ImmutableFunctionalTerm getDBRand(UUID uuid);
 
+	/**
+	 * Value only provided at execution time (see DBParameterFunctionSymbol)
+	 */
+	ImmutableFunctionalTerm getDBParameter(int index, DBTermType dbTermType);
+
 	ImmutableFunctionalTerm getDBYearFromDatetime(ImmutableTerm dbDatetimeTerm);
 	ImmutableFunctionalTerm getDBMonthFromDatetime(ImmutableTerm dbDatetimeTerm);
 	ImmutableFunctionalTerm getDBDayFromDatetime(ImmutableTerm dbDatetimeTerm);
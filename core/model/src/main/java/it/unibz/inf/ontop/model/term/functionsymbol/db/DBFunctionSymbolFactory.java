@@ -191,6 +191,11 @@ public interface DBFunctionSymbolFactory {
     NonDeterministicDBFunctionSymbol getDBRand(UUID uuid);
     NonDeterministicDBFunctionSymbol getDBUUID(UUID uuid);
 
+    /**
+     * Nullary function symbol whose value is provided at execution time
+     */
+    DBParameterFunctionSymbol getDBParameter(int index, DBTermType dbTermType);
+
     DBBooleanFunctionSymbol getDBRegexpMatches2();
     DBBooleanFunctionSymbol getDBRegexpMatches3();
 
@@ -0,0 +1,34 @@
+package it.unibz.inf.ontop.model.term.functionsymbol.db;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Nullary function symbol standing for a value that is only provided at execution time
+ * (e.g. as a parameter of a JDBC prepared statement).
+ *
+ * Allows to share the reformulation of queries that only differ by some of their constants.
+ *
+ * Deterministic: two occurrences of the same parameter always stand for the same value.
+ *
+ * Its native DB string is a placeholder (see PLACEHOLDER_PATTERN) that the native query generator replaces
+ * by a positional parameter, recording the index of the parameter (see NativeNode.getParameterIndexes()).
+ * The placeholder contains a random token (drawn at startup), so that it cannot be mistaken for a string constant
+ * or the SQL query of a mapping assertion.
+ */
+public interface DBParameterFunctionSymbol extends DBFunctionSymbol {
+
+    String PLACEHOLDER_PREFIX = "${ontopParam-" + UUID.randomUUID() + "-";
+    String PLACEHOLDER_SUFFIX = "}";
+
+    /**
+     * The first group corresponds to the index of the parameter
+     */
+    Pattern PLACEHOLDER_PATTERN = Pattern.compile(Pattern.quote(PLACEHOLDER_PREFIX) + "(\\d+)"
+            + Pattern.quote(PLACEHOLDER_SUFFIX));
+
+    /**
+     * Position in the list of values of the query
+     */
+    int getIndex();
+}
@@ -726,6 +726,14 @@ public abstract class AbstractDBFunctionSymbolFactory implements DBFunctionSymbo
         return newOperator;
     }
 
+    /**
+     * Not cached: parameter function symbols are identified by their index and their type
+     */
+    @Override
+    public DBParameterFunctionSymbol getDBParameter(int index, DBTermType dbTermType) {
+        return new DBParameterFunctionSymbolImpl(index, dbTermType);
+    }
+
     @Override
     public DBFunctionSymbol getAbs(DBTermType dbTermType) {
         DBFunctionSymbol existingFunctionSymbol = absMap.get(dbTermType);
@@ -0,0 +1,46 @@
+package it.unibz.inf.ontop.model.term.functionsymbol.db.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.DBParameterFunctionSymbol;
+import it.unibz.inf.ontop.model.type.DBTermType;
+
+import java.util.function.Function;
+
+public class DBParameterFunctionSymbolImpl extends AbstractTypedDBFunctionSymbol implements DBParameterFunctionSymbol {
+
+    private final int index;
+
+    protected DBParameterFunctionSymbolImpl(int index, DBTermType targetType) {
+        super("PARAM" + index + "-" + targetType.getName(), ImmutableList.of(), targetType);
+        this.index = index;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String getNativeDBString(ImmutableList<? extends ImmutableTerm> terms, Function<ImmutableTerm, String> termConverter,
+                                    TermFactory termFactory) {
+        return PLACEHOLDER_PREFIX + index + PLACEHOLDER_SUFFIX;
+    }
+
+    /**
+     * Stands for a single value
+     */
+    @Override
+    public boolean isAlwaysInjectiveInTheAbsenceOfNonInjectiveFunctionalTerms() {
+        return true;
+    }
+
+    /**
+     * The value is only known by the DB engine
+     */
+    @Override
+    public boolean canBePostProcessed(ImmutableList<? extends ImmutableTerm> arguments) {
+        return false;
+    }
+}
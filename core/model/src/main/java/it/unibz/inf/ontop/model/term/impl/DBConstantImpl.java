@@ -43,9 +43,12 @@ public class DBConstantImpl extends AbstractNonNullConstant implements DBConstan
         return "\"" + value + "\"^^" + termType;
     }
 
+    /**
+     * Only depends on the value, as equals(...)
+     */
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return value.hashCode();
     }
 
     /**
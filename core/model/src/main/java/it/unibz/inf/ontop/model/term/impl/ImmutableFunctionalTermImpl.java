@@ -22,6 +22,10 @@ public abstract class ImmutableFunctionalTermImpl implements ImmutableFunctional
     private final FunctionSymbol functionSymbol;
     private final ImmutableList<? extends ImmutableTerm> terms;
     private final TermFactory termFactory;
+    /**
+     * Structural hash code, computed at construction time from the ones of the sub-terms
+     */
+    private final int hashCode;
 
     /**
      * Lazy cache for toString()
@@ -44,6 +48,7 @@ public abstract class ImmutableFunctionalTermImpl implements ImmutableFunctional
             throw new IllegalArgumentException("Arity violation: " + functionSymbol + " was expecting " + functionSymbol.getArity()
             + ", not " + terms.size());
         }
+        this.hashCode = 31 * functionSymbol.hashCode() + terms.hashCode();
     }
 
     @Override
@@ -105,22 +110,26 @@ public abstract class ImmutableFunctionalTermImpl implements ImmutableFunctional
     }
 
     /**
-     * A bit hacky: only for the functional term
-     * that derives from ImmutableFunctionalTermImpl
+     * Structural equality: only for the functional terms that derive from ImmutableFunctionalTermImpl.
+     *
+     * Reference equality (e.g. for hash-consed terms) and different hash codes are detected first.
      */
     @Override
     public boolean equals(Object other) {
-        if (other instanceof ImmutableFunctionalTerm) {
-            return toString().equals(other.toString());
-        }
-        else {
+        if (this == other)
+            return true;
+        if (!(other instanceof ImmutableFunctionalTermImpl))
             return false;
-        }
+
+        ImmutableFunctionalTermImpl otherTerm = (ImmutableFunctionalTermImpl) other;
+        return hashCode == otherTerm.hashCode
+                && functionSymbol.equals(otherTerm.functionSymbol)
+                && StructuralEqualityTools.areStructurallyEqual(terms, otherTerm.terms);
     }
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
+        return hashCode;
     }
 
     @Override
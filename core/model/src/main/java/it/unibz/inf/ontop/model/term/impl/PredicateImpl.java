@@ -56,7 +56,7 @@ public class PredicateImpl implements Predicate {
 			return false;
 		}
 		PredicateImpl pred2 = (PredicateImpl) obj;
-		return this.identifier == pred2.identifier;
+		return this.identifier == pred2.identifier && name.equals(pred2.name);
 	}
 
 	@Override
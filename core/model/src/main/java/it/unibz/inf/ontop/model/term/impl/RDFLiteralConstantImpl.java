@@ -65,7 +65,7 @@ public class RDFLiteralConstantImpl extends AbstractNonNullConstant implements R
 			return false;
 		}
 		RDFLiteralConstantImpl value2 = (RDFLiteralConstantImpl) obj;
-		return this.hashCode() == value2.hashCode();
+		return string.equals(value2.string);
 	}
 
 	@Override
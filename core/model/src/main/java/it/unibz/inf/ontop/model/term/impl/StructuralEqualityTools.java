@@ -0,0 +1,39 @@
+package it.unibz.inf.ontop.model.term.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.term.DBConstant;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+
+/**
+ * Equality of the arguments of functional terms and of data atoms, without rendering their string representation.
+ */
+public class StructuralEqualityTools {
+
+    /**
+     * Equivalent to the equality of the string representations of the terms.
+     *
+     * Unlike DBConstant.equals(...), which only compares the lexical values, DB constants must also share the same type.
+     */
+    public static boolean areStructurallyEqual(ImmutableList<? extends ImmutableTerm> terms,
+                                               ImmutableList<? extends ImmutableTerm> otherTerms) {
+        int size = terms.size();
+        if (size != otherTerms.size())
+            return false;
+
+        for (int i = 0; i < size; i++) {
+            if (!areStructurallyEqual(terms.get(i), otherTerms.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    public static boolean areStructurallyEqual(ImmutableTerm term, ImmutableTerm otherTerm) {
+        if (term == otherTerm)
+            return true;
+        if (term instanceof DBConstant)
+            return (otherTerm instanceof DBConstant)
+                    && term.equals(otherTerm)
+                    && ((DBConstant) term).getType().equals(((DBConstant) otherTerm).getType());
+        return term.equals(otherTerm);
+    }
+}
@@ -21,6 +21,8 @@ package it.unibz.inf.ontop.model.term.impl;
  */
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
@@ -44,6 +46,7 @@ import org.apache.commons.rdf.api.RDF;
 
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 @Singleton
@@ -64,6 +67,9 @@ public class TermFactoryImpl implements TermFactory {
 	private final RDFTermTypeConstant iriTypeConstant, bnodeTypeConstant;
 	private final RDF rdfFactory;
 	private final ImmutableExpression.Evaluation positiveEvaluation, negativeEvaluation, nullEvaluation;
+	// Only when hash-consing is enabled
+	@Nullable
+	private final Interner<ImmutableFunctionalTerm> functionalTermInterner;
 
 	@Inject
 	private TermFactoryImpl(TypeFactory typeFactory, FunctionSymbolFactory functionSymbolFactory,
@@ -89,8 +95,9 @@ public class TermFactoryImpl implements TermFactory {
 				.orElse(null);
 		this.provenanceConstant = new DBConstantImpl("ontop-provenance-constant", dbTypeFactory.getDBStringType());
 		this.immutabilityTools = new ImmutabilityTools(this);
-		this.termTypeConstantMap = new HashMap<>();
+		this.termTypeConstantMap = new ConcurrentHashMap<>();
 		this.isTestModeEnabled = settings.isTestModeEnabled();
+		this.functionalTermInterner = settings.isHashConsingEnabled() ? Interners.newWeakInterner() : null;
 		this.iriTypeConstant = getRDFTermTypeConstant(typeFactory.getIRITermType());
 		this.bnodeTypeConstant = getRDFTermTypeConstant(typeFactory.getBlankNodeType());
 		this.positiveEvaluation = new ImmutableExpressionImpl.ValueEvaluationImpl(
@@ -210,21 +217,21 @@ public class TermFactoryImpl implements TermFactory {
 	public ImmutableExpression getImmutableExpression(BooleanFunctionSymbol functor,
 													  ImmutableList<? extends ImmutableTerm> arguments) {
 		if (GroundTermTools.areGroundTerms(arguments)) {
-			return new GroundExpressionImpl(functor, (ImmutableList<GroundTerm>)arguments, this);
+			return intern(new GroundExpressionImpl(functor, (ImmutableList<GroundTerm>)arguments, this));
 		}
 		else {
-			return new NonGroundExpressionImpl(functor, arguments, this);
+			return intern(new NonGroundExpressionImpl(functor, arguments, this));
 		}
 	}
 
 	@Override
 	public ImmutableExpression getImmutableExpression(Expression expression) {
 		if (GroundTermTools.isGroundTerm(expression)) {
-			return new GroundExpressionImpl(expression.getFunctionSymbol(),
-					(ImmutableList<? extends GroundTerm>)(ImmutableList<?>)convertTerms(expression), this);
+			return intern(new GroundExpressionImpl(expression.getFunctionSymbol(),
+					(ImmutableList<? extends GroundTerm>)(ImmutableList<?>)convertTerms(expression), this));
 		}
 		else {
-			return new NonGroundExpressionImpl(expression.getFunctionSymbol(), convertTerms(expression), this);
+			return intern(new NonGroundExpressionImpl(expression.getFunctionSymbol(), convertTerms(expression), this));
 		}
 	}
 
@@ -387,14 +394,27 @@ public class TermFactoryImpl implements TermFactory {
 		}
 
 		if (GroundTermTools.areGroundTerms(terms)) {
-			return new GroundFunctionalTermImpl((ImmutableList<? extends GroundTerm>)terms, functor, this);
+			return intern(new GroundFunctionalTermImpl((ImmutableList<? extends GroundTerm>)terms, functor, this));
 		}
 		else {
 			// Default constructor
-			return new NonGroundFunctionalTermImpl(functor, terms, this);
+			return intern(new NonGroundFunctionalTermImpl(functor, terms, this));
 		}
 	}
 
+	/**
+	 * Hash-consing (if enabled). The shared instance must be of the same class (e.g. ground or not).
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends ImmutableFunctionalTerm> T intern(T term) {
+		if (functionalTermInterner == null)
+			return term;
+		ImmutableFunctionalTerm sharedTerm = functionalTermInterner.intern(term);
+		return (sharedTerm.getClass() == term.getClass())
+				? (T) sharedTerm
+				: term;
+	}
+
 	@Override
 	public ImmutableFunctionalTerm getImmutableFunctionalTerm(FunctionSymbol functor, ImmutableTerm... terms) {
 		return getImmutableFunctionalTerm(functor, ImmutableList.copyOf(terms));
@@ -402,12 +422,12 @@ public class TermFactoryImpl implements TermFactory {
 
 	@Override
 	public NonGroundFunctionalTerm getNonGroundFunctionalTerm(FunctionSymbol functor, ImmutableTerm... terms) {
-		return new NonGroundFunctionalTermImpl(this, functor, terms);
+		return intern(new NonGroundFunctionalTermImpl(this, functor, terms));
 	}
 
 	@Override
 	public NonGroundFunctionalTerm getNonGroundFunctionalTerm(FunctionSymbol functor, ImmutableList<ImmutableTerm> terms) {
-		return new NonGroundFunctionalTermImpl(functor, terms, this);
+		return intern(new NonGroundFunctionalTermImpl(functor, terms, this));
 	}
 
 	@Override
@@ -549,6 +569,11 @@ public class TermFactoryImpl implements TermFactory {
 		return getImmutableFunctionalTerm(dbFunctionSymbolFactory.getDBRand(uuid));
 	}
 
+	@Override
+	public ImmutableFunctionalTerm getDBParameter(int index, DBTermType dbTermType) {
+		return getImmutableFunctionalTerm(dbFunctionSymbolFactory.getDBParameter(index, dbTermType));
+	}
+
 	@Override
     public ImmutableFunctionalTerm getDBYearFromDatetime(ImmutableTerm dbDatetimeTerm) {
 		return getImmutableFunctionalTerm(dbFunctionSymbolFactory.getDBYearFromDatetime(), dbDatetimeTerm);
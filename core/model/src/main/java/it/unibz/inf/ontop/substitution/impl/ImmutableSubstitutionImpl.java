@@ -19,6 +19,8 @@ import java.util.Map;
 public class ImmutableSubstitutionImpl<T extends ImmutableTerm> extends AbstractImmutableSubstitutionImpl<T> {
 
     private final ImmutableMap<Variable, T> map;
+    // Computed at construction time (the one of ImmutableMap is not cached)
+    private final int hashCode;
 
     protected ImmutableSubstitutionImpl(ImmutableMap<Variable, ? extends T> substitutionMap,
                                         AtomFactory atomFactory, TermFactory termFactory,
@@ -29,6 +31,7 @@ public class ImmutableSubstitutionImpl<T extends ImmutableTerm> extends Abstract
         if (substitutionMap.entrySet().stream().anyMatch(e -> e.getKey().equals(e.getValue())))
             throw new IllegalArgumentException("Please do not insert entries like t/t in your substitution " +
                     "(for efficiency reasons)\n. Substitution: " + substitutionMap);
+        this.hashCode = map.hashCode();
     }
 
     @Override
@@ -92,11 +95,15 @@ public class ImmutableSubstitutionImpl<T extends ImmutableTerm> extends Abstract
 
     @Override
     public int hashCode() {
-        return map.hashCode();
+        return hashCode;
     }
 
     @Override
     public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if ((o instanceof ImmutableSubstitutionImpl) && (hashCode != ((ImmutableSubstitutionImpl) o).hashCode))
+            return false;
         return (o instanceof ImmutableSubstitution)
                 && map.equals(((ImmutableSubstitution) o).getImmutableMap());
     }
@@ -1,37 +1,66 @@
 package it.unibz.inf.ontop.substitution.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
+import it.unibz.inf.ontop.injection.OntopModelSettings;
 import it.unibz.inf.ontop.model.atom.AtomFactory;
 import it.unibz.inf.ontop.model.term.ImmutableTerm;
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.impl.StructuralEqualityTools;
 import it.unibz.inf.ontop.substitution.*;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
 
+import javax.annotation.Nullable;
 import java.util.AbstractMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 public class SubstitutionFactoryImpl implements SubstitutionFactory {
 
     private final AtomFactory atomFactory;
     private final TermFactory termFactory;
     private final CoreUtilsFactory coreUtilsFactory;
+    // Only when hash-consing is enabled
+    @Nullable
+    private final ConcurrentMap<SubstitutionKey, ImmutableSubstitution<?>> sharedSubstitutions;
 
     @Inject
-    private SubstitutionFactoryImpl(AtomFactory atomFactory, TermFactory termFactory, CoreUtilsFactory coreUtilsFactory) {
+    private SubstitutionFactoryImpl(AtomFactory atomFactory, TermFactory termFactory, CoreUtilsFactory coreUtilsFactory,
+                                    OntopModelSettings settings) {
         this.atomFactory = atomFactory;
         this.termFactory = termFactory;
         this.coreUtilsFactory = coreUtilsFactory;
+        this.sharedSubstitutions = settings.isHashConsingEnabled()
+                ? new MapMaker().weakValues().makeMap()
+                : null;
     }
 
     @Override
     public <T extends ImmutableTerm> ImmutableSubstitution<T> getSubstitution(ImmutableMap<Variable, T> newSubstitutionMap) {
-        return new ImmutableSubstitutionImpl<>(newSubstitutionMap, atomFactory, termFactory, this);
+        return intern(new ImmutableSubstitutionImpl<>(newSubstitutionMap, atomFactory, termFactory, this));
+    }
+
+    /**
+     * Hash-consing (if enabled).
+     *
+     * Shared substitutions have structurally equal entries (see SubstitutionKey), so sharing them is type-safe.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ImmutableTerm> ImmutableSubstitution<T> intern(ImmutableSubstitution<T> substitution) {
+        if (sharedSubstitutions == null)
+            return substitution;
+        ImmutableSubstitution<?> sharedSubstitution = sharedSubstitutions.putIfAbsent(
+                new SubstitutionKey(substitution.getImmutableMap()), substitution);
+        return sharedSubstitution == null
+                ? substitution
+                : (ImmutableSubstitution<T>) sharedSubstitution;
     }
 
     @Override
@@ -57,7 +86,7 @@ public class SubstitutionFactoryImpl implements SubstitutionFactory {
 
     @Override
     public <T extends ImmutableTerm> ImmutableSubstitution<T> getSubstitution() {
-        return new ImmutableSubstitutionImpl<>(ImmutableMap.of(), atomFactory, termFactory, this);
+        return intern(new ImmutableSubstitutionImpl<>(ImmutableMap.of(), atomFactory, termFactory, this));
     }
 
     @Override
@@ -108,4 +137,41 @@ public class SubstitutionFactoryImpl implements SubstitutionFactory {
         variableGenerator.registerAdditionalVariables(ImmutableSet.of(newVariable));
         return newVariable;
     }
+
+    /**
+     * Stricter than the equality of substitutions: the DB constants must have the same types
+     * and the entries must be in the same order (which may matter when iterating over them).
+     */
+    private static class SubstitutionKey {
+        private final ImmutableList<? extends Map.Entry<Variable, ? extends ImmutableTerm>> entries;
+        private final int hashCode;
+
+        private SubstitutionKey(ImmutableMap<Variable, ? extends ImmutableTerm> map) {
+            this.entries = map.entrySet().asList();
+            this.hashCode = map.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SubstitutionKey))
+                return false;
+            SubstitutionKey other = (SubstitutionKey) o;
+            if (hashCode != other.hashCode || entries.size() != other.entries.size())
+                return false;
+
+            for (int i = 0; i < entries.size(); i++) {
+                Map.Entry<Variable, ? extends ImmutableTerm> entry = entries.get(i);
+                Map.Entry<Variable, ? extends ImmutableTerm> otherEntry = other.entries.get(i);
+                if (!entry.getKey().equals(otherEntry.getKey())
+                        || !StructuralEqualityTools.areStructurallyEqual(entry.getValue(), otherEntry.getValue()))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package it.unibz.inf.ontop.constraints;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.constraints.impl.MemoizingCQContainmentCheckUnderLIDs;
+import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.atom.DataAtom;
+import it.unibz.inf.ontop.model.term.Variable;
+import org.apache.commons.rdf.api.IRI;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static it.unibz.inf.ontop.OntopModelTestingTools.*;
+import static org.junit.Assert.*;
+
+public class MemoizingCQContainmentCheckTest {
+
+    private static final IRI PROPERTY_R = RDF_FACTORY.createIRI("http://example.com/R");
+    private static final IRI CLASS_A = RDF_FACTORY.createIRI("http://example.com/A");
+    private static final IRI CLASS_C = RDF_FACTORY.createIRI("http://example.com/C");
+
+    private final Variable x = TERM_FACTORY.getVariable("x");
+    private final Variable y = TERM_FACTORY.getVariable("y");
+    private final Variable z = TERM_FACTORY.getVariable("z");
+    private final Variable s = TERM_FACTORY.getVariable("s");
+    private final Variable t = TERM_FACTORY.getVariable("t");
+
+    private final LinearInclusionDependencies<AtomPredicate> dependencies =
+            LinearInclusionDependencies.builder(CORE_UTILS_FACTORY, ATOM_FACTORY)
+                    .add(ATOM_FACTORY.getIntensionalTripleAtom(s, CLASS_C),
+                            ATOM_FACTORY.getIntensionalTripleAtom(s, CLASS_A))
+                    .build();
+
+    @Test
+    public void testContainmentUpToRenaming() {
+        MemoizingCQContainmentCheckUnderLIDs<AtomPredicate> cqc = new MemoizingCQContainmentCheckUnderLIDs<>(dependencies);
+
+        // q(x) :- A(x), R(x,y)
+        ImmutableCQ<AtomPredicate> q1 = new ImmutableCQ<>(ImmutableList.of(x), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(x, CLASS_A),
+                ATOM_FACTORY.getIntensionalTripleAtom(x, PROPERTY_R, y)));
+        // q(z) :- C(z)
+        ImmutableCQ<AtomPredicate> q2 = new ImmutableCQ<>(ImmutableList.of(z), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(z, CLASS_C)));
+
+        assertTrue(cqc.isContainedIn(q1, q2));
+        assertFalse(cqc.isContainedIn(q2, q1));
+        assertEquals(0, cqc.getCacheHitCount());
+
+        // the same queries, with other variables
+        ImmutableCQ<AtomPredicate> q1Renamed = new ImmutableCQ<>(ImmutableList.of(s), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(s, CLASS_A),
+                ATOM_FACTORY.getIntensionalTripleAtom(s, PROPERTY_R, t)));
+        ImmutableCQ<AtomPredicate> q2Renamed = new ImmutableCQ<>(ImmutableList.of(y), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(y, CLASS_C)));
+
+        assertTrue(cqc.isContainedIn(q1Renamed, q2Renamed));
+        assertFalse(cqc.isContainedIn(q2Renamed, q1Renamed));
+        assertEquals(4, cqc.getCheckCount());
+        assertEquals(2, cqc.getCacheHitCount());
+    }
+
+    @Test
+    public void testNoConfusionOfVariables() {
+        MemoizingCQContainmentCheckUnderLIDs<AtomPredicate> cqc = new MemoizingCQContainmentCheckUnderLIDs<>(dependencies);
+
+        // q(x) :- R(x,x)  is contained in  q(y) :- R(y,z)
+        ImmutableCQ<AtomPredicate> q1 = new ImmutableCQ<>(ImmutableList.of(x), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(x, PROPERTY_R, x)));
+        ImmutableCQ<AtomPredicate> q2 = new ImmutableCQ<>(ImmutableList.of(y), ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(y, PROPERTY_R, z)));
+
+        assertTrue(cqc.isContainedIn(q1, q2));
+        // but not the converse: the fingerprints distinguish the repeated variable
+        assertFalse(cqc.isContainedIn(q2, q1));
+        assertEquals(0, cqc.getCacheHitCount());
+    }
+
+    @Test
+    public void testMemoizedHomomorphism() {
+        MemoizingCQContainmentCheckUnderLIDs<AtomPredicate> cqc = new MemoizingCQContainmentCheckUnderLIDs<>(dependencies);
+
+        ImmutableList<DataAtom<AtomPredicate>> from = ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(y, CLASS_C));
+        ImmutableList<DataAtom<AtomPredicate>> to = ImmutableList.of(
+                ATOM_FACTORY.getIntensionalTripleAtom(x, CLASS_A));
+        ImmutableHomomorphism base = ImmutableHomomorphism.builder().extend(y, x).build();
+
+        Optional<ImmutableHomomorphism> homomorphism = cqc.findHomomorphism(base, from, to);
+        assertTrue(homomorphism.isPresent());
+        assertEquals(x, homomorphism.get().apply(y));
+
+        assertEquals(homomorphism, cqc.findHomomorphism(base, from, to));
+        assertFalse(cqc.findHomomorphism(base, to, from).isPresent());
+        assertEquals(3, cqc.getCheckCount());
+        assertEquals(1, cqc.getCacheHitCount());
+    }
+}
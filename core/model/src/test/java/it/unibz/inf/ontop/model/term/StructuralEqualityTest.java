@@ -0,0 +1,96 @@
+package it.unibz.inf.ontop.model.term;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.injection.OntopModelSettings;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.type.DBTypeFactory;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import org.apache.commons.rdf.api.IRI;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static it.unibz.inf.ontop.OntopModelTestingTools.*;
+import static org.junit.Assert.*;
+
+public class StructuralEqualityTest {
+
+    private static final String TEMPLATE = "http://example.org/person/{}";
+    private static final IRI PROPERTY = RDF_FACTORY.createIRI("http://example.org/knows");
+
+    private final Variable x = TERM_FACTORY.getVariable("x");
+    private final Variable y = TERM_FACTORY.getVariable("y");
+    private final DBTypeFactory dbTypeFactory = TYPE_FACTORY.getDBTypeFactory();
+
+    @Test
+    public void testEqualFunctionalTerms() {
+        ImmutableFunctionalTerm term1 = TERM_FACTORY.getIRIFunctionalTerm(TEMPLATE, ImmutableList.of(x));
+        ImmutableFunctionalTerm term2 = TERM_FACTORY.getIRIFunctionalTerm(TEMPLATE, ImmutableList.of(x));
+
+        assertNotSame(term1, term2);
+        assertEquals(term1, term2);
+        assertEquals(term1.hashCode(), term2.hashCode());
+        assertNotEquals(term1, TERM_FACTORY.getIRIFunctionalTerm(TEMPLATE, ImmutableList.of(y)));
+    }
+
+    @Test
+    public void testDBConstantTypes() {
+        DBConstant stringConstant = TERM_FACTORY.getDBConstant("1", dbTypeFactory.getDBStringType());
+        DBConstant integerConstant = TERM_FACTORY.getDBConstant("1", dbTypeFactory.getDBLargeIntegerType());
+
+        // Types are ignored by the constants themselves
+        assertEquals(stringConstant, integerConstant);
+        assertEquals(stringConstant.hashCode(), integerConstant.hashCode());
+
+        // ... but not by the functional terms
+        assertNotEquals(TERM_FACTORY.getDBIsNotNull(stringConstant), TERM_FACTORY.getDBIsNotNull(integerConstant));
+    }
+
+    @Test
+    public void testEquivalentTrees() {
+        assertEquals(createUnionTree(), createUnionTree());
+        assertEquals(createUnionTree().hashCode(), createUnionTree().hashCode());
+        assertTrue(createUnionTree().isEquivalentTo(createUnionTree()));
+    }
+
+    @Test
+    public void testHashConsing() {
+        Properties properties = new Properties();
+        properties.setProperty(OntopModelSettings.HASH_CONSING, "true");
+        Injector injector = OntopModelConfiguration.defaultBuilder()
+                .properties(properties)
+                .enableTestMode()
+                .build()
+                .getInjector();
+        TermFactory termFactory = injector.getInstance(TermFactory.class);
+        SubstitutionFactory substitutionFactory = injector.getInstance(SubstitutionFactory.class);
+
+        ImmutableFunctionalTerm term1 = termFactory.getIRIFunctionalTerm(TEMPLATE, ImmutableList.of(x));
+        ImmutableFunctionalTerm term2 = termFactory.getIRIFunctionalTerm(TEMPLATE, ImmutableList.of(x));
+        assertSame(term1, term2);
+
+        ImmutableSubstitution<ImmutableTerm> substitution1 = substitutionFactory.getSubstitution(y, term1);
+        ImmutableSubstitution<ImmutableTerm> substitution2 = substitutionFactory.getSubstitution(y, term2);
+        assertSame(substitution1, substitution2);
+
+        DBTypeFactory typeFactory = termFactory.getTypeFactory().getDBTypeFactory();
+        ImmutableSubstitution<DBConstant> stringSubstitution = substitutionFactory.getSubstitution(y,
+                termFactory.getDBConstant("1", typeFactory.getDBStringType()));
+        ImmutableSubstitution<DBConstant> integerSubstitution = substitutionFactory.getSubstitution(y,
+                termFactory.getDBConstant("1", typeFactory.getDBLargeIntegerType()));
+        assertNotSame(stringSubstitution, integerSubstitution);
+        assertEquals(typeFactory.getDBLargeIntegerType(), integerSubstitution.get(y).getType());
+    }
+
+    private IQTree createUnionTree() {
+        UnionNode unionNode = IQ_FACTORY.createUnionNode(ImmutableSet.of(x, y));
+        return IQ_FACTORY.createNaryIQTree(unionNode, ImmutableList.of(
+                IQ_FACTORY.createIntensionalDataNode(ATOM_FACTORY.getIntensionalTripleAtom(x, PROPERTY, y)),
+                IQ_FACTORY.createIntensionalDataNode(ATOM_FACTORY.getIntensionalTripleAtom(y, PROPERTY, x))));
+    }
+}
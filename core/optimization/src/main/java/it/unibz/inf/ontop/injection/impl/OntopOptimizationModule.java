@@ -17,6 +17,7 @@ import it.unibz.inf.ontop.iq.executor.substitution.SubstitutionPropagationExecut
 import it.unibz.inf.ontop.iq.executor.union.FlattenUnionExecutor;
 import it.unibz.inf.ontop.iq.executor.union.UnionLiftExecutor;
 import it.unibz.inf.ontop.iq.optimizer.*;
+import it.unibz.inf.ontop.iq.planner.CardinalityEstimator;
 import it.unibz.inf.ontop.iq.planner.QueryPlanner;
 import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
 import it.unibz.inf.ontop.iq.transformer.BooleanExpressionPushDownTransformer;
@@ -51,6 +52,9 @@ public class OntopOptimizationModule extends OntopAbstractModule {
         bindFromSettings(ConstructionNodeCleaningExecutor.class);
         bindFromSettings(InnerJoinMutableOptimizer.class);
         bindFromSettings(JoinLikeOptimizer.class);
+        bindFromSettings(JoinLikeIQOptimizer.class);
+        bindFromSettings(ProjectionShrinkingIQOptimizer.class);
+        bindFromSettings(FlattenUnionIQOptimizer.class);
         bindFromSettings(LeftJoinMutableOptimizer.class);
         bindFromSettings(BindingLiftOptimizer.class);
         bindFromSettings(LeftJoinRightChildNormalizationAnalyzer.class);
@@ -64,6 +68,7 @@ public class OntopOptimizationModule extends OntopAbstractModule {
         bindFromSettings(LeftJoinIQOptimizer.class);
         bindFromSettings(BooleanExpressionPushDownTransformer.class);
         bindFromSettings(GeneralStructuralAndSemanticIQOptimizer.class);
+        bindFromSettings(CardinalityEstimator.class);
         bindFromSettings(QueryPlanner.class);
         bindFromSettings(SelfJoinSameTermIQOptimizer.class);
         bindFromSettings(RequiredDataAtomExtractor.class);
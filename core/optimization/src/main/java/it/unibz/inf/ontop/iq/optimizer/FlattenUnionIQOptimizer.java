@@ -0,0 +1,8 @@
+package it.unibz.inf.ontop.iq.optimizer;
+
+/**
+ * IQ counterpart of FlattenUnionOptimizer: the children of a union that are themselves unions
+ * are replaced by their own children.
+ */
+public interface FlattenUnionIQOptimizer extends IQOptimizer {
+}
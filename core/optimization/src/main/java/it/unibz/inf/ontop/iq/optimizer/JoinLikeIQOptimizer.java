@@ -0,0 +1,15 @@
+package it.unibz.inf.ontop.iq.optimizer;
+
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+
+/**
+ * IQ counterpart of JoinLikeOptimizer.
+ *
+ * The executor registry is required by the optimizations that are still only available
+ * for the IntermediateQuery.
+ */
+public interface JoinLikeIQOptimizer {
+
+    IQ optimize(IQ query, ExecutorRegistry executorRegistry);
+}
@@ -0,0 +1,8 @@
+package it.unibz.inf.ontop.iq.optimizer;
+
+/**
+ * IQ counterpart of ProjectionShrinkingOptimizer: only keeps in the union and construction nodes
+ * the variables required by their ancestors.
+ */
+public interface ProjectionShrinkingIQOptimizer extends IQOptimizer {
+}
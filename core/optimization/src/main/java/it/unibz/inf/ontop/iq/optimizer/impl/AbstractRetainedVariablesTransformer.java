@@ -0,0 +1,173 @@
+package it.unibz.inf.ontop.iq.optimizer.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.transform.impl.DefaultNonRecursiveIQTreeTransformer;
+import it.unibz.inf.ontop.model.term.ImmutableExpression;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Top-down traversal keeping track of the variables required by the ancestors
+ * (same rules as in ProjectionShrinkingOptimizer).
+ *
+ * By default, only transforms the children. Unchanged subtrees are returned as such.
+ */
+public abstract class AbstractRetainedVariablesTransformer extends DefaultNonRecursiveIQTreeTransformer {
+
+    /**
+     * Variables projected by some ancestor or appearing in an (explicit or implicit) condition of some ancestor
+     */
+    protected final ImmutableSet<Variable> retainedVariables;
+    protected final IntermediateQueryFactory iqFactory;
+
+    protected AbstractRetainedVariablesTransformer(ImmutableSet<Variable> retainedVariables,
+                                                   IntermediateQueryFactory iqFactory) {
+        this.retainedVariables = retainedVariables;
+        this.iqFactory = iqFactory;
+    }
+
+    protected abstract AbstractRetainedVariablesTransformer update(ImmutableSet<Variable> newRetainedVariables);
+
+    @Override
+    public IQTree transformConstruction(IQTree tree, ConstructionNode rootNode, IQTree child) {
+        return transformUnaryNode(tree, rootNode, child, getRetainedVariables(rootNode));
+    }
+
+    @Override
+    public IQTree transformAggregation(IQTree tree, AggregationNode rootNode, IQTree child) {
+        return transformUnaryNode(tree, rootNode, child, getRetainedVariables(rootNode));
+    }
+
+    @Override
+    public IQTree transformFilter(IQTree tree, FilterNode rootNode, IQTree child) {
+        return transformUnaryNode(tree, rootNode, child,
+                getRetainedVariables(rootNode, ImmutableList.of(child)));
+    }
+
+    /**
+     * Currently, for a DISTINCT node we assume that all its variables are required
+     * (whatever the parent actually requires)
+     */
+    @Override
+    public IQTree transformDistinct(IQTree tree, DistinctNode rootNode, IQTree child) {
+        return transformUnaryNode(tree, rootNode, child, child.getVariables());
+    }
+
+    @Override
+    public IQTree transformOrderBy(IQTree tree, OrderByNode rootNode, IQTree child) {
+        return transformUnaryNode(tree, rootNode, child,
+                Sets.union(retainedVariables, rootNode.getLocalVariables()).immutableCopy());
+    }
+
+    @Override
+    public IQTree transformLeftJoin(IQTree tree, LeftJoinNode rootNode, IQTree leftChild, IQTree rightChild) {
+        AbstractRetainedVariablesTransformer newTransformer = update(
+                getRetainedVariables(rootNode, ImmutableList.of(leftChild, rightChild)));
+        IQTree newLeftChild = newTransformer.transform(leftChild);
+        IQTree newRightChild = newTransformer.transform(rightChild);
+
+        return newLeftChild.equals(leftChild) && newRightChild.equals(rightChild)
+                ? tree
+                : iqFactory.createBinaryNonCommutativeIQTree(rootNode, newLeftChild, newRightChild);
+    }
+
+    @Override
+    public IQTree transformInnerJoin(IQTree tree, InnerJoinNode rootNode, ImmutableList<IQTree> children) {
+        return transformNaryCommutativeNode(tree, rootNode, children, getRetainedVariables(rootNode, children));
+    }
+
+    /**
+     * The children of a union must project all its variables
+     */
+    @Override
+    public IQTree transformUnion(IQTree tree, UnionNode rootNode, ImmutableList<IQTree> children) {
+        return transformNaryCommutativeNode(tree, rootNode, children, rootNode.getVariables());
+    }
+
+    @Override
+    protected IQTree transformUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child) {
+        return transformUnaryNode(tree, rootNode, child, retainedVariables);
+    }
+
+    @Override
+    protected IQTree transformNaryCommutativeNode(IQTree tree, NaryOperatorNode rootNode,
+                                                  ImmutableList<IQTree> children) {
+        return transformNaryCommutativeNode(tree, rootNode, children, retainedVariables);
+    }
+
+    @Override
+    protected IQTree transformBinaryNonCommutativeNode(IQTree tree, BinaryNonCommutativeOperatorNode rootNode,
+                                                       IQTree leftChild, IQTree rightChild) {
+        IQTree newLeftChild = transform(leftChild);
+        IQTree newRightChild = transform(rightChild);
+
+        return newLeftChild.equals(leftChild) && newRightChild.equals(rightChild)
+                ? tree
+                : iqFactory.createBinaryNonCommutativeIQTree(rootNode, newLeftChild, newRightChild);
+    }
+
+    protected IQTree transformUnaryNode(IQTree tree, UnaryOperatorNode rootNode, IQTree child,
+                                        ImmutableSet<Variable> childRetainedVariables) {
+        IQTree newChild = update(childRetainedVariables).transform(child);
+        return newChild.equals(child)
+                ? tree
+                : iqFactory.createUnaryIQTree(rootNode, newChild);
+    }
+
+    protected IQTree transformNaryCommutativeNode(IQTree tree, NaryOperatorNode rootNode,
+                                                  ImmutableList<IQTree> children,
+                                                  ImmutableSet<Variable> childRetainedVariables) {
+        AbstractRetainedVariablesTransformer newTransformer = update(childRetainedVariables);
+        ImmutableList<IQTree> newChildren = children.stream()
+                .map(newTransformer::transform)
+                .collect(ImmutableCollectors.toList());
+        return newChildren.equals(children)
+                ? tree
+                : iqFactory.createNaryIQTree(rootNode, newChildren);
+    }
+
+    /**
+     * Adds the variables of the explicit condition and the ones projected by several children
+     * (implicit joining condition)
+     */
+    protected ImmutableSet<Variable> getRetainedVariables(JoinOrFilterNode rootNode, ImmutableList<IQTree> children) {
+        Set<Variable> joinOrFilterVariables = new HashSet<>(retainedVariables);
+        rootNode.getOptionalFilterCondition()
+                .map(ImmutableExpression::getVariables)
+                .ifPresent(joinOrFilterVariables::addAll);
+
+        Set<Variable> encounteredVariables = new HashSet<>();
+        for (IQTree child : children) {
+            for (Variable v : child.getVariables()) {
+                if (!encounteredVariables.add(v))
+                    joinOrFilterVariables.add(v);
+            }
+        }
+        return ImmutableSet.copyOf(joinOrFilterVariables);
+    }
+
+    /**
+     * Variables projected independently of the substitution and variables required by the substitution
+     */
+    protected ImmutableSet<Variable> getRetainedVariables(ExtendedProjectionNode rootNode) {
+        ImmutableSet<Variable> substitutionDomain = rootNode.getSubstitution().getDomain();
+
+        return ImmutableSet.<Variable>builder()
+                .addAll(rootNode.getVariables().stream()
+                        .filter(v -> !substitutionDomain.contains(v))
+                        .iterator())
+                .addAll(rootNode.getSubstitution().getImmutableMap().values().stream()
+                        .flatMap(ImmutableTerm::getVariableStream)
+                        .iterator())
+                .build();
+    }
+}
@@ -0,0 +1,246 @@
+package it.unibz.inf.ontop.iq.optimizer.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.iq.impl.QueryNodeRenamer;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.InnerJoinNode;
+import it.unibz.inf.ontop.iq.node.LeftJoinNode;
+import it.unibz.inf.ontop.iq.node.QueryNode;
+import it.unibz.inf.ontop.iq.optimizer.*;
+import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.iq.tools.IQConverter;
+import it.unibz.inf.ontop.iq.transform.impl.HomogeneousIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.model.atom.AtomFactory;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.substitution.InjectiveVar2VarSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.CoreUtilsFactory;
+import it.unibz.inf.ontop.utils.VariableGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Same combination of "mutable" optimizations and IQ optimizations as FixedPointJoinLikeOptimizer,
+ * but without converting the whole query into an IntermediateQuery.
+ *
+ * Only the join trees (subtrees whose root is an inner or a left join, and whose parent is not a join)
+ * are converted for the mutable optimizations. Their results are indexed by the (structurally compared)
+ * join trees, so that identical join trees are only optimized once
+ * and the join trees left unchanged by the IQ optimizations are not converted again.
+ */
+@Singleton
+public class FixedPointJoinLikeIQOptimizer implements JoinLikeIQOptimizer {
+
+    private static final Logger log = LoggerFactory.getLogger(FixedPointJoinLikeIQOptimizer.class);
+    private static final int MAX_LOOP = 100;
+    private final InnerJoinMutableOptimizer joinMutableOptimizer;
+    private final LeftJoinMutableOptimizer leftJoinMutableOptimizer;
+    private final InnerJoinIQOptimizer innerJoinIQOptimizer;
+    private final LeftJoinIQOptimizer leftJoinIQOptimizer;
+    private final IQConverter iqConverter;
+    private final IntermediateQueryFactory iqFactory;
+    private final AtomFactory atomFactory;
+    private final SubstitutionFactory substitutionFactory;
+    private final CoreUtilsFactory coreUtilsFactory;
+
+    @Inject
+    private FixedPointJoinLikeIQOptimizer(InnerJoinMutableOptimizer joinMutableOptimizer,
+                                          LeftJoinMutableOptimizer leftJoinMutableOptimizer,
+                                          InnerJoinIQOptimizer innerJoinIQOptimizer,
+                                          LeftJoinIQOptimizer leftJoinIQOptimizer, IQConverter iqConverter,
+                                          IntermediateQueryFactory iqFactory, AtomFactory atomFactory,
+                                          SubstitutionFactory substitutionFactory,
+                                          CoreUtilsFactory coreUtilsFactory) {
+        this.joinMutableOptimizer = joinMutableOptimizer;
+        this.leftJoinMutableOptimizer = leftJoinMutableOptimizer;
+        this.innerJoinIQOptimizer = innerJoinIQOptimizer;
+        this.leftJoinIQOptimizer = leftJoinIQOptimizer;
+        this.iqConverter = iqConverter;
+        this.iqFactory = iqFactory;
+        this.atomFactory = atomFactory;
+        this.substitutionFactory = substitutionFactory;
+        this.coreUtilsFactory = coreUtilsFactory;
+    }
+
+    @Override
+    public IQ optimize(IQ query, ExecutorRegistry executorRegistry) {
+        // Results of the mutable optimizations, only valid for this query (variable names)
+        Map<IQTree, IQTree> optimizedJoinTrees = new HashMap<>();
+
+        // Non-final
+        IQ currentIQ = query;
+        for (int i = 0; i < MAX_LOOP; i++) {
+            IQ newIQ = optimizeJoinTrees(currentIQ, optimizedJoinTrees, executorRegistry);
+            log.debug("New query after join mutable optimizations: \n" + newIQ);
+
+            // Converged when the mutable optimizations have nothing to do after the IQ optimizations
+            if ((i > 0) && newIQ.equals(currentIQ))
+                return newIQ;
+
+            currentIQ = optimizeIQ(newIQ);
+        }
+        throw new MinorOntopInternalBugException("MAX_LOOP reached");
+    }
+
+    private IQ optimizeIQ(IQ initialIQ) {
+        // Non-final
+        IQ currentIQ = initialIQ;
+
+        for (int i=0; i < MAX_LOOP; i++){
+
+            IQ optimizedIQ = leftJoinIQOptimizer.optimize(innerJoinIQOptimizer.optimize(currentIQ))
+                    .normalizeForOptimization();
+            if (optimizedIQ.equals(currentIQ))
+                return optimizedIQ;
+            else
+                currentIQ = optimizedIQ;
+        }
+        throw new MinorOntopInternalBugException("MAX_LOOP reached");
+    }
+
+    private IQ optimizeJoinTrees(IQ query, Map<IQTree, IQTree> optimizedJoinTrees,
+                                 ExecutorRegistry executorRegistry) {
+        IQTree initialTree = query.getTree();
+        VariableGenerator variableGenerator = coreUtilsFactory.createVariableGenerator(initialTree.getKnownVariables());
+
+        IQTree newTree = new JoinTreeTransformer(query.getProjectionAtom().getVariables(), optimizedJoinTrees,
+                variableGenerator, executorRegistry)
+                .transform(initialTree);
+        return newTree.equals(initialTree)
+                ? query
+                : iqFactory.createIQ(query.getProjectionAtom(), newTree);
+    }
+
+    /**
+     * Join tree restricted to the variables required by its ancestors
+     */
+    private IQTree restrict(IQTree joinTree, ImmutableSet<Variable> requiredVariables) {
+        return requiredVariables.equals(joinTree.getVariables())
+                ? joinTree
+                : iqFactory.createUnaryIQTree(iqFactory.createConstructionNode(requiredVariables), joinTree);
+    }
+
+    /**
+     * Applies the mutable optimizations to an isolated join tree, only projecting the required variables
+     * (so that the joins with the data nodes providing no other variable can be eliminated).
+     */
+    private IQTree optimizeJoinTree(IQTree joinTree, ImmutableSet<Variable> requiredVariables,
+                                    ExecutorRegistry executorRegistry) {
+        DistinctVariableOnlyDataAtom projectionAtom = atomFactory.getDistinctVariableOnlyDataAtom(
+                atomFactory.getRDFAnswerPredicate(requiredVariables.size()), ImmutableList.copyOf(requiredVariables));
+        IQ joinQuery = iqFactory.createIQ(projectionAtom,
+                iqFactory.createUnaryIQTree(iqFactory.createConstructionNode(requiredVariables), joinTree));
+
+        try {
+            // Non-final
+            IntermediateQuery intermediateQuery = iqConverter.convert(joinQuery, executorRegistry);
+
+            UUID oldVersionNumber;
+            do {
+                oldVersionNumber = intermediateQuery.getVersionNumber();
+                intermediateQuery = leftJoinMutableOptimizer.optimize(intermediateQuery);
+                intermediateQuery = joinMutableOptimizer.optimize(intermediateQuery);
+            } while (oldVersionNumber != intermediateQuery.getVersionNumber());
+
+            return removeTopProjection(iqConverter.convert(intermediateQuery).getTree());
+
+        } catch (EmptyQueryException e) {
+            return iqFactory.createEmptyNode(requiredVariables);
+        }
+    }
+
+    private IQTree removeTopProjection(IQTree tree) {
+        QueryNode rootNode = tree.getRootNode();
+        if ((rootNode instanceof ConstructionNode)
+                && ((ConstructionNode) rootNode).getSubstitution().isEmpty()) {
+            IQTree child = tree.getChildren().get(0);
+            if (child.getVariables().equals(tree.getVariables()))
+                return child;
+        }
+        return tree;
+    }
+
+
+    private class JoinTreeTransformer extends AbstractRetainedVariablesTransformer {
+
+        private final Map<IQTree, IQTree> optimizedJoinTrees;
+        private final VariableGenerator variableGenerator;
+        private final ExecutorRegistry executorRegistry;
+
+        JoinTreeTransformer(ImmutableSet<Variable> retainedVariables, Map<IQTree, IQTree> optimizedJoinTrees,
+                            VariableGenerator variableGenerator, ExecutorRegistry executorRegistry) {
+            super(retainedVariables, FixedPointJoinLikeIQOptimizer.this.iqFactory);
+            this.optimizedJoinTrees = optimizedJoinTrees;
+            this.variableGenerator = variableGenerator;
+            this.executorRegistry = executorRegistry;
+        }
+
+        @Override
+        protected AbstractRetainedVariablesTransformer update(ImmutableSet<Variable> newRetainedVariables) {
+            return new JoinTreeTransformer(newRetainedVariables, optimizedJoinTrees, variableGenerator,
+                    executorRegistry);
+        }
+
+        @Override
+        public IQTree transformLeftJoin(IQTree tree, LeftJoinNode rootNode, IQTree leftChild, IQTree rightChild) {
+            return transformJoinTree(tree);
+        }
+
+        @Override
+        public IQTree transformInnerJoin(IQTree tree, InnerJoinNode rootNode, ImmutableList<IQTree> children) {
+            return transformJoinTree(tree);
+        }
+
+        private IQTree transformJoinTree(IQTree tree) {
+            ImmutableSet<Variable> requiredVariables = Sets.intersection(tree.getVariables(), retainedVariables)
+                    .immutableCopy();
+            IQTree restrictedTree = restrict(tree, requiredVariables);
+
+            IQTree optimizedTree = optimizedJoinTrees.get(restrictedTree);
+            if (optimizedTree == null) {
+                optimizedTree = optimizeJoinTree(tree, requiredVariables, executorRegistry);
+                optimizedJoinTrees.put(restrictedTree, optimizedTree);
+                // The mutable optimizations have reached a fixed point
+                optimizedJoinTrees.put(optimizedTree, optimizedTree);
+            }
+            return optimizedTree.equals(restrictedTree)
+                    ? tree
+                    : avoidVariableConflicts(tree, optimizedTree);
+        }
+
+        /**
+         * The variables introduced by the mutable optimizations are only guaranteed to be fresh
+         * for the join tree: renames the ones that are already used elsewhere in the query.
+         */
+        private IQTree avoidVariableConflicts(IQTree tree, IQTree optimizedTree) {
+            ImmutableSet<Variable> newVariables = Sets.difference(optimizedTree.getKnownVariables(),
+                    tree.getKnownVariables()).immutableCopy();
+            ImmutableSet<Variable> conflictingVariables = Sets.intersection(newVariables,
+                    variableGenerator.getKnownVariables()).immutableCopy();
+
+            variableGenerator.registerAdditionalVariables(newVariables);
+            if (conflictingVariables.isEmpty())
+                return optimizedTree;
+
+            InjectiveVar2VarSubstitution renaming = substitutionFactory.generateNotConflictingRenaming(
+                    variableGenerator, conflictingVariables);
+            return optimizedTree.acceptTransformer(new HomogeneousIQTreeVisitingTransformer(
+                    new QueryNodeRenamer(iqFactory, renaming, atomFactory), iqFactory));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package it.unibz.inf.ontop.iq.optimizer.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.iq.optimizer.FlattenUnionIQOptimizer;
+import it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.stream.Stream;
+
+/**
+ * Bottom-up: the child unions are already flattened when their parent union is reached.
+ *
+ * The variables projected by the child unions include the ones of the parent union,
+ * so their children can be directly attached to the parent union.
+ * As in FlattenUnionOptimizer, they come after the other children.
+ */
+@Singleton
+public class FlattenUnionIQOptimizerImpl implements FlattenUnionIQOptimizer {
+
+    private final IntermediateQueryFactory iqFactory;
+    private final FlattenUnionTransformer transformer;
+
+    @Inject
+    private FlattenUnionIQOptimizerImpl(IntermediateQueryFactory iqFactory) {
+        this.iqFactory = iqFactory;
+        this.transformer = new FlattenUnionTransformer(iqFactory);
+    }
+
+    @Override
+    public IQ optimize(IQ query) {
+        IQTree initialTree = query.getTree();
+        IQTree newTree = initialTree.acceptTransformer(transformer);
+        return newTree.equals(initialTree)
+                ? query
+                : iqFactory.createIQ(query.getProjectionAtom(), newTree);
+    }
+
+
+    private static class FlattenUnionTransformer extends DefaultRecursiveIQTreeVisitingTransformer {
+
+        FlattenUnionTransformer(IntermediateQueryFactory iqFactory) {
+            super(iqFactory);
+        }
+
+        @Override
+        public IQTree transformUnion(IQTree tree, UnionNode rootNode, ImmutableList<IQTree> children) {
+            ImmutableList<IQTree> transformedChildren = children.stream()
+                    .map(c -> c.acceptTransformer(this))
+                    .collect(ImmutableCollectors.toList());
+
+            ImmutableList<IQTree> newChildren = Stream.concat(
+                    transformedChildren.stream()
+                            .filter(c -> !(c.getRootNode() instanceof UnionNode)),
+                    transformedChildren.stream()
+                            .filter(c -> c.getRootNode() instanceof UnionNode)
+                            .flatMap(c -> c.getChildren().stream()))
+                    .collect(ImmutableCollectors.toList());
+
+            return newChildren.equals(children)
+                    ? tree
+                    : iqFactory.createNaryIQTree(rootNode, newChildren);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package it.unibz.inf.ontop.iq.optimizer.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.iq.optimizer.ProjectionShrinkingIQOptimizer;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Same rules as ProjectionShrinkingOptimizer, applied top-down on the IQ tree.
+ */
+@Singleton
+public class ProjectionShrinkingIQOptimizerImpl implements ProjectionShrinkingIQOptimizer {
+
+    private final IntermediateQueryFactory iqFactory;
+    private final SubstitutionFactory substitutionFactory;
+
+    @Inject
+    private ProjectionShrinkingIQOptimizerImpl(IntermediateQueryFactory iqFactory,
+                                               SubstitutionFactory substitutionFactory) {
+        this.iqFactory = iqFactory;
+        this.substitutionFactory = substitutionFactory;
+    }
+
+    @Override
+    public IQ optimize(IQ query) {
+        IQTree initialTree = query.getTree();
+        IQTree newTree = new ProjectionShrinkingTransformer(query.getProjectionAtom().getVariables())
+                .transform(initialTree);
+        return newTree.equals(initialTree)
+                ? query
+                : iqFactory.createIQ(query.getProjectionAtom(), newTree);
+    }
+
+
+    private class ProjectionShrinkingTransformer extends AbstractRetainedVariablesTransformer {
+
+        ProjectionShrinkingTransformer(ImmutableSet<Variable> retainedVariables) {
+            super(retainedVariables, ProjectionShrinkingIQOptimizerImpl.this.iqFactory);
+        }
+
+        @Override
+        protected AbstractRetainedVariablesTransformer update(ImmutableSet<Variable> newRetainedVariables) {
+            return new ProjectionShrinkingTransformer(newRetainedVariables);
+        }
+
+        @Override
+        public IQTree transformConstruction(IQTree tree, ConstructionNode rootNode, IQTree child) {
+            IQTree newChild = update(getRetainedVariables(rootNode)).transform(child);
+
+            ImmutableSet<Variable> locallyRetainedVariables = rootNode.getSubstitution().getImmutableMap().values().stream()
+                    .filter(t -> t instanceof Variable)
+                    .map(v -> (Variable) v)
+                    .collect(ImmutableCollectors.toSet());
+
+            ImmutableSet<Variable> newProjectedVariables = rootNode.getVariables().stream()
+                    .filter(v -> retainedVariables.contains(v) || locallyRetainedVariables.contains(v))
+                    .collect(ImmutableCollectors.toSet());
+
+            if (newProjectedVariables.size() == rootNode.getVariables().size())
+                return newChild.equals(child)
+                        ? tree
+                        : iqFactory.createUnaryIQTree(rootNode, newChild);
+
+            // NB: the construction node is kept even if it projects no variable, as its child may have variables
+            // in common with the siblings of the construction node (no implicit join condition must be created)
+            ImmutableMap<Variable, ImmutableTerm> newSubstitutionMap = rootNode.getSubstitution().getImmutableMap()
+                    .entrySet().stream()
+                    .filter(e -> newProjectedVariables.contains(e.getKey()))
+                    .collect(ImmutableCollectors.toMap());
+
+            return iqFactory.createUnaryIQTree(
+                    iqFactory.createConstructionNode(newProjectedVariables,
+                            substitutionFactory.getSubstitution(newSubstitutionMap)),
+                    newChild);
+        }
+
+        @Override
+        public IQTree transformUnion(IQTree tree, UnionNode rootNode, ImmutableList<IQTree> children) {
+            ImmutableList<IQTree> newChildren = children.stream()
+                    .map(this::transform)
+                    .collect(ImmutableCollectors.toList());
+
+            if (retainedVariables.containsAll(rootNode.getVariables()))
+                return newChildren.equals(children)
+                        ? tree
+                        : iqFactory.createNaryIQTree(rootNode, newChildren);
+
+            return iqFactory.createNaryIQTree(
+                    iqFactory.createUnionNode(Sets.intersection(rootNode.getVariables(), retainedVariables).immutableCopy()),
+                    newChildren);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package it.unibz.inf.ontop.iq.planner;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.model.term.Variable;
+
+/**
+ * Estimated number of tuples of an IQ tree and of distinct values of its variables.
+ *
+ * Immutable
+ */
+public class CardinalityEstimate {
+
+    private final double rowCount;
+    private final ImmutableMap<Variable, Double> distinctValueCounts;
+    private final boolean isBasedOnStatistics;
+
+    public CardinalityEstimate(double rowCount, ImmutableMap<Variable, Double> distinctValueCounts,
+                               boolean isBasedOnStatistics) {
+        this.rowCount = rowCount;
+        this.distinctValueCounts = distinctValueCounts;
+        this.isBasedOnStatistics = isBasedOnStatistics;
+    }
+
+    public double getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Never greater than the number of rows.
+     * If unknown, assumes that all the values are distinct.
+     */
+    public double getDistinctValueCount(Variable variable) {
+        Double count = distinctValueCounts.get(variable);
+        return count == null
+                ? rowCount
+                : Math.min(count, rowCount);
+    }
+
+    /**
+     * False if the statistics of some relation are missing (default values are then used for it)
+     */
+    public boolean isBasedOnStatistics() {
+        return isBasedOnStatistics;
+    }
+
+    @Override
+    public String toString() {
+        return "rows: " + rowCount + ", distinct values: " + distinctValueCounts
+                + (isBasedOnStatistics ? "" : " (without statistics)");
+    }
+}
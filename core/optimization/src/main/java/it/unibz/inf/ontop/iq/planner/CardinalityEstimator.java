@@ -0,0 +1,12 @@
+package it.unibz.inf.ontop.iq.planner;
+
+import it.unibz.inf.ontop.iq.IQTree;
+
+/**
+ * Estimates the number of tuples returned by an IQ tree,
+ * from the statistics of the relations (see RelationStatistics) when available.
+ */
+public interface CardinalityEstimator {
+
+    CardinalityEstimate estimate(IQTree tree);
+}
@@ -0,0 +1,164 @@
+package it.unibz.inf.ontop.iq.planner.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.NaryIQTree;
+import it.unibz.inf.ontop.iq.node.InnerJoinNode;
+import it.unibz.inf.ontop.iq.optimizer.GeneralStructuralAndSemanticIQOptimizer;
+import it.unibz.inf.ontop.iq.planner.CardinalityEstimate;
+import it.unibz.inf.ontop.iq.planner.CardinalityEstimator;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+
+/**
+ * Same transformation as AvoidJoinAboveUnionPlanner, but guided by the estimated cost
+ * (see CardinalityEstimator) when the statistics of the relations are available:
+ *
+ *   - a sibling is only pushed under the union if the union of the joins is not estimated to be more expensive
+ *     than the join over the union. Pushing a sibling under a union with n children evaluates it n times
+ *     instead of sharing it, which does not pay off for a large sibling and a small union.
+ *
+ *   - the children of the inner joins are ordered greedily (smallest estimated intermediate result first,
+ *     connected children first), as a join ordering hint for the DBMS.
+ *
+ * The cost of a tree is the sum of the estimated numbers of tuples of its sub-trees (including itself).
+ *
+ * Without statistics, behaves like AvoidJoinAboveUnionPlanner.
+ */
+@Singleton
+public class CostBasedQueryPlanner extends AvoidJoinAboveUnionPlanner {
+
+    @Inject
+    protected CostBasedQueryPlanner(GeneralStructuralAndSemanticIQOptimizer generalOptimizer,
+                                    CostBasedTransformer transformer,
+                                    IntermediateQueryFactory iqFactory) {
+        super(generalOptimizer, transformer, iqFactory);
+    }
+
+    @Singleton
+    protected static class CostBasedTransformer extends AvoidJoinAboveUnionTransformer {
+
+        private static final Logger LOGGER = LoggerFactory.getLogger(CostBasedTransformer.class);
+        private final CardinalityEstimator cardinalityEstimator;
+
+        @Inject
+        protected CostBasedTransformer(IntermediateQueryFactory iqFactory, CardinalityEstimator cardinalityEstimator) {
+            super(iqFactory);
+            this.cardinalityEstimator = cardinalityEstimator;
+        }
+
+        @Override
+        public IQTree transformInnerJoin(IQTree tree, InnerJoinNode rootNode, ImmutableList<IQTree> initialChildren) {
+            IQTree newTree = super.transformInnerJoin(tree, rootNode, initialChildren);
+            return (newTree.getRootNode() instanceof InnerJoinNode)
+                    ? orderChildren(newTree, (InnerJoinNode) newTree.getRootNode(), newTree.getChildren())
+                    : newTree;
+        }
+
+        /**
+         * Only keeps the siblings for which pushing is not estimated to be more expensive
+         */
+        @Override
+        protected Optional<Map.Entry<NaryIQTree, ImmutableList<Integer>>> extractPushableSiblings(
+                NaryIQTree unionTree, ImmutableList<IQTree> children) {
+            return super.extractPushableSiblings(unionTree, children)
+                    .map(e -> e.getValue().stream()
+                            .filter(i -> isPushingWorthwhile(unionTree, children.get(i)))
+                            .collect(ImmutableCollectors.toList()))
+                    .filter(l -> !l.isEmpty())
+                    .map(l -> Maps.immutableEntry(unionTree, l));
+        }
+
+        private boolean isPushingWorthwhile(NaryIQTree unionTree, IQTree sibling) {
+            if (!cardinalityEstimator.estimate(unionTree).isBasedOnStatistics()
+                    || !cardinalityEstimator.estimate(sibling).isBasedOnStatistics())
+                return true;
+
+            double joinOverUnionCost = estimateCost(createJoin(ImmutableList.of(unionTree, sibling)));
+
+            double unionOfJoinsCost = 0;
+            for (IQTree unionChild : unionTree.getChildren()) {
+                IQTree join = createJoin(ImmutableList.of(unionChild, sibling));
+                // Including the tuples of the new union
+                unionOfJoinsCost += estimateCost(join) + cardinalityEstimator.estimate(join).getRowCount();
+            }
+
+            LOGGER.debug("Join over union: {}, union of joins: {} (sibling {})", joinOverUnionCost,
+                    unionOfJoinsCost, sibling);
+            return unionOfJoinsCost <= joinOverUnionCost;
+        }
+
+        /**
+         * Greedy: starts with the child with the fewest tuples, and then repeatedly adds the child
+         * minimizing the estimated number of tuples of the join (among the children sharing a variable
+         * with the previous ones, if any).
+         *
+         * Only applied when the statistics are available for all the children.
+         */
+        private IQTree orderChildren(IQTree tree, InnerJoinNode rootNode, ImmutableList<IQTree> children) {
+            if (!children.stream()
+                    .allMatch(c -> cardinalityEstimator.estimate(c).isBasedOnStatistics()))
+                return tree;
+
+            List<IQTree> remainingChildren = new ArrayList<>(children);
+            List<IQTree> orderedChildren = new ArrayList<>();
+            Set<Variable> joinedVariables = new HashSet<>();
+
+            while (!remainingChildren.isEmpty()) {
+                boolean isConnectedChildAvailable = remainingChildren.stream()
+                        .anyMatch(c -> !Sets.intersection(c.getVariables(), joinedVariables).isEmpty());
+
+                IQTree bestChild = null;
+                double bestRowCount = Double.MAX_VALUE;
+                for (IQTree child : remainingChildren) {
+                    if (isConnectedChildAvailable && Sets.intersection(child.getVariables(), joinedVariables).isEmpty())
+                        continue;
+                    double rowCount = estimateJoinRowCount(orderedChildren, child);
+                    // Strict: the initial order is kept for the ties
+                    if (rowCount < bestRowCount || bestChild == null) {
+                        bestChild = child;
+                        bestRowCount = rowCount;
+                    }
+                }
+                orderedChildren.add(bestChild);
+                remainingChildren.remove(bestChild);
+                joinedVariables.addAll(bestChild.getVariables());
+            }
+
+            ImmutableList<IQTree> newChildren = ImmutableList.copyOf(orderedChildren);
+            return newChildren.equals(children)
+                    ? tree
+                    : iqFactory.createNaryIQTree(rootNode, newChildren);
+        }
+
+        private double estimateJoinRowCount(List<IQTree> joinedChildren, IQTree child) {
+            return joinedChildren.isEmpty()
+                    ? cardinalityEstimator.estimate(child).getRowCount()
+                    : cardinalityEstimator.estimate(createJoin(ImmutableList.<IQTree>builder()
+                            .addAll(joinedChildren)
+                            .add(child)
+                            .build()))
+                    .getRowCount();
+        }
+
+        private IQTree createJoin(ImmutableList<IQTree> children) {
+            return iqFactory.createNaryIQTree(iqFactory.createInnerJoinNode(), children);
+        }
+
+        private double estimateCost(IQTree tree) {
+            CardinalityEstimate estimate = cardinalityEstimator.estimate(tree);
+            return estimate.getRowCount() + tree.getChildren().stream()
+                    .mapToDouble(this::estimateCost)
+                    .sum();
+        }
+    }
+}
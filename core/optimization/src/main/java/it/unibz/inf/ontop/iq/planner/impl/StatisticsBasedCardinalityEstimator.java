@@ -0,0 +1,342 @@
+package it.unibz.inf.ontop.iq.planner.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.RelationStatistics;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.LeafIQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.planner.CardinalityEstimate;
+import it.unibz.inf.ontop.iq.planner.CardinalityEstimator;
+import it.unibz.inf.ontop.iq.visit.IQVisitor;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.*;
+
+/**
+ * Textbook (System R-like) estimation, assuming the independence of the conditions
+ * and the uniform distribution of the values:
+ *   - equality with a constant: 1/d(attribute)
+ *   - natural join on a variable: 1/max(d(left), d(right))
+ *   - other conditions (filters, explicit joining conditions): FILTER_SELECTIVITY
+ * where d is the number of distinct values.
+ *
+ * Relations without statistics are assumed to have DEFAULT_ROW_COUNT rows.
+ * The number of distinct values of an attribute that is not a key and is not reported by the statistics
+ * is assumed to be a fraction (DEFAULT_DISTINCT_VALUE_RATIO) of the number of rows.
+ */
+@Singleton
+public class StatisticsBasedCardinalityEstimator implements CardinalityEstimator {
+
+    private static final double DEFAULT_ROW_COUNT = 1000;
+    private static final double DEFAULT_DISTINCT_VALUE_RATIO = 0.1;
+    private static final double FILTER_SELECTIVITY = 1.0 / 3;
+
+    private final EstimationVisitor visitor;
+
+    @Inject
+    private StatisticsBasedCardinalityEstimator() {
+        this.visitor = new EstimationVisitor();
+    }
+
+    @Override
+    public CardinalityEstimate estimate(IQTree tree) {
+        return tree.acceptVisitor(visitor);
+    }
+
+    private static CardinalityEstimate createDefaultEstimate(ImmutableSet<Variable> variables) {
+        return new CardinalityEstimate(DEFAULT_ROW_COUNT,
+                variables.stream()
+                        .collect(ImmutableCollectors.toMap(v -> v, v -> getDefaultDistinctValueCount(DEFAULT_ROW_COUNT))),
+                false);
+    }
+
+    private static double getDefaultDistinctValueCount(double rowCount) {
+        return Math.max(1, rowCount * DEFAULT_DISTINCT_VALUE_RATIO);
+    }
+
+    /**
+     * Restricts the distinct value counts to the given variables (and to the number of rows)
+     */
+    private static CardinalityEstimate createEstimate(double rowCount, Map<Variable, Double> distinctValueCounts,
+                                                      ImmutableSet<Variable> variables, boolean isBasedOnStatistics) {
+        return new CardinalityEstimate(rowCount,
+                variables.stream()
+                        .filter(distinctValueCounts::containsKey)
+                        .collect(ImmutableCollectors.toMap(
+                                v -> v,
+                                v -> Math.min(distinctValueCounts.get(v), rowCount))),
+                isBasedOnStatistics);
+    }
+
+
+    private class EstimationVisitor implements IQVisitor<CardinalityEstimate> {
+
+        @Override
+        public CardinalityEstimate visitIntensionalData(IntensionalDataNode dataNode) {
+            return createDefaultEstimate(dataNode.getVariables());
+        }
+
+        @Override
+        public CardinalityEstimate visitExtensionalData(ExtensionalDataNode dataNode) {
+            RelationDefinition relation = dataNode.getProjectionAtom().getPredicate().getRelationDefinition();
+            Optional<RelationStatistics> statistics = relation.getStatistics();
+            double relationRowCount = statistics
+                    .map(s -> (double) s.getRowCount())
+                    .orElse(DEFAULT_ROW_COUNT);
+
+            double selectivity = 1;
+            Map<Variable, Double> distinctValueCounts = new HashMap<>();
+            ImmutableList<? extends VariableOrGroundTerm> arguments = dataNode.getProjectionAtom().getArguments();
+            for (int i = 0; i < arguments.size(); i++) {
+                double distinctValueCount = getDistinctValueCount(relation, statistics, i + 1, relationRowCount);
+                VariableOrGroundTerm argument = arguments.get(i);
+                if (argument instanceof Variable) {
+                    Variable variable = (Variable) argument;
+                    Double previousCount = distinctValueCounts.get(variable);
+                    // Same variable for two attributes
+                    if (previousCount != null)
+                        selectivity /= Math.max(previousCount, distinctValueCount);
+                    distinctValueCounts.put(variable, previousCount == null
+                            ? distinctValueCount
+                            : Math.min(previousCount, distinctValueCount));
+                }
+                else
+                    selectivity /= distinctValueCount;
+            }
+            return createEstimate(relationRowCount * selectivity, distinctValueCounts, dataNode.getVariables(),
+                    statistics.isPresent());
+        }
+
+        private double getDistinctValueCount(RelationDefinition relation, Optional<RelationStatistics> statistics,
+                                             int attributeIndex, double rowCount) {
+            Optional<Long> count = statistics.flatMap(s -> s.getDistinctValueCount(attributeIndex));
+            if (count.isPresent())
+                return Math.max(1, count.get());
+
+            boolean isKey = relation.getUniqueConstraints().stream()
+                    .anyMatch(uc -> uc.getAttributes().size() == 1
+                            && uc.getAttributes().get(0).getIndex() == attributeIndex);
+            return isKey
+                    ? Math.max(1, rowCount)
+                    : getDefaultDistinctValueCount(rowCount);
+        }
+
+        @Override
+        public CardinalityEstimate visitEmpty(EmptyNode node) {
+            return new CardinalityEstimate(0, ImmutableMap.of(), true);
+        }
+
+        @Override
+        public CardinalityEstimate visitTrue(TrueNode node) {
+            return new CardinalityEstimate(1, ImmutableMap.of(), true);
+        }
+
+        @Override
+        public CardinalityEstimate visitNative(NativeNode nativeNode) {
+            return createDefaultEstimate(nativeNode.getVariables());
+        }
+
+        @Override
+        public CardinalityEstimate visitNonStandardLeafNode(LeafIQTree leafNode) {
+            return createDefaultEstimate(leafNode.getVariables());
+        }
+
+        @Override
+        public CardinalityEstimate visitConstruction(ConstructionNode rootNode, IQTree child) {
+            CardinalityEstimate childEstimate = child.acceptVisitor(this);
+            ImmutableMap<Variable, ImmutableTerm> substitutionMap = rootNode.getSubstitution().getImmutableMap();
+
+            Map<Variable, Double> distinctValueCounts = new HashMap<>();
+            for (Variable variable : rootNode.getVariables()) {
+                ImmutableTerm definition = substitutionMap.get(variable);
+                distinctValueCounts.put(variable, definition == null
+                        ? childEstimate.getDistinctValueCount(variable)
+                        // Constants have one value, injective functions are assumed
+                        : definition.getVariableStream()
+                            .distinct()
+                            .mapToDouble(childEstimate::getDistinctValueCount)
+                            .reduce(1, (d1, d2) -> d1 * d2));
+            }
+            return createEstimate(childEstimate.getRowCount(), distinctValueCounts, rootNode.getVariables(),
+                    childEstimate.isBasedOnStatistics());
+        }
+
+        @Override
+        public CardinalityEstimate visitAggregation(AggregationNode aggregationNode, IQTree child) {
+            CardinalityEstimate childEstimate = child.acceptVisitor(this);
+            ImmutableSet<Variable> groupingVariables = aggregationNode.getGroupingVariables();
+            double rowCount = Math.min(childEstimate.getRowCount(), getCombinationCount(childEstimate, groupingVariables));
+
+            Map<Variable, Double> distinctValueCounts = new HashMap<>();
+            groupingVariables.forEach(v -> distinctValueCounts.put(v, childEstimate.getDistinctValueCount(v)));
+            return createEstimate(rowCount, distinctValueCounts, aggregationNode.getVariables(),
+                    childEstimate.isBasedOnStatistics());
+        }
+
+        @Override
+        public CardinalityEstimate visitFilter(FilterNode rootNode, IQTree child) {
+            return applyCondition(child.acceptVisitor(this), child.getVariables());
+        }
+
+        @Override
+        public CardinalityEstimate visitDistinct(DistinctNode rootNode, IQTree child) {
+            CardinalityEstimate childEstimate = child.acceptVisitor(this);
+            ImmutableSet<Variable> variables = child.getVariables();
+            double rowCount = Math.min(childEstimate.getRowCount(), getCombinationCount(childEstimate, variables));
+            return createEstimate(rowCount, getDistinctValueCounts(childEstimate, variables), variables,
+                    childEstimate.isBasedOnStatistics());
+        }
+
+        @Override
+        public CardinalityEstimate visitSlice(SliceNode sliceNode, IQTree child) {
+            CardinalityEstimate childEstimate = child.acceptVisitor(this);
+            double rowCount = Math.max(0, childEstimate.getRowCount() - sliceNode.getOffset());
+            if (sliceNode.getLimit().isPresent())
+                rowCount = Math.min(rowCount, sliceNode.getLimit().get());
+
+            ImmutableSet<Variable> variables = child.getVariables();
+            return createEstimate(rowCount, getDistinctValueCounts(childEstimate, variables), variables,
+                    childEstimate.isBasedOnStatistics());
+        }
+
+        @Override
+        public CardinalityEstimate visitOrderBy(OrderByNode rootNode, IQTree child) {
+            return child.acceptVisitor(this);
+        }
+
+        @Override
+        public CardinalityEstimate visitNonStandardUnaryNode(UnaryOperatorNode rootNode, IQTree child) {
+            return child.acceptVisitor(this);
+        }
+
+        /**
+         * At least one tuple per tuple of the left child
+         */
+        @Override
+        public CardinalityEstimate visitLeftJoin(LeftJoinNode rootNode, IQTree leftChild, IQTree rightChild) {
+            CardinalityEstimate leftEstimate = leftChild.acceptVisitor(this);
+            CardinalityEstimate joinEstimate = join(ImmutableList.of(leftEstimate, rightChild.acceptVisitor(this)),
+                    ImmutableList.of(leftChild.getVariables(), rightChild.getVariables()),
+                    rootNode.getOptionalFilterCondition().isPresent());
+
+            double rowCount = Math.max(leftEstimate.getRowCount(), joinEstimate.getRowCount());
+            ImmutableSet<Variable> variables = ImmutableSet.<Variable>builder()
+                    .addAll(leftChild.getVariables())
+                    .addAll(rightChild.getVariables())
+                    .build();
+
+            Map<Variable, Double> distinctValueCounts = new HashMap<>(getDistinctValueCounts(joinEstimate, variables));
+            leftChild.getVariables()
+                    .forEach(v -> distinctValueCounts.put(v, leftEstimate.getDistinctValueCount(v)));
+            return createEstimate(rowCount, distinctValueCounts, variables, joinEstimate.isBasedOnStatistics());
+        }
+
+        @Override
+        public CardinalityEstimate visitNonStandardBinaryNonCommutativeNode(BinaryNonCommutativeOperatorNode rootNode,
+                                                                             IQTree leftChild, IQTree rightChild) {
+            return createDefaultEstimate(ImmutableSet.<Variable>builder()
+                    .addAll(leftChild.getVariables())
+                    .addAll(rightChild.getVariables())
+                    .build());
+        }
+
+        @Override
+        public CardinalityEstimate visitInnerJoin(InnerJoinNode rootNode, ImmutableList<IQTree> children) {
+            return join(children.stream()
+                            .map(c -> c.acceptVisitor(this))
+                            .collect(ImmutableCollectors.toList()),
+                    children.stream()
+                            .map(IQTree::getVariables)
+                            .collect(ImmutableCollectors.toList()),
+                    rootNode.getOptionalFilterCondition().isPresent());
+        }
+
+        @Override
+        public CardinalityEstimate visitUnion(UnionNode rootNode, ImmutableList<IQTree> children) {
+            ImmutableList<CardinalityEstimate> childEstimates = children.stream()
+                    .map(c -> c.acceptVisitor(this))
+                    .collect(ImmutableCollectors.toList());
+
+            double rowCount = childEstimates.stream()
+                    .mapToDouble(CardinalityEstimate::getRowCount)
+                    .sum();
+            Map<Variable, Double> distinctValueCounts = new HashMap<>();
+            for (Variable variable : rootNode.getVariables())
+                distinctValueCounts.put(variable, childEstimates.stream()
+                        .mapToDouble(e -> e.getDistinctValueCount(variable))
+                        .sum());
+
+            return createEstimate(rowCount, distinctValueCounts, rootNode.getVariables(),
+                    childEstimates.stream().allMatch(CardinalityEstimate::isBasedOnStatistics));
+        }
+
+        @Override
+        public CardinalityEstimate visitNonStandardNaryNode(NaryOperatorNode rootNode, ImmutableList<IQTree> children) {
+            return createDefaultEstimate(children.stream()
+                    .flatMap(c -> c.getVariables().stream())
+                    .collect(ImmutableCollectors.toSet()));
+        }
+
+        /**
+         * For each variable shared by several children, all the distinct value counts but the smallest one
+         * divide the size of the cartesian product
+         */
+        private CardinalityEstimate join(ImmutableList<CardinalityEstimate> childEstimates,
+                                         ImmutableList<ImmutableSet<Variable>> childVariables,
+                                         boolean hasExplicitCondition) {
+            double rowCount = childEstimates.stream()
+                    .mapToDouble(CardinalityEstimate::getRowCount)
+                    .reduce(1, (r1, r2) -> r1 * r2);
+
+            Map<Variable, List<Double>> distinctValueCountLists = new HashMap<>();
+            for (int i = 0; i < childEstimates.size(); i++) {
+                CardinalityEstimate childEstimate = childEstimates.get(i);
+                for (Variable variable : childVariables.get(i))
+                    distinctValueCountLists.computeIfAbsent(variable, v -> new ArrayList<>())
+                            .add(childEstimate.getDistinctValueCount(variable));
+            }
+
+            Map<Variable, Double> distinctValueCounts = new HashMap<>();
+            for (Map.Entry<Variable, List<Double>> e : distinctValueCountLists.entrySet()) {
+                List<Double> counts = e.getValue();
+                Collections.sort(counts);
+                for (int i = 1; i < counts.size(); i++)
+                    rowCount /= Math.max(1, counts.get(i));
+                distinctValueCounts.put(e.getKey(), counts.get(0));
+            }
+
+            ImmutableSet<Variable> variables = ImmutableSet.copyOf(distinctValueCountLists.keySet());
+            boolean isBasedOnStatistics = childEstimates.stream().allMatch(CardinalityEstimate::isBasedOnStatistics);
+            CardinalityEstimate estimate = createEstimate(rowCount, distinctValueCounts, variables, isBasedOnStatistics);
+            return hasExplicitCondition
+                    ? applyCondition(estimate, variables)
+                    : estimate;
+        }
+
+        private CardinalityEstimate applyCondition(CardinalityEstimate estimate, ImmutableSet<Variable> variables) {
+            return createEstimate(estimate.getRowCount() * FILTER_SELECTIVITY,
+                    getDistinctValueCounts(estimate, variables), variables, estimate.isBasedOnStatistics());
+        }
+
+        private double getCombinationCount(CardinalityEstimate estimate, ImmutableSet<Variable> variables) {
+            return variables.stream()
+                    .mapToDouble(estimate::getDistinctValueCount)
+                    .reduce(1, (d1, d2) -> d1 * d2);
+        }
+
+        private Map<Variable, Double> getDistinctValueCounts(CardinalityEstimate estimate,
+                                                             ImmutableSet<Variable> variables) {
+            Map<Variable, Double> distinctValueCounts = new HashMap<>();
+            variables.forEach(v -> distinctValueCounts.put(v, estimate.getDistinctValueCount(v)));
+            return distinctValueCounts;
+        }
+    }
+}
@@ -8,6 +8,8 @@ import it.unibz.inf.ontop.injection.OntopOptimizationConfiguration;
 import it.unibz.inf.ontop.injection.QueryTransformerFactory;
 import it.unibz.inf.ontop.injection.OptimizerFactory;
 import it.unibz.inf.ontop.iq.optimizer.*;
+import it.unibz.inf.ontop.iq.planner.CardinalityEstimator;
+import it.unibz.inf.ontop.iq.planner.QueryPlanner;
 import it.unibz.inf.ontop.iq.tools.IQConverter;
 import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
 import it.unibz.inf.ontop.iq.transformer.BooleanExpressionPushDownTransformer;
@@ -33,7 +35,12 @@ public class OptimizationTestingTools {
     public static final IntermediateQueryFactory IQ_FACTORY;
     public static final DBMetadata EMPTY_METADATA;
     public static final JoinLikeOptimizer JOIN_LIKE_OPTIMIZER;
+    public static final JoinLikeIQOptimizer JOIN_LIKE_IQ_OPTIMIZER;
+    public static final ProjectionShrinkingIQOptimizer PROJECTION_SHRINKING_IQ_OPTIMIZER;
+    public static final FlattenUnionIQOptimizer FLATTEN_UNION_IQ_OPTIMIZER;
     public static final BindingLiftOptimizer BINDING_LIFT_OPTIMIZER;
+    public static final QueryPlanner QUERY_PLANNER;
+    public static final CardinalityEstimator CARDINALITY_ESTIMATOR;
     public static final AtomFactory ATOM_FACTORY;
     public static final TypeFactory TYPE_FACTORY;
     public static final TermFactory TERM_FACTORY;
@@ -103,7 +110,12 @@ public class OptimizationTestingTools {
         EXECUTOR_REGISTRY = defaultConfiguration.getExecutorRegistry();
         IQ_FACTORY = injector.getInstance(IntermediateQueryFactory.class);
         JOIN_LIKE_OPTIMIZER = injector.getInstance(JoinLikeOptimizer.class);
+        JOIN_LIKE_IQ_OPTIMIZER = injector.getInstance(JoinLikeIQOptimizer.class);
+        PROJECTION_SHRINKING_IQ_OPTIMIZER = injector.getInstance(ProjectionShrinkingIQOptimizer.class);
+        FLATTEN_UNION_IQ_OPTIMIZER = injector.getInstance(FlattenUnionIQOptimizer.class);
         BINDING_LIFT_OPTIMIZER = injector.getInstance(BindingLiftOptimizer.class);
+        QUERY_PLANNER = injector.getInstance(QueryPlanner.class);
+        CARDINALITY_ESTIMATOR = injector.getInstance(CardinalityEstimator.class);
         ATOM_FACTORY = injector.getInstance(AtomFactory.class);
         TYPE_FACTORY = injector.getInstance(TypeFactory.class);
         TERM_FACTORY = injector.getInstance(TermFactory.class);
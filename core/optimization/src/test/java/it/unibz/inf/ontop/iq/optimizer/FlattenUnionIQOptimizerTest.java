@@ -0,0 +1,141 @@
+package it.unibz.inf.ontop.iq.optimizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.ExtensionalDataNode;
+import it.unibz.inf.ontop.iq.node.InnerJoinNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.term.Variable;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.NoDependencyTestDBMetadata.*;
+import static it.unibz.inf.ontop.OptimizationTestingTools.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Same scenarios as FlattenUnionOptimizerTest, on the IQ
+ */
+public class FlattenUnionIQOptimizerTest {
+
+    private final static AtomPredicate ANS1_PREDICATE1 = ATOM_FACTORY.getRDFAnswerPredicate(1);
+    private final static Variable X = TERM_FACTORY.getVariable("X");
+    private final static Variable Y = TERM_FACTORY.getVariable("Y");
+    private final static Variable Z = TERM_FACTORY.getVariable("Z");
+
+    private final static DistinctVariableOnlyDataAtom PROJECTION_ATOM = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+            ANS1_PREDICATE1, X);
+    private final static ConstructionNode ROOT_NODE = IQ_FACTORY.createConstructionNode(PROJECTION_ATOM.getVariables());
+
+    private final static UnionNode UNION_NODE1 = IQ_FACTORY.createUnionNode(ImmutableSet.of(X));
+    private final static UnionNode UNION_NODE2 = IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Y));
+    private final static UnionNode UNION_NODE3 = IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Y, Z));
+
+    private final static ExtensionalDataNode DATA_NODE1 = IQ_FACTORY.createExtensionalDataNode(
+            ATOM_FACTORY.getDataAtom(TABLE1_AR2, X, Y));
+    private final static ExtensionalDataNode DATA_NODE2 = IQ_FACTORY.createExtensionalDataNode(
+            ATOM_FACTORY.getDataAtom(TABLE2_AR2, X, Y));
+    private final static ExtensionalDataNode DATA_NODE3 = IQ_FACTORY.createExtensionalDataNode(
+            ATOM_FACTORY.getDataAtom(TABLE3_AR2, X, Y));
+    private final static ExtensionalDataNode DATA_NODE4 = IQ_FACTORY.createExtensionalDataNode(
+            ATOM_FACTORY.getDataAtom(TABLE4_AR3, X, Y, Z));
+    private final static ExtensionalDataNode DATA_NODE5 = IQ_FACTORY.createExtensionalDataNode(
+            ATOM_FACTORY.getDataAtom(TABLE5_AR3, X, Y, Z));
+
+    @Test
+    public void flattenUnionTest1() {
+        IQ query = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1, ImmutableList.of(
+                DATA_NODE1,
+                IQ_FACTORY.createNaryIQTree(UNION_NODE2, ImmutableList.of(
+                        DATA_NODE2,
+                        IQ_FACTORY.createNaryIQTree(UNION_NODE3, ImmutableList.of(DATA_NODE4, DATA_NODE5)))))));
+
+        IQ expectedQuery = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1,
+                ImmutableList.of(DATA_NODE1, DATA_NODE2, DATA_NODE4, DATA_NODE5)));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    @Test
+    public void flattenUnionTest2() {
+        IQ query = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1, ImmutableList.of(
+                DATA_NODE1,
+                IQ_FACTORY.createNaryIQTree(UNION_NODE2, ImmutableList.of(DATA_NODE2, DATA_NODE3)),
+                IQ_FACTORY.createNaryIQTree(UNION_NODE3, ImmutableList.of(DATA_NODE4, DATA_NODE5)))));
+
+        IQ expectedQuery = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1,
+                ImmutableList.of(DATA_NODE1, DATA_NODE2, DATA_NODE3, DATA_NODE4, DATA_NODE5)));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    /**
+     * The union below the join is not flattened
+     */
+    @Test
+    public void flattenUnionTest3() {
+        InnerJoinNode innerJoinNode = IQ_FACTORY.createInnerJoinNode();
+
+        IQ query = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1, ImmutableList.of(
+                DATA_NODE1,
+                IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                        DATA_NODE4,
+                        IQ_FACTORY.createNaryIQTree(UNION_NODE2, ImmutableList.of(DATA_NODE2, DATA_NODE3)))))));
+
+        optimizeAndCompare(query, query);
+    }
+
+    @Test
+    public void flattenUnionTest4() {
+        InnerJoinNode innerJoinNode = IQ_FACTORY.createInnerJoinNode();
+
+        IQ query = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1, ImmutableList.of(
+                DATA_NODE1,
+                IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                        DATA_NODE2,
+                        IQ_FACTORY.createNaryIQTree(UNION_NODE2, ImmutableList.of(
+                                IQ_FACTORY.createNaryIQTree(UNION_NODE3, ImmutableList.of(DATA_NODE4, DATA_NODE5)),
+                                DATA_NODE3)))))));
+
+        IQ expectedQuery = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1, ImmutableList.of(
+                DATA_NODE1,
+                IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                        DATA_NODE2,
+                        IQ_FACTORY.createNaryIQTree(UNION_NODE2, ImmutableList.of(DATA_NODE3, DATA_NODE4, DATA_NODE5)))))));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    @Test
+    public void flattenUnionTest5() {
+        IQTree joinTree = IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(),
+                ImmutableList.of(DATA_NODE3, DATA_NODE4));
+
+        IQ query = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1, ImmutableList.of(
+                DATA_NODE1,
+                IQ_FACTORY.createNaryIQTree(UNION_NODE2, ImmutableList.of(joinTree, DATA_NODE2)))));
+
+        IQ expectedQuery = createIQ(IQ_FACTORY.createNaryIQTree(UNION_NODE1,
+                ImmutableList.of(DATA_NODE1, joinTree, DATA_NODE2)));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    private static IQ createIQ(IQTree unionTree) {
+        return IQ_FACTORY.createIQ(PROJECTION_ATOM, IQ_FACTORY.createUnaryIQTree(ROOT_NODE, unionTree));
+    }
+
+    private static void optimizeAndCompare(IQ query, IQ expectedQuery) {
+        System.out.println("\nBefore optimization: \n" + query);
+
+        IQ optimizedQuery = FLATTEN_UNION_IQ_OPTIMIZER.optimize(query);
+        System.out.println("\nAfter optimization: \n" + optimizedQuery);
+        System.out.println("\nExpected: \n" + expectedQuery);
+
+        assertEquals(expectedQuery, optimizedQuery);
+    }
+}
@@ -0,0 +1,112 @@
+package it.unibz.inf.ontop.iq.optimizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.atom.RelationPredicate;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.OptimizationTestingTools.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Join optimization of the IQ, where only the join trees are converted into IntermediateQueries
+ */
+public class JoinLikeIQOptimizerTest {
+
+    private final static RelationPredicate TABLE1_PREDICATE;
+    private final static RelationPredicate TABLE2_PREDICATE;
+    private final static Variable M = TERM_FACTORY.getVariable("m");
+    private final static Variable N = TERM_FACTORY.getVariable("n");
+    private final static Variable N1 = TERM_FACTORY.getVariable("n1");
+    private final static Variable O = TERM_FACTORY.getVariable("o");
+    private final static Variable O1 = TERM_FACTORY.getVariable("o1");
+
+    static {
+        BasicDBMetadata dbMetadata = createDummyMetadata();
+        QuotedIDFactory idFactory = dbMetadata.getQuotedIDFactory();
+        DBTermType integerDBType = TYPE_FACTORY.getDBTypeFactory().getDBLargeIntegerType();
+
+        DatabaseRelationDefinition table1Def = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, "table1"));
+        Attribute col1T1 = table1Def.addAttribute(idFactory.createAttributeID("col1"), integerDBType.getName(), integerDBType, false);
+        table1Def.addAttribute(idFactory.createAttributeID("col2"), integerDBType.getName(), integerDBType, false);
+        table1Def.addAttribute(idFactory.createAttributeID("col3"), integerDBType.getName(), integerDBType, false);
+        table1Def.addUniqueConstraint(UniqueConstraint.primaryKeyOf(col1T1));
+        TABLE1_PREDICATE = table1Def.getAtomPredicate();
+
+        DatabaseRelationDefinition table2Def = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, "table2"));
+        table2Def.addAttribute(idFactory.createAttributeID("col1"), integerDBType.getName(), integerDBType, false);
+        table2Def.addAttribute(idFactory.createAttributeID("col2"), integerDBType.getName(), integerDBType, false);
+        table2Def.addAttribute(idFactory.createAttributeID("col3"), integerDBType.getName(), integerDBType, false);
+        TABLE2_PREDICATE = table2Def.getAtomPredicate();
+
+        dbMetadata.freeze();
+    }
+
+    @Test
+    public void testSelfJoinsInUnion() throws EmptyQueryException {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_AR2_PREDICATE, M, N);
+
+        IQTree selfJoinTree = IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(), ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, M, N, O1)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, M, N1, O))));
+
+        IQTree otherJoinTree = IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(), ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_PREDICATE, M, N, O1)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_PREDICATE, M, N1, O))));
+
+        UnionNode unionNode = IQ_FACTORY.createUnionNode(ImmutableSet.of(M, N, N1, O, O1));
+        IQ query = IQ_FACTORY.createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(projectionAtom.getVariables()),
+                IQ_FACTORY.createNaryIQTree(unionNode,
+                        ImmutableList.of(selfJoinTree, otherJoinTree, selfJoinTree))));
+
+        IQ optimizedQuery = JOIN_LIKE_IQ_OPTIMIZER.optimize(query, EXECUTOR_REGISTRY);
+        System.out.println("Optimized query: " + optimizedQuery);
+
+        // The choice of the variables unified by the self-join elimination may differ from the IntermediateQuery
+        ImmutableList<IQTree> optimizedChildren = optimizedQuery.getTree().getChildren().get(0).getChildren();
+        assertEquals(3, optimizedChildren.size());
+        assertFalse(containsJoin(optimizedChildren.get(0)));
+        assertEquals(otherJoinTree, optimizedChildren.get(1));
+        assertEquals(optimizedChildren.get(0), optimizedChildren.get(2));
+    }
+
+    @Test
+    public void testSelfLeftJoin() throws EmptyQueryException {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_AR3_PREDICATE, M, N, O);
+
+        IQTree leftJoinTree = IQ_FACTORY.createBinaryNonCommutativeIQTree(IQ_FACTORY.createLeftJoinNode(),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, M, N, O1)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, M, N1, O)));
+
+        IQ query = IQ_FACTORY.createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(projectionAtom.getVariables()),
+                IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createDistinctNode(), leftJoinTree)));
+
+        IQ optimizedQuery = JOIN_LIKE_IQ_OPTIMIZER.optimize(query, EXECUTOR_REGISTRY);
+        System.out.println("Optimized query: " + optimizedQuery);
+
+        IQ expectedQuery = IQ_CONVERTER.convert(JOIN_LIKE_OPTIMIZER.optimize(
+                IQ_CONVERTER.convert(query, EXECUTOR_REGISTRY)));
+        System.out.println("Expected query: " + expectedQuery);
+
+        assertEquals(expectedQuery, optimizedQuery);
+        assertFalse(containsJoin(optimizedQuery.getTree()));
+    }
+
+    private static boolean containsJoin(IQTree tree) {
+        return (tree.getRootNode() instanceof JoinLikeNode)
+                || tree.getChildren().stream().anyMatch(JoinLikeIQOptimizerTest::containsJoin);
+    }
+}
@@ -0,0 +1,210 @@
+package it.unibz.inf.ontop.iq.optimizer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.term.ImmutableExpression;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.NoDependencyTestDBMetadata.*;
+import static it.unibz.inf.ontop.OptimizationTestingTools.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Same scenarios as ProjectionShrinkingOptimizerTest, on the IQ
+ */
+public class ProjectionShrinkingIQOptimizerTest {
+
+    private final static AtomPredicate ANS1_PREDICATE1 = ATOM_FACTORY.getRDFAnswerPredicate(1);
+    private final static Variable X = TERM_FACTORY.getVariable("X");
+    private final static Variable Y = TERM_FACTORY.getVariable("Y");
+    private final static Variable Z = TERM_FACTORY.getVariable("Z");
+    private final static Variable W = TERM_FACTORY.getVariable("W");
+    private final static Variable A = TERM_FACTORY.getVariable("A");
+    private final static Variable B = TERM_FACTORY.getVariable("B");
+
+    private final static ImmutableExpression EXPRESSION1 = TERM_FACTORY.getStrictNEquality(Y, Z);
+    private final static ImmutableExpression EXPRESSION2 = TERM_FACTORY.getStrictNEquality(W, X);
+
+    private ImmutableFunctionalTerm generateInt(VariableOrGroundTerm argument) {
+        return TERM_FACTORY.getRDFLiteralFunctionalTerm(argument, XSD.INTEGER);
+    }
+
+    @Test
+    public void testUnion() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE1, X);
+        ImmutableList<IQTree> unionChildren = ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, X, Y)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_AR2, X, Y)));
+
+        IQ query = createIQ(projectionAtom,
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Y)), unionChildren));
+
+        IQ expectedQuery = createIQ(projectionAtom,
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X)), unionChildren));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    /**
+     * Y is shared with the sibling of the union, so it is kept
+     */
+    @Test
+    public void testUnionAndImplicitJoinCondition() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE1, X);
+
+        IQ query = createIQ(projectionAtom, IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(), ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, Y, Z)),
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Y)), ImmutableList.of(
+                        IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_AR2, X, Y)),
+                        IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE3_AR2, X, Y)))))));
+
+        optimizeAndCompare(query, query);
+    }
+
+    /**
+     * Y is used by the join condition, so it is kept
+     */
+    @Test
+    public void testUnionAndExplicitJoinCondition1() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE1, X);
+
+        IQ query = createIQ(projectionAtom, IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(EXPRESSION1),
+                ImmutableList.of(
+                        IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, X, Z)),
+                        IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Y)), ImmutableList.of(
+                                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_AR2, X, Y)),
+                                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE3_AR2, X, Y)))))));
+
+        optimizeAndCompare(query, query);
+    }
+
+    @Test
+    public void testUnionAndExplicitJoinCondition2() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE1, Z);
+        InnerJoinNode innerJoinNode = IQ_FACTORY.createInnerJoinNode(EXPRESSION2);
+        ExtensionalDataNode dataNode1 = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, W, Z));
+        ImmutableList<IQTree> unionChildren = ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_AR2, X, Y)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE3_AR2, X, Y)));
+
+        IQ query = createIQ(projectionAtom, IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                dataNode1,
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Y)), unionChildren))));
+
+        IQ expectedQuery = createIQ(projectionAtom, IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                dataNode1,
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X)), unionChildren))));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    @Test
+    public void testUnionAndFilter() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE1, Z);
+        FilterNode filterNode = IQ_FACTORY.createFilterNode(EXPRESSION1);
+        ImmutableList<IQTree> unionChildren = ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE4_AR3, X, Y, Z)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE5_AR3, X, Y, Z)));
+
+        IQ query = createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(filterNode,
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Y, Z)), unionChildren)));
+
+        IQ expectedQuery = createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(filterNode,
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(Y, Z)), unionChildren)));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    @Test
+    public void testConstructionNode() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE1, X);
+        ExtensionalDataNode dataNode = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, A, B));
+
+        IQ query = createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, Y),
+                        SUBSTITUTION_FACTORY.getSubstitution(X, generateInt(A), Y, generateInt(B))),
+                dataNode));
+
+        IQ expectedQuery = createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(ImmutableSet.of(X),
+                        SUBSTITUTION_FACTORY.getSubstitution(X, generateInt(A))),
+                dataNode));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    @Test
+    public void testConstructionNodeAndImplicitJoinCondition() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE1, Z);
+        InnerJoinNode innerJoinNode = IQ_FACTORY.createInnerJoinNode();
+        ExtensionalDataNode dataNode1 = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, X, Z));
+        ExtensionalDataNode dataNode2 = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, A, B));
+
+        IQ query = createIQ(projectionAtom, IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                dataNode1,
+                IQ_FACTORY.createUnaryIQTree(
+                        IQ_FACTORY.createConstructionNode(ImmutableSet.of(X, Y),
+                                SUBSTITUTION_FACTORY.getSubstitution(X, generateInt(A), Y, generateInt(B))),
+                        dataNode2))));
+
+        IQ expectedQuery = createIQ(projectionAtom, IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                dataNode1,
+                IQ_FACTORY.createUnaryIQTree(
+                        IQ_FACTORY.createConstructionNode(ImmutableSet.of(X),
+                                SUBSTITUTION_FACTORY.getSubstitution(X, generateInt(A))),
+                        dataNode2))));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    /**
+     * The construction node does not project any variable anymore but is kept: otherwise, the variables
+     * of its child would be exposed to its join sibling and to the ancestors of the join.
+     *
+     * NB: in test mode, the IQ would be invalid if these variables were shared with the join sibling
+     */
+    @Test
+    public void testEmptyProjectionAndJoinSibling() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(ANS1_PREDICATE1, Z);
+        InnerJoinNode innerJoinNode = IQ_FACTORY.createInnerJoinNode();
+        ExtensionalDataNode dataNode1 = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_AR2, X, Z));
+        ExtensionalDataNode dataNode2 = IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_AR2, A, B));
+
+        IQ query = createIQ(projectionAtom, IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                dataNode1,
+                IQ_FACTORY.createUnaryIQTree(
+                        IQ_FACTORY.createConstructionNode(ImmutableSet.of(Y),
+                                SUBSTITUTION_FACTORY.getSubstitution(Y, generateInt(B))),
+                        dataNode2))));
+
+        IQ expectedQuery = createIQ(projectionAtom, IQ_FACTORY.createNaryIQTree(innerJoinNode, ImmutableList.of(
+                dataNode1,
+                IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createConstructionNode(ImmutableSet.of()), dataNode2))));
+
+        optimizeAndCompare(query, expectedQuery);
+    }
+
+    private static IQ createIQ(DistinctVariableOnlyDataAtom projectionAtom, IQTree child) {
+        return IQ_FACTORY.createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(projectionAtom.getVariables()), child));
+    }
+
+    private static void optimizeAndCompare(IQ query, IQ expectedQuery) {
+        System.out.println("\nBefore optimization: \n" + query);
+
+        IQ optimizedQuery = PROJECTION_SHRINKING_IQ_OPTIMIZER.optimize(query);
+        System.out.println("\nAfter optimization: \n" + optimizedQuery);
+        System.out.println("\nExpected: \n" + expectedQuery);
+
+        assertEquals(expectedQuery, optimizedQuery);
+    }
+}
@@ -0,0 +1,154 @@
+package it.unibz.inf.ontop.iq.planner;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.ExtensionalDataNode;
+import it.unibz.inf.ontop.iq.node.InnerJoinNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.atom.RelationPredicate;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.OptimizationTestingTools.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CostBasedQueryPlannerTest {
+
+    private final static RelationPredicate HUGE_PREDICATE;
+    private final static RelationPredicate LARGE1_PREDICATE;
+    private final static RelationPredicate LARGE2_PREDICATE;
+    private final static RelationPredicate SMALL1_PREDICATE;
+    private final static RelationPredicate SMALL2_PREDICATE;
+    private final static RelationPredicate SMALL3_PREDICATE;
+    private final static RelationPredicate NO_STATISTICS_PREDICATE;
+
+    static {
+        BasicDBMetadata dbMetadata = createDummyMetadata();
+        HUGE_PREDICATE = createRelation(dbMetadata, "huge", 1000000L);
+        LARGE1_PREDICATE = createRelation(dbMetadata, "large1", 100000L);
+        LARGE2_PREDICATE = createRelation(dbMetadata, "large2", 100000L);
+        SMALL1_PREDICATE = createRelation(dbMetadata, "small1", 10L);
+        SMALL2_PREDICATE = createRelation(dbMetadata, "small2", 10L);
+        SMALL3_PREDICATE = createRelation(dbMetadata, "small3", 10L);
+        NO_STATISTICS_PREDICATE = createRelation(dbMetadata, "nostatistics", null);
+        dbMetadata.freeze();
+    }
+
+    private static RelationPredicate createRelation(BasicDBMetadata dbMetadata, String name, Long rowCount) {
+        QuotedIDFactory idFactory = dbMetadata.getQuotedIDFactory();
+        DBTermType integerDBType = TYPE_FACTORY.getDBTypeFactory().getDBLargeIntegerType();
+
+        DatabaseRelationDefinition tableDef = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, name));
+        Attribute col1 = tableDef.addAttribute(idFactory.createAttributeID("col1"), integerDBType.getName(), integerDBType, false);
+        tableDef.addAttribute(idFactory.createAttributeID("col2"), integerDBType.getName(), integerDBType, false);
+        tableDef.addUniqueConstraint(UniqueConstraint.primaryKeyOf(col1));
+        if (rowCount != null)
+            tableDef.setStatistics(RelationStatistics.builder(rowCount)
+                    .addDistinctValueCount(2, Math.max(1, rowCount / 10))
+                    .build());
+        return tableDef.getAtomPredicate();
+    }
+
+    /**
+     * Small sibling, large union: pushed
+     */
+    @Test
+    public void testPushSmallSibling() {
+        IQ query = createQuery(SMALL1_PREDICATE, LARGE1_PREDICATE, LARGE2_PREDICATE);
+
+        IQ optimizedQuery = QUERY_PLANNER.optimize(query, EXECUTOR_REGISTRY);
+        System.out.println("Optimized query: " + optimizedQuery);
+
+        assertFalse(hasJoinAboveUnion(optimizedQuery.getTree()));
+    }
+
+    /**
+     * Huge sibling, small union: the sibling is not duplicated.
+     * The union is joined first.
+     */
+    @Test
+    public void testKeepHugeSibling() {
+        IQ query = createQuery(HUGE_PREDICATE, SMALL1_PREDICATE, SMALL2_PREDICATE, SMALL3_PREDICATE);
+
+        IQ optimizedQuery = QUERY_PLANNER.optimize(query, EXECUTOR_REGISTRY);
+        System.out.println("Optimized query: " + optimizedQuery);
+
+        IQTree joinTree = optimizedQuery.getTree();
+        assertTrue(joinTree.getRootNode() instanceof InnerJoinNode);
+        assertTrue(joinTree.getChildren().get(0).getRootNode() instanceof UnionNode);
+        assertTrue(joinTree.getChildren().get(1).getRootNode() instanceof ExtensionalDataNode);
+    }
+
+    /**
+     * Same as AvoidJoinAboveUnionPlanner without statistics
+     */
+    @Test
+    public void testPushWithoutStatistics() {
+        IQ query = createQuery(NO_STATISTICS_PREDICATE, SMALL1_PREDICATE, SMALL2_PREDICATE, SMALL3_PREDICATE);
+
+        IQ optimizedQuery = QUERY_PLANNER.optimize(query, EXECUTOR_REGISTRY);
+        System.out.println("Optimized query: " + optimizedQuery);
+
+        assertFalse(hasJoinAboveUnion(optimizedQuery.getTree()));
+    }
+
+    @Test
+    public void testJoinOrder() {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_AR3_PREDICATE, X, Y, Z);
+
+        ExtensionalDataNode hugeNode = IQ_FACTORY.createExtensionalDataNode(
+                ATOM_FACTORY.getDataAtom(HUGE_PREDICATE, X, Y));
+        ExtensionalDataNode largeNode = IQ_FACTORY.createExtensionalDataNode(
+                ATOM_FACTORY.getDataAtom(LARGE1_PREDICATE, Y, Z));
+        ExtensionalDataNode smallNode = IQ_FACTORY.createExtensionalDataNode(
+                ATOM_FACTORY.getDataAtom(SMALL1_PREDICATE, X, W));
+
+        IQ query = IQ_FACTORY.createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(projectionAtom.getVariables()),
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(),
+                        ImmutableList.of(hugeNode, largeNode, smallNode))));
+
+        IQ optimizedQuery = QUERY_PLANNER.optimize(query, EXECUTOR_REGISTRY);
+        System.out.println("Optimized query: " + optimizedQuery);
+
+        // The large node is not connected to the small one
+        assertEquals(ImmutableList.of(smallNode, hugeNode, largeNode),
+                optimizedQuery.getTree().getChildren().get(0).getChildren());
+    }
+
+    /**
+     * JOIN
+     *   SIBLING(x,y)
+     *   UNION(x,z)
+     *     T1(x,z)
+     *     ...
+     */
+    private static IQ createQuery(RelationPredicate siblingPredicate, RelationPredicate... unionPredicates) {
+        DistinctVariableOnlyDataAtom projectionAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
+                ANS1_AR3_PREDICATE, X, Y, Z);
+
+        ImmutableList.Builder<IQTree> unionChildren = ImmutableList.builder();
+        for (RelationPredicate predicate : unionPredicates)
+            unionChildren.add(IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(predicate, X, Z)));
+
+        return IQ_FACTORY.createIQ(projectionAtom, IQ_FACTORY.createUnaryIQTree(
+                IQ_FACTORY.createConstructionNode(projectionAtom.getVariables()),
+                IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(), ImmutableList.of(
+                        IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(siblingPredicate, X, Y)),
+                        IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(X, Z)),
+                                unionChildren.build())))));
+    }
+
+    private static boolean hasJoinAboveUnion(IQTree tree) {
+        return ((tree.getRootNode() instanceof InnerJoinNode)
+                    && tree.getChildren().stream().anyMatch(c -> c.getRootNode() instanceof UnionNode))
+                || tree.getChildren().stream().anyMatch(CostBasedQueryPlannerTest::hasJoinAboveUnion);
+    }
+}
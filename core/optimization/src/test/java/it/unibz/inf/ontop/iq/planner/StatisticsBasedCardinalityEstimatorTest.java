@@ -0,0 +1,96 @@
+package it.unibz.inf.ontop.iq.planner;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.model.atom.RelationPredicate;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import org.junit.Test;
+
+import static it.unibz.inf.ontop.OptimizationTestingTools.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StatisticsBasedCardinalityEstimatorTest {
+
+    private static final double DELTA = 0.001;
+
+    private final static RelationPredicate TABLE1_PREDICATE;
+    private final static RelationPredicate TABLE2_PREDICATE;
+    private final static RelationPredicate TABLE3_PREDICATE;
+
+    static {
+        BasicDBMetadata dbMetadata = createDummyMetadata();
+        QuotedIDFactory idFactory = dbMetadata.getQuotedIDFactory();
+        DBTermType integerDBType = TYPE_FACTORY.getDBTypeFactory().getDBLargeIntegerType();
+
+        // 1000 rows, 10 distinct values for col2
+        DatabaseRelationDefinition table1Def = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, "table1"));
+        Attribute col1T1 = table1Def.addAttribute(idFactory.createAttributeID("col1"), integerDBType.getName(), integerDBType, false);
+        table1Def.addAttribute(idFactory.createAttributeID("col2"), integerDBType.getName(), integerDBType, false);
+        table1Def.addUniqueConstraint(UniqueConstraint.primaryKeyOf(col1T1));
+        table1Def.setStatistics(RelationStatistics.builder(1000)
+                .addDistinctValueCount(2, 10)
+                .build());
+        TABLE1_PREDICATE = table1Def.getAtomPredicate();
+
+        // 50 rows
+        DatabaseRelationDefinition table2Def = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, "table2"));
+        Attribute col1T2 = table2Def.addAttribute(idFactory.createAttributeID("col1"), integerDBType.getName(), integerDBType, false);
+        table2Def.addAttribute(idFactory.createAttributeID("col2"), integerDBType.getName(), integerDBType, false);
+        table2Def.addUniqueConstraint(UniqueConstraint.primaryKeyOf(col1T2));
+        table2Def.setStatistics(RelationStatistics.builder(50).build());
+        TABLE2_PREDICATE = table2Def.getAtomPredicate();
+
+        // No statistics
+        DatabaseRelationDefinition table3Def = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, "table3"));
+        table3Def.addAttribute(idFactory.createAttributeID("col1"), integerDBType.getName(), integerDBType, false);
+        TABLE3_PREDICATE = table3Def.getAtomPredicate();
+
+        dbMetadata.freeze();
+    }
+
+    @Test
+    public void testConstant() {
+        CardinalityEstimate estimate = CARDINALITY_ESTIMATOR.estimate(IQ_FACTORY.createExtensionalDataNode(
+                ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, X, ONE)));
+
+        assertEquals(100, estimate.getRowCount(), DELTA);
+        assertEquals(100, estimate.getDistinctValueCount(X), DELTA);
+        assertTrue(estimate.isBasedOnStatistics());
+    }
+
+    @Test
+    public void testJoin() {
+        // The key of table2 (50 values) joins with col2 of table1 (10 values)
+        IQTree joinTree = IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(), ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, X, Y)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE2_PREDICATE, Y, Z))));
+
+        CardinalityEstimate estimate = CARDINALITY_ESTIMATOR.estimate(joinTree);
+        assertEquals(1000, estimate.getRowCount(), DELTA);
+        assertEquals(10, estimate.getDistinctValueCount(Y), DELTA);
+    }
+
+    @Test
+    public void testUnionAndDistinct() {
+        IQTree unionTree = IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createUnionNode(ImmutableSet.of(Y)), ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, X, Y)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, Z, Y))));
+
+        assertEquals(2000, CARDINALITY_ESTIMATOR.estimate(unionTree).getRowCount(), DELTA);
+        assertEquals(20, CARDINALITY_ESTIMATOR.estimate(
+                IQ_FACTORY.createUnaryIQTree(IQ_FACTORY.createDistinctNode(), unionTree)).getRowCount(), DELTA);
+    }
+
+    @Test
+    public void testWithoutStatistics() {
+        IQTree joinTree = IQ_FACTORY.createNaryIQTree(IQ_FACTORY.createInnerJoinNode(), ImmutableList.of(
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, X, Y)),
+                IQ_FACTORY.createExtensionalDataNode(ATOM_FACTORY.getDataAtom(TABLE3_PREDICATE, X))));
+
+        assertFalse(CARDINALITY_ESTIMATOR.estimate(joinTree).isBasedOnStatistics());
+    }
+}
@@ -91,5 +91,12 @@ public class QuotedIDFactoryMySQL implements QuotedIDFactory {
 	@Override
 	public String getIDQuotationString() {
 		return quotationString;
-	}	
+	}
+
+	/**
+	 * (used only for serializing the DB metadata)
+	 */
+	boolean areTableNamesCaseSensitive() {
+		return caseSensitiveTableNames;
+	}
 }
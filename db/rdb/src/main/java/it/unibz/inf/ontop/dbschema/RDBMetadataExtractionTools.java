@@ -21,14 +21,28 @@ package it.unibz.inf.ontop.dbschema;
 */
 
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unibz.inf.ontop.injection.OntopSQLCredentialSettings;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.model.type.TypeFactory;
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * Retrieves the database metadata (table schema and database constraints)
@@ -182,10 +196,36 @@ public class RDBMetadataExtractionTools {
 	 */
 
 	public static void loadMetadata(RDBMetadata metadata, Connection conn, Set<RelationID> realTables) throws SQLException {
+		loadMetadata(metadata, conn, realTables, null, 1);
+	}
+
+	/**
+	 * Same as above, but the attributes and the integrity constraints of the relations are retrieved
+	 * concurrently over (at most) connectionCount JDBC connections: the given one and
+	 * additional connections created from the settings (and closed afterwards).
+	 *
+	 * The result does not depend on the number of connections.
+	 */
+
+	public static void loadMetadata(RDBMetadata metadata, Connection conn, Set<RelationID> realTables,
+									@Nullable OntopSQLCredentialSettings settings, int connectionCount) throws SQLException {
+		loadMetadata(metadata, conn, realTables, settings, connectionCount, false);
+	}
+
+	/**
+	 * Same as above, but also retrieves the statistics of the relations (see RelationStatistics)
+	 * if extractStatistics is true.
+	 */
+
+	public static void loadMetadata(RDBMetadata metadata, Connection conn, Set<RelationID> realTables,
+									@Nullable OntopSQLCredentialSettings settings, int connectionCount,
+									boolean extractStatistics) throws SQLException {
 
 		if (printouts)
 			System.out.println("GETTING METADATA WITH " + conn + " ON " + realTables);
 
+		long startTime = System.currentTimeMillis();
+
 		final DatabaseMetaData md = conn.getMetaData();
 		String productName = md.getDatabaseProductName();
 
@@ -226,26 +266,27 @@ public class RDBMetadataExtractionTools {
 		else if (productName.contains("Microsoft SQL Server"))
 			dt = SQLServerTypeFixer;
 
-		List<DatabaseRelationDefinition> extractedRelations = new LinkedList<>();
+		long relationListTime = System.currentTimeMillis();
+		log.debug("Relation list: {} relations in {} ms", seedRelationIds.size(), relationListTime - startTime);
+
+		List<DatabaseRelationDefinition> extractedRelations = new ArrayList<>();
 
-        String catalog = getCatalog(metadata, conn);
+		String catalog = getCatalog(productName, conn);
 
-        for (RelationID seedId : seedRelationIds) {
-			// the same seedId can be mapped to many tables (if the seedId has no schema)
-			// we collect attributes from all of them
-			DatabaseRelationDefinition currentRelation = null;
+		try (MetadataConnections connections = new MetadataConnections(conn, settings,
+				Math.min(connectionCount, seedRelationIds.size() / MIN_RELATIONS_PER_CONNECTION))) {
 
-			// catalog is ignored for now (rs.getString("TABLE_CAT"))
-            try (ResultSet rs = md.getColumns(catalog, seedId.getSchemaName(), seedId.getTableName(), null)) {
-				while (rs.next()) {
-					String schema = rs.getString("TABLE_SCHEM");
-					// MySQL workaround
-					if (schema == null)
-						schema = rs.getString("TABLE_CAT");
+			List<List<ColumnRecord>> columns = getColumns(connections, catalog, seedRelationIds);
 
-					RelationID relationId = RelationID.createRelationIdFromDatabaseRecord(idfac, schema,
-										rs.getString("TABLE_NAME"));
-					QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
+			for (List<ColumnRecord> seedColumns : columns) {
+				// the same seedId can be mapped to many tables (if the seedId has no schema)
+				// we collect attributes from all of them
+				DatabaseRelationDefinition currentRelation = null;
+
+				for (ColumnRecord column : seedColumns) {
+					RelationID relationId = RelationID.createRelationIdFromDatabaseRecord(idfac, column.schema,
+										column.table);
+					QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, column.name);
 					if (printouts)
 						System.out.println("         " + relationId + "." + attributeId);
 
@@ -255,24 +296,33 @@ public class RDBMetadataExtractionTools {
 						extractedRelations.add(currentRelation);
 					}
 
-					// columnNoNulls, columnNullable, columnNullableUnknown
-					boolean isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
-					String typeName = rs.getString("TYPE_NAME");
-					int columnSize = rs.getInt("COLUMN_SIZE");
-					//int dataType = dt.getCorrectedDatatype(rs.getInt("DATA_TYPE"), typeName);
+					//int dataType = dt.getCorrectedDatatype(column.dataType, column.typeName);
 
-					DBTermType termType = metadata.getDBTypeFactory().getDBTermType(typeName, columnSize);
+					DBTermType termType = metadata.getDBTypeFactory().getDBTermType(column.typeName, column.size);
 
-					currentRelation.addAttribute(attributeId, typeName, termType, isNullable);
+					currentRelation.addAttribute(attributeId, column.typeName, termType, column.isNullable);
 				}
 			}
+
+			long attributeTime = System.currentTimeMillis();
+			log.debug("Attributes: {} relations in {} ms", extractedRelations.size(), attributeTime - relationListTime);
+
+			// each task modifies only its relation (and only reads the others)
+			connections.forEach(extractedRelations.size(), (cmd, i) -> {
+				DatabaseRelationDefinition relation = extractedRelations.get(i);
+				getPrimaryKey(cmd, relation, metadata.getQuotedIDFactory());
+				getUniqueAttributes(cmd, relation, metadata.getQuotedIDFactory());
+				getForeignKeys(cmd, relation, metadata);
+				if (extractStatistics)
+					getStatistics(cmd, relation, metadata.getQuotedIDFactory());
+			});
+
+			log.debug("Integrity constraints: {} relations in {} ms (over {} connection(s))",
+					extractedRelations.size(), System.currentTimeMillis() - attributeTime, connections.size());
 		}
 
-		for (DatabaseRelationDefinition relation : extractedRelations)	{
-			getPrimaryKey(md, relation, metadata.getQuotedIDFactory());
-			getUniqueAttributes(md, relation, metadata.getQuotedIDFactory());
-			getForeignKeys(md, relation, metadata);
-			if (printouts) {
+		if (printouts) {
+			for (DatabaseRelationDefinition relation : extractedRelations) {
 				System.out.println(relation + ";");
 				for (UniqueConstraint uc : relation.getUniqueConstraints())
 					System.out.println(uc + ";");
@@ -280,21 +330,366 @@ public class RDBMetadataExtractionTools {
 					System.out.println(fk +  ";");
 				System.out.println("");
 			}
-		}
-
-		if (printouts) {
 			System.out.println("RESULTING METADATA:\n" + metadata);
 			System.out.println("DBMetadataExtractor END OF REPORT\n=================================");
 		}
 	}
 
-    private static String getCatalog(RDBMetadata metadata, Connection conn) throws SQLException {
-        String catalog = null;
+	/**
+	 * Retrieves the columns of each seed relation (in the order of the seed relations).
+	 *
+	 * The relations with a schema that contains at least MIN_RELATIONS_FOR_SCHEMA_QUERY seed relations
+	 * are retrieved by a single getColumns call for the whole schema (instead of a call per relation).
+	 */
+	private static List<List<ColumnRecord>> getColumns(MetadataConnections connections, String catalog,
+													   List<RelationID> seedRelationIds) throws SQLException {
+
+		List<List<ColumnRecord>> columns = new ArrayList<>(seedRelationIds.size());
+		Map<String, Map<String, Integer>> schemaSeedIndexes = new LinkedHashMap<>();
+		for (int i = 0; i < seedRelationIds.size(); i++) {
+			columns.add(new ArrayList<>());
+			RelationID seedId = seedRelationIds.get(i);
+			if (seedId.hasSchema())
+				schemaSeedIndexes.computeIfAbsent(seedId.getSchemaName(), s -> new HashMap<>())
+						.putIfAbsent(seedId.getTableName(), i);
+		}
+		schemaSeedIndexes.values().removeIf(m -> m.size() < MIN_RELATIONS_FOR_SCHEMA_QUERY);
+
+		// the remaining seed relations are retrieved one by one
+		List<Integer> singleSeeds = new ArrayList<>();
+		for (int i = 0; i < seedRelationIds.size(); i++) {
+			RelationID seedId = seedRelationIds.get(i);
+			if (!seedId.hasSchema() || !schemaSeedIndexes.containsKey(seedId.getSchemaName()))
+				singleSeeds.add(i);
+		}
+		List<String> schemas = new ArrayList<>(schemaSeedIndexes.keySet());
+
+		connections.forEach(schemas.size() + singleSeeds.size(), (cmd, i) -> {
+			if (i < schemas.size()) {
+				String schema = schemas.get(i);
+				Map<String, Integer> seedIndexes = schemaSeedIndexes.get(schema);
+				try (ResultSet rs = cmd.getColumns(catalog, schema, null, null)) {
+					while (rs.next()) {
+						Integer seedIndex = seedIndexes.get(rs.getString("TABLE_NAME"));
+						if (seedIndex != null)
+							columns.get(seedIndex).add(new ColumnRecord(rs));
+					}
+				}
+			}
+			else {
+				int seedIndex = singleSeeds.get(i - schemas.size());
+				RelationID seedId = seedRelationIds.get(seedIndex);
+				// catalog is ignored for now (rs.getString("TABLE_CAT"))
+				try (ResultSet rs = cmd.getColumns(catalog, seedId.getSchemaName(), seedId.getTableName(), null)) {
+					while (rs.next())
+						columns.get(seedIndex).add(new ColumnRecord(rs));
+				}
+			}
+		});
+		return columns;
+	}
+
+	private static final int MIN_RELATIONS_FOR_SCHEMA_QUERY = 10;
+	private static final int MIN_RELATIONS_PER_CONNECTION = 10;
+
+	/**
+	 * Row of DatabaseMetaData.getColumns
+	 */
+	private static final class ColumnRecord {
+		private final String schema;
+		private final String table;
+		private final String name;
+		private final boolean isNullable;
+		private final String typeName;
+		private final int size;
+
+		ColumnRecord(ResultSet rs) throws SQLException {
+			String schema = rs.getString("TABLE_SCHEM");
+			// MySQL workaround
+			if (schema == null)
+				schema = rs.getString("TABLE_CAT");
+			this.schema = schema;
+			this.table = rs.getString("TABLE_NAME");
+			this.name = rs.getString("COLUMN_NAME");
+			// columnNoNulls, columnNullable, columnNullableUnknown
+			this.isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+			this.typeName = rs.getString("TYPE_NAME");
+			this.size = rs.getInt("COLUMN_SIZE");
+		}
+	}
+
+	private interface MetadataTask {
+		void run(DatabaseMetaData md, int index) throws SQLException;
+	}
 
-        Statement statement = conn.createStatement();
+	/**
+	 * The given JDBC connection and the additional connections used for extracting the metadata concurrently.
+	 *
+	 * A DatabaseMetaData is never used by two threads at the same time.
+	 */
+	private static final class MetadataConnections implements AutoCloseable {
+
+		private final Connection connection;
+		private final List<Connection> additionalConnections = new ArrayList<>();
+		@Nullable
+		private final ExecutorService executor;
+
+		MetadataConnections(Connection connection, @Nullable OntopSQLCredentialSettings settings, int connectionCount) {
+			this.connection = connection;
+			if (settings != null) {
+				for (int i = 1; i < connectionCount; i++) {
+					try {
+						additionalConnections.add(LocalJDBCConnectionUtils.createConnection(settings));
+					}
+					catch (SQLException e) {
+						log.warn("Cannot open an additional connection for extracting the DB metadata: " + e.getMessage());
+						break;
+					}
+				}
+			}
+			this.executor = additionalConnections.isEmpty()
+					? null
+					: Executors.newFixedThreadPool(additionalConnections.size(), new ThreadFactoryBuilder()
+						.setNameFormat("ontop-db-metadata-%d")
+						.setDaemon(true)
+						.build());
+		}
+
+		int size() {
+			return additionalConnections.size() + 1;
+		}
+
+		/**
+		 * Runs the tasks 0 .. taskCount - 1 (each one exactly once), stops at the first exception
+		 */
+		void forEach(int taskCount, MetadataTask task) throws SQLException {
+			AtomicInteger nextTask = new AtomicInteger();
+			List<Future<Void>> futures = new ArrayList<>();
+			if (executor != null && taskCount > 1) {
+				for (Connection additionalConnection : additionalConnections)
+					futures.add(executor.submit(() -> {
+						runTasks(additionalConnection, taskCount, task, nextTask);
+						return null;
+					}));
+			}
+			SQLException exception = null;
+			try {
+				runTasks(connection, taskCount, task, nextTask);
+			}
+			catch (SQLException e) {
+				exception = e;
+			}
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				}
+				catch (ExecutionException e) {
+					if (!(e.getCause() instanceof SQLException))
+						throw new RuntimeException(e.getCause());
+					if (exception == null)
+						exception = (SQLException) e.getCause();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("Interrupted while extracting the DB metadata");
+				}
+			}
+			if (exception != null)
+				throw exception;
+		}
+
+		/**
+		 * Stops the tasks of the other threads on the first exception
+		 */
+		private static void runTasks(Connection connection, int taskCount, MetadataTask task,
+									 AtomicInteger nextTask) throws SQLException {
+			DatabaseMetaData md = connection.getMetaData();
+			try {
+				for (int i = nextTask.getAndIncrement(); i < taskCount; i = nextTask.getAndIncrement())
+					task.run(md, i);
+			}
+			catch (SQLException | RuntimeException e) {
+				nextTask.set(taskCount);
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (executor != null)
+				executor.shutdownNow();
+			for (Connection additionalConnection : additionalConnections) {
+				try {
+					additionalConnection.close();
+				}
+				catch (SQLException e) {
+					log.warn("Cannot close a connection used for extracting the DB metadata: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cheap fingerprint of the given relations (typically, the ones used by the mapping),
+	 * for detecting whether previously extracted metadata is outdated:
+	 *    for Oracle, the last DDL time and the number of the objects with these names;
+	 *    otherwise, a hash of their columns (name, type, size and nullability), retrieved as for the extraction
+	 *    (getColumns calls per relation or per schema), and of their primary keys, unique indexes and foreign keys.
+	 */
+	public static String getSchemaFingerprint(Connection conn, Collection<RelationID> relationIds) throws SQLException {
+		DatabaseMetaData md = conn.getMetaData();
+		String productName = md.getDatabaseProductName();
 
-        if (metadata.getDbmsProductName().contains("MySQL")) {
-            try (ResultSet rs = statement.executeQuery("SELECT DATABASE()")) {
+		if (productName.contains("Oracle"))
+			return getOracleDDLFingerprint(conn, relationIds);
+
+		// Independent of the order of the given relations
+		List<RelationID> seedRelationIds = relationIds.stream()
+				.sorted(Comparator.comparing(RelationID::getSQLRendering))
+				.collect(Collectors.toList());
+
+		Hasher hasher = Hashing.sha256().newHasher();
+		try (MetadataConnections connections = new MetadataConnections(conn, null, 1)) {
+			for (List<ColumnRecord> seedColumns : getColumns(connections, getCatalog(productName, conn), seedRelationIds)) {
+				hasher.putInt(seedColumns.size());
+				for (ColumnRecord column : seedColumns) {
+					for (String value : new String[] { column.schema, column.table, column.name, column.typeName })
+						putString(hasher, value);
+					hasher.putInt(column.size)
+							.putBoolean(column.isNullable);
+				}
+				// the same seedId can be mapped to many tables (if the seedId has no schema)
+				Set<List<String>> relations = new LinkedHashSet<>();
+				for (ColumnRecord column : seedColumns)
+					relations.add(Arrays.asList(column.schema, column.table));
+				for (List<String> relation : relations)
+					putConstraints(hasher, md, relation.get(0), relation.get(1));
+			}
+		}
+		return "columns:" + hasher.hash();
+	}
+
+	/**
+	 * Same calls (and MySQL workarounds) as for the extraction of the primary keys, unique attributes
+	 * and foreign keys. The statistics of the index information are ignored.
+	 */
+	private static void putConstraints(Hasher hasher, DatabaseMetaData md, String schema, String table)
+			throws SQLException {
+		List<String> primaryKeys;
+		try {
+			primaryKeys = getRecords(md.getPrimaryKeys(null, schema, table), "PK_NAME", "KEY_SEQ", "COLUMN_NAME");
+		}
+		catch (SQLSyntaxErrorException e) {
+			primaryKeys = getRecords(md.getPrimaryKeys(schema, null, table), "PK_NAME", "KEY_SEQ", "COLUMN_NAME");
+		}
+
+		List<String> uniqueIndexes;
+		try {
+			uniqueIndexes = getIndexRecords(md.getIndexInfo(null, schema, table, true, true));
+		}
+		catch (Exception e) {
+			uniqueIndexes = getIndexRecords(md.getIndexInfo(schema, null, table, true, true));
+		}
+
+		List<String> foreignKeys;
+		try {
+			foreignKeys = getForeignKeyRecords(md.getImportedKeys(null, schema, table));
+		}
+		catch (Exception e) {
+			foreignKeys = getForeignKeyRecords(md.getImportedKeys(schema, null, table));
+		}
+
+		for (List<String> records : Arrays.asList(primaryKeys, uniqueIndexes, foreignKeys)) {
+			hasher.putInt(records.size());
+			for (String record : records)
+				putString(hasher, record);
+		}
+	}
+
+	private static List<String> getRecords(ResultSet resultSet, String... columns) throws SQLException {
+		try (ResultSet rs = resultSet) {
+			List<String> records = new ArrayList<>();
+			while (rs.next())
+				records.add(getRecord(rs, columns));
+			return records;
+		}
+	}
+
+	private static List<String> getIndexRecords(ResultSet resultSet) throws SQLException {
+		try (ResultSet rs = resultSet) {
+			List<String> records = new ArrayList<>();
+			while (rs.next()) {
+				if (rs.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic && !rs.getBoolean("NON_UNIQUE"))
+					records.add(getRecord(rs, "INDEX_NAME", "ORDINAL_POSITION", "COLUMN_NAME"));
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * WORKAROUND FOR MySQL connector >= v8.0: PKTABLE_CAT instead of PKTABLE_SCHEM
+	 */
+	private static List<String> getForeignKeyRecords(ResultSet resultSet) throws SQLException {
+		return getRecords(resultSet, "FK_NAME", "KEY_SEQ", "FKCOLUMN_NAME",
+				"PKTABLE_CAT", "PKTABLE_SCHEM", "PKTABLE_NAME", "PKCOLUMN_NAME");
+	}
+
+	private static String getRecord(ResultSet rs, String... columns) throws SQLException {
+		StringJoiner record = new StringJoiner("\t");
+		for (String column : columns)
+			record.add(Strings.nullToEmpty(rs.getString(column)));
+		return record.toString();
+	}
+
+	private static void putString(Hasher hasher, String value) {
+		String v = Strings.nullToEmpty(value);
+		hasher.putInt(v.length()).putString(v, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * MAX(last_ddl_time) and COUNT(*) over the objects of the relations
+	 * (relations without schema belong to the user)
+	 */
+	private static String getOracleDDLFingerprint(Connection conn, Collection<RelationID> relationIds) throws SQLException {
+		String defaultOwner = getOracleDefaultOwner(conn);
+		List<RelationID> ids = relationIds.stream()
+				.filter(id -> id.hasSchema() || !id.getTableName().equals("DUAL"))
+				.collect(Collectors.toList());
+
+		String lastDDLTime = "";
+		long count = 0;
+		for (int start = 0; start < ids.size(); start += ORACLE_MAX_RELATIONS_PER_QUERY) {
+			List<RelationID> chunk = ids.subList(start, Math.min(ids.size(), start + ORACLE_MAX_RELATIONS_PER_QUERY));
+			String query = "SELECT TO_CHAR(MAX(last_ddl_time), 'YYYY-MM-DD HH24:MI:SS'), COUNT(*) FROM all_objects " +
+					"WHERE (owner, object_name) IN (" + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")) + ")";
+			try (PreparedStatement stmt = conn.prepareStatement(query)) {
+				int parameterIndex = 1;
+				for (RelationID id : chunk) {
+					stmt.setString(parameterIndex++, id.hasSchema() ? id.getSchemaName() : defaultOwner);
+					stmt.setString(parameterIndex++, id.getTableName());
+				}
+				try (ResultSet rs = stmt.executeQuery()) {
+					rs.next();
+					String chunkLastDDLTime = Strings.nullToEmpty(rs.getString(1));
+					// same format: the lexicographic order is the chronological one
+					if (chunkLastDDLTime.compareTo(lastDDLTime) > 0)
+						lastDDLTime = chunkLastDDLTime;
+					count += rs.getLong(2);
+				}
+			}
+		}
+		return "ddl:" + lastDDLTime + ":" + count;
+	}
+
+	// Oracle lists of expressions are limited to 1000 elements
+	private static final int ORACLE_MAX_RELATIONS_PER_QUERY = 500;
+
+    private static String getCatalog(String productName, Connection conn) throws SQLException {
+        String catalog = null;
+
+        if (productName.contains("MySQL")) {
+            try (Statement statement = conn.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT DATABASE()")) {
                 if (rs.next()) {
                     catalog = rs.getString(1);
                 }
@@ -675,6 +1070,115 @@ public class RDBMetadataExtractionTools {
             relation.addUniqueConstraint(builder.build(currentName, false));
     }
 
+	/**
+	 * Retrieves the statistics of the relation from the (approximate) index information:
+	 * number of rows of the table, number of distinct values of the single-column indexes
+	 * and first columns of the indexes.
+	 *
+	 * If the JDBC driver does not report the number of rows, it is taken from the catalog of the DBMS
+	 * (H2 and PostgreSQL only). Otherwise, no statistics are set.
+	 */
+	private static void getStatistics(DatabaseMetaData md, DatabaseRelationDefinition relation, QuotedIDFactory idfac) {
+		RelationID id = relation.getID();
+		try (ResultSet rs = md.getIndexInfo(null, id.getSchemaName(), id.getTableName(), false, true)) {
+			extractStatistics(relation, idfac, rs, md);
+		}
+		catch (Exception e) {
+			// Statistics are optional
+			log.debug("Cannot retrieve the statistics of {}: {}", id, e.toString());
+		}
+	}
+
+	private static void extractStatistics(DatabaseRelationDefinition relation, QuotedIDFactory idfac, ResultSet rs,
+										  DatabaseMetaData md) throws SQLException {
+		Long rowCount = null;
+		// Number of columns of each index
+		Map<String, Integer> indexSizes = new HashMap<>();
+		// Cardinality and attribute of the first column of each index
+		Map<String, Long> indexCardinalities = new HashMap<>();
+		Map<String, Attribute> firstAttributes = new HashMap<>();
+
+		while (rs.next()) {
+			// CARDINALITY: number of rows of the table when TYPE is tableIndexStatistic,
+			//              number of unique values in the index otherwise
+			long cardinality = rs.getLong("CARDINALITY");
+			boolean isCardinalityKnown = !rs.wasNull() && cardinality >= 0;
+
+			if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+				if (isCardinalityKnown)
+					rowCount = cardinality;
+				continue;
+			}
+			// Some drivers (e.g. H2) report 0 for the indexes
+			isCardinalityKnown = isCardinalityKnown && cardinality > 0;
+			String indexName = rs.getString("INDEX_NAME");
+			String columnName = rs.getString("COLUMN_NAME");
+			if (indexName == null || columnName == null)
+				continue;
+
+			indexSizes.merge(indexName, 1, Integer::sum);
+			if (rs.getShort("ORDINAL_POSITION") == 1) {
+				Attribute attr = relation.getAttribute(QuotedID.createIdFromDatabaseRecord(idfac, columnName));
+				if (attr == null) // Compensate for the bug in PostgreSQL JBDC driver (see extractUniqueAttributes)
+					attr = relation.getAttribute(QuotedID.createIdFromDatabaseRecord(idfac, "\"" + columnName + "\""));
+				if (attr != null) {
+					firstAttributes.put(indexName, attr);
+					if (isCardinalityKnown)
+						indexCardinalities.put(indexName, cardinality);
+				}
+			}
+		}
+		if (rowCount == null)
+			rowCount = getRowCountEstimate(md, relation.getID());
+		if (rowCount == null)
+			return;
+
+		RelationStatistics.Builder builder = RelationStatistics.builder(rowCount);
+		Map<Integer, Long> distinctValueCounts = new HashMap<>();
+		for (Map.Entry<String, Attribute> e : firstAttributes.entrySet()) {
+			int attributeIndex = e.getValue().getIndex();
+			builder.addIndexedAttribute(attributeIndex);
+			Long cardinality = indexCardinalities.get(e.getKey());
+			if (cardinality != null && indexSizes.get(e.getKey()) == 1)
+				distinctValueCounts.merge(attributeIndex, cardinality, Math::max);
+		}
+		distinctValueCounts.forEach(builder::addDistinctValueCount);
+		relation.setStatistics(builder.build());
+	}
+
+	/**
+	 * Estimated number of rows maintained by the DBMS in its catalog (null if unknown)
+	 */
+	@Nullable
+	private static Long getRowCountEstimate(DatabaseMetaData md, RelationID id) throws SQLException {
+		String productName = md.getDatabaseProductName();
+		String query;
+		if (productName.contains("H2"))
+			query = "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES " +
+					"WHERE TABLE_SCHEMA = " + (id.getSchemaName() == null ? "SCHEMA()" : "?") +
+					" AND TABLE_NAME = ?";
+		else if (productName.contains("PostgreSQL"))
+			// reltuples is -1 if the table has never been analyzed
+			query = "SELECT c.reltuples FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+					"WHERE n.nspname = " + (id.getSchemaName() == null ? "current_schema()" : "?") +
+					" AND c.relname = ?";
+		else
+			return null;
+
+		try (PreparedStatement st = md.getConnection().prepareStatement(query)) {
+			int parameterIndex = 1;
+			if (id.getSchemaName() != null)
+				st.setString(parameterIndex++, id.getSchemaName());
+			st.setString(parameterIndex, id.getTableName());
+			try (ResultSet rs = st.executeQuery()) {
+				if (!rs.next())
+					return null;
+				long rowCount = rs.getLong(1);
+				return (rs.wasNull() || rowCount < 0) ? null : rowCount;
+			}
+		}
+	}
+
     /**
 	 * Retrieves the foreign keys for the table
 	 *
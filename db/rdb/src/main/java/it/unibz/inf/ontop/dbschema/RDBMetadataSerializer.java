@@ -0,0 +1,265 @@
+package it.unibz.inf.ontop.dbschema;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.DBTypeFactory;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+
+import javax.annotation.Nullable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Binary serialization of the DB metadata, for re-using the result of the extraction
+ * without connecting to the database.
+ *
+ * Only the database relations (with their attributes, constraints and statistics) are serialized,
+ * not the parser views.
+ * Term types are serialized by name and obtained again from the DBTypeFactory.
+ */
+public class RDBMetadataSerializer {
+
+	private static final byte STANDARD_SQL_ID_FACTORY = 0;
+	private static final byte LOWER_CASE_ID_FACTORY = 1;
+	private static final byte IDENTITY_ID_FACTORY = 2;
+	private static final byte MYSQL_ID_FACTORY = 3;
+
+	public static void write(RDBMetadata metadata, DataOutput out) throws IOException {
+		writeNullableString(metadata.getDriverName(), out);
+		writeNullableString(metadata.getDriverVersion(), out);
+		writeNullableString(metadata.getDbmsProductName(), out);
+		writeNullableString(metadata.getDbmsVersion(), out);
+		writeQuotedIDFactory(metadata.getQuotedIDFactory(), out);
+
+		ImmutableList<DatabaseRelationDefinition> relations = ImmutableList.copyOf(metadata.getDatabaseRelations());
+		out.writeInt(relations.size());
+		for (DatabaseRelationDefinition relation : relations) {
+			writeQuotedID(relation.getID().getSchemaID(), out);
+			writeQuotedID(relation.getID().getTableID(), out);
+			List<Attribute> attributes = relation.getAttributes();
+			out.writeInt(attributes.size());
+			for (Attribute attribute : attributes) {
+				writeQuotedID(attribute.getID(), out);
+				writeNullableString(attribute.getSQLTypeName(), out);
+				writeNullableString(attribute.getTermType().map(DBTermType::getName).orElse(null), out);
+				out.writeBoolean(attribute.canNull());
+			}
+		}
+
+		// The foreign keys may refer to any relation
+		for (DatabaseRelationDefinition relation : relations) {
+			ImmutableList<UniqueConstraint> uniqueConstraints = relation.getUniqueConstraints();
+			out.writeInt(uniqueConstraints.size());
+			for (UniqueConstraint uniqueConstraint : uniqueConstraints) {
+				writeNullableString(uniqueConstraint.getName(), out);
+				out.writeBoolean(uniqueConstraint.isPrimaryKey());
+				writeAttributeIndexes(uniqueConstraint.getAttributes(), out);
+			}
+
+			ImmutableList<FunctionalDependency> functionalDependencies = relation.getOtherFunctionalDependencies();
+			out.writeInt(functionalDependencies.size());
+			for (FunctionalDependency functionalDependency : functionalDependencies) {
+				writeAttributeIndexes(functionalDependency.getDeterminants().asList(), out);
+				writeAttributeIndexes(functionalDependency.getDependents().asList(), out);
+			}
+
+			ImmutableList<ForeignKeyConstraint> foreignKeys = relation.getForeignKeys();
+			out.writeInt(foreignKeys.size());
+			for (ForeignKeyConstraint foreignKey : foreignKeys) {
+				writeNullableString(foreignKey.getName(), out);
+				int referencedRelationIndex = relations.indexOf(foreignKey.getReferencedRelation());
+				if (referencedRelationIndex < 0)
+					throw new IllegalArgumentException("The foreign key " + foreignKey
+							+ " refers to a relation that is not part of the DB metadata");
+				out.writeInt(referencedRelationIndex);
+				out.writeInt(foreignKey.getComponents().size());
+				for (ForeignKeyConstraint.Component component : foreignKey.getComponents()) {
+					out.writeInt(component.getAttribute().getIndex());
+					out.writeInt(component.getReference().getIndex());
+				}
+			}
+
+			Optional<RelationStatistics> statistics = relation.getStatistics();
+			out.writeBoolean(statistics.isPresent());
+			if (statistics.isPresent())
+				writeStatistics(statistics.get(), out);
+		}
+	}
+
+	/**
+	 * Returns a DB metadata that is not frozen yet (parser views can still be added)
+	 */
+	public static RDBMetadata read(DataInput in, TypeFactory typeFactory) throws IOException {
+		String driverName = readNullableString(in);
+		String driverVersion = readNullableString(in);
+		String databaseProductName = readNullableString(in);
+		String databaseVersion = readNullableString(in);
+		QuotedIDFactory idfac = readQuotedIDFactory(in);
+
+		RDBMetadata metadata = new RDBMetadata(driverName, driverVersion, databaseProductName, databaseVersion,
+				idfac, typeFactory);
+		DBTypeFactory dbTypeFactory = typeFactory.getDBTypeFactory();
+
+		int relationCount = in.readInt();
+		ImmutableList.Builder<DatabaseRelationDefinition> relationBuilder = ImmutableList.builder();
+		for (int i = 0; i < relationCount; i++) {
+			QuotedID schemaId = readQuotedID(in);
+			QuotedID tableId = readQuotedID(in);
+			DatabaseRelationDefinition relation = metadata.createDatabaseRelation(new RelationID(schemaId, tableId));
+			int attributeCount = in.readInt();
+			for (int j = 0; j < attributeCount; j++) {
+				QuotedID attributeId = readQuotedID(in);
+				String typeName = readNullableString(in);
+				String termTypeName = readNullableString(in);
+				boolean canNull = in.readBoolean();
+				relation.addAttribute(attributeId, typeName,
+						termTypeName == null ? null : dbTypeFactory.getDBTermType(termTypeName), canNull);
+			}
+			relationBuilder.add(relation);
+		}
+		ImmutableList<DatabaseRelationDefinition> relations = relationBuilder.build();
+
+		for (DatabaseRelationDefinition relation : relations) {
+			int uniqueConstraintCount = in.readInt();
+			for (int i = 0; i < uniqueConstraintCount; i++) {
+				String name = readNullableString(in);
+				boolean isPrimaryKey = in.readBoolean();
+				UniqueConstraint.Builder builder = UniqueConstraint.builder(relation);
+				for (Attribute attribute : readAttributes(relation, in))
+					builder.add(attribute);
+				relation.addUniqueConstraint(builder.build(name, isPrimaryKey));
+			}
+
+			int functionalDependencyCount = in.readInt();
+			for (int i = 0; i < functionalDependencyCount; i++) {
+				FunctionalDependency.Builder builder = FunctionalDependency.defaultBuilder();
+				for (Attribute determinant : readAttributes(relation, in))
+					builder.addDeterminant(determinant);
+				for (Attribute dependent : readAttributes(relation, in))
+					builder.addDependent(dependent);
+				relation.addFunctionalDependency(builder.build());
+			}
+
+			int foreignKeyCount = in.readInt();
+			for (int i = 0; i < foreignKeyCount; i++) {
+				String name = readNullableString(in);
+				DatabaseRelationDefinition referencedRelation = relations.get(in.readInt());
+				ForeignKeyConstraint.Builder builder = ForeignKeyConstraint.builder(relation, referencedRelation);
+				int componentCount = in.readInt();
+				for (int j = 0; j < componentCount; j++)
+					builder.add(relation.getAttribute(in.readInt()), referencedRelation.getAttribute(in.readInt()));
+				relation.addForeignKeyConstraint(builder.build(name));
+			}
+
+			if (in.readBoolean())
+				relation.setStatistics(readStatistics(in));
+		}
+		return metadata;
+	}
+
+	private static void writeStatistics(RelationStatistics statistics, DataOutput out) throws IOException {
+		out.writeLong(statistics.getRowCount());
+		ImmutableMap<Integer, Long> distinctValueCounts = statistics.getDistinctValueCounts();
+		out.writeInt(distinctValueCounts.size());
+		for (Map.Entry<Integer, Long> e : distinctValueCounts.entrySet()) {
+			out.writeInt(e.getKey());
+			out.writeLong(e.getValue());
+		}
+		ImmutableSet<Integer> indexedAttributes = statistics.getIndexedAttributes();
+		out.writeInt(indexedAttributes.size());
+		for (int attributeIndex : indexedAttributes)
+			out.writeInt(attributeIndex);
+	}
+
+	private static RelationStatistics readStatistics(DataInput in) throws IOException {
+		RelationStatistics.Builder builder = RelationStatistics.builder(in.readLong());
+		int distinctValueCountCount = in.readInt();
+		for (int i = 0; i < distinctValueCountCount; i++)
+			builder.addDistinctValueCount(in.readInt(), in.readLong());
+		int indexedAttributeCount = in.readInt();
+		for (int i = 0; i < indexedAttributeCount; i++)
+			builder.addIndexedAttribute(in.readInt());
+		return builder.build();
+	}
+
+	private static void writeQuotedIDFactory(QuotedIDFactory idfac, DataOutput out) throws IOException {
+		if (idfac instanceof QuotedIDFactoryMySQL) {
+			out.writeByte(MYSQL_ID_FACTORY);
+			out.writeBoolean(((QuotedIDFactoryMySQL) idfac).areTableNamesCaseSensitive());
+		}
+		else if (idfac instanceof QuotedIDFactoryIdentity)
+			out.writeByte(IDENTITY_ID_FACTORY);
+		else if (idfac instanceof QuotedIDFactoryLowerCase)
+			out.writeByte(LOWER_CASE_ID_FACTORY);
+		else if (idfac instanceof QuotedIDFactoryStandardSQL)
+			out.writeByte(STANDARD_SQL_ID_FACTORY);
+		else
+			throw new IllegalArgumentException("Cannot serialize the QuotedIDFactory " + idfac.getClass());
+		out.writeUTF(idfac.getIDQuotationString());
+	}
+
+	private static QuotedIDFactory readQuotedIDFactory(DataInput in) throws IOException {
+		byte kind = in.readByte();
+		boolean caseSensitiveTableNames = (kind == MYSQL_ID_FACTORY) && in.readBoolean();
+		String quotationString = in.readUTF();
+		switch (kind) {
+			case MYSQL_ID_FACTORY:
+				return new QuotedIDFactoryMySQL(caseSensitiveTableNames, quotationString);
+			case IDENTITY_ID_FACTORY:
+				return new QuotedIDFactoryIdentity(quotationString);
+			case LOWER_CASE_ID_FACTORY:
+				return new QuotedIDFactoryLowerCase(quotationString);
+			case STANDARD_SQL_ID_FACTORY:
+				return new QuotedIDFactoryStandardSQL(quotationString);
+			default:
+				throw new IOException("Unknown kind of QuotedIDFactory: " + kind);
+		}
+	}
+
+	private static void writeQuotedID(QuotedID id, DataOutput out) throws IOException {
+		writeNullableString(id.getName(), out);
+		out.writeUTF(id.getQuoteString());
+		out.writeBoolean(id.isCaseSensitive());
+	}
+
+	private static QuotedID readQuotedID(DataInput in) throws IOException {
+		String name = readNullableString(in);
+		String quoteString = in.readUTF();
+		boolean caseSensitive = in.readBoolean();
+		return (name == null && quoteString.equals(QuotedID.NO_QUOTATION))
+				? QuotedID.EMPTY_ID
+				: new QuotedID(name, quoteString, caseSensitive);
+	}
+
+	private static void writeAttributeIndexes(List<Attribute> attributes, DataOutput out) throws IOException {
+		out.writeInt(attributes.size());
+		for (Attribute attribute : attributes)
+			out.writeInt(attribute.getIndex());
+	}
+
+	private static ImmutableList<Attribute> readAttributes(DatabaseRelationDefinition relation, DataInput in)
+			throws IOException {
+		int count = in.readInt();
+		ImmutableList.Builder<Attribute> builder = ImmutableList.builder();
+		for (int i = 0; i < count; i++)
+			builder.add(relation.getAttribute(in.readInt()));
+		return builder.build();
+	}
+
+	private static void writeNullableString(@Nullable String s, DataOutput out) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	@Nullable
+	private static String readNullableString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
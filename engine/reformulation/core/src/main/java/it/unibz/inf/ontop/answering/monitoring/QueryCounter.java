@@ -0,0 +1,23 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+/**
+ * Counters of a QueryTrace.
+ *
+ * The sizes of the IQs are their numbers of nodes. Except for the translated IQ, they are only known
+ * when the query is reformulated (i.e. not when its reformulation is found in the query cache).
+ */
+public enum QueryCounter {
+    TRANSLATED_IQ_SIZE,
+    UNFOLDED_IQ_SIZE,
+    PLANNED_IQ_SIZE,
+    /**
+     * Largest number of children of a union node in the planned IQ
+     */
+    MAX_UNION_WIDTH,
+    QUERY_CACHE_HITS,
+    QUERY_CACHE_MISSES,
+    /**
+     * Number of rows returned by the result set
+     */
+    FETCHED_ROWS
+}
@@ -0,0 +1,116 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Snapshot of the metrics aggregated by a QueryMonitor over the queries it has traced.
+ *
+ * Times are in nanoseconds. The total time of a query is measured from the start of its trace until it is closed.
+ *
+ * Immutable class.
+ */
+public class QueryMetrics {
+
+    private static final QueryMetrics EMPTY_METRICS = new QueryMetrics(0, 0, 0, 0, 0, 0,
+            ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of());
+
+    private final long queryCount;
+    private final long failedQueryCount;
+    private final long slowQueryCount;
+    private final long runningSlowQueryCount;
+    private final long totalTime;
+    private final long maxTime;
+    private final ImmutableMap<QueryStage, Long> stageTotalTimes;
+    private final ImmutableMap<QueryStage, Long> stageMaxTimes;
+    private final ImmutableMap<QueryCounter, Long> counterTotals;
+    private final ImmutableMap<QueryCounter, Long> counterMaxima;
+
+    public QueryMetrics(long queryCount, long failedQueryCount, long slowQueryCount, long runningSlowQueryCount,
+                        long totalTime, long maxTime,
+                        ImmutableMap<QueryStage, Long> stageTotalTimes, ImmutableMap<QueryStage, Long> stageMaxTimes,
+                        ImmutableMap<QueryCounter, Long> counterTotals, ImmutableMap<QueryCounter, Long> counterMaxima) {
+        this.queryCount = queryCount;
+        this.failedQueryCount = failedQueryCount;
+        this.slowQueryCount = slowQueryCount;
+        this.runningSlowQueryCount = runningSlowQueryCount;
+        this.totalTime = totalTime;
+        this.maxTime = maxTime;
+        this.stageTotalTimes = stageTotalTimes;
+        this.stageMaxTimes = stageMaxTimes;
+        this.counterTotals = counterTotals;
+        this.counterMaxima = counterMaxima;
+    }
+
+    /**
+     * For monitors that do not record anything
+     */
+    public static QueryMetrics empty() {
+        return EMPTY_METRICS;
+    }
+
+    /**
+     * Number of closed traces, including the failed queries
+     */
+    public long getQueryCount() {
+        return queryCount;
+    }
+
+    public long getFailedQueryCount() {
+        return failedQueryCount;
+    }
+
+    /**
+     * Number of queries which have exceeded the slow query threshold (if any)
+     */
+    public long getSlowQueryCount() {
+        return slowQueryCount;
+    }
+
+    /**
+     * Number of queries reported as slow while still running (their traces were not closed yet).
+     * They are counted again in getSlowQueryCount() once closed.
+     */
+    public long getRunningSlowQueryCount() {
+        return runningSlowQueryCount;
+    }
+
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    public long getStageTotalTime(QueryStage stage) {
+        return stageTotalTimes.getOrDefault(stage, 0L);
+    }
+
+    public long getStageMaxTime(QueryStage stage) {
+        return stageMaxTimes.getOrDefault(stage, 0L);
+    }
+
+    public long getCounterTotal(QueryCounter counter) {
+        return counterTotals.getOrDefault(counter, 0L);
+    }
+
+    public long getCounterMax(QueryCounter counter) {
+        return counterMaxima.getOrDefault(counter, 0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryMetrics{queries=%d, failed=%d, slow=%d, runningSlow=%d, totalTime=%dms, " +
+                        "maxTime=%dms, stages={%s}, counters={%s}}",
+                queryCount, failedQueryCount, slowQueryCount, runningSlowQueryCount, totalTime / 1_000_000, maxTime / 1_000_000,
+                Arrays.stream(QueryStage.values())
+                        .map(s -> s + "=" + getStageTotalTime(s) / 1_000_000 + "ms")
+                        .collect(Collectors.joining(", ")),
+                Arrays.stream(QueryCounter.values())
+                        .map(c -> c + "=" + getCounterTotal(c))
+                        .collect(Collectors.joining(", ")));
+    }
+}
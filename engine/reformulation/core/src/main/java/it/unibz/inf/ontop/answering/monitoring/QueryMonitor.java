@@ -0,0 +1,29 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+import java.util.function.Supplier;
+
+/**
+ * Collects the traces of the queries and aggregates them into QueryMetrics.
+ *
+ * See DummyQueryMonitor when the monitoring is disabled.
+ *
+ * Mutable and thread-safe.
+ */
+public interface QueryMonitor extends AutoCloseable {
+
+    /**
+     * The query string is only rendered when needed (e.g. for logging a slow query)
+     */
+    QueryTrace startQuery(Supplier<String> queryString);
+
+    /**
+     * Snapshot of the metrics aggregated over the closed traces
+     */
+    QueryMetrics getMetrics();
+
+    /**
+     * Releases the resources registered outside (e.g. the JMX bean)
+     */
+    @Override
+    void close();
+}
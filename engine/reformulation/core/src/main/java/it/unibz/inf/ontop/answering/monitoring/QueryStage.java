@@ -0,0 +1,27 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+/**
+ * Stages of the processing of a query, timed by its QueryTrace.
+ */
+public enum QueryStage {
+    /**
+     * From the input query (e.g. SPARQL) into an IQ, including the lifting of the parameters
+     */
+    TRANSLATION,
+    REWRITING,
+    UNFOLDING,
+    /**
+     * Structural and semantic optimization of the unfolded IQ
+     */
+    OPTIMIZATION,
+    PLANNING,
+    NATIVE_QUERY_GENERATION,
+    /**
+     * Evaluation of the native query by the DB, including fetching the rows
+     */
+    NATIVE_QUERY_EXECUTION,
+    /**
+     * Conversion of the fetched rows into results
+     */
+    RESULT_CONVERSION
+}
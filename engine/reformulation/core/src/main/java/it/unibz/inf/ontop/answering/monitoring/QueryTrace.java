@@ -0,0 +1,49 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+/**
+ * Stage timings and counters of the processing of one query, from its translation until its results
+ * have been consumed.
+ *
+ * Created by the QueryMonitor. The stages may be recorded by different threads (e.g. the results are converted
+ * by the thread consuming them).
+ *
+ * Mutable and thread-safe.
+ */
+public interface QueryTrace extends AutoCloseable {
+
+    /**
+     * Durations are accumulated when a stage is recorded several times (e.g. for each fetched row)
+     */
+    void recordStage(QueryStage stage, long durationInNanos);
+
+    /**
+     * False if nothing is recorded: the durations do not need to be measured
+     */
+    boolean isEnabled();
+
+    void addToCounter(QueryCounter counter, long value);
+
+    void setCounter(QueryCounter counter, long value);
+
+    void setNativeQuery(String nativeQuery);
+
+    /**
+     * To be called before closing the trace of a query whose reformulation or evaluation has failed
+     */
+    void setFailed();
+
+    /**
+     * In nanoseconds
+     */
+    long getStageDuration(QueryStage stage);
+
+    long getCounter(QueryCounter counter);
+
+    /**
+     * Ends the trace and reports it to the QueryMonitor. Subsequent calls have no effect.
+     *
+     * Called when the result set is closed or when the evaluation has failed.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,272 @@
+package it.unibz.inf.ontop.answering.monitoring.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.monitoring.*;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregates the traces of the queries when they are closed.
+ *
+ * The queries exceeding the slow query threshold (if any) are logged with their stage timings and counters
+ * by the "it.unibz.inf.ontop.answering.monitoring.SlowQueries" logger.
+ * As the traces are only closed once the results have been consumed (or the result set closed),
+ * the open traces are also checked periodically: those exceeding the threshold are logged once
+ * as still running, and logged again when closed.
+ *
+ * The metrics can be exported through JMX (see QueryMonitorMXBean).
+ */
+@Singleton
+public class DefaultQueryMonitor implements QueryMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultQueryMonitor.class);
+    private static final Logger SLOW_QUERY_LOGGER = LoggerFactory.getLogger(
+            "it.unibz.inf.ontop.answering.monitoring.SlowQueries");
+    private static final String JMX_NAME_PREFIX = "it.unibz.inf.ontop:type=QueryMonitor,name=";
+    // Several query engines may run in the same JVM
+    private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger(0);
+    private static final long MIN_CHECK_PERIOD = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Optional<Long> slowQueryThreshold;
+    // Open traces not reported yet as slow (only when there is a threshold)
+    private final Set<DefaultQueryTrace> openTraces = ConcurrentHashMap.newKeySet();
+    private final Optional<ScheduledExecutorService> slowQueryChecker;
+
+    private final LongAdder queryCount = new LongAdder();
+    private final LongAdder failedQueryCount = new LongAdder();
+    private final LongAdder slowQueryCount = new LongAdder();
+    private final LongAdder runningSlowQueryCount = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final AtomicLong maxTime = new AtomicLong(0);
+    private final LongAdder[] stageTotalTimes = createAdders(QueryStage.values().length);
+    private final AtomicLongArray stageMaxTimes = new AtomicLongArray(QueryStage.values().length);
+    private final LongAdder[] counterTotals = createAdders(QueryCounter.values().length);
+    private final AtomicLongArray counterMaxima = new AtomicLongArray(QueryCounter.values().length);
+
+    @Nullable
+    private ObjectName jmxName;
+
+    @Inject
+    private DefaultQueryMonitor(OntopReformulationSettings settings) {
+        this.slowQueryThreshold = settings.getSlowQueryThreshold()
+                .map(t -> TimeUnit.MILLISECONDS.toNanos(t));
+        this.slowQueryChecker = slowQueryThreshold
+                .map(this::startSlowQueryChecker);
+
+        if (settings.isQueryMonitoringJmxEnabled())
+            registerJmxBean();
+    }
+
+    @Override
+    public QueryTrace startQuery(Supplier<String> queryString) {
+        DefaultQueryTrace trace = new DefaultQueryTrace(this, queryString);
+        if (slowQueryChecker.isPresent())
+            openTraces.add(trace);
+        return trace;
+    }
+
+    void report(DefaultQueryTrace trace, long duration) {
+        openTraces.remove(trace);
+        queryCount.increment();
+        if (trace.isFailed())
+            failedQueryCount.increment();
+        totalTime.add(duration);
+        maxTime.accumulateAndGet(duration, Math::max);
+
+        for (QueryStage stage : QueryStage.values()) {
+            long stageDuration = trace.getStageDuration(stage);
+            stageTotalTimes[stage.ordinal()].add(stageDuration);
+            stageMaxTimes.accumulateAndGet(stage.ordinal(), stageDuration, Math::max);
+        }
+        for (QueryCounter counter : QueryCounter.values()) {
+            long value = trace.getCounter(counter);
+            counterTotals[counter.ordinal()].add(value);
+            counterMaxima.accumulateAndGet(counter.ordinal(), value, Math::max);
+        }
+
+        if (slowQueryThreshold.isPresent() && duration >= slowQueryThreshold.get()) {
+            slowQueryCount.increment();
+            logSlowQuery(trace, duration, "");
+        }
+    }
+
+    private ScheduledExecutorService startSlowQueryChecker(long threshold) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("ontop-slow-query-checker-%d")
+                .setDaemon(true)
+                .build());
+        long period = Math.max(threshold, MIN_CHECK_PERIOD);
+        executor.scheduleAtFixedRate(() -> checkOpenTraces(threshold), period, period, TimeUnit.NANOSECONDS);
+        return executor;
+    }
+
+    /**
+     * The slow traces are removed so that they are logged only once as running,
+     * and abandoned traces (never closed) are not kept forever.
+     */
+    private void checkOpenTraces(long threshold) {
+        long now = System.nanoTime();
+        for (DefaultQueryTrace trace : openTraces) {
+            long duration = now - trace.getStartTime();
+            if (duration >= threshold && openTraces.remove(trace)) {
+                runningSlowQueryCount.increment();
+                logSlowQuery(trace, duration, ", still running");
+            }
+        }
+    }
+
+    private void logSlowQuery(DefaultQueryTrace trace, long duration, String status) {
+        SLOW_QUERY_LOGGER.warn("Slow query ({}ms{}{}):\n{}\nStages: {}\nCounters: {}\nNative query:\n{}",
+                TimeUnit.NANOSECONDS.toMillis(duration),
+                status,
+                trace.isFailed() ? ", failed" : "",
+                trace.getQueryString(),
+                Arrays.stream(QueryStage.values())
+                        .map(s -> s + "=" + TimeUnit.NANOSECONDS.toMillis(trace.getStageDuration(s)) + "ms")
+                        .collect(Collectors.joining(", ")),
+                Arrays.stream(QueryCounter.values())
+                        .map(c -> c + "=" + trace.getCounter(c))
+                        .collect(Collectors.joining(", ")),
+                trace.getNativeQuery().orElse("(none)"));
+    }
+
+    @Override
+    public QueryMetrics getMetrics() {
+        return new QueryMetrics(queryCount.sum(), failedQueryCount.sum(), slowQueryCount.sum(),
+                runningSlowQueryCount.sum(), totalTime.sum(), maxTime.get(),
+                toMap(QueryStage.values(), s -> stageTotalTimes[s.ordinal()].sum()),
+                toMap(QueryStage.values(), s -> stageMaxTimes.get(s.ordinal())),
+                toMap(QueryCounter.values(), c -> counterTotals[c.ordinal()].sum()),
+                toMap(QueryCounter.values(), c -> counterMaxima.get(c.ordinal())));
+    }
+
+    @Override
+    public synchronized void close() {
+        slowQueryChecker.ifPresent(ScheduledExecutorService::shutdownNow);
+        openTraces.clear();
+
+        if (jmxName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(jmxName);
+        } catch (JMException e) {
+            LOGGER.warn("Could not unregister the query monitor from JMX: " + e.getMessage());
+        }
+        jmxName = null;
+    }
+
+    /**
+     * Failing to register is not fatal: the metrics are still available through getMetrics()
+     */
+    private synchronized void registerJmxBean() {
+        try {
+            ObjectName name = new ObjectName(JMX_NAME_PREFIX + INSTANCE_COUNTER.incrementAndGet());
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new StandardMBean(new JmxView(), QueryMonitorMXBean.class, true), name);
+            jmxName = name;
+            LOGGER.info("Query metrics exported through JMX as {}", name);
+        } catch (JMException e) {
+            LOGGER.warn("Could not register the query monitor in JMX: " + e.getMessage());
+        }
+    }
+
+    private static LongAdder[] createAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static <E extends Enum<E>> ImmutableMap<E, Long> toMap(E[] values, Function<E, Long> fct) {
+        return Arrays.stream(values)
+                .collect(ImmutableCollectors.toMap(v -> v, fct));
+    }
+
+    private static <E extends Enum<E>> Map<String, Long> toMillisByName(E[] values, Function<E, Long> fct) {
+        return Arrays.stream(values)
+                .collect(ImmutableCollectors.toMap(Enum::name, v -> TimeUnit.NANOSECONDS.toMillis(fct.apply(v))));
+    }
+
+
+    private class JmxView implements QueryMonitorMXBean {
+
+        @Override
+        public long getQueryCount() {
+            return queryCount.sum();
+        }
+
+        @Override
+        public long getFailedQueryCount() {
+            return failedQueryCount.sum();
+        }
+
+        @Override
+        public long getSlowQueryCount() {
+            return slowQueryCount.sum();
+        }
+
+        @Override
+        public long getRunningSlowQueryCount() {
+            return runningSlowQueryCount.sum();
+        }
+
+        @Override
+        public long getTotalTime() {
+            return TimeUnit.NANOSECONDS.toMillis(totalTime.sum());
+        }
+
+        @Override
+        public long getMaxTime() {
+            return TimeUnit.NANOSECONDS.toMillis(maxTime.get());
+        }
+
+        @Override
+        public Map<String, Long> getStageTotalTimes() {
+            return toMillisByName(QueryStage.values(), s -> stageTotalTimes[s.ordinal()].sum());
+        }
+
+        @Override
+        public Map<String, Long> getStageMaxTimes() {
+            return toMillisByName(QueryStage.values(), s -> stageMaxTimes.get(s.ordinal()));
+        }
+
+        @Override
+        public Map<String, Long> getCounterTotals() {
+            return Arrays.stream(QueryCounter.values())
+                    .collect(ImmutableCollectors.toMap(Enum::name, c -> counterTotals[c.ordinal()].sum()));
+        }
+
+        @Override
+        public Map<String, Long> getCounterMaxima() {
+            return Arrays.stream(QueryCounter.values())
+                    .collect(ImmutableCollectors.toMap(Enum::name, c -> counterMaxima.get(c.ordinal())));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package it.unibz.inf.ontop.answering.monitoring.impl;
+
+import it.unibz.inf.ontop.answering.monitoring.QueryCounter;
+import it.unibz.inf.ontop.answering.monitoring.QueryStage;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Reports itself to the DefaultQueryMonitor when closed.
+ */
+class DefaultQueryTrace implements QueryTrace {
+
+    private final DefaultQueryMonitor monitor;
+    private final Supplier<String> queryString;
+    private final long startTime;
+    private final AtomicLongArray stageDurations = new AtomicLongArray(QueryStage.values().length);
+    private final AtomicLongArray counters = new AtomicLongArray(QueryCounter.values().length);
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+
+    @Nullable
+    private volatile String nativeQuery;
+    private volatile boolean isFailed = false;
+
+    DefaultQueryTrace(DefaultQueryMonitor monitor, Supplier<String> queryString) {
+        this.monitor = monitor;
+        this.queryString = queryString;
+        this.startTime = System.nanoTime();
+    }
+
+    @Override
+    public void recordStage(QueryStage stage, long durationInNanos) {
+        stageDurations.addAndGet(stage.ordinal(), durationInNanos);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void addToCounter(QueryCounter counter, long value) {
+        counters.addAndGet(counter.ordinal(), value);
+    }
+
+    @Override
+    public void setCounter(QueryCounter counter, long value) {
+        counters.set(counter.ordinal(), value);
+    }
+
+    @Override
+    public void setNativeQuery(String nativeQuery) {
+        this.nativeQuery = nativeQuery;
+    }
+
+    @Override
+    public void setFailed() {
+        isFailed = true;
+    }
+
+    @Override
+    public long getStageDuration(QueryStage stage) {
+        return stageDurations.get(stage.ordinal());
+    }
+
+    @Override
+    public long getCounter(QueryCounter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    @Override
+    public void close() {
+        if (isClosed.compareAndSet(false, true))
+            monitor.report(this, System.nanoTime() - startTime);
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    String getQueryString() {
+        return queryString.get();
+    }
+
+    Optional<String> getNativeQuery() {
+        return Optional.ofNullable(nativeQuery);
+    }
+
+    boolean isFailed() {
+        return isFailed;
+    }
+}
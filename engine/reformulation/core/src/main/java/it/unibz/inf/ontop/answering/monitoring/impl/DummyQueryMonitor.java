@@ -0,0 +1,70 @@
+package it.unibz.inf.ontop.answering.monitoring.impl;
+
+import it.unibz.inf.ontop.answering.monitoring.*;
+
+import java.util.function.Supplier;
+
+/**
+ * Does not record anything.
+ */
+public class DummyQueryMonitor implements QueryMonitor {
+
+    private static final QueryTrace DUMMY_TRACE = new DummyQueryTrace();
+
+    @Override
+    public QueryTrace startQuery(Supplier<String> queryString) {
+        return DUMMY_TRACE;
+    }
+
+    @Override
+    public QueryMetrics getMetrics() {
+        return QueryMetrics.empty();
+    }
+
+    @Override
+    public void close() {
+    }
+
+
+    private static class DummyQueryTrace implements QueryTrace {
+
+        @Override
+        public void recordStage(QueryStage stage, long durationInNanos) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void addToCounter(QueryCounter counter, long value) {
+        }
+
+        @Override
+        public void setCounter(QueryCounter counter, long value) {
+        }
+
+        @Override
+        public void setNativeQuery(String nativeQuery) {
+        }
+
+        @Override
+        public void setFailed() {
+        }
+
+        @Override
+        public long getStageDuration(QueryStage stage) {
+            return 0;
+        }
+
+        @Override
+        public long getCounter(QueryCounter counter) {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package it.unibz.inf.ontop.answering.monitoring.impl;
+
+import java.util.Map;
+
+/**
+ * JMX view of the metrics of a DefaultQueryMonitor (times in milliseconds).
+ *
+ * Registered under it.unibz.inf.ontop:type=QueryMonitor when enabled in the settings.
+ */
+public interface QueryMonitorMXBean {
+
+    long getQueryCount();
+
+    long getFailedQueryCount();
+
+    long getSlowQueryCount();
+
+    long getRunningSlowQueryCount();
+
+    long getTotalTime();
+
+    long getMaxTime();
+
+    /**
+     * Indexed by the name of the QueryStage
+     */
+    Map<String, Long> getStageTotalTimes();
+
+    Map<String, Long> getStageMaxTimes();
+
+    /**
+     * Indexed by the name of the QueryCounter
+     */
+    Map<String, Long> getCounterTotals();
+
+    Map<String, Long> getCounterMaxima();
+}
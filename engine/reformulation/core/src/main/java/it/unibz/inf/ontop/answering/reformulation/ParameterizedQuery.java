@@ -0,0 +1,37 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.model.term.DBConstant;
+
+/**
+ * Query in which some constants have been replaced by parameters (see DBParameterFunctionSymbol),
+ * together with the values of these parameters.
+ *
+ * The i-th value corresponds to the parameter of index i.
+ *
+ * Immutable class.
+ */
+public class ParameterizedQuery {
+
+    private final IQ query;
+    private final ImmutableList<DBConstant> parameters;
+
+    public ParameterizedQuery(IQ query, ImmutableList<DBConstant> parameters) {
+        this.query = query;
+        this.parameters = parameters;
+    }
+
+    public IQ getQuery() {
+        return query;
+    }
+
+    public ImmutableList<DBConstant> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return query + (parameters.isEmpty() ? "" : "\nPARAMETERS " + parameters);
+    }
+}
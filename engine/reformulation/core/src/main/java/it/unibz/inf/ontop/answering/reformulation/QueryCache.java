@@ -1,18 +1,46 @@
 package it.unibz.inf.ontop.answering.reformulation;
 
-import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.iq.IQ;
 
 /**
  * Cache of queries.
  *
+ * Indexed by the IQ obtained after translating the input query (and possibly lifting some of its
+ * constants into parameters, see QueryParameterLifter).
+ *
  * Mutable class.
  *
  */
 public interface QueryCache {
-    IQ get(InputQuery inputQuery);
+    IQ get(IQ translatedQuery);
+
+    void put(IQ translatedQuery, IQ executableQuery);
+
+    /**
+     * Returns the cached executable query if present.
+     * Otherwise, reformulates it using the loader and caches the result.
+     *
+     * Implementations may override it for recording the load time and for avoiding
+     * concurrent reformulations of the same query.
+     */
+    default IQ get(IQ translatedQuery, Loader loader) throws OntopReformulationException {
+        IQ cachedQuery = get(translatedQuery);
+        if (cachedQuery != null)
+            return cachedQuery;
 
-    void put(InputQuery inputQuery, IQ executableQuery);
+        IQ executableQuery = loader.load();
+        put(translatedQuery, executableQuery);
+        return executableQuery;
+    }
 
     void clear();
+
+    QueryCacheStats getStats();
+
+
+    @FunctionalInterface
+    interface Loader {
+        IQ load() throws OntopReformulationException;
+    }
 }
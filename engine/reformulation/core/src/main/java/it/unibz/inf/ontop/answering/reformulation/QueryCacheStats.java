@@ -0,0 +1,108 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+/**
+ * Snapshot of the statistics of a QueryCache.
+ *
+ * Immutable class.
+ */
+public class QueryCacheStats {
+
+    private static final QueryCacheStats EMPTY_STATS = new QueryCacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long loadSuccessCount;
+    private final long loadExceptionCount;
+    private final long totalLoadTime;
+    private final long size;
+    private final long totalWeight;
+
+    public QueryCacheStats(long hitCount, long missCount, long evictionCount, long loadSuccessCount,
+                           long loadExceptionCount, long totalLoadTime, long size, long totalWeight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadExceptionCount = loadExceptionCount;
+        this.totalLoadTime = totalLoadTime;
+        this.size = size;
+        this.totalWeight = totalWeight;
+    }
+
+    /**
+     * For caches that do not record anything
+     */
+    public static QueryCacheStats empty() {
+        return EMPTY_STATS;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns 1.0 when no request has been made yet
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return (requestCount == 0) ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadExceptionCount() {
+        return loadExceptionCount;
+    }
+
+    /**
+     * In nanoseconds
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * In nanoseconds
+     */
+    public double getAverageLoadPenalty() {
+        long loadCount = loadSuccessCount + loadExceptionCount;
+        return (loadCount == 0) ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * Number of cached entries
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Sum of the weights of the cached entries (number of IQ tree nodes)
+     */
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueryCacheStats{hits=%d, misses=%d, hitRate=%.3f, evictions=%d, loads=%d, " +
+                        "loadFailures=%d, totalLoadTime=%dms, size=%d, totalWeight=%d}",
+                hitCount, missCount, getHitRate(), evictionCount, loadSuccessCount, loadExceptionCount,
+                totalLoadTime / 1_000_000, size, totalWeight);
+    }
+}
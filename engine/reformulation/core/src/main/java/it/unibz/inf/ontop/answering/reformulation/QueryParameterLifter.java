@@ -0,0 +1,14 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+import it.unibz.inf.ontop.iq.IQ;
+
+/**
+ * Replaces some constants of a translated query by parameters, so that queries only differing
+ * by these constants share the same reformulation.
+ *
+ * Deterministic: two queries only differing by their lifted constants must produce equal IQs.
+ */
+public interface QueryParameterLifter {
+
+    ParameterizedQuery lift(IQ translatedQuery);
+}
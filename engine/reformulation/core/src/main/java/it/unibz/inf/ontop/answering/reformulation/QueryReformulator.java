@@ -1,22 +1,67 @@
 package it.unibz.inf.ontop.answering.reformulation;
 
 
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.dbschema.RelationID;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.iq.IQ;
 
+import java.util.Optional;
+
 /**
  * See ReformulationFactory for creating a new instance.
  */
 public interface QueryReformulator {
 
+    /**
+     * Traced on its own by the QueryMonitor
+     */
     IQ reformulateIntoNativeQuery(InputQuery inputQuery) throws OntopReformulationException;
 
+    /**
+     * Records the reformulation stages into the trace of the query, which is not closed
+     * (its evaluation is still to be traced)
+     */
+    IQ reformulateIntoNativeQuery(InputQuery inputQuery, QueryTrace trace) throws OntopReformulationException;
+
+    /**
+     * For queries only made of extensional data nodes (e.g. mapping definitions):
+     * no rewriting nor unfolding is needed, the query is directly optimized and translated into a native query.
+     */
+    IQ reformulateDBQueryIntoNativeQuery(IQ dbQuery) throws OntopReformulationException;
+
+    IQ reformulateDBQueryIntoNativeQuery(IQ dbQuery, QueryTrace trace) throws OntopReformulationException;
+
     /**
      * For analysis purposes
      */
     String getRewritingRendering(InputQuery query) throws OntopReformulationException;
 
+    /**
+     * Relations of the data source the answers of an executable query depend on (e.g. for invalidating cached results),
+     * collected while reformulating it.
+     *
+     * Extracted from the unfolded query, before its optimization: may be a superset of the relations
+     * accessed by the native query.
+     *
+     * Empty if unknown: the executable query was not produced by this reformulator, or some of the relations
+     * are not relations of the data source (e.g. SQL queries of the mapping that could not be parsed).
+     */
+    Optional<ImmutableSet<RelationID>> getSourceRelations(IQ executableQuery);
+
     InputQueryFactory getInputQueryFactory();
+
+    /**
+     * Statistics of the cache of reformulated queries
+     */
+    QueryCacheStats getQueryCacheStats();
+
+    /**
+     * Traces the queries, from their reformulation until their results are consumed
+     */
+    QueryMonitor getQueryMonitor();
 }
@@ -0,0 +1,122 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStats;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache bounded by the total weight of its entries, the weight of an entry being the number of nodes
+ * of its IQ tree.
+ *
+ * The least-recently used entries are evicted first. Entries may also expire after a configurable time-to-live.
+ *
+ * Concurrent reformulations of the same query are performed only once.
+ *
+ */
+public class BoundedQueryCache implements QueryCache {
+
+    private final Cache<IQ, WeighedIQ> cache;
+    // Running total, updated when the entries are created and removed
+    private final LongAdder totalWeight = new LongAdder();
+
+    @Inject
+    private BoundedQueryCache(OntopReformulationSettings settings) {
+        CacheBuilder<IQ, WeighedIQ> cacheBuilder = CacheBuilder.newBuilder()
+                .maximumWeight(settings.getQueryCacheMaxWeight())
+                .weigher((IQ q, WeighedIQ v) -> v.weight)
+                .removalListener((RemovalNotification<IQ, WeighedIQ> n) -> totalWeight.add(-n.getValue().weight))
+                .recordStats();
+
+        settings.getQueryCacheExpirationTime()
+                .ifPresent(t -> cacheBuilder.expireAfterWrite(t, TimeUnit.SECONDS));
+
+        this.cache = cacheBuilder.build();
+    }
+
+    @Override
+    public IQ get(IQ translatedQuery) {
+        WeighedIQ value = cache.getIfPresent(translatedQuery);
+        return (value == null) ? null : value.iq;
+    }
+
+    @Override
+    public void put(IQ translatedQuery, IQ executableQuery) {
+        cache.put(translatedQuery, createValue(executableQuery));
+    }
+
+    @Override
+    public IQ get(IQ translatedQuery, Loader loader) throws OntopReformulationException {
+        try {
+            return cache.get(translatedQuery, () -> createValue(loader.load())).iq;
+        } catch (ExecutionException e) {
+            // The loader only throws checked exceptions of this type
+            throw (OntopReformulationException) e.getCause();
+        } catch (UncheckedExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public QueryCacheStats getStats() {
+        // Processes the pending removals
+        cache.cleanUp();
+        CacheStats stats = cache.stats();
+
+        return new QueryCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                stats.loadSuccessCount(), stats.loadExceptionCount(), stats.totalLoadTime(), cache.size(),
+                totalWeight.sum());
+    }
+
+    /**
+     * Every created value is inserted into the cache
+     */
+    private WeighedIQ createValue(IQ executableQuery) {
+        WeighedIQ value = new WeighedIQ(executableQuery, weigh(executableQuery.getTree()));
+        totalWeight.add(value.weight);
+        return value;
+    }
+
+    /**
+     * Number of nodes in the tree
+     */
+    private static int weigh(IQTree tree) {
+        int weight = 1;
+        for (IQTree child : tree.getChildren())
+            weight += weigh(child);
+        return weight;
+    }
+
+    private static class WeighedIQ {
+        private final IQ iq;
+        private final int weight;
+
+        WeighedIQ(IQ iq, int weight) {
+            this.iq = iq;
+            this.weight = weight;
+        }
+    }
+}
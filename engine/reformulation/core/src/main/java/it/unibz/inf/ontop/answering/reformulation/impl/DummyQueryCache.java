@@ -1,7 +1,7 @@
 package it.unibz.inf.ontop.answering.reformulation.impl;
 
-import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStats;
 import it.unibz.inf.ontop.iq.IQ;
 
 /**
@@ -10,15 +10,20 @@ import it.unibz.inf.ontop.iq.IQ;
 public class DummyQueryCache implements QueryCache {
 
     @Override
-    public IQ get(InputQuery inputQuery) {
+    public IQ get(IQ translatedQuery) {
         return null;
     }
 
     @Override
-    public void put(InputQuery inputQuery, IQ executableQuery) {
+    public void put(IQ translatedQuery, IQ executableQuery) {
     }
 
     @Override
     public void clear() {
     }
+
+    @Override
+    public QueryCacheStats getStats() {
+        return QueryCacheStats.empty();
+    }
 }
@@ -0,0 +1,17 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.ParameterizedQuery;
+import it.unibz.inf.ontop.answering.reformulation.QueryParameterLifter;
+import it.unibz.inf.ontop.iq.IQ;
+
+/**
+ * Does not lift anything.
+ */
+public class DummyQueryParameterLifter implements QueryParameterLifter {
+
+    @Override
+    public ParameterizedQuery lift(IQ translatedQuery) {
+        return new ParameterizedQuery(translatedQuery, ImmutableList.of());
+    }
+}
@@ -0,0 +1,247 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
+import it.unibz.inf.ontop.answering.reformulation.ParameterizedQuery;
+import it.unibz.inf.ontop.answering.reformulation.QueryParameterLifter;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.model.atom.AtomFactory;
+import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.atom.DataAtom;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.BooleanFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbolFactory;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.RDFDatatype;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import it.unibz.inf.ontop.model.vocabulary.SPARQL;
+import it.unibz.inf.ontop.model.vocabulary.XSD;
+import it.unibz.inf.ontop.utils.CoreUtilsFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.VariableGenerator;
+
+import java.util.Optional;
+
+/**
+ * Lifts into parameters the RDF literals appearing:
+ *   - in the arguments of intensional data nodes (replaced by a fresh variable constrained by a filter)
+ *   - as an operand of a SPARQL equality or inequality whose other operand is not a constant.
+ *
+ * Only the literals of type xsd:string, the language-tagged strings and the xsd:integers in canonical
+ * form fitting in a long are lifted.
+ * The other literals and the IRIs are kept in the query, as they are often decisive during the unfolding
+ * (e.g. for pruning the mapping definitions).
+ */
+public class LiteralParameterLifter implements QueryParameterLifter {
+
+    private final IntermediateQueryFactory iqFactory;
+    private final AtomFactory atomFactory;
+    private final TermFactory termFactory;
+    private final CoreUtilsFactory coreUtilsFactory;
+    private final ImmutableSet<FunctionSymbol> comparisonFunctionSymbols;
+    private final DBTermType dbStringType;
+    private final DBTermType dbIntegerType;
+
+    @Inject
+    private LiteralParameterLifter(IntermediateQueryFactory iqFactory, AtomFactory atomFactory,
+                                   TermFactory termFactory, FunctionSymbolFactory functionSymbolFactory,
+                                   TypeFactory typeFactory, CoreUtilsFactory coreUtilsFactory) {
+        this.iqFactory = iqFactory;
+        this.atomFactory = atomFactory;
+        this.termFactory = termFactory;
+        this.coreUtilsFactory = coreUtilsFactory;
+        this.comparisonFunctionSymbols = ImmutableSet.of(
+                functionSymbolFactory.getRequiredSPARQLFunctionSymbol(SPARQL.EQ, 2),
+                functionSymbolFactory.getRequiredSPARQLFunctionSymbol(SPARQL.LESS_THAN, 2),
+                functionSymbolFactory.getRequiredSPARQLFunctionSymbol(SPARQL.GREATER_THAN, 2));
+        this.dbStringType = typeFactory.getDBTypeFactory().getDBStringType();
+        this.dbIntegerType = typeFactory.getDBTypeFactory().getDBLargeIntegerType();
+    }
+
+    @Override
+    public ParameterizedQuery lift(IQ translatedQuery) {
+        IQTree tree = translatedQuery.getTree();
+        // Not the variable generator of the IQ: the fresh variables must only depend on the query
+        LiftingTransformer transformer = new LiftingTransformer(
+                coreUtilsFactory.createVariableGenerator(tree.getKnownVariables()));
+
+        IQTree newTree = tree.acceptTransformer(transformer);
+        ImmutableList<DBConstant> parameters = transformer.parameters.build();
+
+        return parameters.isEmpty()
+                ? new ParameterizedQuery(translatedQuery, parameters)
+                : new ParameterizedQuery(iqFactory.createIQ(translatedQuery.getProjectionAtom(), newTree), parameters);
+    }
+
+
+    /**
+     * Stateful: collects the values of the parameters in the order of their creation.
+     * The tree is traversed in a deterministic order, conditions before children.
+     */
+    private class LiftingTransformer extends DefaultRecursiveIQTreeVisitingTransformer {
+
+        private final VariableGenerator variableGenerator;
+        private final ImmutableList.Builder<DBConstant> parameters = ImmutableList.builder();
+        private int parameterCount = 0;
+
+        LiftingTransformer(VariableGenerator variableGenerator) {
+            super(LiteralParameterLifter.this.iqFactory);
+            this.variableGenerator = variableGenerator;
+        }
+
+        @Override
+        public IQTree transformIntensionalData(IntensionalDataNode dataNode) {
+            DataAtom<AtomPredicate> atom = dataNode.getProjectionAtom();
+            ImmutableList.Builder<VariableOrGroundTerm> argumentBuilder = ImmutableList.builder();
+            ImmutableList.Builder<ImmutableExpression> conditionBuilder = ImmutableList.builder();
+
+            for (VariableOrGroundTerm argument : atom.getArguments()) {
+                Optional<ImmutableFunctionalTerm> parameterTerm = liftConstant(argument);
+                if (parameterTerm.isPresent()) {
+                    Variable newVariable = variableGenerator.generateNewVariable();
+                    argumentBuilder.add(newVariable);
+                    conditionBuilder.add(termFactory.getStrictEquality(newVariable, parameterTerm.get()));
+                }
+                else
+                    argumentBuilder.add(argument);
+            }
+
+            ImmutableList<ImmutableExpression> conditions = conditionBuilder.build();
+            if (conditions.isEmpty())
+                return dataNode;
+
+            IntensionalDataNode newDataNode = dataNode.newAtom(
+                    atomFactory.getDataAtom(atom.getPredicate(), argumentBuilder.build()));
+
+            // Projects away the fresh variables (e.g. for the children of unions)
+            return iqFactory.createUnaryIQTree(
+                    iqFactory.createConstructionNode(dataNode.getVariables()),
+                    iqFactory.createUnaryIQTree(
+                            iqFactory.createFilterNode(termFactory.getConjunction(conditions)),
+                            newDataNode));
+        }
+
+        @Override
+        public IQTree transformFilter(IQTree tree, FilterNode rootNode, IQTree child) {
+            ImmutableExpression condition = rootNode.getFilterCondition();
+            ImmutableExpression newCondition = (ImmutableExpression) liftInTerm(condition);
+            return transformUnaryNode(tree,
+                    newCondition == condition ? rootNode : rootNode.changeFilterCondition(newCondition),
+                    child);
+        }
+
+        @Override
+        public IQTree transformInnerJoin(IQTree tree, InnerJoinNode rootNode, ImmutableList<IQTree> children) {
+            Optional<ImmutableExpression> newCondition = liftInCondition(rootNode.getOptionalFilterCondition());
+            return transformNaryCommutativeNode(tree,
+                    newCondition == rootNode.getOptionalFilterCondition()
+                            ? rootNode
+                            : rootNode.changeOptionalFilterCondition(newCondition),
+                    children);
+        }
+
+        @Override
+        public IQTree transformLeftJoin(IQTree tree, LeftJoinNode rootNode, IQTree leftChild, IQTree rightChild) {
+            Optional<ImmutableExpression> newCondition = liftInCondition(rootNode.getOptionalFilterCondition());
+            return transformBinaryNonCommutativeNode(tree,
+                    newCondition == rootNode.getOptionalFilterCondition()
+                            ? rootNode
+                            : rootNode.changeOptionalFilterCondition(newCondition),
+                    leftChild, rightChild);
+        }
+
+        /**
+         * Returns the same object if nothing has been lifted
+         */
+        private Optional<ImmutableExpression> liftInCondition(Optional<ImmutableExpression> condition) {
+            if (!condition.isPresent())
+                return condition;
+            ImmutableExpression newCondition = (ImmutableExpression) liftInTerm(condition.get());
+            return newCondition == condition.get()
+                    ? condition
+                    : Optional.of(newCondition);
+        }
+
+        /**
+         * Returns the same object if nothing has been lifted
+         */
+        private ImmutableTerm liftInTerm(ImmutableTerm term) {
+            if (!(term instanceof ImmutableFunctionalTerm))
+                return term;
+
+            ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+            FunctionSymbol functionSymbol = functionalTerm.getFunctionSymbol();
+            ImmutableList<? extends ImmutableTerm> arguments = functionalTerm.getTerms();
+
+            ImmutableList<ImmutableTerm> newArguments = (comparisonFunctionSymbols.contains(functionSymbol)
+                    && arguments.stream().anyMatch(a -> !(a instanceof Constant)))
+                    ? arguments.stream()
+                        .map(a -> liftConstant(a)
+                                .map(t -> (ImmutableTerm) t)
+                                .orElse(a))
+                        .collect(ImmutableCollectors.toList())
+                    : arguments.stream()
+                        .map(this::liftInTerm)
+                        .collect(ImmutableCollectors.toList());
+
+            boolean unchanged = true;
+            for (int i = 0; i < arguments.size(); i++) {
+                unchanged = unchanged && (newArguments.get(i) == arguments.get(i));
+            }
+            if (unchanged)
+                return term;
+
+            return (term instanceof ImmutableExpression)
+                    ? termFactory.getImmutableExpression((BooleanFunctionSymbol) functionSymbol, newArguments)
+                    : termFactory.getImmutableFunctionalTerm(functionSymbol, newArguments);
+        }
+
+        /**
+         * Returns an RDF term built from a fresh parameter if the term is a liftable literal
+         */
+        private Optional<ImmutableFunctionalTerm> liftConstant(ImmutableTerm term) {
+            if (!(term instanceof RDFLiteralConstant))
+                return Optional.empty();
+
+            RDFLiteralConstant constant = (RDFLiteralConstant) term;
+            RDFDatatype datatype = constant.getType();
+            String lexicalValue = constant.getValue();
+
+            ImmutableFunctionalTerm lexicalTerm;
+            if (datatype.getLanguageTag().isPresent() || datatype.getIRI().equals(XSD.STRING)) {
+                lexicalTerm = createParameter(termFactory.getDBStringConstant(lexicalValue));
+            }
+            else if (datatype.getIRI().equals(XSD.INTEGER) && isCanonicalLong(lexicalValue)) {
+                lexicalTerm = termFactory.getConversion2RDFLexical(dbIntegerType,
+                        createParameter(termFactory.getDBConstant(lexicalValue, dbIntegerType)), datatype);
+            }
+            else
+                return Optional.empty();
+
+            return Optional.of(termFactory.getRDFFunctionalTerm(lexicalTerm,
+                    termFactory.getRDFTermTypeConstant(datatype)));
+        }
+
+        private ImmutableFunctionalTerm createParameter(DBConstant value) {
+            parameters.add(value);
+            return termFactory.getDBParameter(parameterCount++, value.getType());
+        }
+    }
+
+    /**
+     * Non-canonical lexical forms are not lifted as they may be observed (e.g. with STR())
+     */
+    private static boolean isCanonicalLong(String lexicalValue) {
+        try {
+            return String.valueOf(Long.parseLong(lexicalValue)).equals(lexicalValue);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package it.unibz.inf.ontop.answering.reformulation.impl;
 
 import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
+import it.unibz.inf.ontop.answering.monitoring.QueryStage;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
+import it.unibz.inf.ontop.answering.reformulation.ParameterizedQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStats;
+import it.unibz.inf.ontop.answering.reformulation.QueryParameterLifter;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
@@ -12,18 +22,40 @@ import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTr
 import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
+import it.unibz.inf.ontop.dbschema.DatabaseRelationDefinition;
+import it.unibz.inf.ontop.dbschema.RelationDefinition;
+import it.unibz.inf.ontop.dbschema.RelationID;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.injection.TranslationFactory;
 import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.ExtensionalDataNode;
+import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
 import it.unibz.inf.ontop.iq.optimizer.*;
 import it.unibz.inf.ontop.iq.planner.QueryPlanner;
 import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.model.term.DBConstant;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.DBParameterFunctionSymbol;
 import it.unibz.inf.ontop.spec.OBDASpecification;
 import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.answering.monitoring.QueryCounter.*;
+import static it.unibz.inf.ontop.answering.monitoring.QueryStage.*;
+
 /**
  * TODO: rename it QueryTranslatorImpl ?
  *
@@ -35,6 +67,8 @@ public class QuestQueryProcessor implements QueryReformulator {
 	private final QueryRewriter rewriter;
 	private final NativeQueryGenerator datasourceQueryGenerator;
 	private final QueryCache queryCache;
+	private final QueryParameterLifter parameterLifter;
+	private final IntermediateQueryFactory iqFactory;
 
 	private final QueryUnfolder queryUnfolder;
 
@@ -45,20 +79,33 @@ public class QuestQueryProcessor implements QueryReformulator {
 	private final InputQueryFactory inputQueryFactory;
 	private final GeneralStructuralAndSemanticIQOptimizer generalOptimizer;
 	private final QueryPlanner queryPlanner;
+	private final QueryMonitor queryMonitor;
+	/*
+	 * Relations of the data source the executable queries depend on (see getSourceRelations()).
+	 * Weak keys, compared by identity: the entries are dropped together with the executable queries
+	 * (e.g. when evicted from the query cache).
+	 */
+	private final Cache<IQ, ImmutableSet<RelationID>> sourceRelations = CacheBuilder.newBuilder()
+			.weakKeys()
+			.build();
 
 	@AssistedInject
 	private QuestQueryProcessor(@Assisted OBDASpecification obdaSpecification,
 								@Assisted ExecutorRegistry executorRegistry,
 								QueryCache queryCache,
+								QueryParameterLifter parameterLifter,
+								IntermediateQueryFactory iqFactory,
 								TranslationFactory translationFactory,
 								QueryRewriter queryRewriter,
 								InputQueryFactory inputQueryFactory,
 								InputQueryTranslator inputQueryTranslator,
-								GeneralStructuralAndSemanticIQOptimizer generalOptimizer, QueryPlanner queryPlanner) {
+								GeneralStructuralAndSemanticIQOptimizer generalOptimizer, QueryPlanner queryPlanner,
+								QueryMonitor queryMonitor) {
 		this.inputQueryFactory = inputQueryFactory;
 		this.rewriter = queryRewriter;
 		this.generalOptimizer = generalOptimizer;
 		this.queryPlanner = queryPlanner;
+		this.queryMonitor = queryMonitor;
 
 		this.rewriter.setTBox(obdaSpecification.getSaturatedTBox());
 
@@ -76,6 +123,8 @@ public class QuestQueryProcessor implements QueryReformulator {
 		this.datasourceQueryGenerator = translationFactory.create(dbMetadata);
 		this.inputQueryTranslator = inputQueryTranslator;
 		this.queryCache = queryCache;
+		this.parameterLifter = parameterLifter;
+		this.iqFactory = iqFactory;
 		this.executorRegistry = executorRegistry;
 
 		log.info("Ontop has completed the setup and it is ready for query answering!");
@@ -84,53 +133,211 @@ public class QuestQueryProcessor implements QueryReformulator {
 	@Override
 	public IQ reformulateIntoNativeQuery(InputQuery inputQuery)
 			throws OntopReformulationException {
+		try (QueryTrace trace = queryMonitor.startQuery(inputQuery::getInputString)) {
+			try {
+				return reformulateIntoNativeQuery(inputQuery, trace);
+			} catch (OntopReformulationException | RuntimeException e) {
+				trace.setFailed();
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public IQ reformulateIntoNativeQuery(InputQuery inputQuery, QueryTrace trace)
+			throws OntopReformulationException {
+		log.debug("SPARQL query:\n{}", inputQuery.getInputString());
+		long startTime = System.nanoTime();
+		IQ convertedIQ = inputQuery.translate(inputQueryTranslator);
+		log.debug("Parsed query converted into IQ (after normalization):\n{}", convertedIQ);
+
+		ParameterizedQuery parameterizedQuery = parameterLifter.lift(convertedIQ);
+		trace.recordStage(TRANSLATION, System.nanoTime() - startTime);
+		trace.setCounter(TRANSLATED_IQ_SIZE, countNodes(convertedIQ.getTree()));
 
-		IQ cachedQuery = queryCache.get(inputQuery);
-		if (cachedQuery != null)
-			return cachedQuery;
+		ImmutableList<DBConstant> parameters = parameterizedQuery.getParameters();
+		if (parameters.isEmpty())
+			return getExecutableQuery(convertedIQ, trace);
 
+		log.debug("Parameterized query:\n{}", parameterizedQuery);
+		IQ parameterizedQueryIQ = parameterizedQuery.getQuery();
+		IQ executableTemplate;
 		try {
-			log.debug("SPARQL query:\n{}", inputQuery.getInputString());
-			IQ convertedIQ = inputQuery.translate(inputQueryTranslator);
-			log.debug("Parsed query converted into IQ (after normalization):\n{}", convertedIQ);
+			executableTemplate = getExecutableQuery(parameterizedQueryIQ, trace);
+		}
+		/*
+		 * Parameters are less informative than constants for the optimizer,
+		 * which may not manage to produce a native query
+		 */
+		catch (OntopReformulationException e) {
+			log.debug("Could not reformulate the parameterized query ({}). Reformulating it without parameters.",
+					e.getMessage());
+			return getExecutableQuery(convertedIQ, trace);
+		}
+
+		Optional<IQ> executableQuery = bindParameters(executableTemplate, parameters);
+		if (executableQuery.isPresent()) {
+			getSourceRelations(executableTemplate)
+					.ifPresent(r -> sourceRelations.put(executableQuery.get(), r));
+			return executableQuery.get();
+		}
+
+		log.debug("Some parameters are not only used in the native query. Reformulating it without parameters.");
+		return getExecutableQuery(convertedIQ, trace);
+	}
 
-            try {
-                log.debug("Start the rewriting process...");
-                IQ rewrittenIQ = rewriter.rewrite(convertedIQ);
+	/**
+	 * Looks up the query cache first
+	 */
+	private IQ getExecutableQuery(IQ translatedQuery, QueryTrace trace) throws OntopReformulationException {
+		AtomicBoolean isReformulated = new AtomicBoolean(false);
+		IQ executableQuery = queryCache.get(translatedQuery, () -> {
+			isReformulated.set(true);
+			trace.addToCounter(QUERY_CACHE_MISSES, 1);
+			return reformulate(translatedQuery, trace);
+		});
+		if (!isReformulated.get())
+			trace.addToCounter(QUERY_CACHE_HITS, 1);
+		return executableQuery;
+	}
 
-                log.debug("Rewritten IQ:\n{}",rewrittenIQ);
+	private IQ reformulate(IQ convertedIQ, QueryTrace trace) throws OntopReformulationException {
+		log.debug("Start the rewriting process...");
+		long startTime = System.nanoTime();
+		IQ rewrittenIQ;
+		try {
+			rewrittenIQ = rewriter.rewrite(convertedIQ);
+		} catch (EmptyQueryException e) {
+			throw new OntopReformulationException(e);
+		}
+		startTime = recordStage(trace, REWRITING, startTime);
 
-                log.debug("Start the unfolding...");
+		log.debug("Rewritten IQ:\n{}",rewrittenIQ);
 
-                IQ unfoldedIQ = queryUnfolder.optimize(rewrittenIQ);
-                if (unfoldedIQ.getTree().isDeclaredAsEmpty())
-                    return unfoldedIQ;
-                log.debug("Unfolded query: \n" + unfoldedIQ.toString());
+		log.debug("Start the unfolding...");
 
-                IQ optimizedQuery = generalOptimizer.optimize(unfoldedIQ, executorRegistry);
-				IQ plannedQuery = queryPlanner.optimize(optimizedQuery, executorRegistry);
-				log.debug("Planned query: \n" + plannedQuery);
+		IQ unfoldedIQ = queryUnfolder.optimize(rewrittenIQ);
+		startTime = recordStage(trace, UNFOLDING, startTime);
+		trace.setCounter(UNFOLDED_IQ_SIZE, countNodes(unfoldedIQ.getTree()));
+		Optional<ImmutableSet<RelationID>> relations = extractSourceRelations(unfoldedIQ.getTree());
 
-				IQ executableQuery = generateExecutableQuery(plannedQuery);
-				queryCache.put(inputQuery, executableQuery);
-				return executableQuery;
+		IQ executableQuery;
+		if (unfoldedIQ.getTree().isDeclaredAsEmpty())
+			executableQuery = unfoldedIQ;
+		else {
+			log.debug("Unfolded query: \n" + unfoldedIQ.toString());
+			executableQuery = optimizeAndGenerateExecutableQuery(unfoldedIQ, trace, startTime);
+		}
+		relations.ifPresent(r -> sourceRelations.put(executableQuery, r));
+		return executableQuery;
+	}
 
+	@Override
+	public IQ reformulateDBQueryIntoNativeQuery(IQ dbQuery) throws OntopReformulationException {
+		try (QueryTrace trace = queryMonitor.startQuery(dbQuery::toString)) {
+			try {
+				return reformulateDBQueryIntoNativeQuery(dbQuery, trace);
+			} catch (OntopReformulationException | RuntimeException e) {
+				trace.setFailed();
+				throw e;
 			}
-            catch (OntopReformulationException e) {
-                throw e;
-            }
-        }
-		/*
-		 * Bug: should normally not be reached
-		 * TODO: remove it
-		 */
-		catch (Exception e) {
-			log.warn("Unexpected exception: " + e.getMessage(), e);
-			throw new OntopReformulationException(e);
-			//throw new OntopReformulationException("Error rewriting and unfolding into SQL\n" + e.getMessage());
 		}
 	}
 
+	@Override
+	public IQ reformulateDBQueryIntoNativeQuery(IQ dbQuery, QueryTrace trace) throws OntopReformulationException {
+		log.debug("DB query:\n{}", dbQuery);
+		trace.setCounter(TRANSLATED_IQ_SIZE, countNodes(dbQuery.getTree()));
+		return optimizeAndGenerateExecutableQuery(dbQuery, trace, System.nanoTime());
+	}
+
+	/**
+	 * The query is not empty (otherwise returned as such after the optimization)
+	 */
+	private IQ optimizeAndGenerateExecutableQuery(IQ query, QueryTrace trace, long startTime)
+			throws OntopReformulationException {
+		IQ optimizedQuery = generalOptimizer.optimize(query, executorRegistry);
+		startTime = recordStage(trace, OPTIMIZATION, startTime);
+		if (optimizedQuery.getTree().isDeclaredAsEmpty())
+			return optimizedQuery;
+
+		IQ plannedQuery = queryPlanner.optimize(optimizedQuery, executorRegistry);
+		startTime = recordStage(trace, PLANNING, startTime);
+		log.debug("Planned query: \n" + plannedQuery);
+		trace.setCounter(PLANNED_IQ_SIZE, countNodes(plannedQuery.getTree()));
+		trace.setCounter(MAX_UNION_WIDTH, getMaxUnionWidth(plannedQuery.getTree()));
+
+		IQ executableQuery = generateExecutableQuery(plannedQuery);
+		recordStage(trace, NATIVE_QUERY_GENERATION, startTime);
+		return executableQuery;
+	}
+
+	/**
+	 * Returns the end time of the stage (i.e. the start time of the next one)
+	 */
+	private static long recordStage(QueryTrace trace, QueryStage stage, long startTime) {
+		long endTime = System.nanoTime();
+		trace.recordStage(stage, endTime - startTime);
+		return endTime;
+	}
+
+	private static int countNodes(IQTree tree) {
+		int count = 1;
+		for (IQTree child : tree.getChildren())
+			count += countNodes(child);
+		return count;
+	}
+
+	private static int getMaxUnionWidth(IQTree tree) {
+		int width = (tree.getRootNode() instanceof UnionNode) ? tree.getChildren().size() : 0;
+		for (IQTree child : tree.getChildren())
+			width = Math.max(width, getMaxUnionWidth(child));
+		return width;
+	}
+
+	/**
+	 * Attaches the values of the positional parameters (recorded by the native query generator)
+	 * to the native node.
+	 *
+	 * Returns nothing if some parameters also appear in the root construction node (they would then
+	 * have to be evaluated outside the DB).
+	 */
+	private Optional<IQ> bindParameters(IQ executableTemplate, ImmutableList<DBConstant> parameters) {
+		IQTree tree = executableTemplate.getTree();
+		if (tree.isDeclaredAsEmpty())
+			return Optional.of(executableTemplate);
+
+		if (!((tree instanceof UnaryIQTree)
+				&& (tree.getRootNode() instanceof ConstructionNode)
+				&& (((UnaryIQTree) tree).getChild() instanceof NativeNode)))
+			return Optional.empty();
+
+		ConstructionNode constructionNode = (ConstructionNode) tree.getRootNode();
+		if (constructionNode.getSubstitution().getImmutableMap().values().stream()
+				.anyMatch(QuestQueryProcessor::containsParameter))
+			return Optional.empty();
+
+		NativeNode nativeNode = (NativeNode) ((UnaryIQTree) tree).getChild();
+
+		ImmutableList<DBConstant> parameterValues = nativeNode.getParameterIndexes().stream()
+				.map(parameters::get)
+				.collect(ImmutableCollectors.toList());
+
+		NativeNode newNativeNode = iqFactory.createNativeNode(nativeNode.getVariables(), nativeNode.getTypeMap(),
+				nativeNode.getColumnNames(), nativeNode.getNativeQueryString(), parameterValues,
+				nativeNode.getVariableNullability());
+
+		return Optional.of(iqFactory.createIQ(executableTemplate.getProjectionAtom(),
+				iqFactory.createUnaryIQTree(constructionNode, newNativeNode)));
+	}
+
+	private static boolean containsParameter(ImmutableTerm term) {
+		return (term instanceof ImmutableFunctionalTerm)
+				&& ((((ImmutableFunctionalTerm) term).getFunctionSymbol() instanceof DBParameterFunctionSymbol)
+					|| ((ImmutableFunctionalTerm) term).getTerms().stream()
+						.anyMatch(QuestQueryProcessor::containsParameter));
+	}
+
 	private IQ generateExecutableQuery(IQ iq)
 			throws OntopReformulationException {
 
@@ -163,8 +370,45 @@ public class QuestQueryProcessor implements QueryReformulator {
 		return "EMPTY REWRITING";
 	}
 
+	@Override
+	public Optional<ImmutableSet<RelationID>> getSourceRelations(IQ executableQuery) {
+		return Optional.ofNullable(sourceRelations.getIfPresent(executableQuery));
+	}
+
+	/**
+	 * Empty if some relations are not relations of the data source
+	 */
+	private static Optional<ImmutableSet<RelationID>> extractSourceRelations(IQTree tree) {
+		ImmutableSet<RelationDefinition> relations = extractRelations(tree)
+				.collect(ImmutableCollectors.toSet());
+
+		return relations.stream().allMatch(r -> r instanceof DatabaseRelationDefinition)
+				? Optional.of(relations.stream()
+					.map(RelationDefinition::getID)
+					.collect(ImmutableCollectors.toSet()))
+				: Optional.empty();
+	}
+
+	private static Stream<RelationDefinition> extractRelations(IQTree tree) {
+		if (tree instanceof ExtensionalDataNode)
+			return Stream.of(((ExtensionalDataNode) tree).getProjectionAtom().getPredicate().getRelationDefinition());
+
+		return tree.getChildren().stream()
+				.flatMap(QuestQueryProcessor::extractRelations);
+	}
+
 	@Override
 	public InputQueryFactory getInputQueryFactory() {
 		return inputQueryFactory;
 	}
+
+	@Override
+	public QueryCacheStats getQueryCacheStats() {
+		return queryCache.getStats();
+	}
+
+	@Override
+	public QueryMonitor getQueryMonitor() {
+		return queryMonitor;
+	}
 }
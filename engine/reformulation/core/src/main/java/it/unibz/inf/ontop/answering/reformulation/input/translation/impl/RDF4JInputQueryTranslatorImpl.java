@@ -78,7 +78,7 @@ public class RDF4JInputQueryTranslatorImpl implements RDF4JInputQueryTranslator
 
         log.debug("Parsed query:\n{}", pq.toString());
 
-        IQTree tree = translate(pq.getTupleExpr()).iqTree;
+        IQTree tree = translateRoot(pq.getTupleExpr());
 
         ImmutableSet<Variable> vars = tree.getVariables();
 
@@ -103,7 +103,7 @@ public class RDF4JInputQueryTranslatorImpl implements RDF4JInputQueryTranslator
 
         log.debug("Parsed query:\n{}", pq.toString());
 
-        IQTree tree = translate(pq.getTupleExpr()).iqTree;
+        IQTree tree = translateRoot(pq.getTupleExpr());
 
         log.debug("IQTree (before normalization):\n{}", tree.toString());
         return iqFactory.createIQ(
@@ -115,6 +115,22 @@ public class RDF4JInputQueryTranslatorImpl implements RDF4JInputQueryTranslator
         ).normalizeForOptimization();
     }
 
+    /**
+     * Unwraps the input query exceptions thrown from lambdas
+     */
+    private IQTree translateRoot(TupleExpr tupleExpr) throws OntopInvalidInputQueryException, OntopUnsupportedInputQueryException {
+        try {
+            return translate(tupleExpr).iqTree;
+        }
+        catch (RuntimeException e) {
+            if (e.getCause() instanceof OntopUnsupportedInputQueryException)
+                throw (OntopUnsupportedInputQueryException) e.getCause();
+            if (e.getCause() instanceof OntopInvalidInputQueryException)
+                throw (OntopInvalidInputQueryException) e.getCause();
+            throw e;
+        }
+    }
+
     private IQTree projectOutAllVars(IQTree tree) {
         if (tree.getRootNode() instanceof QueryModifierNode) {
             return iqFactory.createUnaryIQTree(
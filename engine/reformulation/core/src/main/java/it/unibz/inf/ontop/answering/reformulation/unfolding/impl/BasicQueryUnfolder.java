@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.answering.reformulation.unfolding.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
@@ -23,8 +24,11 @@ import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import it.unibz.inf.ontop.utils.VariableGenerator;
+import org.apache.commons.rdf.api.IRI;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
@@ -38,6 +42,17 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
     private final UnionBasedQueryMerger queryMerger;
     private final CoreUtilsFactory coreUtilsFactory;
 
+    /*
+     * Lazily built once per RDF atom predicate (for the variable properties and classes)
+     */
+    private final Map<RDFAtomPredicate, DefinitionIndex> starDefinitionIndexes;
+    private final Map<RDFAtomPredicate, DefinitionIndex> starClassDefinitionIndexes;
+    /*
+     * Lazily built once per property (resp. class) appearing with a constant subject or object
+     */
+    private final Map<Map.Entry<RDFAtomPredicate, IRI>, DefinitionIndex> propertyDefinitionIndexes;
+    private final Map<Map.Entry<RDFAtomPredicate, IRI>, DefinitionIndex> classDefinitionIndexes;
+
     @AssistedInject
     private BasicQueryUnfolder(@Assisted Mapping mapping, IntermediateQueryFactory iqFactory,
                                SubstitutionFactory substitutionFactory, QueryTransformerFactory transformerFactory,
@@ -48,6 +63,10 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
         this.transformerFactory = transformerFactory;
         this.queryMerger = queryMerger;
         this.coreUtilsFactory = coreUtilsFactory;
+        this.starDefinitionIndexes = new ConcurrentHashMap<>();
+        this.starClassDefinitionIndexes = new ConcurrentHashMap<>();
+        this.propertyDefinitionIndexes = new ConcurrentHashMap<>();
+        this.classDefinitionIndexes = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -76,27 +95,63 @@ public class BasicQueryUnfolder extends AbstractIntensionalQueryMerger implement
             return predicate.getPropertyIRI(arguments)
                     .map(i -> i.equals(RDF.TYPE)
                             ? getRDFClassDefinition(predicate, arguments)
-                            : mapping.getRDFPropertyDefinition(predicate, i))
-                    .orElseGet(() -> getStarDefinition(predicate));
+                            : getRDFPropertyDefinition(predicate, i, arguments))
+                    .orElseGet(() -> getStarDefinition(predicate, arguments));
+        }
+
+        private Optional<IQ> getRDFPropertyDefinition(RDFAtomPredicate predicate, IRI propertyIRI,
+                                                      ImmutableList<? extends VariableOrGroundTerm> arguments) {
+            VariableOrGroundTerm subject = predicate.getSubject(arguments);
+            VariableOrGroundTerm object = predicate.getObject(arguments);
+            if (!(subject instanceof RDFConstant) && !(object instanceof RDFConstant))
+                return mapping.getRDFPropertyDefinition(predicate, propertyIRI);
+
+            return mapping.getRDFPropertyDefinition(predicate, propertyIRI)
+                    .flatMap(d -> propertyDefinitionIndexes
+                            .computeIfAbsent(Maps.immutableEntry(predicate, propertyIRI),
+                                    e -> new DefinitionIndex(predicate, ImmutableList.of(d), queryMerger, iqFactory))
+                            .getDefinition(subject, object));
         }
 
         private Optional<IQ> getRDFClassDefinition(RDFAtomPredicate predicate,
                                                    ImmutableList<? extends VariableOrGroundTerm> arguments) {
             return predicate.getClassIRI(arguments)
-                    .map(i -> mapping.getRDFClassDefinition(predicate, i))
-                    .orElseGet(() -> getStarClassDefinition(predicate));
+                    .map(i -> getRDFClassDefinition(predicate, i, arguments))
+                    .orElseGet(() -> getStarClassDefinition(predicate, arguments));
+        }
+
+        private Optional<IQ> getRDFClassDefinition(RDFAtomPredicate predicate, IRI classIRI,
+                                                   ImmutableList<? extends VariableOrGroundTerm> arguments) {
+            // NB: the object is the class
+            VariableOrGroundTerm subject = predicate.getSubject(arguments);
+            if (!(subject instanceof RDFConstant))
+                return mapping.getRDFClassDefinition(predicate, classIRI);
+
+            return mapping.getRDFClassDefinition(predicate, classIRI)
+                    .flatMap(d -> classDefinitionIndexes
+                            .computeIfAbsent(Maps.immutableEntry(predicate, classIRI),
+                                    e -> new DefinitionIndex(predicate, ImmutableList.of(d), queryMerger, iqFactory))
+                            .getDefinition(subject, predicate.getObject(arguments)));
         }
 
-        private Optional<IQ> getStarClassDefinition(RDFAtomPredicate predicate) {
-            return queryMerger.mergeDefinitions(mapping.getRDFClasses(predicate).stream()
-                    .flatMap(i -> mapping.getRDFClassDefinition(predicate, i)
-                            .map(Stream::of)
-                            .orElseGet(Stream::empty))
-                    .collect(ImmutableCollectors.toList()));
+        private Optional<IQ> getStarClassDefinition(RDFAtomPredicate predicate,
+                                                    ImmutableList<? extends VariableOrGroundTerm> arguments) {
+            return starClassDefinitionIndexes
+                    .computeIfAbsent(predicate, p -> new DefinitionIndex(p,
+                            mapping.getRDFClasses(p).stream()
+                                    .flatMap(i -> mapping.getRDFClassDefinition(p, i)
+                                            .map(Stream::of)
+                                            .orElseGet(Stream::empty))
+                                    .collect(ImmutableCollectors.toList()),
+                            queryMerger, iqFactory))
+                    .getDefinition(predicate.getSubject(arguments), predicate.getObject(arguments));
         }
 
-        private Optional<IQ> getStarDefinition(RDFAtomPredicate predicate) {
-            return queryMerger.mergeDefinitions(mapping.getQueries(predicate));
+        private Optional<IQ> getStarDefinition(RDFAtomPredicate predicate,
+                                               ImmutableList<? extends VariableOrGroundTerm> arguments) {
+            return starDefinitionIndexes
+                    .computeIfAbsent(predicate, p -> new DefinitionIndex(p, mapping.getQueries(p), queryMerger, iqFactory))
+                    .getDefinition(predicate.getSubject(arguments), predicate.getObject(arguments));
         }
 
         @Override
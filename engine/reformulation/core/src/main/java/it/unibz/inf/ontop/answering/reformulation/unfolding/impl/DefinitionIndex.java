@@ -0,0 +1,266 @@
+package it.unibz.inf.ontop.answering.reformulation.unfolding.impl;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.QueryNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.iq.tools.UnionBasedQueryMerger;
+import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.FunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.RDFTermFunctionSymbol;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.ObjectStringTemplateFunctionSymbol;
+import it.unibz.inf.ontop.model.type.ObjectRDFType;
+import it.unibz.inf.ontop.model.type.RDFTermType;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Mapping definitions split into their branches (the children of their top union),
+ * indexed by the RDF terms that the branches may produce for the subject and for the object:
+ * kind of RDF term and, for IRIs, template or constant (see IRITemplateIndex).
+ *
+ * When the subject or the object of a triple pattern is a constant, the branches that cannot produce it
+ * are pruned before building the union, instead of being eliminated later by the optimizer.
+ *
+ * Also used for the triple patterns with a variable property or class (over all the definitions):
+ * the union of all the definitions is then computed once.
+ *
+ * Thread-safe
+ */
+class DefinitionIndex {
+
+    private static final int MAX_PRUNED_DEFINITIONS = 1000;
+
+    private final ImmutableList<IQ> branches;
+    private final PositionIndex subjectIndex;
+    private final PositionIndex objectIndex;
+    private final Optional<IQ> mergedDefinition;
+    // Indexed by the selected branches
+    private final LoadingCache<BitSet, Optional<IQ>> prunedDefinitions;
+
+    DefinitionIndex(RDFAtomPredicate predicate, ImmutableCollection<IQ> definitions,
+                    UnionBasedQueryMerger queryMerger, IntermediateQueryFactory iqFactory) {
+        this.branches = definitions.stream()
+                .flatMap(d -> splitIntoBranches(d, iqFactory))
+                .collect(ImmutableCollectors.toList());
+        this.subjectIndex = new PositionIndex(branches,
+                b -> predicate.getSubject(b.getProjectionAtom().getArguments()));
+        this.objectIndex = new PositionIndex(branches,
+                b -> predicate.getObject(b.getProjectionAtom().getArguments()));
+        this.mergedDefinition = queryMerger.mergeDefinitions(definitions);
+        this.prunedDefinitions = CacheBuilder.newBuilder()
+                .maximumSize(MAX_PRUNED_DEFINITIONS)
+                .build(new CacheLoader<BitSet, Optional<IQ>>() {
+                    @Override
+                    public Optional<IQ> load(BitSet selection) {
+                        return queryMerger.mergeDefinitions(selection.stream()
+                                .mapToObj(branches::get)
+                                .collect(ImmutableCollectors.toList()));
+                    }
+                });
+    }
+
+    /**
+     * Union of the branches compatible with the subject and the object of the triple pattern
+     */
+    Optional<IQ> getDefinition(VariableOrGroundTerm subject, VariableOrGroundTerm object) {
+        if (!(subject instanceof RDFConstant) && !(object instanceof RDFConstant))
+            return mergedDefinition;
+
+        BitSet selection = subjectIndex.select(subject);
+        selection.and(objectIndex.select(object));
+
+        if (selection.cardinality() == branches.size())
+            return mergedDefinition;
+        if (selection.isEmpty())
+            return Optional.empty();
+        return prunedDefinitions.getUnchecked(selection);
+    }
+
+    private static Stream<IQ> splitIntoBranches(IQ definition, IntermediateQueryFactory iqFactory) {
+        IQTree tree = definition.getTree();
+        QueryNode rootNode = tree.getRootNode();
+
+        if (rootNode instanceof UnionNode)
+            return tree.getChildren().stream()
+                    .map(c -> iqFactory.createIQ(definition.getProjectionAtom(), c));
+
+        if ((rootNode instanceof ConstructionNode) && (tree.getChildren().get(0).getRootNode() instanceof UnionNode))
+            return tree.getChildren().get(0).getChildren().stream()
+                    .map(c -> iqFactory.createIQ(definition.getProjectionAtom(),
+                            iqFactory.createUnaryIQTree((ConstructionNode) rootNode, c)));
+
+        return Stream.of(definition);
+    }
+
+    /**
+     * Branches indexed by the RDF terms they may produce for one position (subject or object).
+     *
+     * Never excludes a branch that may produce the given RDF term.
+     */
+    private static class PositionIndex {
+        private final int size;
+        private final IRITemplateIndex<Integer> iriIndex;
+        // Branches that may produce any IRI (resp. any blank node, any literal)
+        private final BitSet anyIRIs;
+        private final BitSet blankNodes;
+        private final BitSet literals;
+
+        PositionIndex(ImmutableList<IQ> branches, Function<IQ, Variable> variableExtractor) {
+            this.size = branches.size();
+            this.iriIndex = new IRITemplateIndex<>();
+            this.anyIRIs = new BitSet(size);
+            this.blankNodes = new BitSet(size);
+            this.literals = new BitSet(size);
+
+            for (int i = 0; i < size; i++) {
+                IQ branch = branches.get(i);
+                Optional<ImmutableList<NonVariableTerm>> possibleTerms = extractPossibleTerms(
+                        branch.getTree(), variableExtractor.apply(branch));
+                if (!possibleTerms.isPresent()) {
+                    setAll(i);
+                    continue;
+                }
+                for (NonVariableTerm term : possibleTerms.get())
+                    index(term, i);
+            }
+        }
+
+        BitSet select(VariableOrGroundTerm term) {
+            BitSet selection = new BitSet(size);
+            if (!(term instanceof RDFConstant)) {
+                selection.set(0, size);
+                return selection;
+            }
+            RDFConstant constant = (RDFConstant) term;
+            switch (TermKind.of(constant.getType())) {
+                case IRI:
+                    selection.or(anyIRIs);
+                    String iri = (constant instanceof IRIConstant)
+                            ? ((IRIConstant) constant).getIRI().getIRIString()
+                            : constant.getValue();
+                    iriIndex.lookup(iri)
+                            .forEach(m -> selection.set(m.getValue()));
+                    return selection;
+                case BNODE:
+                    selection.or(blankNodes);
+                    return selection;
+                case LITERAL:
+                    selection.or(literals);
+                    return selection;
+                default:
+                    selection.set(0, size);
+                    return selection;
+            }
+        }
+
+        /**
+         * Empty if unknown
+         */
+        private static Optional<ImmutableList<NonVariableTerm>> extractPossibleTerms(IQTree tree, Variable variable) {
+            ImmutableList<ImmutableSubstitution<NonVariableTerm>> possibleDefinitions =
+                    tree.getPossibleVariableDefinitions().asList();
+            if (possibleDefinitions.isEmpty()
+                    || possibleDefinitions.stream().anyMatch(s -> !s.isDefining(variable)))
+                return Optional.empty();
+
+            return Optional.of(possibleDefinitions.stream()
+                    .map(s -> s.get(variable))
+                    .collect(ImmutableCollectors.toList()));
+        }
+
+        private void index(NonVariableTerm term, int branchIndex) {
+            if (term instanceof RDFConstant) {
+                RDFConstant constant = (RDFConstant) term;
+                TermKind kind = TermKind.of(constant.getType());
+                if (kind == TermKind.IRI && (constant instanceof IRIConstant))
+                    iriIndex.addConstant(((IRIConstant) constant).getIRI().getIRIString(), branchIndex);
+                else
+                    indexKind(kind, branchIndex);
+                return;
+            }
+            if (!(term instanceof ImmutableFunctionalTerm)
+                    || !(((ImmutableFunctionalTerm) term).getFunctionSymbol() instanceof RDFTermFunctionSymbol)) {
+                setAll(branchIndex);
+                return;
+            }
+
+            ImmutableFunctionalTerm rdfTerm = (ImmutableFunctionalTerm) term;
+            ImmutableTerm typeTerm = rdfTerm.getTerm(1);
+            if (!(typeTerm instanceof RDFTermTypeConstant)) {
+                setAll(branchIndex);
+                return;
+            }
+            TermKind kind = TermKind.of(((RDFTermTypeConstant) typeTerm).getRDFTermType());
+            if (kind != TermKind.IRI) {
+                indexKind(kind, branchIndex);
+                return;
+            }
+
+            ImmutableTerm lexicalTerm = rdfTerm.getTerm(0);
+            if (lexicalTerm instanceof DBConstant) {
+                iriIndex.addConstant(((DBConstant) lexicalTerm).getValue(), branchIndex);
+                return;
+            }
+            if (lexicalTerm instanceof ImmutableFunctionalTerm) {
+                FunctionSymbol functionSymbol = ((ImmutableFunctionalTerm) lexicalTerm).getFunctionSymbol();
+                if (functionSymbol instanceof ObjectStringTemplateFunctionSymbol) {
+                    iriIndex.addTemplate(((ObjectStringTemplateFunctionSymbol) functionSymbol).getTemplate(),
+                            branchIndex);
+                    return;
+                }
+            }
+            anyIRIs.set(branchIndex);
+        }
+
+        private void indexKind(TermKind kind, int branchIndex) {
+            switch (kind) {
+                case IRI:
+                    anyIRIs.set(branchIndex);
+                    break;
+                case BNODE:
+                    blankNodes.set(branchIndex);
+                    break;
+                case LITERAL:
+                    literals.set(branchIndex);
+                    break;
+                default:
+                    setAll(branchIndex);
+            }
+        }
+
+        private void setAll(int branchIndex) {
+            anyIRIs.set(branchIndex);
+            blankNodes.set(branchIndex);
+            literals.set(branchIndex);
+        }
+    }
+
+    private enum TermKind {
+        IRI,
+        BNODE,
+        LITERAL,
+        UNKNOWN;
+
+        static TermKind of(RDFTermType type) {
+            if (type.isAbstract())
+                return UNKNOWN;
+            if (type instanceof ObjectRDFType)
+                return ((ObjectRDFType) type).isBlankNode() ? BNODE : IRI;
+            return LITERAL;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package it.unibz.inf.ontop.answering.reformulation.unfolding.impl;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Prefix tree over IRI templates (with {} as place holders, as in ObjectStringTemplateFunctionSymbol)
+ * and IRI constants, returning the entries compatible with a given IRI.
+ *
+ * The tree is over the fixed prefix of the templates (before their first place holder).
+ * The rest of the template is then matched against the rest of the IRI, taking the leftmost occurrence
+ * of the fixed parts between the place holders. This decomposition is the only one when these fixed parts
+ * contain separators that cannot appear in the (IRI-safe encoded) arguments, which is the case of the
+ * injective templates. Otherwise, another decomposition may exist, but compatible entries are never missed.
+ *
+ * Not thread-safe while being populated. Safe for concurrent lookups afterwards.
+ */
+class IRITemplateIndex<T> {
+
+    private final Node<T> root = new Node<>();
+
+    void addTemplate(String template, T value) {
+        String[] fixedParts = template.split("\\{\\}", -1);
+        getOrCreateNode(fixedParts[0]).entries.add(new Entry<>(fixedParts, value));
+    }
+
+    void addConstant(String iri, T value) {
+        getOrCreateNode(iri).entries.add(new Entry<>(new String[] { iri }, value));
+    }
+
+    /**
+     * In the order of the prefix lengths
+     */
+    ImmutableList<Match<T>> lookup(String iri) {
+        ImmutableList.Builder<Match<T>> builder = ImmutableList.builder();
+        Node<T> node = root;
+        int depth = 0;
+        while (node != null) {
+            for (Entry<T> entry : node.entries) {
+                entry.match(iri, depth)
+                        .ifPresent(arguments -> builder.add(new Match<>(entry.value, arguments)));
+            }
+            node = (depth < iri.length())
+                    ? node.children.get(iri.charAt(depth))
+                    : null;
+            depth++;
+        }
+        return builder.build();
+    }
+
+    private Node<T> getOrCreateNode(String prefix) {
+        Node<T> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node<>());
+        }
+        return node;
+    }
+
+    static class Match<T> {
+        private final T value;
+        private final ImmutableList<String> arguments;
+
+        private Match(T value, ImmutableList<String> arguments) {
+            this.value = value;
+            this.arguments = arguments;
+        }
+
+        T getValue() {
+            return value;
+        }
+
+        /**
+         * Values of the place holders (not decoded). Empty for an IRI constant.
+         */
+        ImmutableList<String> getArguments() {
+            return arguments;
+        }
+    }
+
+    private static class Node<T> {
+        private final Map<Character, Node<T>> children = new HashMap<>();
+        private final List<Entry<T>> entries = new ArrayList<>();
+    }
+
+    private static class Entry<T> {
+        // The first one is the prefix
+        private final String[] fixedParts;
+        private final T value;
+
+        private Entry(String[] fixedParts, T value) {
+            this.fixedParts = fixedParts;
+            this.value = value;
+        }
+
+        /**
+         * The prefix (of the given length) is already known to match
+         */
+        Optional<ImmutableList<String>> match(String iri, int prefixLength) {
+            if (fixedParts.length == 1)
+                return (iri.length() == prefixLength)
+                        ? Optional.of(ImmutableList.of())
+                        : Optional.empty();
+
+            ImmutableList.Builder<String> argumentBuilder = ImmutableList.builder();
+            int position = prefixLength;
+            for (int i = 1; i < fixedParts.length - 1; i++) {
+                int index = iri.indexOf(fixedParts[i], position);
+                if (index < 0)
+                    return Optional.empty();
+                argumentBuilder.add(iri.substring(position, index));
+                position = index + fixedParts[i].length();
+            }
+
+            String suffix = fixedParts[fixedParts.length - 1];
+            int suffixIndex = iri.length() - suffix.length();
+            if (suffixIndex < position || !iri.endsWith(suffix))
+                return Optional.empty();
+            argumentBuilder.add(iri.substring(position, suffixIndex));
+            return Optional.of(argumentBuilder.build());
+        }
+    }
+}
@@ -15,11 +15,20 @@ import static java.util.stream.Collectors.joining;
 
 public abstract class AbstractOntopBindingSet implements OntopBindingSet {
 
-    //LinkedHashMap to preserve variable ordering
-    private final LinkedHashMap<String, OntopBinding> bindingMap;
+    //LinkedHashMap to preserve variable ordering. Computed on the first access.
+    @Nullable
+    private LinkedHashMap<String, OntopBinding> bindingMap;
+
+    AbstractOntopBindingSet() {
+        this.bindingMap = null;
+    }
+
+    protected abstract LinkedHashMap<String, OntopBinding> computeBindingMap();
 
-    AbstractOntopBindingSet(LinkedHashMap<String, OntopBinding> bindingMap) {
-        this.bindingMap = bindingMap;
+    private LinkedHashMap<String, OntopBinding> getBindingMap() {
+        if (bindingMap == null)
+            bindingMap = computeBindingMap();
+        return bindingMap;
     }
 
     @Override
@@ -30,27 +39,27 @@ public abstract class AbstractOntopBindingSet implements OntopBindingSet {
 
     @Override
     public ImmutableList<OntopBinding> getBindings() {
-        return bindingMap.values().stream()
+        return getBindingMap().values().stream()
                 .collect(ImmutableCollectors.toList());
     }
 
     @Override
     public ImmutableList<RDFConstant> getValues() {
-        return bindingMap.values().stream()
+        return getBindingMap().values().stream()
                 .map(OntopBinding::getValue)
                 .collect(ImmutableCollectors.toList());
     }
 
     @Override
     public ImmutableList<String> getBindingNames() {
-        return bindingMap.keySet().stream()
+        return getBindingMap().keySet().stream()
                 .collect(ImmutableCollectors.toList());
     }
 
     @Nullable
     @Override
     public RDFConstant getConstant(String name) {
-        OntopBinding binding = bindingMap.get(name);
+        OntopBinding binding = getBindingMap().get(name);
         return (binding == null)
                 ? null
                 : binding.getValue();
@@ -65,12 +74,12 @@ public abstract class AbstractOntopBindingSet implements OntopBindingSet {
 
     @Override
     public boolean hasBinding(String bindingName) {
-        return bindingMap.containsKey(bindingName);
+        return getBindingMap().containsKey(bindingName);
     }
 
     @Override
     @Nullable
     public OntopBinding getBinding(String name) {
-        return bindingMap.get(name);
+        return getBindingMap().get(name);
     }
 }
@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection;
 
+import java.util.Optional;
 
 public interface OntopReformulationSettings extends OntopOBDASettings, OntopOptimizationSettings {
 
@@ -7,6 +8,53 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
 
     boolean isDistinctPostProcessingEnabled();
 
+    /**
+     * Memory budget (in MB) of the DISTINCT post-processing of a result set.
+     * Beyond it, the rows already seen are spilled to the disk.
+     * The Bloom filters and sparse indexes kept in memory for the spilled rows count against it.
+     */
+    int getDistinctResultSetMaxMemory();
+
+    /**
+     * If disabled, queries are reformulated each time they are evaluated
+     */
+    boolean isQueryCacheEnabled();
+
+    /**
+     * Maximal total weight of the query cache, the weight of a cached query being the number of nodes of its IQ tree
+     */
+    long getQueryCacheMaxWeight();
+
+    /**
+     * Time-to-live (in seconds) of the entries of the query cache. By default, they do not expire.
+     */
+    Optional<Integer> getQueryCacheExpirationTime();
+
+    /**
+     * If enabled (together with the query cache), some constants of the input queries are lifted into parameters
+     * so that queries only differing by these constants share the same cached reformulation.
+     * The resulting native queries are executed as prepared statements.
+     */
+    boolean isQueryParameterizationEnabled();
+
+    /**
+     * If enabled, the stages of the queries are timed and their counters are aggregated by the QueryMonitor
+     */
+    boolean isQueryMonitoringEnabled();
+
+    /**
+     * If enabled (together with the query monitoring), the query metrics are exported through JMX
+     */
+    boolean isQueryMonitoringJmxEnabled();
+
+    /**
+     * Duration (in milliseconds) beyond which the monitored queries are logged as slow.
+     * They are logged when their results have been consumed, and already while still running
+     * (e.g. results never closed) after at most twice the threshold.
+     * By default, slow queries are not logged.
+     */
+    Optional<Integer> getSlowQueryThreshold();
+
 
     //--------------------------
     // Keys
@@ -14,4 +62,12 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
 
     String EXISTENTIAL_REASONING = "ontop.existentialReasoning";
     String DISTINCT_RESULTSET = "ontop.distinctResultSet";
+    String DISTINCT_RESULTSET_MAX_MEMORY = "ontop.distinctResultSetMaxMemory";
+    String QUERY_CACHE = "ontop.queryCache";
+    String QUERY_CACHE_MAX_WEIGHT = "ontop.queryCacheMaxWeight";
+    String QUERY_CACHE_EXPIRATION_TIME = "ontop.queryCacheExpirationTime";
+    String QUERY_PARAMETERIZATION = "ontop.queryParameterization";
+    String QUERY_MONITORING = "ontop.queryMonitoring";
+    String QUERY_MONITORING_JMX = "ontop.queryMonitoringJmx";
+    String SLOW_QUERY_THRESHOLD = "ontop.slowQueryThreshold";
 }
@@ -3,12 +3,17 @@ package it.unibz.inf.ontop.injection.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Module;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
+import it.unibz.inf.ontop.answering.monitoring.impl.DummyQueryMonitor;
 import it.unibz.inf.ontop.answering.reformulation.generation.IQTree2NativeNodeGenerator;
 import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
 import it.unibz.inf.ontop.injection.*;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.QueryParameterLifter;
+import it.unibz.inf.ontop.answering.reformulation.impl.DummyQueryCache;
+import it.unibz.inf.ontop.answering.reformulation.impl.DummyQueryParameterLifter;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.impl.DummyRewriter;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.ExistentialQueryRewriter;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
@@ -36,7 +41,27 @@ public class OntopReformulationPostModule extends OntopAbstractModule {
             bind(QueryRewriter.class).to(DummyRewriter.class);
         }
 
-        bindFromSettings(QueryCache.class);
+        if (settings.isQueryCacheEnabled()) {
+            bindFromSettings(QueryCache.class);
+        }
+        else {
+            bind(QueryCache.class).to(DummyQueryCache.class);
+        }
+
+        // Parameters are only useful for sharing cached reformulations
+        if (settings.isQueryCacheEnabled() && settings.isQueryParameterizationEnabled()) {
+            bindFromSettings(QueryParameterLifter.class);
+        }
+        else {
+            bind(QueryParameterLifter.class).to(DummyQueryParameterLifter.class);
+        }
+
+        if (settings.isQueryMonitoringEnabled()) {
+            bindFromSettings(QueryMonitor.class);
+        }
+        else {
+            bind(QueryMonitor.class).to(DummyQueryMonitor.class);
+        }
         bindFromSettings(IQTree2NativeNodeGenerator.class);
         bindFromSettings(InputQueryTranslator.class);
 
@@ -4,6 +4,7 @@ import it.unibz.inf.ontop.injection.OntopOBDASettings;
 import it.unibz.inf.ontop.injection.OntopOptimizationSettings;
 import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 
+import java.util.Optional;
 import java.util.Properties;
 
 public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implements OntopReformulationSettings {
@@ -36,4 +37,44 @@ public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implem
     public boolean isDistinctPostProcessingEnabled() {
         return getRequiredBoolean(DISTINCT_RESULTSET);
     }
+
+    @Override
+    public int getDistinctResultSetMaxMemory() {
+        return getRequiredInteger(DISTINCT_RESULTSET_MAX_MEMORY);
+    }
+
+    @Override
+    public boolean isQueryCacheEnabled() {
+        return getRequiredBoolean(QUERY_CACHE);
+    }
+
+    @Override
+    public long getQueryCacheMaxWeight() {
+        return getRequiredLong(QUERY_CACHE_MAX_WEIGHT);
+    }
+
+    @Override
+    public Optional<Integer> getQueryCacheExpirationTime() {
+        return getInteger(QUERY_CACHE_EXPIRATION_TIME);
+    }
+
+    @Override
+    public boolean isQueryParameterizationEnabled() {
+        return getRequiredBoolean(QUERY_PARAMETERIZATION);
+    }
+
+    @Override
+    public boolean isQueryMonitoringEnabled() {
+        return getRequiredBoolean(QUERY_MONITORING);
+    }
+
+    @Override
+    public boolean isQueryMonitoringJmxEnabled() {
+        return getRequiredBoolean(QUERY_MONITORING_JMX);
+    }
+
+    @Override
+    public Optional<Integer> getSlowQueryThreshold() {
+        return getInteger(SLOW_QUERY_THRESHOLD);
+    }
 }
@@ -0,0 +1,72 @@
+package it.unibz.inf.ontop.answering.reformulation.unfolding.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class IRITemplateIndexTest {
+
+    private static IRITemplateIndex<String> createIndex() {
+        IRITemplateIndex<String> index = new IRITemplateIndex<>();
+        index.addTemplate("http://ex.org/person/{}", "person");
+        index.addTemplate("http://ex.org/person/{}/address", "address");
+        index.addTemplate("http://ex.org/org/{}/dept/{}", "dept");
+        index.addTemplate("http://ex.org/{}", "any-ex");
+        index.addTemplate("{}", "any");
+        index.addConstant("http://ex.org/org/7", "org-7");
+        return index;
+    }
+
+    private static ImmutableMap<String, ImmutableList<String>> lookup(IRITemplateIndex<String> index, String iri) {
+        return index.lookup(iri).stream()
+                .collect(ImmutableCollectors.toMap(IRITemplateIndex.Match::getValue,
+                        IRITemplateIndex.Match::getArguments));
+    }
+
+    @Test
+    public void testPersonIRI() {
+        assertEquals(ImmutableMap.of(
+                "any", ImmutableList.of("http://ex.org/person/123"),
+                "any-ex", ImmutableList.of("person/123"),
+                "person", ImmutableList.of("123")),
+                lookup(createIndex(), "http://ex.org/person/123"));
+    }
+
+    @Test
+    public void testSuffix() {
+        assertEquals(ImmutableMap.of(
+                "any", ImmutableList.of("http://ex.org/person/123/address"),
+                "any-ex", ImmutableList.of("person/123/address"),
+                "person", ImmutableList.of("123/address"),
+                "address", ImmutableList.of("123")),
+                lookup(createIndex(), "http://ex.org/person/123/address"));
+    }
+
+    @Test
+    public void testSeveralPlaceHolders() {
+        assertEquals(ImmutableList.of("7", "sales"),
+                lookup(createIndex(), "http://ex.org/org/7/dept/sales").get("dept"));
+    }
+
+    @Test
+    public void testConstant() {
+        ImmutableMap<String, ImmutableList<String>> matches = lookup(createIndex(), "http://ex.org/org/7");
+        assertEquals(ImmutableList.of(), matches.get("org-7"));
+        assertEquals(ImmutableList.of("any", "any-ex", "org-7"), matches.keySet().asList());
+    }
+
+    @Test
+    public void testOtherNamespace() {
+        assertEquals(ImmutableList.of("any"),
+                lookup(createIndex(), "http://other.org/person/123").keySet().asList());
+    }
+
+    @Test
+    public void testMissingFixedPart() {
+        assertEquals(ImmutableList.of("any", "any-ex"),
+                lookup(createIndex(), "http://ex.org/org/7/sales").keySet().asList());
+    }
+}
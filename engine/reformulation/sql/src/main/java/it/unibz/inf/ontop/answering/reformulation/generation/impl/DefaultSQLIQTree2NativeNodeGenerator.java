@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.answering.reformulation.generation.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.inject.Inject;
@@ -15,10 +16,12 @@ import it.unibz.inf.ontop.iq.IQTree;
 import it.unibz.inf.ontop.iq.node.NativeNode;
 import it.unibz.inf.ontop.iq.type.UniqueTermTypeExtractor;
 import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.DBParameterFunctionSymbol;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.Map;
+import java.util.regex.Matcher;
 
 public class DefaultSQLIQTree2NativeNodeGenerator implements IQTree2NativeNodeGenerator {
 
@@ -53,8 +56,22 @@ public class DefaultSQLIQTree2NativeNodeGenerator implements IQTree2NativeNodeGe
                         Map.Entry::getKey,
                         e -> e.getValue().getAttribute().getSQLRendering()));
 
-        return iqFactory.createNativeNode(signature, variableTypeMap, columnNames,
-                serializedQuery.getString(), iqTree.getVariableNullability());
+        // Placeholders of the parameters (see DBParameterFunctionSymbol), in their order of appearance
+        Matcher matcher = DBParameterFunctionSymbol.PLACEHOLDER_PATTERN.matcher(serializedQuery.getString());
+        StringBuffer queryStringBuffer = new StringBuffer();
+        ImmutableList.Builder<Integer> parameterIndexBuilder = ImmutableList.builder();
+        while (matcher.find()) {
+            parameterIndexBuilder.add(Integer.parseInt(matcher.group(1)));
+            matcher.appendReplacement(queryStringBuffer, "?");
+        }
+        matcher.appendTail(queryStringBuffer);
+        ImmutableList<Integer> parameterIndexes = parameterIndexBuilder.build();
+
+        return parameterIndexes.isEmpty()
+                ? iqFactory.createNativeNode(signature, variableTypeMap, columnNames,
+                        serializedQuery.getString(), iqTree.getVariableNullability())
+                : iqFactory.createParameterizedNativeNode(signature, variableTypeMap, columnNames,
+                        queryStringBuffer.toString(), parameterIndexes, iqTree.getVariableNullability());
     }
 
     private ImmutableMap<Variable, DBTermType> extractVariableTypeMap(IQTree tree) {
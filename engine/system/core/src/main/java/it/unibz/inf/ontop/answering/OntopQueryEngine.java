@@ -3,6 +3,8 @@ package it.unibz.inf.ontop.answering;
 
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.monitoring.QueryMetrics;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStats;
 
 public interface OntopQueryEngine extends AutoCloseable {
 
@@ -17,4 +19,14 @@ public interface OntopQueryEngine extends AutoCloseable {
      * Gets a OntopConnection usually coming from a connection pool.
      */
     OntopConnection getConnection() throws OntopConnectionException;
+
+    /**
+     * Statistics of the cache of reformulated queries
+     */
+    QueryCacheStats getQueryCacheStats();
+
+    /**
+     * Metrics aggregated by the QueryMonitor (empty if the query monitoring is disabled)
+     */
+    QueryMetrics getQueryMetrics();
 }
@@ -1,9 +1,14 @@
 package it.unibz.inf.ontop.answering.connection;
 
+import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.dbschema.RelationID;
 import it.unibz.inf.ontop.exception.*;
 import it.unibz.inf.ontop.iq.IQ;
 
+import java.util.Optional;
+
 /**
  * OBDAStatement specific to Ontop.
  *
@@ -18,4 +23,18 @@ public interface OntopStatement extends OBDAStatement {
     String getRewritingRendering(InputQuery inputQuery) throws OntopReformulationException;
 
     IQ getExecutableQuery(InputQuery inputQuery) throws OntopReformulationException;
+
+    /**
+     * Relations of the data source the answers of the last executed query depend on, if known
+     * (see QueryReformulator). Unknown for DESCRIBE queries.
+     */
+    Optional<ImmutableSet<RelationID>> getSourceRelations();
+
+    /**
+     * Evaluates a query only made of extensional data nodes (e.g. a mapping definition), bypassing
+     * the translation of the SPARQL query, its rewriting and its unfolding.
+     *
+     * The variables of the result set are the ones of the projection atom.
+     */
+    TupleResultSet executeDBQuery(IQ dbQuery) throws OntopReformulationException, OntopQueryEvaluationException;
 }
@@ -0,0 +1,41 @@
+package it.unibz.inf.ontop.answering.connection;
+
+import it.unibz.inf.ontop.exception.OntopQueryEvaluationException;
+
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates the queries of the statements of a query engine.
+ *
+ * Bounds the number of queries evaluated at the same time and the number of queries waiting for being evaluated.
+ *
+ * Guice-enabled interface.
+ *
+ */
+public interface QueryExecutionService {
+
+    /**
+     * Throws an OntopQueryEvaluationException when the query is rejected (too many queries are admitted).
+     *
+     * The query remains admitted until it releases its admission (typically when its results are closed),
+     * fails or is cancelled before starting.
+     *
+     * Cancelling the future does not interrupt the evaluation: it has to be stopped cooperatively.
+     */
+    <T> Future<T> submit(AdmittedQuery<T> query) throws OntopQueryEvaluationException;
+
+    /**
+     * Number of queries currently admitted (waiting, running or whose results are being consumed)
+     */
+    int getAdmittedQueryCount();
+
+
+    @FunctionalInterface
+    interface AdmittedQuery<T> {
+
+        /**
+         * admissionRelease: to be run once the results have been consumed or closed. Subsequent runs have no effect.
+         */
+        T evaluate(Runnable admissionRelease) throws Exception;
+    }
+}
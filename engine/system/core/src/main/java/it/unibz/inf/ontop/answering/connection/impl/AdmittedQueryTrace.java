@@ -0,0 +1,69 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.monitoring.QueryCounter;
+import it.unibz.inf.ontop.answering.monitoring.QueryStage;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
+
+/**
+ * Releases the admission of the query (see QueryExecutionService) when the trace is closed,
+ * that is, when the result set is consumed or closed.
+ */
+class AdmittedQueryTrace implements QueryTrace {
+
+    private final QueryTrace trace;
+    private final Runnable admissionRelease;
+
+    AdmittedQueryTrace(QueryTrace trace, Runnable admissionRelease) {
+        this.trace = trace;
+        this.admissionRelease = admissionRelease;
+    }
+
+    @Override
+    public void recordStage(QueryStage stage, long durationInNanos) {
+        trace.recordStage(stage, durationInNanos);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return trace.isEnabled();
+    }
+
+    @Override
+    public void addToCounter(QueryCounter counter, long value) {
+        trace.addToCounter(counter, value);
+    }
+
+    @Override
+    public void setCounter(QueryCounter counter, long value) {
+        trace.setCounter(counter, value);
+    }
+
+    @Override
+    public void setNativeQuery(String nativeQuery) {
+        trace.setNativeQuery(nativeQuery);
+    }
+
+    @Override
+    public void setFailed() {
+        trace.setFailed();
+    }
+
+    @Override
+    public long getStageDuration(QueryStage stage) {
+        return trace.getStageDuration(stage);
+    }
+
+    @Override
+    public long getCounter(QueryCounter counter) {
+        return trace.getCounter(counter);
+    }
+
+    @Override
+    public void close() {
+        try {
+            trace.close();
+        } finally {
+            admissionRelease.run();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.inject.Inject;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
+import it.unibz.inf.ontop.exception.OntopQueryEvaluationException;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits at most maxConcurrentQueries + queryQueueSize queries at the same time. Beyond it, queries are rejected.
+ * A query remains admitted until its results have been consumed or closed.
+ *
+ * By default, queries are evaluated by a pool of maxConcurrentQueries daemon threads (released when idle).
+ * If enabled and supported by the JVM (Java 21+), each query is evaluated by a virtual thread,
+ * the concurrency being then bounded by a semaphore.
+ */
+public class BoundedQueryExecutionService implements QueryExecutionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedQueryExecutionService.class);
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final AtomicInteger SERVICE_COUNTER = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final Semaphore admissionPermits;
+    private final int admissionCapacity;
+    // Only for virtual threads (otherwise bounded by the pool)
+    @Nullable
+    private final Semaphore runningPermits;
+
+    @Inject
+    private BoundedQueryExecutionService(OntopSystemSettings settings) {
+        int maxConcurrentQueries = settings.getMaxConcurrentQueries();
+        if (maxConcurrentQueries < 1)
+            throw new IllegalArgumentException(OntopSystemSettings.MAX_CONCURRENT_QUERIES + " must be positive");
+
+        this.admissionCapacity = maxConcurrentQueries + Math.max(0, settings.getQueryQueueSize());
+        this.admissionPermits = new Semaphore(admissionCapacity);
+
+        Optional<ExecutorService> virtualThreadExecutor = settings.isVirtualThreadExecutionEnabled()
+                ? createVirtualThreadExecutor()
+                : Optional.empty();
+
+        if (virtualThreadExecutor.isPresent()) {
+            this.executor = virtualThreadExecutor.get();
+            this.runningPermits = new Semaphore(maxConcurrentQueries, true);
+        }
+        else {
+            ThreadPoolExecutor threadPool = new ThreadPoolExecutor(maxConcurrentQueries, maxConcurrentQueries,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    createThreadFactory());
+            threadPool.allowCoreThreadTimeOut(true);
+            this.executor = threadPool;
+            this.runningPermits = null;
+        }
+    }
+
+    @Override
+    public <T> Future<T> submit(AdmittedQuery<T> query) throws OntopQueryEvaluationException {
+        if (!admissionPermits.tryAcquire())
+            throw new OntopQueryEvaluationException("Too many queries are already admitted (limit: "
+                    + admissionCapacity + ")");
+
+        Admission admission = new Admission();
+        FutureTask<T> admittedQuery = new FutureTask<T>(() -> admission.evaluate(query)) {
+            @Override
+            protected void done() {
+                // Cancelled before starting
+                if (!admission.isStarted())
+                    admission.release();
+            }
+        };
+        try {
+            executor.execute(admittedQuery);
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            throw new OntopQueryEvaluationException("The query has been rejected by the executor");
+        }
+        return admittedQuery;
+    }
+
+    @Override
+    public int getAdmittedQueryCount() {
+        return admissionCapacity - admissionPermits.availablePermits();
+    }
+
+    private static Optional<ExecutorService> createVirtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null));
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not supported by this JVM. Using a pool of threads instead.");
+            return Optional.empty();
+        }
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        String prefix = "ontop-query-" + SERVICE_COUNTER.incrementAndGet() + "-";
+        AtomicInteger threadCounter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + threadCounter.incrementAndGet());
+            // Does not prevent the JVM from exiting when the query engine is not closed
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+
+    /**
+     * Releases its admission permit once: when requested by the query (once its results have been consumed),
+     * when the evaluation fails or when the query is cancelled before starting
+     */
+    private class Admission {
+
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        <T> T evaluate(AdmittedQuery<T> query) throws Exception {
+            started.set(true);
+            try {
+                if (runningPermits == null)
+                    return query.evaluate(this::release);
+
+                runningPermits.acquireUninterruptibly();
+                try {
+                    return query.evaluate(this::release);
+                } finally {
+                    runningPermits.release();
+                }
+            } catch (Exception | Error e) {
+                release();
+                throw e;
+            }
+        }
+
+        boolean isStarted() {
+            return started.get();
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true))
+                admissionPermits.release();
+        }
+    }
+}
@@ -22,10 +22,14 @@ package it.unibz.inf.ontop.answering.connection.impl;
 
 import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
 import it.unibz.inf.ontop.answering.resultset.*;
+import it.unibz.inf.ontop.dbschema.RelationID;
 import it.unibz.inf.ontop.exception.*;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.model.term.Constant;
 import it.unibz.inf.ontop.model.term.IRIConstant;
@@ -33,150 +37,128 @@ import org.eclipse.rdf4j.query.MalformedQueryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CountDownLatch;
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 
 /**
  * Abstract implementation of OntopStatement.
  *
+ * Queries are reformulated and evaluated by the QueryExecutionService of the query engine,
+ * within the wall-clock deadline given by the query timeout.
+ *
+ * Each query is traced by the QueryMonitor of the reformulator. The trace is handed over to the result set,
+ * which closes it once consumed (or closed). Closing the trace releases the admission of the query.
+ * The trace of the last result set is also closed by the statement before executing the next query,
+ * when cancelled and when closed, so that abandoned result sets do not keep their admission.
+ *
  */
 public abstract class QuestStatement implements OntopStatement {
 
 	private final QueryReformulator engine;
 	private final InputQueryFactory inputQueryFactory;
+	private final QueryExecutionService executionService;
+	private final Optional<Integer> defaultQueryTimeout;
 
-	private QueryExecutionThread executionThread;
-	private boolean canceled = false;
+	@Nullable
+	private volatile Execution currentExecution;
+	// Held while evaluating the executable query: an execution still running after its deadline
+	// must not use the DB statement at the same time as the next one
+	private final Object evaluationLock = new Object();
+	// Guarded by evaluationLock
+	@Nullable
+	private Execution evaluatingExecution;
+	// Of the last executed query
+	private volatile Optional<ImmutableSet<RelationID>> sourceRelations = Optional.empty();
 
 
 	private static final Logger log = LoggerFactory.getLogger(QuestStatement.class);
 
 
-	public QuestStatement(QueryReformulator queryProcessor, InputQueryFactory inputQueryFactory) {
+	public QuestStatement(QueryReformulator queryProcessor, InputQueryFactory inputQueryFactory,
+						  QueryExecutionService executionService, OntopSystemSettings settings) {
 		this.engine = queryProcessor;
 		this.inputQueryFactory = inputQueryFactory;
+		this.executionService = executionService;
+		this.defaultQueryTimeout = settings.getQueryTimeout();
 	}
 
 	/**
-	 * TODO: explain
+	 * Evaluates the executable query obtained by reformulating the input query
 	 */
 	@FunctionalInterface
 	private interface Evaluator<R extends OBDAResultSet, Q extends InputQuery<R>> {
 
-		R evaluate(Q inputQuery, IQ executableQuery)
+		R evaluate(Q inputQuery, IQ executableQuery, QueryTrace trace)
 				throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException;
 	}
 
-	/**
-	 * Execution thread
-	 */
-	private class QueryExecutionThread<R extends OBDAResultSet, Q extends InputQuery<R>> extends Thread {
-
-		private final Q inputQuery;
-		private final QuestStatement.Evaluator<R, Q> evaluator;
-		private final CountDownLatch monitor;
-		private final IQ executableQuery;
-
-		private R resultSet;	  // only for SELECT and ASK queries
-		private Exception exception;
-		private boolean executingTargetQuery;
-
-		QueryExecutionThread(Q inputQuery, IQ executableQuery, Evaluator<R,Q> evaluator,
-							 CountDownLatch monitor) {
-			this.executableQuery = executableQuery;
-			this.inputQuery = inputQuery;
-			this.evaluator = evaluator;
-			this.monitor = monitor;
-			this.exception = null;
-			this.executingTargetQuery = false;
-		}
-
-		public boolean errorStatus() {
-			return exception != null;
-		}
-
-		public Exception getException() {
-			return exception;
-		}
+	@FunctionalInterface
+	private interface Reformulation {
 
-		public R getResultSet() {
-			return resultSet;
-		}
+		IQ reformulate(QueryTrace trace) throws OntopReformulationException;
+	}
 
-		public void cancel() throws OntopQueryEvaluationException {
-			canceled = true;
-			if (!executingTargetQuery) {
-				this.stop();
-			} else {
-				cancelExecution();
-			}
-		}
+	@FunctionalInterface
+	private interface ExecutableQueryEvaluator<R extends OBDAResultSet> {
 
-		@Override
-		public void run() {
-			//                        FOR debugging H2 in-memory database
-//			try {
-//				org.h2.tools.Server.startWebServer(((QuestConnection)conn).getSQLConnection());
-//			} catch (SQLException e) {
-//				e.printStackTrace();
-//			}
-			try {
-				/**
-				 * Executes the target query.
-				 */
-				log.debug("Executing the query and get the result...");
-				executingTargetQuery = true;
-				resultSet = evaluator.evaluate(inputQuery, executableQuery);
-				log.debug("Execution finished.\n");
-				/*
-				 * TODO: re-handle the timeout exception.
-				 */
-			} catch (Exception e) {
-				exception = e;
-				log.error(e.getMessage(), e);
-			} finally {
-				monitor.countDown();
-			}
-		}
+		R evaluate(IQ executableQuery, QueryTrace trace)
+				throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException;
 	}
 
-	protected abstract TupleResultSet executeSelectQuery(IQ executableQuery)
+	/**
+	 * The returned result set closes the trace
+	 */
+	protected abstract TupleResultSet executeSelectQuery(IQ executableQuery, QueryTrace trace)
 			throws OntopQueryEvaluationException;
 
-	private TupleResultSet executeSelectQuery(SelectQuery inputQuery, IQ executableQuery)
+	private TupleResultSet executeSelectQuery(SelectQuery inputQuery, IQ executableQuery, QueryTrace trace)
 			throws OntopQueryEvaluationException {
-		return executeSelectQuery(executableQuery);
+		return executeSelectQuery(executableQuery, trace);
 	}
 
-	protected abstract BooleanResultSet executeBooleanQuery(IQ executableQuery)
+	/**
+	 * The returned result set closes the trace
+	 */
+	protected abstract BooleanResultSet executeBooleanQuery(IQ executableQuery, QueryTrace trace)
 			throws OntopQueryEvaluationException;
 
-	private BooleanResultSet executeBooleanQuery(AskQuery inputQuery, IQ executableQuery)
+	private BooleanResultSet executeBooleanQuery(AskQuery inputQuery, IQ executableQuery, QueryTrace trace)
 			throws OntopQueryEvaluationException {
-		return executeBooleanQuery(executableQuery);
+		return executeBooleanQuery(executableQuery, trace);
 	}
 
 	/**
-	 * TODO: describe
+	 * The results are collected, as the results of the other CONSTRUCT queries of the DESCRIBE query are added to them
 	 */
-	private SimpleGraphResultSet executeDescribeConstructQuery(ConstructQuery constructQuery, IQ executableQuery)
+	private SimpleGraphResultSet executeDescribeConstructQuery(ConstructQuery constructQuery, IQ executableQuery,
+															   QueryTrace trace)
 			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException {
-		return executeGraphQuery(constructQuery, executableQuery, true);
+		return executeGraphQuery(constructQuery, executableQuery, true, trace);
 	}
 
 	/**
-	 * TODO: describe
+	 * The results are converted into triples as they are consumed
 	 */
-	private SimpleGraphResultSet executeConstructQuery(ConstructQuery constructQuery, IQ executableQuery)
+	private SimpleGraphResultSet executeConstructQuery(ConstructQuery constructQuery, IQ executableQuery,
+													   QueryTrace trace)
 			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException {
-		return executeGraphQuery(constructQuery, executableQuery, false);
+		return executeGraphQuery(constructQuery, executableQuery, false, trace);
 	}
 
 	/**
-	 * TODO: refactor
+	 * collectResults: if true, all the results are read and converted before returning the result set.
+	 *
+	 * The returned result set closes the trace
 	 */
 	protected abstract SimpleGraphResultSet executeGraphQuery(ConstructQuery query, IQ executableQuery,
-															  boolean collectResults)
+															  boolean collectResults, QueryTrace trace)
 			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException;
 
 	/**
@@ -184,6 +166,26 @@ public abstract class QuestStatement implements OntopStatement {
 	 */
 	protected abstract void cancelExecution() throws OntopQueryEvaluationException;
 
+	/**
+	 * Closes the DB statement
+	 */
+	protected abstract void closeStatement() throws OntopConnectionException;
+
+	/**
+	 * To be called by the implementation just before sending the native query to the DB,
+	 * as cancelling the DB statement before has no effect.
+	 *
+	 * Throws an exception if the execution has already been cancelled.
+	 */
+	protected void startNativeQueryExecution() throws OntopQueryEvaluationException {
+		Execution execution;
+		synchronized (evaluationLock) {
+			execution = evaluatingExecution;
+		}
+		if (execution != null && !execution.startNativeQueryExecution())
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
+	}
+
 	/**
 	 * Calls the necessary tuple or graph query execution Implements describe
 	 * uri or var logic Returns the result set for the given query
@@ -201,7 +203,10 @@ public abstract class QuestStatement implements OntopStatement {
 			return (R) executeInThread((ConstructQuery) inputQuery, this::executeConstructQuery);
 		}
 		else if (inputQuery instanceof DescribeQuery) {
-			return (R) executeDescribeQuery((DescribeQuery) inputQuery);
+			SimpleGraphResultSet resultSet = executeDescribeQuery((DescribeQuery) inputQuery);
+			// Made of several queries
+			sourceRelations = Optional.empty();
+			return (R) resultSet;
 		}
 		else {
 			throw new OntopUnsupportedInputQueryException("Unsupported query type: " + inputQuery);
@@ -209,8 +214,8 @@ public abstract class QuestStatement implements OntopStatement {
 	}
 
 	/**
-	 * TODO: completely refactor this old-way of processing DESCRIBE.
-	 *  ---> should be converted into 1 CONSTRUCT query
+	 * Evaluates one CONSTRUCT query per described IRI, in subject and in object positions,
+	 * and collects their results into the first result set.
 	 */
 	private SimpleGraphResultSet executeDescribeQuery(DescribeQuery inputQuery)
 			throws OntopReformulationException, OntopResultConversionException, OntopConnectionException,
@@ -301,63 +306,210 @@ public abstract class QuestStatement implements OntopStatement {
 
 
 	/**
-	 * Internal method to start a new query execution thread type defines the
-	 * query type SELECT, ASK, CONSTRUCT, or DESCRIBE
+	 * Internal method for reformulating and evaluating the query with the execution service.
+	 * Type defines the query type SELECT, ASK, CONSTRUCT, or DESCRIBE
 	 */
 	private <R extends OBDAResultSet, Q extends InputQuery<R>> R executeInThread(Q inputQuery, Evaluator<R, Q> evaluator)
 			throws OntopReformulationException, OntopQueryEvaluationException {
 
 		log.debug("Executing SPARQL query: \n{}", inputQuery.getInputString());
+		return evaluateInThread(inputQuery::getInputString,
+				t -> engine.reformulateIntoNativeQuery(inputQuery, t),
+				(q, t) -> evaluator.evaluate(inputQuery, q, t));
+	}
 
-		CountDownLatch monitor = new CountDownLatch(1);
-		IQ executableQuery = engine.reformulateIntoNativeQuery(inputQuery);
+	@Override
+	public TupleResultSet executeDBQuery(IQ dbQuery) throws OntopReformulationException, OntopQueryEvaluationException {
+		log.debug("Executing DB query: \n{}", dbQuery);
+		return evaluateInThread(dbQuery::toString,
+				t -> engine.reformulateDBQueryIntoNativeQuery(dbQuery, t),
+				this::executeSelectQuery);
+	}
 
-		QueryExecutionThread<R, Q> executionthread = new QueryExecutionThread<>(inputQuery, executableQuery, evaluator,
-				monitor);
+	/**
+	 * The trace is closed here if no result set is returned
+	 */
+	private <R extends OBDAResultSet> R evaluateInThread(Supplier<String> queryString, Reformulation reformulation,
+														 ExecutableQueryEvaluator<R> evaluator)
+			throws OntopReformulationException, OntopQueryEvaluationException {
+		sourceRelations = Optional.empty();
+		// Its JDBC result set is closed by the next execution
+		closeDeliveredTrace();
+		QueryTrace trace = engine.getQueryMonitor().startQuery(queryString);
+		try {
+			return evaluateInThread(reformulation, evaluator, trace);
+		} catch (OntopReformulationException | OntopQueryEvaluationException | RuntimeException | Error e) {
+			trace.setFailed();
+			trace.close();
+			throw e;
+		}
+	}
 
-		this.executionThread = executionthread;
-		executionthread.start();
+	private <R extends OBDAResultSet> R evaluateInThread(Reformulation reformulation,
+														 ExecutableQueryEvaluator<R> evaluator, QueryTrace trace)
+			throws OntopReformulationException, OntopQueryEvaluationException {
+		Optional<Integer> timeout = getEffectiveQueryTimeout();
+
+		Execution execution = new Execution();
+		currentExecution = execution;
+		Future<R> future = executionService.submit(admissionRelease -> {
+			QueryTrace admittedTrace = new AdmittedQueryTrace(trace, admissionRelease);
+			execution.setTrace(admittedTrace);
+			return reformulateAndEvaluate(reformulation, evaluator, admittedTrace, execution);
+		});
+		execution.setFuture(future);
 		try {
-			monitor.await();
+			try {
+				return timeout.isPresent()
+						? future.get(timeout.get(), TimeUnit.SECONDS)
+						: future.get();
+			} catch (TimeoutException e) {
+				if (cancel(execution))
+					throw new OntopQueryEvaluationException("The query execution has exceeded the timeout of "
+							+ timeout.get() + " seconds");
+				// Delivered after the deadline: no longer cancellable
+				return future.get();
+			}
+		} catch (CancellationException e) {
+			throw new OntopQueryEvaluationException("Query execution was cancelled");
 		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-		if (executionthread.errorStatus()) {
-			Exception ex = executionthread.getException();
-			if (ex instanceof OntopReformulationException) {
-				throw (OntopReformulationException) ex;
+			cancel(execution);
+			Thread.currentThread().interrupt();
+			throw new OntopQueryEvaluationException("Query execution was interrupted");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OntopReformulationException) {
+				throw (OntopReformulationException) cause;
+			}
+			else if (cause instanceof OntopQueryEvaluationException) {
+				throw (OntopQueryEvaluationException) cause;
 			}
-			else if (ex instanceof OntopQueryEvaluationException) {
-				throw (OntopQueryEvaluationException) ex;
+			else if (cause instanceof Error) {
+				throw (Error) cause;
 			}
 			else {
-				throw new OntopQueryEvaluationException(ex);
+				throw new OntopQueryEvaluationException((Exception) cause);
 			}
 		}
+	}
 
-		if (canceled) {
-			canceled = false;
-			throw new OntopQueryEvaluationException("Query execution was cancelled");
+	/**
+	 * Run by the execution service.
+	 *
+	 * Cancellation is cooperative: checked after the reformulation, and by the DB while evaluating the native query.
+	 */
+	private <R extends OBDAResultSet> R reformulateAndEvaluate(Reformulation reformulation,
+															   ExecutableQueryEvaluator<R> evaluator, QueryTrace trace,
+															   Execution execution)
+			throws OntopReformulationException, OntopQueryEvaluationException, OntopResultConversionException,
+			OntopConnectionException {
+		IQ executableQuery = reformulation.reformulate(trace);
+		Optional<ImmutableSet<RelationID>> relations = engine.getSourceRelations(executableQuery);
+
+		synchronized (evaluationLock) {
+			if (execution.isCanceled())
+				throw new OntopQueryEvaluationException("Query execution was cancelled");
+
+			evaluatingExecution = execution;
+			try {
+				log.debug("Executing the query and get the result...");
+				R resultSet = evaluator.evaluate(executableQuery, trace);
+				log.debug("Execution finished.\n");
+
+				// Nobody will consume it
+				if (!execution.deliver()) {
+					resultSet.close();
+					throw new OntopQueryEvaluationException("Query execution was cancelled");
+				}
+				sourceRelations = relations;
+				return resultSet;
+			} finally {
+				evaluatingExecution = null;
+			}
 		}
-		return executionthread.getResultSet();
 	}
 
-	
+	/**
+	 * The timeout of the statement (if set) has precedence over the default one
+	 */
+	private Optional<Integer> getEffectiveQueryTimeout() throws OntopQueryEvaluationException {
+		try {
+			int statementTimeout = getQueryTimeout();
+			return statementTimeout > 0
+					? Optional.of(statementTimeout)
+					: defaultQueryTimeout.filter(t -> t > 0);
+		} catch (OntopConnectionException e) {
+			throw new OntopQueryEvaluationException(e);
+		}
+	}
+
+	/**
+	 * Returns false if the result set has already been delivered
+	 */
+	private boolean cancel(Execution execution) throws OntopQueryEvaluationException {
+		if (!execution.cancel())
+			return false;
+
+		Future<?> future = execution.getFuture();
+		if (future != null)
+			// Not interrupting: some JDBC drivers close the connection of an interrupted thread
+			future.cancel(false);
+		// Otherwise, cancelled before sending the native query (see startNativeQueryExecution())
+		if (execution.isNativeQueryExecutionStarted())
+			cancelExecution();
+		return true;
+	}
+
+	/**
+	 * If the result set has already been delivered, stops the DB from sending its results
+	 * and closes its trace (releasing its admission).
+	 */
 	@Override
 	public void cancel() throws OntopConnectionException {
-		canceled = true;
+		Execution execution = currentExecution;
+		if (execution == null)
+			return;
 		try {
-			QuestStatement.this.executionThread.cancel();
+			if (!cancel(execution)) {
+				cancelExecution();
+				execution.closeDeliveredTrace();
+			}
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
 		}
 	}
 
 	/**
-	 * Called to check whether the statement was cancelled on purpose
+	 * Also cancels the current execution and closes the trace of the last result set
+	 */
+	@Override
+	public void close() throws OntopConnectionException {
+		try {
+			Execution execution = currentExecution;
+			if (execution != null && !cancel(execution))
+				execution.closeDeliveredTrace();
+		} catch (OntopQueryEvaluationException e) {
+			throw new OntopConnectionException(e);
+		} finally {
+			closeStatement();
+		}
+	}
+
+	/**
+	 * The result set of the last execution is abandoned
+	 */
+	private void closeDeliveredTrace() {
+		Execution execution = currentExecution;
+		if (execution != null)
+			execution.closeDeliveredTrace();
+	}
+
+	/**
+	 * Called to check whether the last execution was cancelled on purpose
 	 */
 	public boolean isCanceled(){
-		return canceled;
+		Execution execution = currentExecution;
+		return execution != null && execution.isCanceled();
 	}
 
 	@Override
@@ -371,4 +523,86 @@ public abstract class QuestStatement implements OntopStatement {
 			return engine.reformulateIntoNativeQuery(inputQuery);
 	}
 
+	@Override
+	public Optional<ImmutableSet<RelationID>> getSourceRelations() {
+		return sourceRelations;
+	}
+
+
+	/**
+	 * Cancellation token of one execution, captured by its task.
+	 *
+	 * An execution can only be cancelled until its result set is delivered.
+	 * The native query is not sent to the DB once the execution is cancelled.
+	 */
+	private static class Execution {
+
+		@Nullable
+		private volatile Future<?> future;
+		// Trace handed over to the result set
+		@Nullable
+		private volatile QueryTrace trace;
+		// Guarded by this
+		private boolean canceled = false;
+		// Guarded by this
+		private boolean nativeQueryExecutionStarted = false;
+		// Guarded by this
+		private boolean delivered = false;
+
+		void setFuture(Future<?> future) {
+			this.future = future;
+		}
+
+		@Nullable
+		Future<?> getFuture() {
+			return future;
+		}
+
+		void setTrace(QueryTrace trace) {
+			this.trace = trace;
+		}
+
+		/**
+		 * Before being delivered, the trace is closed by the task
+		 */
+		void closeDeliveredTrace() {
+			QueryTrace deliveredTrace = trace;
+			if (deliveredTrace != null && isDelivered())
+				deliveredTrace.close();
+		}
+
+		synchronized boolean startNativeQueryExecution() {
+			if (canceled)
+				return false;
+			nativeQueryExecutionStarted = true;
+			return true;
+		}
+
+		synchronized boolean isNativeQueryExecutionStarted() {
+			return nativeQueryExecutionStarted;
+		}
+
+		synchronized boolean isDelivered() {
+			return delivered;
+		}
+
+		synchronized boolean cancel() {
+			if (delivered)
+				return false;
+			canceled = true;
+			return true;
+		}
+
+		synchronized boolean deliver() {
+			if (canceled)
+				return false;
+			delivered = true;
+			return true;
+		}
+
+		synchronized boolean isCanceled() {
+			return canceled;
+		}
+	}
+
 }
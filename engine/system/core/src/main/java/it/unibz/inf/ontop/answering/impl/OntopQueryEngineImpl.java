@@ -4,6 +4,8 @@ package it.unibz.inf.ontop.answering.impl;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.monitoring.QueryMetrics;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStats;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.injection.OntopSystemFactory;
@@ -16,13 +18,14 @@ import it.unibz.inf.ontop.spec.OBDASpecification;
 public class OntopQueryEngineImpl implements OntopQueryEngine {
 
     private final DBConnector dbConnector;
+    private final QueryReformulator queryReformulator;
 
     @AssistedInject
     private OntopQueryEngineImpl(@Assisted OBDASpecification obdaSpecification,
                                  @Assisted ExecutorRegistry executorRegistry,
                                  ReformulationFactory translationFactory,
                                  OntopSystemFactory systemFactory) {
-        QueryReformulator queryReformulator = translationFactory.create(obdaSpecification, executorRegistry);
+        queryReformulator = translationFactory.create(obdaSpecification, executorRegistry);
         dbConnector = systemFactory.create(queryReformulator, obdaSpecification.getDBMetadata());
     }
 
@@ -33,6 +36,7 @@ public class OntopQueryEngineImpl implements OntopQueryEngine {
 
     @Override
     public void close() throws OntopConnectionException {
+        queryReformulator.getQueryMonitor().close();
         dbConnector.close();
     }
 
@@ -40,4 +44,14 @@ public class OntopQueryEngineImpl implements OntopQueryEngine {
     public OntopConnection getConnection() throws OntopConnectionException {
         return dbConnector.getConnection();
     }
+
+    @Override
+    public QueryCacheStats getQueryCacheStats() {
+        return queryReformulator.getQueryCacheStats();
+    }
+
+    @Override
+    public QueryMetrics getQueryMetrics() {
+        return queryReformulator.getQueryMonitor().getMetrics();
+    }
 }
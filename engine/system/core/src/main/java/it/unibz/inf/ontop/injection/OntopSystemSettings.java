@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection;
 
+import java.util.Optional;
 
 public interface OntopSystemSettings extends OntopReformulationSettings {
 
@@ -9,11 +10,37 @@ public interface OntopSystemSettings extends OntopReformulationSettings {
      */
     boolean isPermanentDBConnectionEnabled();
 
+    /**
+     * Maximal number of queries evaluated at the same time by a query engine
+     */
+    int getMaxConcurrentQueries();
+
+    /**
+     * Maximal number of queries waiting for being evaluated (or whose results are still being consumed).
+     * Beyond it, new queries are rejected.
+     */
+    int getQueryQueueSize();
+
+    /**
+     * Wall-clock deadline (in seconds) covering both the reformulation and the evaluation of a query.
+     * By default, queries do not time out (unless a timeout is set on the statement).
+     */
+    Optional<Integer> getQueryTimeout();
+
+    /**
+     * If enabled and supported by the JVM, queries are evaluated by virtual threads instead of a pool of threads
+     */
+    boolean isVirtualThreadExecutionEnabled();
+
     //--------------------------
     // Keys
     //--------------------------
 
     String PERMANENT_DB_CONNECTION = "ontop.permanentConnection";
+    String MAX_CONCURRENT_QUERIES = "ontop.maxConcurrentQueries";
+    String QUERY_QUEUE_SIZE = "ontop.queryQueueSize";
+    String QUERY_TIMEOUT = "ontop.queryTimeout";
+    String VIRTUAL_THREADS = "ontop.virtualThreads";
 
 
 }
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.injection.impl;
 import it.unibz.inf.ontop.injection.OntopOBDASettings;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 
+import java.util.Optional;
 import java.util.Properties;
 
 public class OntopSystemSettingsImpl extends OntopReformulationSettingsImpl implements OntopSystemSettings {
@@ -27,4 +28,24 @@ public class OntopSystemSettingsImpl extends OntopReformulationSettingsImpl impl
     public boolean isPermanentDBConnectionEnabled() {
         return getRequiredBoolean(PERMANENT_DB_CONNECTION);
     }
+
+    @Override
+    public int getMaxConcurrentQueries() {
+        return getRequiredInteger(MAX_CONCURRENT_QUERIES);
+    }
+
+    @Override
+    public int getQueryQueueSize() {
+        return getRequiredInteger(QUERY_QUEUE_SIZE);
+    }
+
+    @Override
+    public Optional<Integer> getQueryTimeout() {
+        return getInteger(QUERY_TIMEOUT);
+    }
+
+    @Override
+    public boolean isVirtualThreadExecutionEnabled() {
+        return getRequiredBoolean(VIRTUAL_THREADS);
+    }
 }
@@ -0,0 +1,23 @@
+package it.unibz.inf.ontop.materialization;
+
+import java.io.IOException;
+
+/**
+ * Output into which the consumer writes the materialized triples (e.g. an N-Triples file), as seen by the checkpoint.
+ *
+ * Called by the thread consuming the triples.
+ */
+public interface MaterializationOutput {
+
+    /**
+     * Flushes the triples consumed so far and forces them to the storage device.
+     *
+     * Returns the resulting position of the output (e.g. the size of the file in bytes).
+     */
+    long sync() throws IOException;
+
+    /**
+     * Discards what has been written after the given position (previously returned by sync()).
+     */
+    void truncate(long position) throws IOException;
+}
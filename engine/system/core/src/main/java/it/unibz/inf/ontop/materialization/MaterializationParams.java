@@ -1,7 +1,11 @@
 package it.unibz.inf.ontop.materialization;
 
+import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.materialization.impl.MaterializationParamsImpl;
 
+import java.io.File;
+import java.util.Optional;
+
 /**
  * Materialization-specific parameters
  */
@@ -23,6 +27,55 @@ public interface MaterializationParams {
      */
     boolean canMaterializationBeIncomplete();
 
+    /**
+     * If true, each mapping assertion defining an RDF class/property is directly translated into a native query,
+     * without going through a SPARQL CONSTRUCT query (no parsing, rewriting nor unfolding).
+     *
+     * True by default.
+     */
+    boolean isDirectMaterializationEnabled();
+
+    /**
+     * Number of RDF classes and properties materialized concurrently, each with its own connection.
+     * Their triples are then interleaved, unless a checkpoint is used.
+     *
+     * 1 (sequential) by default.
+     */
+    int getParallelism();
+
+    /**
+     * File in which the completed classes and properties are recorded (one IRI per line,
+     * followed by the position of the checkpoint output).
+     * The classes and properties already recorded in it are skipped, so that a failed materialization
+     * can be resumed.
+     *
+     * None by default.
+     * Ignored by the incremental materialization.
+     */
+    Optional<File> getCheckpointFile();
+
+    /**
+     * Present if and only if the checkpoint file is.
+     *
+     * Synced before recording a class or property in the checkpoint, and truncated to the position
+     * of the last recorded one when (re-)starting the materialization.
+     * The triples of each class or property are delivered contiguously, so that this position
+     * never falls in the middle of the triples of a class or property materialized concurrently.
+     */
+    Optional<MaterializationOutput> getCheckpointOutput();
+
+    /**
+     * None by default.
+     */
+    Optional<MaterializationProgressListener> getProgressListener();
+
+    /**
+     * Changes of the source relations, used by the incremental materialization.
+     *
+     * Empty by default.
+     */
+    ImmutableList<RelationChanges> getRelationChanges();
+
 
     static Builder defaultBuilder() {
         return new MaterializationParamsImpl.DefaultBuilder<>();
@@ -35,6 +88,19 @@ public interface MaterializationParams {
 
         B enableIncompleteMaterialization(boolean enable);
 
+        B enableDirectMaterialization(boolean enable);
+
+        B parallelism(int parallelism);
+
+        B checkpoint(File checkpointFile, MaterializationOutput output);
+
+        B progressListener(MaterializationProgressListener listener);
+
+        /**
+         * Can be called several times (at most once per relation)
+         */
+        B relationChanges(RelationChanges changes);
+
         MaterializationParams build();
 
     }
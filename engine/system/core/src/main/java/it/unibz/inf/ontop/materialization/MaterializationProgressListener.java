@@ -0,0 +1,21 @@
+package it.unibz.inf.ontop.materialization;
+
+import org.apache.commons.rdf.api.IRI;
+
+/**
+ * Notified each time the materialization of an RDF class or property completes,
+ * that is, when all its triples have been returned by the result set.
+ *
+ * May be called from a thread of the materializer.
+ */
+@FunctionalInterface
+public interface MaterializationProgressListener {
+
+    /**
+     * isPossiblyIncomplete: true if a problem occurred (only when incomplete materialization is enabled)
+     * completedCount: number of classes and properties completed so far, including this one
+     * totalCount: number of classes and properties to materialize
+     */
+    void onCompleted(IRI classOrProperty, long tripleCount, boolean isPossiblyIncomplete,
+                     int completedCount, int totalCount);
+}
@@ -23,6 +23,28 @@ public interface OntopRDFMaterializer {
     MaterializedGraphResultSet materialize(@Nonnull ImmutableSet<IRI> selectedVocabulary)
             throws OBDASpecificationException;
 
+    /**
+     * Incremental materialization: triples derived from the rows inserted or updated since the previous
+     * materialization, as described by MaterializationParams.getRelationChanges().
+     *
+     * Only the mapping assertions using the changed relations are evaluated.
+     * Rows inserted in different relations are not joined together (only with the current state of the other
+     * relations).
+     */
+    MaterializedGraphResultSet materializeAddedTriples()
+            throws OBDASpecificationException;
+
+    /**
+     * Incremental materialization: triples derived from the rows deleted since the previous materialization
+     * that are not derivable anymore from the current state of the relations.
+     * Only change tables can report deletions (and the old version of updated rows).
+     *
+     * The deleted rows are joined with the current state of the other relations.
+     * The changes are expected to be already applied to the relations.
+     */
+    MaterializedGraphResultSet materializeRemovedTriples()
+            throws OBDASpecificationException;
+
     /**
      * Default implementation
      */
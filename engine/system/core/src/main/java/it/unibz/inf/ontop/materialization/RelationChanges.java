@@ -0,0 +1,82 @@
+package it.unibz.inf.ontop.materialization;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+/**
+ * Describes how the changes of a source relation since the previous materialization can be retrieved,
+ * for the incremental materialization (see OntopRDFMaterializer.materializeAddedTriples()).
+ *
+ * Relation and column names are given in their SQL rendering (possibly quoted).
+ * Relation names can be qualified by a schema (e.g. "schema.table").
+ */
+public class RelationChanges {
+
+    private final String relation;
+    private final String column;
+    @Nullable
+    private final String lastWatermarkValue;
+    @Nullable
+    private final String changeTable;
+
+    private RelationChanges(String relation, String column, @Nullable String lastWatermarkValue,
+                            @Nullable String changeTable) {
+        this.relation = relation;
+        this.column = column;
+        this.lastWatermarkValue = lastWatermarkValue;
+        this.changeTable = changeTable;
+    }
+
+    /**
+     * The rows whose watermark column (e.g. a last-modification timestamp or an increasing version number)
+     * is greater than the last value are considered as inserted.
+     *
+     * Deletions cannot be detected. Neither can the old version of the updated rows: the triples derived from it
+     * are not removed. A relation whose rows are updated or deleted must be tracked by a change table.
+     */
+    public static RelationChanges watermark(String relation, String watermarkColumn, String lastValue) {
+        return new RelationChanges(relation, watermarkColumn, lastValue, null);
+    }
+
+    /**
+     * The change table (e.g. filled by a CDC tool) has the same columns as the relation, plus an operation column.
+     * Its rows are inserted (operation "I") or deleted (operation "D") rows of the relation.
+     * An update is expected to appear as the deletion of the old row and the insertion of the new one:
+     * only the triples that are not derivable anymore are then reported as removed.
+     */
+    public static RelationChanges changeTable(String relation, String changeTable, String operationColumn) {
+        return new RelationChanges(relation, operationColumn, null, changeTable);
+    }
+
+    public String getRelation() {
+        return relation;
+    }
+
+    /**
+     * Watermark column or operation column of the change table
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Only present for watermarks
+     */
+    public Optional<String> getLastWatermarkValue() {
+        return Optional.ofNullable(lastWatermarkValue);
+    }
+
+    /**
+     * Only present for change tables
+     */
+    public Optional<String> getChangeTable() {
+        return Optional.ofNullable(changeTable);
+    }
+
+    @Override
+    public String toString() {
+        return (changeTable == null)
+                ? String.format("%s (%s > %s)", relation, column, lastWatermarkValue)
+                : String.format("%s (change table %s, operation column %s)", relation, changeTable, column);
+    }
+}
@@ -28,15 +28,20 @@ import com.google.inject.Injector;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
-import it.unibz.inf.ontop.answering.reformulation.input.ConstructQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
-import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
 import it.unibz.inf.ontop.exception.*;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.injection.OntopSystemConfiguration;
 import it.unibz.inf.ontop.injection.OntopSystemFactory;
 import it.unibz.inf.ontop.materialization.MaterializationParams;
 import it.unibz.inf.ontop.materialization.OntopRDFMaterializer;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.UnaryIQTree;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
 import it.unibz.inf.ontop.model.atom.TriplePredicate;
 import it.unibz.inf.ontop.spec.OBDASpecification;
 import it.unibz.inf.ontop.spec.mapping.Mapping;
@@ -48,9 +53,12 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 
@@ -62,50 +70,127 @@ import java.util.stream.Stream;
  */
 public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 
-	private static int FETCH_SIZE = 50000;
+	static final int FETCH_SIZE = 50000;
 	private final MaterializationParams params;
 	private final InputQueryFactory inputQueryFactory;
 	private final OntopQueryEngine queryEngine;
+	private final IntermediateQueryFactory iqFactory;
+	private final org.apache.commons.rdf.api.RDF rdfFactory;
+	private final RelationChangeRewriter relationChangeRewriter;
 
 	private final ImmutableMap<IRI, VocabularyEntry> vocabulary;
 
-	private static final class VocabularyEntry {
+	static final class VocabularyEntry {
         private final IRI name;
         private final int arity;
+        // One query per mapping assertion (for the direct materialization)
+        private final ImmutableList<IQ> mappingAssertionQueries;
 
-        VocabularyEntry(IRI predicate, int arity) {
+        VocabularyEntry(IRI predicate, int arity, ImmutableList<IQ> mappingAssertionQueries) {
 
                 this.name =predicate;
 
             	this.arity = arity;
+            	this.mappingAssertionQueries = mappingAssertionQueries;
         }
 
         private static final String PROPERTY_QUERY = "CONSTRUCT {?s <%s> ?o} WHERE {?s <%s> ?o}";
         private static final String CLASS_QUERY = "CONSTRUCT {?s a <%s>} WHERE {?s a <%s>}";
 
+        IRI getName() {
+            return name;
+        }
+
         String getQuery() {
             return String.format((arity == 1) ? CLASS_QUERY : PROPERTY_QUERY, name.getIRIString(), name.getIRIString());
         }
+
+        ImmutableList<IQ> getMappingAssertionQueries() {
+            return mappingAssertionQueries;
+        }
     }
 
+	/**
+	 * Returns the triples of a class/property, using the given statement
+	 */
+	@FunctionalInterface
+	interface EntryEvaluator {
+
+		GraphResultSet<?> evaluate(VocabularyEntry entry, OntopStatement statement)
+				throws OntopQueryAnsweringException, OntopConnectionException;
+	}
+
 	public DefaultOntopRDFMaterializer(OntopSystemConfiguration configuration, MaterializationParams materializationParams) throws OBDASpecificationException {
 		Injector injector = configuration.getInjector();
 		OntopSystemFactory engineFactory = injector.getInstance(OntopSystemFactory.class);
 		OBDASpecification specification = configuration.loadSpecification();
 		this.queryEngine = engineFactory.create(specification, configuration.getExecutorRegistry());
 		this.inputQueryFactory = injector.getInstance(InputQueryFactory.class);
+		this.iqFactory = injector.getInstance(IntermediateQueryFactory.class);
+		this.rdfFactory = injector.getInstance(org.apache.commons.rdf.api.RDF.class);
 		this.vocabulary = extractVocabulary(specification.getSaturatedMapping());
 		this.params = materializationParams;
+		this.relationChangeRewriter = new RelationChangeRewriter(materializationParams.getRelationChanges(),
+				specification.getDBMetadata(), injector);
 	}
 
 	@Override
 	public MaterializedGraphResultSet materialize() {
-		return new DefaultMaterializedGraphResultSet(vocabulary, params, queryEngine, inputQueryFactory);
+		return createResultSet(vocabulary, createEntryEvaluator(),
+				new MaterializationProgress(createCheckpoint(), params.getProgressListener()));
 	}
 
 	@Override
 	public MaterializedGraphResultSet materialize(@Nonnull ImmutableSet<IRI> selectedVocabulary) {
-		return new DefaultMaterializedGraphResultSet(filterVocabularyEntries(selectedVocabulary), params, queryEngine, inputQueryFactory);
+		return createResultSet(filterVocabularyEntries(selectedVocabulary), createEntryEvaluator(),
+				new MaterializationProgress(createCheckpoint(), params.getProgressListener()));
+	}
+
+	private Optional<MaterializationCheckpoint> createCheckpoint() {
+		return params.getCheckpointFile()
+				.map(f -> new MaterializationCheckpoint(f, params.getCheckpointOutput().get()));
+	}
+
+	@Override
+	public MaterializedGraphResultSet materializeAddedTriples() {
+		return createDeltaResultSet(relationChangeRewriter::rewriteForAddedTriples);
+	}
+
+	@Override
+	public MaterializedGraphResultSet materializeRemovedTriples() {
+		return createDeltaResultSet(relationChangeRewriter::rewriteForRemovedTriples);
+	}
+
+	private EntryEvaluator createEntryEvaluator() {
+		return params.isDirectMaterializationEnabled()
+				? (e, s) -> new DirectGraphResultSet(e.getMappingAssertionQueries(), s, rdfFactory)
+				: (e, s) -> s.execute(inputQueryFactory.createConstructQuery(e.getQuery()));
+	}
+
+	/**
+	 * The delta queries are necessarily evaluated directly.
+	 * No checkpoint: the added and removed triples would share it.
+	 */
+	private MaterializedGraphResultSet createDeltaResultSet(
+			Function<ImmutableList<IQ>, ImmutableList<IQ>> rewriter) {
+		ImmutableMap<IRI, VocabularyEntry> deltaVocabulary = vocabulary.values().stream()
+				.map(e -> new VocabularyEntry(e.name, e.arity, rewriter.apply(e.getMappingAssertionQueries())))
+				.filter(e -> !e.getMappingAssertionQueries().isEmpty())
+				.collect(ImmutableCollectors.toMap(e -> e.name, e -> e));
+
+		return createResultSet(deltaVocabulary,
+				(e, s) -> new DirectGraphResultSet(e.getMappingAssertionQueries(), s, rdfFactory),
+				new MaterializationProgress(Optional.empty(), params.getProgressListener()));
+	}
+
+	private MaterializedGraphResultSet createResultSet(ImmutableMap<IRI, VocabularyEntry> selectedVocabulary,
+													   EntryEvaluator entryEvaluator,
+													   MaterializationProgress progress) {
+		return params.getParallelism() > 1
+				? new ParallelMaterializedGraphResultSet(selectedVocabulary, params, progress, queryEngine,
+						entryEvaluator)
+				: new DefaultMaterializedGraphResultSet(selectedVocabulary, params, progress, queryEngine,
+						entryEvaluator);
 	}
 
 	private ImmutableMap<IRI,VocabularyEntry> filterVocabularyEntries(ImmutableSet<IRI> selectedVocabulary) {
@@ -133,7 +218,7 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 	/**
 	 * TODO: refactor so as to work with quads
 	 */
-	private static ImmutableMap<IRI, VocabularyEntry> extractVocabulary(@Nonnull Mapping mapping) {
+	private ImmutableMap<IRI, VocabularyEntry> extractVocabulary(@Nonnull Mapping mapping) {
 		return mapping.getRDFAtomPredicates().stream()
 				.filter(p -> p instanceof TriplePredicate)
 				.map(p -> (TriplePredicate) p)
@@ -143,33 +228,66 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 				.orElseGet(ImmutableMap::of);
     }
 
-    private static Stream<VocabularyEntry> extractTripleVocabulary(Mapping mapping, TriplePredicate triplePredicate) {
+    private Stream<VocabularyEntry> extractTripleVocabulary(Mapping mapping, TriplePredicate triplePredicate) {
 		Stream<VocabularyEntry> vocabularyPropertyStream = mapping.getRDFProperties(triplePredicate).stream()
-				.map(p -> new VocabularyEntry(p, 2));
+				.map(p -> new VocabularyEntry(p, 2, splitIntoMappingAssertions(
+						mapping.getRDFPropertyDefinition(triplePredicate, p))));
 
 		Stream<VocabularyEntry> vocabularyClassStream = mapping.getRDFClasses(triplePredicate).stream()
-				.map(p -> new VocabularyEntry(p, 1));
+				.map(p -> new VocabularyEntry(p, 1, splitIntoMappingAssertions(
+						mapping.getRDFClassDefinition(triplePredicate, p))));
 
 		return Stream.concat(vocabularyClassStream,vocabularyPropertyStream);
 	}
 
+	/**
+	 * The children of the top union of the definition are evaluated separately: their results are not merged
+	 * by the union anyway (no DISTINCT above the union).
+	 * Their DISTINCTs are only kept by the optimizer when they may produce duplicates.
+	 */
+	private ImmutableList<IQ> splitIntoMappingAssertions(Optional<IQ> definition) {
+		if (!definition.isPresent())
+			return ImmutableList.of();
+
+		IQ query = definition.get();
+		IQTree tree = query.getTree();
+		if (!(tree.getRootNode() instanceof ConstructionNode))
+			return ImmutableList.of(query);
+
+		ConstructionNode constructionNode = (ConstructionNode) tree.getRootNode();
+		IQTree child = ((UnaryIQTree) tree).getChild();
+		if (!(child.getRootNode() instanceof UnionNode))
+			return ImmutableList.of(query);
+
+		return child.getChildren().stream()
+				.map(c -> iqFactory.createIQ(query.getProjectionAtom(),
+						iqFactory.createUnaryIQTree(constructionNode, c)))
+				.collect(ImmutableCollectors.toList());
+	}
+
 
 	private static class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
 
 		private final ImmutableMap<IRI, VocabularyEntry> vocabulary;
-		private final InputQueryFactory inputQueryFactory;
+		private final EntryEvaluator entryEvaluator;
 		private final boolean doStreamResults, canBeIncomplete;
 
 		private final OntopQueryEngine queryEngine;
-		private final UnmodifiableIterator<VocabularyEntry> vocabularyIterator;
+		private final MaterializationProgress progress;
+		// Lately initiated (excludes the classes and properties already in the checkpoint)
+		@Nullable
+		private UnmodifiableIterator<VocabularyEntry> vocabularyIterator;
 
 		private int counter;
 		@Nullable
+		private VocabularyEntry currentEntry;
+		private long currentEntryCount;
+		@Nullable
 		private OntopConnection ontopConnection;
 		@Nullable
 		private OntopStatement tmpStatement;
 		@Nullable
-		private SimpleGraphResultSet tmpGraphResultSet;
+		private GraphResultSet<?> tmpGraphResultSet;
 		@Nullable
 //		private Assertion nextAssertion;
 
@@ -178,15 +296,16 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 
 
 		DefaultMaterializedGraphResultSet(ImmutableMap<IRI, VocabularyEntry> vocabulary, MaterializationParams params,
-										  OntopQueryEngine queryEngine, InputQueryFactory inputQueryFactory) {
+										  MaterializationProgress progress, OntopQueryEngine queryEngine,
+										  EntryEvaluator entryEvaluator) {
 
 			this.vocabulary = vocabulary;
-			this.vocabularyIterator = vocabulary.values().iterator();
+			this.progress = progress;
 
 			this.queryEngine = queryEngine;
 			this.doStreamResults = params.isDBResultStreamingEnabled();
 			this.canBeIncomplete = params.canMaterializationBeIncomplete();
-			this.inputQueryFactory = inputQueryFactory;
+			this.entryEvaluator = entryEvaluator;
 			this.possiblyIncompleteClassesAndProperties = new ArrayList<>();
 
 			if (doStreamResults) {
@@ -211,8 +330,14 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 		@Override
 		public boolean hasNext() throws OntopQueryAnsweringException, OntopConnectionException {
 			// Initialization
-			if (ontopConnection == null)
+			if (ontopConnection == null) {
 				ontopConnection = queryEngine.getConnection();
+				try {
+					vocabularyIterator = progress.selectRemainingEntries(vocabulary.values()).iterator();
+				} catch (IOException e) {
+					throw new OntopQueryAnsweringException(e);
+				}
+			}
 
 			if ((tmpGraphResultSet != null) && tmpGraphResultSet.hasNext()) {
 
@@ -223,6 +348,7 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 //				nextAssertion = tmpGraphResultSet.next();
 				return true;
 			}
+			completeCurrentEntry(false);
 
 			while(vocabularyIterator.hasNext()) {
 				/*
@@ -249,24 +375,27 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 				 * New query for the next RDF property/class
 				 */
                 VocabularyEntry predicate = vocabularyIterator.next();
-				ConstructQuery query = inputQueryFactory.createConstructQuery(predicate.getQuery());
+				currentEntry = predicate;
+				currentEntryCount = 0;
 
 				try {
 					tmpStatement = ontopConnection.createStatement();
 					if (doStreamResults) {
 						tmpStatement.setFetchSize(FETCH_SIZE);
 					}
-					tmpGraphResultSet = tmpStatement.execute(query);
+					tmpGraphResultSet = entryEvaluator.evaluate(predicate, tmpStatement);
 
 					if (tmpGraphResultSet.hasNext()) {
 //						nextAssertion = tmpGraphResultSet.next();
 						return true;
 					}
+					completeCurrentEntry(false);
 				} catch (OntopQueryAnsweringException | OntopConnectionException e) {
 					if (canBeIncomplete) {
 						LOGGER.warn("Possibly incomplete class/property " + predicate + " (materialization problem).\n"
 								+ "Details: " + e);
 						possiblyIncompleteClassesAndProperties.add(predicate.name);
+						completeCurrentEntry(true);
 					}
 					else {
 						LOGGER.error("Problem materialiing the class/property " + predicate);
@@ -278,14 +407,22 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 			return false;
 		}
 
+		private void completeCurrentEntry(boolean isPossiblyIncomplete) throws OntopQueryAnsweringException {
+			if (currentEntry == null)
+				return;
+			try {
+				progress.complete(currentEntry.name, currentEntryCount, isPossiblyIncomplete);
+			} catch (IOException e) {
+				throw new OntopQueryAnsweringException(e);
+			}
+			currentEntry = null;
+		}
+
 		@Override
 		public Assertion next() throws OntopQueryAnsweringException {
 			counter++;
-			try {
-				return tmpGraphResultSet.next();
-			} catch (OntopResultConversionException e) {
-			    throw new OntopQueryAnsweringException(e);
-			}
+			currentEntryCount++;
+			return tmpGraphResultSet.next();
 		}
 
 		/**
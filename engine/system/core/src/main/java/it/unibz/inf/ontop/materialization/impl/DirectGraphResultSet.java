@@ -0,0 +1,129 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.UnmodifiableIterator;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.model.term.ObjectConstant;
+import it.unibz.inf.ontop.model.term.RDFConstant;
+import it.unibz.inf.ontop.model.term.RDFLiteralConstant;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.vocabulary.RDF;
+import it.unibz.inf.ontop.spec.ontology.ABoxAssertionSupplier;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
+import it.unibz.inf.ontop.spec.ontology.InconsistentOntologyException;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyBuilderImpl;
+
+import javax.annotation.Nullable;
+import java.util.NoSuchElementException;
+
+/**
+ * Triples of an RDF class/property obtained by evaluating its mapping assertions one after the other
+ * (see OntopStatement.executeDBQuery()).
+ *
+ * The subject, property and object of the triples are the variables of the projection atom
+ * of the mapping assertions.
+ */
+class DirectGraphResultSet implements GraphResultSet<OntopQueryAnsweringException> {
+
+    private final UnmodifiableIterator<IQ> queryIterator;
+    private final OntopStatement statement;
+    private final ABoxAssertionSupplier assertionSupplier;
+
+    @Nullable
+    private TupleResultSet currentResultSet;
+    @Nullable
+    private ImmutableList<Variable> currentVariables;
+    @Nullable
+    private Assertion nextAssertion;
+
+    DirectGraphResultSet(ImmutableList<IQ> mappingAssertionQueries, OntopStatement statement,
+                         org.apache.commons.rdf.api.RDF rdfFactory) {
+        this.queryIterator = mappingAssertionQueries.iterator();
+        this.statement = statement;
+        this.assertionSupplier = OntologyBuilderImpl.assertionSupplier(rdfFactory);
+        this.currentResultSet = null;
+        this.currentVariables = null;
+        this.nextAssertion = null;
+    }
+
+    @Override
+    public boolean hasNext() throws OntopConnectionException, OntopQueryAnsweringException {
+        while (nextAssertion == null) {
+            if ((currentResultSet != null) && currentResultSet.hasNext()) {
+                // Null for triples that are not asserted (e.g. owl:Thing)
+                nextAssertion = convert(currentResultSet.next());
+            }
+            else {
+                closeCurrentResultSet();
+                if (!queryIterator.hasNext())
+                    return false;
+
+                IQ query = queryIterator.next();
+                currentVariables = query.getProjectionAtom().getArguments();
+                currentResultSet = statement.executeDBQuery(query);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Assertion next() throws OntopQueryAnsweringException {
+        try {
+            if (!hasNext())
+                throw new NoSuchElementException();
+        } catch (OntopConnectionException e) {
+            throw new OntopQueryAnsweringException(e);
+        }
+        Assertion assertion = nextAssertion;
+        nextAssertion = null;
+        return assertion;
+    }
+
+    @Nullable
+    private Assertion convert(OntopBindingSet bindingSet) throws OntopResultConversionException {
+        RDFConstant subject = bindingSet.getConstant(currentVariables.get(0).getName());
+        RDFConstant property = bindingSet.getConstant(currentVariables.get(1).getName());
+        RDFConstant object = bindingSet.getConstant(currentVariables.get(2).getName());
+
+        // A triple can only be constructed when none of bindings is missing
+        if (subject == null || property == null || object == null)
+            return null;
+
+        String propertyName = property.getValue();
+        try {
+            if (propertyName.equals(RDF.TYPE.getIRIString()))
+                return assertionSupplier.createClassAssertion(object.getValue(), (ObjectConstant) subject);
+            else if (object instanceof ObjectConstant)
+                return assertionSupplier.createObjectPropertyAssertion(propertyName, (ObjectConstant) subject,
+                        (ObjectConstant) object);
+            else
+                return assertionSupplier.createDataPropertyAssertion(propertyName, (ObjectConstant) subject,
+                        (RDFLiteralConstant) object);
+        } catch (InconsistentOntologyException e) {
+            throw new OntopResultConversionException("InconsistentOntologyException: " +
+                    propertyName + " " + subject + " " + object);
+        }
+    }
+
+    private void closeCurrentResultSet() throws OntopConnectionException {
+        if (currentResultSet != null) {
+            currentResultSet.close();
+            currentResultSet = null;
+        }
+    }
+
+    /**
+     * The statement is not closed
+     */
+    @Override
+    public void close() throws OntopConnectionException {
+        closeCurrentResultSet();
+    }
+}
@@ -0,0 +1,73 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.materialization.MaterializationOutput;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.stream.Stream;
+
+/**
+ * Records the RDF classes and properties whose materialization has completed, one per line:
+ * the IRI followed by the position of the output once synced.
+ *
+ * A class or property is only recorded once its triples have been made durable in the output.
+ * The triples of the classes and properties must be written contiguously (not interleaved), so that the output,
+ * at the position of a record, does not contain any triple of the classes and properties still in progress.
+ *
+ * Not thread-safe: to be used by the thread consuming the materialized triples.
+ */
+class MaterializationCheckpoint {
+
+    private static final String SEPARATOR = "\t";
+
+    private final File file;
+    private final MaterializationOutput output;
+
+    MaterializationCheckpoint(File file, MaterializationOutput output) {
+        this.file = file;
+        this.output = output;
+    }
+
+    /**
+     * Returns the IRI strings of the classes and properties recorded by the previous runs.
+     *
+     * Truncates the output to the position of the last recorded class or property,
+     * discarding the triples written after it (those of the classes and properties that will be materialized again).
+     */
+    ImmutableSet<String> restore() throws IOException {
+        String content = file.exists()
+                ? new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)
+                : "";
+        // Ignores the last line if partially written before a crash
+        ImmutableList<String[]> records = Stream.of(content.substring(0, content.lastIndexOf('\n') + 1).split("\n"))
+                .filter(l -> !l.isEmpty())
+                .map(l -> l.split(SEPARATOR))
+                .collect(ImmutableCollectors.toList());
+
+        output.truncate(records.isEmpty()
+                ? 0
+                : Long.parseLong(records.get(records.size() - 1)[1]));
+
+        return records.stream()
+                .map(r -> r[0])
+                .collect(ImmutableCollectors.toSet());
+    }
+
+    /**
+     * Syncs the output before recording the class or property
+     */
+    void recordCompletion(IRI classOrProperty) throws IOException {
+        long position = output.sync();
+
+        try (FileOutputStream stream = new FileOutputStream(file, true)) {
+            stream.write((classOrProperty.getIRIString() + SEPARATOR + position + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            stream.getFD().sync();
+        }
+    }
+}
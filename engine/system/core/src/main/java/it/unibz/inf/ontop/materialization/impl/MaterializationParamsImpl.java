@@ -1,15 +1,38 @@
 package it.unibz.inf.ontop.materialization.impl;
 
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.materialization.MaterializationOutput;
 import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.materialization.MaterializationProgressListener;
+import it.unibz.inf.ontop.materialization.RelationChanges;
+
+import java.io.File;
+import java.util.Optional;
 
 public class MaterializationParamsImpl implements MaterializationParams {
 
     private final boolean enableDBResultStreaming;
     private final boolean enableIncompleteMaterialization;
-
-    private MaterializationParamsImpl(boolean enableDBResultStreaming, boolean enableIncompleteMaterialization) {
+    private final boolean enableDirectMaterialization;
+    private final int parallelism;
+    private final Optional<File> checkpointFile;
+    private final Optional<MaterializationOutput> checkpointOutput;
+    private final Optional<MaterializationProgressListener> progressListener;
+    private final ImmutableList<RelationChanges> relationChanges;
+
+    private MaterializationParamsImpl(boolean enableDBResultStreaming, boolean enableIncompleteMaterialization,
+                                      boolean enableDirectMaterialization, int parallelism, Optional<File> checkpointFile,
+                                      Optional<MaterializationOutput> checkpointOutput,
+                                      Optional<MaterializationProgressListener> progressListener,
+                                      ImmutableList<RelationChanges> relationChanges) {
         this.enableDBResultStreaming = enableDBResultStreaming;
         this.enableIncompleteMaterialization = enableIncompleteMaterialization;
+        this.enableDirectMaterialization = enableDirectMaterialization;
+        this.parallelism = parallelism;
+        this.checkpointFile = checkpointFile;
+        this.checkpointOutput = checkpointOutput;
+        this.progressListener = progressListener;
+        this.relationChanges = relationChanges;
     }
 
 
@@ -23,16 +46,58 @@ public class MaterializationParamsImpl implements MaterializationParams {
         return enableIncompleteMaterialization;
     }
 
+    @Override
+    public boolean isDirectMaterializationEnabled() {
+        return enableDirectMaterialization;
+    }
+
+    @Override
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public Optional<File> getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    @Override
+    public Optional<MaterializationOutput> getCheckpointOutput() {
+        return checkpointOutput;
+    }
+
+    @Override
+    public Optional<MaterializationProgressListener> getProgressListener() {
+        return progressListener;
+    }
+
+    @Override
+    public ImmutableList<RelationChanges> getRelationChanges() {
+        return relationChanges;
+    }
+
 
     public static class DefaultBuilder<B extends Builder<B>> implements Builder<B> {
 
         private final B builder;
         private boolean isDBResultStreamingEnabled;
         private boolean canMaterializationBeIncomplete;
+        private boolean isDirectMaterializationEnabled;
+        private int parallelism;
+        private Optional<File> checkpointFile;
+        private Optional<MaterializationOutput> checkpointOutput;
+        private Optional<MaterializationProgressListener> progressListener;
+        private final ImmutableList.Builder<RelationChanges> relationChangesBuilder;
 
         public DefaultBuilder() {
             this.isDBResultStreamingEnabled = false;
             this.canMaterializationBeIncomplete = false;
+            this.isDirectMaterializationEnabled = true;
+            this.parallelism = 1;
+            this.checkpointFile = Optional.empty();
+            this.checkpointOutput = Optional.empty();
+            this.progressListener = Optional.empty();
+            this.relationChangesBuilder = ImmutableList.builder();
             this.builder = (B) this;
         }
 
@@ -49,9 +114,44 @@ public class MaterializationParamsImpl implements MaterializationParams {
             return builder;
         }
 
+        @Override
+        public B enableDirectMaterialization(boolean enable) {
+            this.isDirectMaterializationEnabled = enable;
+            return builder;
+        }
+
+        @Override
+        public B parallelism(int parallelism) {
+            if (parallelism < 1)
+                throw new IllegalArgumentException("The parallelism must be positive");
+            this.parallelism = parallelism;
+            return builder;
+        }
+
+        @Override
+        public B checkpoint(File checkpointFile, MaterializationOutput output) {
+            this.checkpointFile = Optional.of(checkpointFile);
+            this.checkpointOutput = Optional.of(output);
+            return builder;
+        }
+
+        @Override
+        public B progressListener(MaterializationProgressListener listener) {
+            this.progressListener = Optional.of(listener);
+            return builder;
+        }
+
+        @Override
+        public B relationChanges(RelationChanges changes) {
+            relationChangesBuilder.add(changes);
+            return builder;
+        }
+
         @Override
         public MaterializationParams build() {
-            return new MaterializationParamsImpl(isDBResultStreamingEnabled, canMaterializationBeIncomplete);
+            return new MaterializationParamsImpl(isDBResultStreamingEnabled, canMaterializationBeIncomplete,
+                    isDirectMaterializationEnabled, parallelism, checkpointFile, checkpointOutput,
+                    progressListener, relationChangesBuilder.build());
         }
     }
 
@@ -0,0 +1,58 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.materialization.MaterializationProgressListener;
+import it.unibz.inf.ontop.materialization.impl.DefaultOntopRDFMaterializer.VocabularyEntry;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Keeps track of the completed classes and properties of a materialization: records them in the checkpoint
+ * (if any) and notifies the progress listener (if any).
+ *
+ * Not thread-safe: to be used by the thread consuming the materialized triples.
+ */
+class MaterializationProgress {
+
+    private final Optional<MaterializationCheckpoint> checkpoint;
+    private final Optional<MaterializationProgressListener> listener;
+    private int totalCount = 0;
+    private int completedCount = 0;
+
+    MaterializationProgress(Optional<MaterializationCheckpoint> checkpoint,
+                            Optional<MaterializationProgressListener> listener) {
+        this.checkpoint = checkpoint;
+        this.listener = listener;
+    }
+
+    /**
+     * Excludes the entries completed by a previous run, as recorded in the checkpoint
+     */
+    ImmutableList<VocabularyEntry> selectRemainingEntries(Collection<VocabularyEntry> entries) throws IOException {
+        ImmutableSet<String> completed = checkpoint.isPresent()
+                ? checkpoint.get().restore()
+                : ImmutableSet.of();
+
+        ImmutableList<VocabularyEntry> remainingEntries = entries.stream()
+                .filter(e -> !completed.contains(e.getName().getIRIString()))
+                .collect(ImmutableCollectors.toList());
+        totalCount = remainingEntries.size();
+        return remainingEntries;
+    }
+
+    /**
+     * Possibly incomplete entries are not recorded in the checkpoint (they will be materialized again when resuming)
+     */
+    void complete(IRI classOrProperty, long tripleCount, boolean isPossiblyIncomplete) throws IOException {
+        completedCount++;
+        if (checkpoint.isPresent() && !isPossiblyIncomplete)
+            checkpoint.get().recordCompletion(classOrProperty);
+        if (listener.isPresent())
+            listener.get().onCompleted(classOrProperty, tripleCount, isPossiblyIncomplete, completedCount, totalCount);
+    }
+}
@@ -0,0 +1,279 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
+import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.materialization.impl.DefaultOntopRDFMaterializer.VocabularyEntry;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
+import org.apache.commons.rdf.api.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+
+/**
+ * Materializes the classes and properties concurrently, each of them on its own connection.
+ *
+ * The triples are transferred to the consuming thread through a bounded queue, so that slow consumers
+ * (e.g. writing into a file) do not cause the triples to accumulate in memory.
+ * The triples of different classes and properties are interleaved, except when a checkpoint is used.
+ * In that case, each class or property has its own queue and its triples are delivered contiguously
+ * (in the order in which their materialization has started): when a class or property is recorded as completed,
+ * the output does not contain any triple of the classes and properties in progress.
+ *
+ * Does not allocate resources (e.g. threads, connections) before hasNext() is called.
+ */
+class ParallelMaterializedGraphResultSet implements MaterializedGraphResultSet {
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMaterializedGraphResultSet.class);
+
+    private final ImmutableMap<IRI, VocabularyEntry> vocabulary;
+    private final OntopQueryEngine queryEngine;
+    private final DefaultOntopRDFMaterializer.EntryEvaluator entryEvaluator;
+    private final int parallelism;
+    private final boolean doStreamResults, canBeIncomplete;
+    private final MaterializationProgress progress;
+    // Assertions and EntryCompletions. Shared by the entries, unless delivered contiguously.
+    private final BlockingQueue<Object> queue;
+    // Queues of the started entries, only when delivered contiguously
+    @Nullable
+    private final BlockingQueue<BlockingQueue<Object>> entryQueues;
+    private final List<IRI> possiblyIncompleteClassesAndProperties;
+
+    private long counter;
+    private int remainingEntryCount;
+    // Lately initiated
+    @Nullable
+    private ExecutorService executorService;
+    @Nullable
+    private Assertion nextAssertion;
+    @Nullable
+    private BlockingQueue<Object> currentEntryQueue;
+
+    ParallelMaterializedGraphResultSet(ImmutableMap<IRI, VocabularyEntry> vocabulary, MaterializationParams params,
+                                       MaterializationProgress progress, OntopQueryEngine queryEngine,
+                                       DefaultOntopRDFMaterializer.EntryEvaluator entryEvaluator) {
+        this.vocabulary = vocabulary;
+        this.queryEngine = queryEngine;
+        this.entryEvaluator = entryEvaluator;
+        this.parallelism = params.getParallelism();
+        this.doStreamResults = params.isDBResultStreamingEnabled();
+        this.canBeIncomplete = params.canMaterializationBeIncomplete();
+        this.progress = progress;
+        this.queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        this.entryQueues = params.getCheckpointFile().isPresent()
+                ? new LinkedBlockingQueue<>()
+                : null;
+        this.possiblyIncompleteClassesAndProperties = new ArrayList<>();
+        this.counter = 0;
+        this.remainingEntryCount = 0;
+        this.executorService = null;
+        this.nextAssertion = null;
+        this.currentEntryQueue = null;
+    }
+
+    @Override
+    public ImmutableSet<IRI> getSelectedVocabulary() {
+        return vocabulary.keySet();
+    }
+
+    @Override
+    public boolean hasNext() throws OntopQueryAnsweringException, OntopConnectionException {
+        if (executorService == null)
+            start();
+
+        while (nextAssertion == null) {
+            if (remainingEntryCount == 0)
+                return false;
+
+            Object item;
+            try {
+                item = takeItem();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OntopQueryAnsweringException(e);
+            }
+
+            if (item instanceof Assertion)
+                nextAssertion = (Assertion) item;
+            else
+                complete((EntryCompletion) item);
+        }
+        return true;
+    }
+
+    private Object takeItem() throws InterruptedException {
+        if (entryQueues == null)
+            return queue.take();
+
+        if (currentEntryQueue == null)
+            currentEntryQueue = entryQueues.take();
+        Object item = currentEntryQueue.take();
+        if (item instanceof EntryCompletion)
+            currentEntryQueue = null;
+        return item;
+    }
+
+    private void start() throws OntopQueryAnsweringException {
+        ImmutableList<VocabularyEntry> entries;
+        try {
+            entries = progress.selectRemainingEntries(vocabulary.values());
+        } catch (IOException e) {
+            throw new OntopQueryAnsweringException(e);
+        }
+
+        executorService = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+                .setNameFormat("ontop-materialization-%d")
+                .setDaemon(true)
+                .build());
+        remainingEntryCount = entries.size();
+        entries.forEach(e -> executorService.execute(() -> materialize(e)));
+    }
+
+    /**
+     * Executed by the worker threads
+     */
+    private void materialize(VocabularyEntry entry) {
+        BlockingQueue<Object> entryQueue = createEntryQueue();
+        long tripleCount = 0;
+        Exception exception = null;
+        try (OntopConnection connection = queryEngine.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            if (doStreamResults)
+                statement.setFetchSize(DefaultOntopRDFMaterializer.FETCH_SIZE);
+
+            try (GraphResultSet<?> resultSet = entryEvaluator.evaluate(entry, statement)) {
+                while (resultSet.hasNext()) {
+                    entryQueue.put(resultSet.next());
+                    tripleCount++;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed by the consumer
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            exception = e;
+        }
+
+        try {
+            entryQueue.put(new EntryCompletion(entry.getName(), tripleCount, exception));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executed by the worker threads.
+     *
+     * When delivered contiguously, the capacity is shared by the entries in progress.
+     */
+    private BlockingQueue<Object> createEntryQueue() {
+        if (entryQueues == null)
+            return queue;
+
+        BlockingQueue<Object> entryQueue = new LinkedBlockingQueue<>(Math.max(1, QUEUE_CAPACITY / parallelism));
+        entryQueues.add(entryQueue);
+        return entryQueue;
+    }
+
+    private void complete(EntryCompletion completion) throws OntopQueryAnsweringException, OntopConnectionException {
+        remainingEntryCount--;
+        Exception exception = completion.exception;
+        if (exception != null) {
+            if (canBeIncomplete && ((exception instanceof OntopQueryAnsweringException)
+                    || (exception instanceof OntopConnectionException))) {
+                LOGGER.warn("Possibly incomplete class/property " + completion.classOrProperty
+                        + " (materialization problem).\n" + "Details: " + exception);
+                possiblyIncompleteClassesAndProperties.add(completion.classOrProperty);
+            }
+            else {
+                LOGGER.error("Problem materializing the class/property " + completion.classOrProperty);
+                if (exception instanceof OntopQueryAnsweringException)
+                    throw (OntopQueryAnsweringException) exception;
+                if (exception instanceof OntopConnectionException)
+                    throw (OntopConnectionException) exception;
+                if (exception instanceof RuntimeException)
+                    throw (RuntimeException) exception;
+                throw new OntopQueryAnsweringException(exception);
+            }
+        }
+
+        try {
+            progress.complete(completion.classOrProperty, completion.tripleCount, exception != null);
+        } catch (IOException e) {
+            throw new OntopQueryAnsweringException(e);
+        }
+    }
+
+    @Override
+    public Assertion next() throws OntopQueryAnsweringException {
+        try {
+            if (!hasNext())
+                throw new NoSuchElementException();
+        } catch (OntopConnectionException e) {
+            throw new OntopQueryAnsweringException(e);
+        }
+        Assertion assertion = nextAssertion;
+        nextAssertion = null;
+        counter++;
+        return assertion;
+    }
+
+    /**
+     * Interrupts the worker threads, which release their connections
+     */
+    @Override
+    public void close() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            queue.clear();
+            if (entryQueues != null) {
+                entryQueues.clear();
+                currentEntryQueue = null;
+            }
+        }
+    }
+
+    @Override
+    public long getTripleCountSoFar() {
+        return counter;
+    }
+
+    @Override
+    public ImmutableList<IRI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
+        return ImmutableList.copyOf(possiblyIncompleteClassesAndProperties);
+    }
+
+
+    /**
+     * Marks the end of the triples of a class or property in the queue
+     */
+    private static class EntryCompletion {
+        private final IRI classOrProperty;
+        private final long tripleCount;
+        @Nullable
+        private final Exception exception;
+
+        private EntryCompletion(IRI classOrProperty, long tripleCount, @Nullable Exception exception) {
+            this.classOrProperty = classOrProperty;
+            this.tripleCount = tripleCount;
+            this.exception = exception;
+        }
+    }
+}
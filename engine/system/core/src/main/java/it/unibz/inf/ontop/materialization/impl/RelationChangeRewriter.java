@@ -0,0 +1,384 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
+import it.unibz.inf.ontop.injection.QueryTransformerFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.IQTree;
+import it.unibz.inf.ontop.iq.node.ExtensionalDataNode;
+import it.unibz.inf.ontop.iq.transform.impl.DefaultRecursiveIQTreeVisitingTransformer;
+import it.unibz.inf.ontop.materialization.RelationChanges;
+import it.unibz.inf.ontop.model.atom.AtomFactory;
+import it.unibz.inf.ontop.model.atom.DataAtom;
+import it.unibz.inf.ontop.model.atom.RelationPredicate;
+import it.unibz.inf.ontop.model.term.ImmutableExpression;
+import it.unibz.inf.ontop.model.term.TermFactory;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
+import it.unibz.inf.ontop.model.term.functionsymbol.InequalityLabel;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import it.unibz.inf.ontop.substitution.InjectiveVar2VarSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.VariableGenerator;
+
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites the mapping assertions into delta queries, which only retrieve the triples derived from the changed rows
+ * of the source relations.
+ *
+ * A mapping assertion using n times changed relations produces n delta queries: in each of them, one occurrence
+ * is replaced by its changed rows. For insertions, the other relations are taken in their current state.
+ * For deletions, the other changed relations are taken in their old state (current rows, minus the inserted ones,
+ * plus the deleted ones), so that the triples derived from rows deleted together (e.g. on both sides of a join)
+ * are also retrieved.
+ * The mapping assertions not using any changed relation produce no delta query.
+ *
+ * The triples derived from the deleted rows are only reported as removed if they cannot be derived anymore
+ * from the current state of the relations, by any mapping assertion.
+ * An update (reported by a change table as the deletion of the old row and the insertion of the new one)
+ * therefore removes only the triples that have changed.
+ */
+class RelationChangeRewriter {
+
+    private static final String INSERTION_OPERATION = "I";
+    private static final String DELETION_OPERATION = "D";
+
+    private final IntermediateQueryFactory iqFactory;
+    private final TermFactory termFactory;
+    private final AtomFactory atomFactory;
+    private final SubstitutionFactory substitutionFactory;
+    private final QueryTransformerFactory transformerFactory;
+    private final DBTermType dbStringType;
+    // Indexed by the ID of the changed relation
+    private final ImmutableMap<RelationID, ChangeSource> changeSources;
+
+    RelationChangeRewriter(ImmutableList<RelationChanges> relationChanges, DBMetadata dbMetadata, Injector injector) {
+        this.iqFactory = injector.getInstance(IntermediateQueryFactory.class);
+        this.termFactory = injector.getInstance(TermFactory.class);
+        this.atomFactory = injector.getInstance(AtomFactory.class);
+        this.substitutionFactory = injector.getInstance(SubstitutionFactory.class);
+        this.transformerFactory = injector.getInstance(QueryTransformerFactory.class);
+        this.dbStringType = injector.getInstance(TypeFactory.class).getDBTypeFactory().getDBStringType();
+
+        QuotedIDFactory idFactory = dbMetadata.getDBParameters().getQuotedIDFactory();
+        // The change tables are not part of the DB metadata of the OBDA specification
+        BasicDBMetadata changeTableMetadata = injector.getInstance(DummyBasicDBMetadata.class);
+
+        this.changeSources = relationChanges.stream()
+                .map(c -> createChangeSource(c, dbMetadata, idFactory, changeTableMetadata))
+                .collect(ImmutableCollectors.toMap(s -> s.relation.getID(), s -> s));
+    }
+
+    /**
+     * Delta queries retrieving the triples derived from the inserted or updated rows
+     */
+    ImmutableList<IQ> rewriteForAddedTriples(ImmutableList<IQ> mappingAssertionQueries) {
+        return rewrite(mappingAssertionQueries, true);
+    }
+
+    /**
+     * Delta queries retrieving the triples derived from the deleted rows that are not derivable anymore
+     * from the mapping assertions (evaluated on the current state of the relations)
+     */
+    ImmutableList<IQ> rewriteForRemovedTriples(ImmutableList<IQ> mappingAssertionQueries) {
+        ImmutableList<IQ> deltaQueries = rewrite(mappingAssertionQueries, false);
+        if (deltaQueries.isEmpty())
+            return deltaQueries;
+
+        IQ currentQuery = createUnion(mappingAssertionQueries);
+        return deltaQueries.stream()
+                .map(q -> excludeDerivableTriples(q, currentQuery))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    /**
+     * All the mapping assertions of a class or property have the same projection atom
+     */
+    private IQ createUnion(ImmutableList<IQ> mappingAssertionQueries) {
+        IQ firstQuery = mappingAssertionQueries.get(0);
+        if (mappingAssertionQueries.size() == 1)
+            return firstQuery;
+
+        return iqFactory.createIQ(firstQuery.getProjectionAtom(),
+                iqFactory.createNaryIQTree(
+                        iqFactory.createUnionNode(firstQuery.getTree().getVariables()),
+                        mappingAssertionQueries.stream()
+                                .map(IQ::getTree)
+                                .collect(ImmutableCollectors.toList())));
+    }
+
+    /**
+     * Anti-join (as for SPARQL MINUS): left join of the delta query with the current query, on all the projected
+     * variables (the RDF terms of the triple), keeping the triples without match.
+     */
+    private IQ excludeDerivableTriples(IQ deltaQuery, IQ currentQuery) {
+        InjectiveVar2VarSubstitution renaming = substitutionFactory.generateNotConflictingRenaming(
+                deltaQuery.getVariableGenerator(), currentQuery.getTree().getKnownVariables());
+        IQ renamedCurrentQuery = transformerFactory.createRenamer(renaming).transform(currentQuery);
+
+        ImmutableList<Variable> deltaVariables = deltaQuery.getProjectionAtom().getArguments();
+        ImmutableList<Variable> currentVariables = renamedCurrentQuery.getProjectionAtom().getArguments();
+
+        ImmutableExpression joinCondition = termFactory.getConjunction(IntStream.range(0, deltaVariables.size())
+                .mapToObj(i -> termFactory.getStrictEquality(deltaVariables.get(i), currentVariables.get(i)))
+                .collect(ImmutableCollectors.toList()));
+
+        IQTree tree = iqFactory.createUnaryIQTree(
+                iqFactory.createConstructionNode(deltaQuery.getTree().getVariables()),
+                iqFactory.createUnaryIQTree(
+                        iqFactory.createFilterNode(termFactory.getDBIsNull(currentVariables.get(0))),
+                        iqFactory.createBinaryNonCommutativeIQTree(
+                                iqFactory.createLeftJoinNode(joinCondition),
+                                deltaQuery.getTree(),
+                                renamedCurrentQuery.getTree())));
+
+        return iqFactory.createIQ(deltaQuery.getProjectionAtom(), tree);
+    }
+
+    private ImmutableList<IQ> rewrite(ImmutableList<IQ> mappingAssertionQueries, boolean isInsertion) {
+        if (changeSources.isEmpty())
+            return ImmutableList.of();
+
+        return mappingAssertionQueries.stream()
+                .flatMap(q -> rewrite(q, isInsertion))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private Stream<IQ> rewrite(IQ mappingAssertionQuery, boolean isInsertion) {
+        IQTree tree = mappingAssertionQuery.getTree();
+        ImmutableList<ChangeSource> occurrences = getChangedRelationOccurrences(tree)
+                .collect(ImmutableCollectors.toList());
+
+        return IntStream.range(0, occurrences.size())
+                // Deletions cannot be detected with a watermark
+                .filter(i -> isInsertion || occurrences.get(i).changeTable.isPresent())
+                .mapToObj(i -> new OccurrenceReplacer(i, isInsertion, mappingAssertionQuery.getVariableGenerator())
+                        .transform(tree))
+                .map(t -> iqFactory.createIQ(mappingAssertionQuery.getProjectionAtom(), t));
+    }
+
+    /**
+     * In depth-first order
+     */
+    private Stream<ChangeSource> getChangedRelationOccurrences(IQTree tree) {
+        if (tree instanceof ExtensionalDataNode)
+            return getChangeSource((ExtensionalDataNode) tree)
+                    .map(Stream::of)
+                    .orElseGet(Stream::empty);
+
+        return tree.getChildren().stream()
+                .flatMap(this::getChangedRelationOccurrences);
+    }
+
+    /**
+     * Black-box views are not tracked
+     */
+    private Optional<ChangeSource> getChangeSource(ExtensionalDataNode dataNode) {
+        return Optional.ofNullable(changeSources.get(
+                dataNode.getProjectionAtom().getPredicate().getRelationDefinition().getID()));
+    }
+
+    private ChangeSource createChangeSource(RelationChanges changes, DBMetadata dbMetadata,
+                                            QuotedIDFactory idFactory, BasicDBMetadata changeTableMetadata) {
+        DatabaseRelationDefinition relation = dbMetadata.getDatabaseRelation(
+                createRelationID(changes.getRelation(), idFactory));
+        if (relation == null)
+            throw new IllegalArgumentException("Unknown relation: " + changes.getRelation());
+
+        QuotedID columnId = idFactory.createAttributeID(changes.getColumn());
+
+        if (!changes.getChangeTable().isPresent()) {
+            Attribute watermarkAttribute = relation.getAttribute(columnId);
+            if (watermarkAttribute == null)
+                throw new IllegalArgumentException("Unknown watermark column " + changes.getColumn()
+                        + " in " + changes.getRelation());
+            return new ChangeSource(relation, watermarkAttribute, changes.getLastWatermarkValue().get());
+        }
+
+        DatabaseRelationDefinition changeTable = changeTableMetadata.createDatabaseRelation(
+                createRelationID(changes.getChangeTable().get(), idFactory));
+        for (Attribute attribute : relation.getAttributes())
+            changeTable.addAttribute(attribute.getID(), attribute.getSQLTypeName(),
+                    attribute.getBaseTypeForValidation(), attribute.canNull());
+        // Last attribute
+        changeTable.addAttribute(columnId, "VARCHAR", dbStringType, false);
+
+        return new ChangeSource(relation, changeTable);
+    }
+
+    private static RelationID createRelationID(String name, QuotedIDFactory idFactory) {
+        String[] names = name.split("\\.");
+        if (names.length == 1)
+            return idFactory.createRelationID(null, name);
+        else
+            return idFactory.createRelationID(names[0], names[1]);
+    }
+
+
+    /**
+     * Replaces the i-th occurrence (in depth-first order) of a changed relation by its changed rows.
+     * For deletions, also replaces the other occurrences by their old state.
+     */
+    private class OccurrenceReplacer extends DefaultRecursiveIQTreeVisitingTransformer {
+
+        private final int occurrenceIndex;
+        private final boolean isInsertion;
+        private final VariableGenerator variableGenerator;
+        private int currentIndex;
+
+        OccurrenceReplacer(int occurrenceIndex, boolean isInsertion, VariableGenerator variableGenerator) {
+            super(RelationChangeRewriter.this.iqFactory);
+            this.occurrenceIndex = occurrenceIndex;
+            this.isInsertion = isInsertion;
+            this.variableGenerator = variableGenerator;
+            this.currentIndex = 0;
+        }
+
+        @Override
+        public IQTree transformExtensionalData(ExtensionalDataNode dataNode) {
+            Optional<ChangeSource> changeSource = getChangeSource(dataNode);
+            if (!changeSource.isPresent())
+                return dataNode;
+
+            if (currentIndex++ == occurrenceIndex)
+                return changeSource.get().createChangedRowTree(dataNode, isInsertion, variableGenerator);
+
+            return isInsertion
+                    ? dataNode
+                    : changeSource.get().createOldStateTree(dataNode, variableGenerator);
+        }
+    }
+
+
+    /**
+     * Either a watermark or a change table
+     */
+    private class ChangeSource {
+        private final DatabaseRelationDefinition relation;
+        private final Optional<Attribute> watermarkAttribute;
+        private final Optional<String> lastWatermarkValue;
+        private final Optional<DatabaseRelationDefinition> changeTable;
+
+        ChangeSource(DatabaseRelationDefinition relation, Attribute watermarkAttribute, String lastWatermarkValue) {
+            this.relation = relation;
+            this.watermarkAttribute = Optional.of(watermarkAttribute);
+            this.lastWatermarkValue = Optional.of(lastWatermarkValue);
+            this.changeTable = Optional.empty();
+        }
+
+        ChangeSource(DatabaseRelationDefinition relation, DatabaseRelationDefinition changeTable) {
+            this.relation = relation;
+            this.watermarkAttribute = Optional.empty();
+            this.lastWatermarkValue = Optional.empty();
+            this.changeTable = Optional.of(changeTable);
+        }
+
+        IQTree createChangedRowTree(ExtensionalDataNode dataNode, boolean isInsertion,
+                                    VariableGenerator variableGenerator) {
+            return changeTable.isPresent()
+                    ? createChangeTableTree(dataNode, isInsertion, variableGenerator)
+                    : createWatermarkTree(dataNode, true);
+        }
+
+        /**
+         * Rows before the changes.
+         * With a watermark, the old versions of the updated rows are unknown: only the rows not changed
+         * since the last watermark are kept.
+         */
+        IQTree createOldStateTree(ExtensionalDataNode dataNode, VariableGenerator variableGenerator) {
+            if (!changeTable.isPresent())
+                return createWatermarkTree(dataNode, false);
+
+            return iqFactory.createNaryIQTree(
+                    iqFactory.createUnionNode(dataNode.getVariables()),
+                    ImmutableList.of(
+                            createNotInsertedRowTree(dataNode, variableGenerator),
+                            createChangeTableTree(dataNode, false, variableGenerator)));
+        }
+
+        /**
+         * Changed rows (only for insertions) or, otherwise, rows not changed since the last watermark
+         */
+        private IQTree createWatermarkTree(ExtensionalDataNode dataNode, boolean isChanged) {
+            Attribute attribute = watermarkAttribute.get();
+            VariableOrGroundTerm watermarkTerm = dataNode.getProjectionAtom().getTerm(attribute.getIndex() - 1);
+            ImmutableExpression lastWatermarkCondition = termFactory.getDBDefaultInequality(
+                    isChanged ? InequalityLabel.GT : InequalityLabel.LTE,
+                    watermarkTerm,
+                    termFactory.getDBConstant(lastWatermarkValue.get(), attribute.getTermType().orElse(dbStringType)));
+
+            ImmutableExpression condition = isChanged
+                    ? lastWatermarkCondition
+                    : termFactory.getDisjunction(termFactory.getDBIsNull(watermarkTerm), lastWatermarkCondition);
+
+            return iqFactory.createUnaryIQTree(iqFactory.createFilterNode(condition), dataNode);
+        }
+
+        /**
+         * Anti-join of the current rows with the inserted rows of the change table, on all the columns
+         * (null values being equal)
+         */
+        private IQTree createNotInsertedRowTree(ExtensionalDataNode dataNode, VariableGenerator variableGenerator) {
+            ImmutableList<? extends VariableOrGroundTerm> arguments = dataNode.getProjectionAtom().getArguments();
+            ImmutableList<Variable> changeVariables = arguments.stream()
+                    .map(a -> variableGenerator.generateNewVariable())
+                    .collect(ImmutableCollectors.toList());
+            Variable operationVariable = variableGenerator.generateNewVariable();
+
+            DataAtom<RelationPredicate> changeAtom = atomFactory.getDataAtom(changeTable.get().getAtomPredicate(),
+                    Stream.concat(changeVariables.stream(), Stream.of(operationVariable))
+                            .collect(ImmutableCollectors.toList()));
+            IQTree insertedRowTree = iqFactory.createUnaryIQTree(
+                    iqFactory.createFilterNode(termFactory.getDBNonStrictDefaultEquality(operationVariable,
+                            termFactory.getDBStringConstant(INSERTION_OPERATION))),
+                    iqFactory.createExtensionalDataNode(changeAtom));
+
+            ImmutableExpression joinCondition = termFactory.getConjunction(IntStream.range(0, arguments.size())
+                    .mapToObj(i -> relation.getAttributes().get(i).canNull()
+                            ? termFactory.getDisjunction(
+                                    termFactory.getStrictEquality(arguments.get(i), changeVariables.get(i)),
+                                    termFactory.getConjunction(
+                                            termFactory.getDBIsNull(arguments.get(i)),
+                                            termFactory.getDBIsNull(changeVariables.get(i))))
+                            : termFactory.getStrictEquality(arguments.get(i), changeVariables.get(i)))
+                    .collect(ImmutableCollectors.toList()));
+
+            return iqFactory.createUnaryIQTree(
+                    iqFactory.createConstructionNode(dataNode.getVariables()),
+                    iqFactory.createUnaryIQTree(
+                            iqFactory.createFilterNode(termFactory.getDBIsNull(operationVariable)),
+                            iqFactory.createBinaryNonCommutativeIQTree(
+                                    iqFactory.createLeftJoinNode(joinCondition),
+                                    dataNode,
+                                    insertedRowTree)));
+        }
+
+        private IQTree createChangeTableTree(ExtensionalDataNode dataNode, boolean isInsertion,
+                                             VariableGenerator variableGenerator) {
+            Variable operationVariable = variableGenerator.generateNewVariable();
+            ImmutableList<VariableOrGroundTerm> arguments = Stream.concat(
+                    dataNode.getProjectionAtom().getArguments().stream(),
+                    Stream.of(operationVariable))
+                    .collect(ImmutableCollectors.toList());
+            DataAtom<RelationPredicate> changeAtom = atomFactory.getDataAtom(
+                    changeTable.get().getAtomPredicate(), arguments);
+
+            ImmutableExpression condition = termFactory.getDBNonStrictDefaultEquality(operationVariable,
+                    termFactory.getDBStringConstant(isInsertion ? INSERTION_OPERATION : DELETION_OPERATION));
+
+            return iqFactory.createUnaryIQTree(
+                    iqFactory.createConstructionNode(dataNode.getVariables()),
+                    iqFactory.createUnaryIQTree(
+                            iqFactory.createFilterNode(condition),
+                            iqFactory.createExtensionalDataNode(changeAtom)));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Some drivers (e.g. PostgreSQL) only fetch the rows by batches within a transaction.
+ *
+ * Autocommit is disabled while statements are open on the connection (unless it was already disabled by the user).
+ * As the queries only read, the transaction is rolled back once no other statement may still be reading rows:
+ * when the last statement is closed, and before the only open statement executes a new query
+ * (which also recovers from a failed query).
+ */
+class FetchingTransaction {
+
+    private final Connection connection;
+    private int openStatementCount = 0;
+    private boolean isAutoCommitDisabled = false;
+
+    FetchingTransaction(Connection connection) {
+        this.connection = connection;
+    }
+
+    synchronized void registerStatement() throws SQLException {
+        if (openStatementCount == 0 && connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            isAutoCommitDisabled = true;
+        }
+        openStatementCount++;
+    }
+
+    synchronized void beforeExecution() throws SQLException {
+        if (openStatementCount == 1 && isAutoCommitDisabled)
+            connection.rollback();
+    }
+
+    synchronized void unregisterStatement() throws SQLException {
+        openStatementCount--;
+        if (openStatementCount == 0)
+            end();
+    }
+
+    /**
+     * Restores autocommit (e.g. before the connection is returned to the pool)
+     */
+    synchronized void end() throws SQLException {
+        if (isAutoCommitDisabled && !connection.isClosed()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        isAutoCommitDisabled = false;
+    }
+}
@@ -4,6 +4,7 @@ import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.connection.DBConnector;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
@@ -39,6 +40,7 @@ public class JDBCConnector implements DBConnector {
 
     private final DBMetadata dbMetadata;
     private final InputQueryFactory inputQueryFactory;
+    private final QueryExecutionService executionService;
     private final TermFactory termFactory;
     private final TypeFactory typeFactory;
     private final RDF rdfFactory;
@@ -48,6 +50,7 @@ public class JDBCConnector implements DBConnector {
                           @Assisted DBMetadata dbMetadata,
                           JDBCConnectionPool connectionPool,
                           InputQueryFactory inputQueryFactory,
+                          QueryExecutionService executionService,
                           TermFactory termFactory,
                           TypeFactory typeFactory,
                           SubstitutionFactory substitutionFactory,
@@ -56,6 +59,7 @@ public class JDBCConnector implements DBConnector {
         this.queryReformulator = queryReformulator;
         this.dbMetadata = dbMetadata;
         this.inputQueryFactory = inputQueryFactory;
+        this.executionService = executionService;
         this.termFactory = termFactory;
         this.substitutionFactory = substitutionFactory;
         this.settings = settings;
@@ -123,7 +127,8 @@ public class JDBCConnector implements DBConnector {
     public OntopConnection getConnection() throws OntopConnectionException {
 
         return new SQLConnection(this, queryReformulator, getSQLPoolConnection(),
-                dbMetadata, inputQueryFactory, termFactory, typeFactory, rdfFactory, substitutionFactory, settings);
+                dbMetadata, inputQueryFactory, executionService, termFactory, typeFactory, rdfFactory,
+                substitutionFactory, settings);
     }
 
 
@@ -21,9 +21,12 @@ package it.unibz.inf.ontop.answering.connection.impl;
  */
 
 import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Optional;
 
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
@@ -52,6 +55,7 @@ public class SQLConnection implements OntopConnection {
 	private Connection conn;
 	private final DBMetadata dbMetadata;
 	private final InputQueryFactory inputQueryFactory;
+	private final QueryExecutionService executionService;
 	private final TermFactory termFactory;
 	private final TypeFactory typeFactory;
 	private final SubstitutionFactory substitutionFactory;
@@ -60,28 +64,42 @@ public class SQLConnection implements OntopConnection {
 	private final JDBCConnector jdbcConnector;
 	private boolean isClosed;
 	private final RDF rdfFactory;
+	// Present if the driver only fetches the rows by batches within a transaction
+	private Optional<FetchingTransaction> fetchingTransaction;
 
 
 	public SQLConnection(JDBCConnector jdbcConnector, QueryReformulator queryProcessor, Connection connection,
 						 DBMetadata dbMetadata,
-						 InputQueryFactory inputQueryFactory, TermFactory termFactory, TypeFactory typeFactory,
+						 InputQueryFactory inputQueryFactory, QueryExecutionService executionService,
+						 TermFactory termFactory, TypeFactory typeFactory,
 						 RDF rdfFactory, SubstitutionFactory substitutionFactory, OntopSystemSQLSettings settings) {
 		this.jdbcConnector = jdbcConnector;
 		this.queryProcessor = queryProcessor;
 		this.conn = connection;
 		this.dbMetadata = dbMetadata;
 		this.inputQueryFactory = inputQueryFactory;
+		this.executionService = executionService;
 		this.termFactory = termFactory;
 		this.typeFactory = typeFactory;
 		this.substitutionFactory = substitutionFactory;
 		this.settings = settings;
 		this.rdfFactory = rdfFactory;
 		this.isClosed = false;
+		this.fetchingTransaction = createFetchingTransaction();
+	}
+
+	private Optional<FetchingTransaction> createFetchingTransaction() {
+		return settings.getJdbcDriver().contains("postgresql")
+				&& settings.getFetchSize().filter(s -> s > 0).isPresent()
+				? Optional.of(new FetchingTransaction(conn))
+				: Optional.empty();
 	}
 	
 	@Override
 	public void close() throws OntopConnectionException {
 		try {
+			if (fetchingTransaction.isPresent())
+				fetchingTransaction.get().end();
 			conn.close();
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
@@ -94,11 +112,21 @@ public class SQLConnection implements OntopConnection {
 			if (conn.isClosed()) {
 				// Sometimes it gets dropped, reconnect
 				conn = jdbcConnector.getSQLPoolConnection();
+				fetchingTransaction = createFetchingTransaction();
 			}
+			Statement sqlStatement = conn.createStatement(java.sql.ResultSet.TYPE_FORWARD_ONLY,
+					java.sql.ResultSet.CONCUR_READ_ONLY);
+			// Rows are then fetched from the DB as the result set is consumed
+			if (settings.getFetchSize().isPresent())
+				sqlStatement.setFetchSize(settings.getFetchSize().get());
+			if (fetchingTransaction.isPresent())
+				fetchingTransaction.get().registerStatement();
+
 			return new SQLQuestStatement(
 					this.queryProcessor,
-					conn.createStatement(java.sql.ResultSet.TYPE_FORWARD_ONLY, java.sql.ResultSet.CONCUR_READ_ONLY),
-					inputQueryFactory, termFactory, typeFactory, rdfFactory, substitutionFactory, settings);
+					sqlStatement,
+					inputQueryFactory, executionService, termFactory, typeFactory, rdfFactory, substitutionFactory,
+					settings, fetchingTransaction);
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
 		}
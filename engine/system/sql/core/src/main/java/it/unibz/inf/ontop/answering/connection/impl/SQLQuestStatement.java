@@ -5,6 +5,9 @@ import java.util.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
+import it.unibz.inf.ontop.answering.connection.QueryExecutionService;
+import it.unibz.inf.ontop.answering.monitoring.QueryStage;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
 import it.unibz.inf.ontop.answering.resultset.impl.*;
 import it.unibz.inf.ontop.answering.resultset.BooleanResultSet;
@@ -21,6 +24,7 @@ import it.unibz.inf.ontop.iq.UnaryIQTree;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
 import it.unibz.inf.ontop.iq.node.ConstructionNode;
 import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.model.term.DBConstant;
 import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.type.DBTermType;
@@ -28,6 +32,7 @@ import it.unibz.inf.ontop.model.type.TypeFactory;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import org.apache.commons.rdf.api.RDF;
 
+import javax.annotation.Nullable;
 import java.sql.*;
 import java.sql.ResultSet;
 
@@ -43,19 +48,27 @@ public class SQLQuestStatement extends QuestStatement {
     private final RDF rdfFactory;
     private final SubstitutionFactory substitutionFactory;
     private final OntopSystemSQLSettings settings;
+    private final Optional<FetchingTransaction> fetchingTransaction;
+
+    /**
+     * For native queries with parameters. Closed before executing another query.
+     */
+    @Nullable
+    private volatile PreparedStatement preparedStatement;
 
     public SQLQuestStatement(QueryReformulator queryProcessor, Statement sqlStatement,
-                             InputQueryFactory inputQueryFactory,
+                             InputQueryFactory inputQueryFactory, QueryExecutionService executionService,
                              TermFactory termFactory, TypeFactory typeFactory,
                              RDF rdfFactory, SubstitutionFactory substitutionFactory,
-                             OntopSystemSQLSettings settings) {
-        super(queryProcessor, inputQueryFactory);
+                             OntopSystemSQLSettings settings, Optional<FetchingTransaction> fetchingTransaction) {
+        super(queryProcessor, inputQueryFactory, executionService, settings);
         this.sqlStatement = sqlStatement;
         this.termFactory = termFactory;
         this.typeFactory = typeFactory;
         this.rdfFactory = rdfFactory;
         this.substitutionFactory = substitutionFactory;
         this.settings = settings;
+        this.fetchingTransaction = fetchingTransaction;
     }
 
     @Override
@@ -143,11 +156,12 @@ public class SQLQuestStatement extends QuestStatement {
         IQ targetQuery = getExecutableQuery(inputQuery);
         try {
             String sql = extractSQLQuery(targetQuery);
+            ImmutableList<DBConstant> parameters = extractNativeNode(targetQuery).getParameters();
             String newsql = "SELECT count(*) FROM (" + sql + ") t1";
             if (!isCanceled()) {
                 try {
 
-                    java.sql.ResultSet set = sqlStatement.executeQuery(newsql);
+                    java.sql.ResultSet set = executeQuery(newsql, parameters);
                     if (set.next()) {
                         return set.getInt(1);
                     } else {
@@ -166,10 +180,14 @@ public class SQLQuestStatement extends QuestStatement {
     }
 
     @Override
-    public void close() throws OntopConnectionException {
+    protected void closeStatement() throws OntopConnectionException {
         try {
-            if (sqlStatement != null)
+            closePreparedStatement();
+            if (sqlStatement != null && !sqlStatement.isClosed()) {
                 sqlStatement.close();
+                if (fetchingTransaction.isPresent())
+                    fetchingTransaction.get().unregisterStatement();
+            }
         } catch (SQLException e) {
             throw new OntopConnectionException(e);
         }
@@ -177,6 +195,9 @@ public class SQLQuestStatement extends QuestStatement {
 
     protected void cancelExecution() throws OntopQueryEvaluationException {
         try {
+            PreparedStatement currentPreparedStatement = preparedStatement;
+            if (currentPreparedStatement != null)
+                currentPreparedStatement.cancel();
             sqlStatement.cancel();
         } catch (SQLException e) {
             throw new OntopQueryEvaluationException(e);
@@ -184,23 +205,25 @@ public class SQLQuestStatement extends QuestStatement {
     }
 
     @Override
-    protected BooleanResultSet executeBooleanQuery(IQ executableQuery)
+    protected BooleanResultSet executeBooleanQuery(IQ executableQuery, QueryTrace trace)
             throws OntopQueryEvaluationException {
         try {
             String sqlQuery = extractSQLQuery(executableQuery);
+            ImmutableList<DBConstant> parameters = extractNativeNode(executableQuery).getParameters();
             try {
-                java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
-                return new SQLBooleanResultSet(set);
+                java.sql.ResultSet set = executeQuery(sqlQuery, parameters, trace);
+                return new SQLBooleanResultSet(set, trace);
             } catch (SQLException e) {
                 throw new OntopQueryEvaluationException(e.getMessage());
             }
         } catch (EmptyQueryException e) {
+            trace.close();
             return new PredefinedBooleanResultSet(false);
         }
     }
 
     @Override
-    protected TupleResultSet executeSelectQuery(IQ executableQuery)
+    protected TupleResultSet executeSelectQuery(IQ executableQuery, QueryTrace trace)
             throws OntopQueryEvaluationException {
         try {
             String sqlQuery = extractSQLQuery(executableQuery);
@@ -209,20 +232,23 @@ public class SQLQuestStatement extends QuestStatement {
             ImmutableSortedSet<Variable> signature = nativeNode.getVariables();
             ImmutableMap<Variable, DBTermType> typeMap = nativeNode.getTypeMap();
             try {
-                java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
+                java.sql.ResultSet set = executeQuery(sqlQuery, nativeNode.getParameters(), trace);
                 return settings.isDistinctPostProcessingEnabled()
-                        ? new DistinctJDBCTupleResultSet(set, signature, typeMap, constructionNode, executableQuery.getProjectionAtom(), termFactory, substitutionFactory)
-                        : new JDBCTupleResultSet(set, signature, typeMap, constructionNode, executableQuery.getProjectionAtom(), termFactory, substitutionFactory);
+                        ? new DistinctJDBCTupleResultSet(set, signature, typeMap, constructionNode, executableQuery.getProjectionAtom(), termFactory, substitutionFactory,
+                                settings.getDistinctResultSetMaxMemory() * 1024L * 1024L, trace)
+                        : new JDBCTupleResultSet(set, signature, typeMap, constructionNode, executableQuery.getProjectionAtom(), termFactory, substitutionFactory, trace);
             } catch (SQLException e) {
                 throw new OntopQueryEvaluationException(e);
             }
         } catch (EmptyQueryException e) {
+            trace.close();
             return new EmptyTupleResultSet(executableQuery.getProjectionAtom().getArguments());
         }
     }
 
     @Override
-    protected SimpleGraphResultSet executeGraphQuery(ConstructQuery inputQuery, IQ executableQuery, boolean collectResults)
+    protected SimpleGraphResultSet executeGraphQuery(ConstructQuery inputQuery, IQ executableQuery, boolean collectResults,
+                                                     QueryTrace trace)
             throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException {
         TupleResultSet tuples;
         try {
@@ -232,18 +258,83 @@ public class SQLQuestStatement extends QuestStatement {
             ImmutableSortedSet<Variable> SQLSignature = nativeNode.getVariables();
             ImmutableMap<Variable, DBTermType> SQLTypeMap = nativeNode.getTypeMap();
             try {
-                ResultSet rs = sqlStatement.executeQuery(sqlQuery);
+                ResultSet rs = executeQuery(sqlQuery, nativeNode.getParameters(), trace);
                 tuples = new JDBCTupleResultSet(rs, SQLSignature, SQLTypeMap, constructionNode,
-                        executableQuery.getProjectionAtom(), termFactory, substitutionFactory);
+                        executableQuery.getProjectionAtom(), termFactory, substitutionFactory, trace);
             } catch (SQLException e) {
                 throw new OntopQueryEvaluationException(e.getMessage());
             }
         } catch (EmptyQueryException e) {
+            trace.close();
             tuples = new EmptyTupleResultSet(executableQuery.getProjectionAtom().getArguments());
         }
         return new DefaultSimpleGraphResultSet(tuples, inputQuery.getConstructTemplate(), collectResults, termFactory, rdfFactory);
     }
 
+    /**
+     * The cancellation of the execution is checked just before sending the query to the DB
+     */
+    private ResultSet executeQuery(String sqlQuery, ImmutableList<DBConstant> parameters, QueryTrace trace)
+            throws SQLException, OntopQueryEvaluationException {
+        trace.setNativeQuery(sqlQuery);
+        long startTime = System.nanoTime();
+        ResultSet resultSet;
+        if (fetchingTransaction.isPresent())
+            fetchingTransaction.get().beforeExecution();
+        if (parameters.isEmpty()) {
+            startNativeQueryExecution();
+            resultSet = sqlStatement.executeQuery(sqlQuery);
+        }
+        else {
+            PreparedStatement statement = prepareStatement(sqlQuery, parameters);
+            startNativeQueryExecution();
+            resultSet = statement.executeQuery();
+        }
+        trace.recordStage(QueryStage.NATIVE_QUERY_EXECUTION, System.nanoTime() - startTime);
+        return resultSet;
+    }
+
+    private ResultSet executeQuery(String sqlQuery, ImmutableList<DBConstant> parameters) throws SQLException {
+        if (fetchingTransaction.isPresent())
+            fetchingTransaction.get().beforeExecution();
+        return parameters.isEmpty()
+                ? sqlStatement.executeQuery(sqlQuery)
+                : prepareStatement(sqlQuery, parameters).executeQuery();
+    }
+
+    /**
+     * Native queries with parameters are executed as prepared statements, configured like the regular statement
+     */
+    private PreparedStatement prepareStatement(String sqlQuery, ImmutableList<DBConstant> parameters)
+            throws SQLException {
+        closePreparedStatement();
+        PreparedStatement statement = sqlStatement.getConnection().prepareStatement(sqlQuery);
+        preparedStatement = statement;
+
+        statement.setFetchSize(sqlStatement.getFetchSize());
+        statement.setMaxRows(sqlStatement.getMaxRows());
+        statement.setQueryTimeout(sqlStatement.getQueryTimeout());
+
+        for (int i = 0; i < parameters.size(); i++) {
+            DBConstant parameter = parameters.get(i);
+            switch (parameter.getType().getCategory()) {
+                case INTEGER:
+                    statement.setLong(i + 1, Long.parseLong(parameter.getValue()));
+                    break;
+                default:
+                    statement.setString(i + 1, parameter.getValue());
+            }
+        }
+        return statement;
+    }
+
+    private void closePreparedStatement() throws SQLException {
+        PreparedStatement currentPreparedStatement = preparedStatement;
+        preparedStatement = null;
+        if (currentPreparedStatement != null)
+            currentPreparedStatement.close();
+    }
+
     private NativeNode extractNativeNode(IQ executableQuery) throws EmptyQueryException {
         IQTree tree = executableQuery.getTree();
         if (tree.isDeclaredAsEmpty()) {
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.answering.resultset.impl;
 
 import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
 import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
@@ -11,11 +12,21 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.NoSuchElementException;
 
+import static it.unibz.inf.ontop.answering.monitoring.QueryCounter.FETCHED_ROWS;
+import static it.unibz.inf.ontop.answering.monitoring.QueryStage.NATIVE_QUERY_EXECUTION;
+import static it.unibz.inf.ontop.answering.monitoring.QueryStage.RESULT_CONVERSION;
 
+/**
+ * Records into the trace of the query the time spent moving the cursor (counted as native query execution)
+ * and reading the rows (result conversion), unless the trace is disabled. Closes the trace when closed.
+ */
 public abstract class AbstractTupleResultSet implements TupleResultSet {
 
     protected final ResultSet rs;
     protected final ImmutableList<Variable> signature;
+    private final QueryTrace trace;
+    // Avoids measuring the durations for each row when nothing is recorded
+    private final boolean isTraced;
 
     /**
      * Flag used to emulate the expected behavior of next() and hasNext()
@@ -27,9 +38,11 @@ public abstract class AbstractTupleResultSet implements TupleResultSet {
     /* Set to false iff the moveCursor() method returned false (at least once) */
     private boolean foundNextElement = true;
 
-    AbstractTupleResultSet(ResultSet rs, ImmutableList<Variable> signature){
+    AbstractTupleResultSet(ResultSet rs, ImmutableList<Variable> signature, QueryTrace trace){
         this.rs = rs;
         this.signature = signature;
+        this.trace = trace;
+        this.isTraced = trace.isEnabled();
     }
 
     @Override
@@ -58,34 +71,52 @@ public abstract class AbstractTupleResultSet implements TupleResultSet {
     public OntopBindingSet next() throws OntopConnectionException {
 
         if (!lastCalledIsHasNext) {
-            try {
-                // Moves cursor one result ahead
-                foundNextElement = moveCursor();
-            } catch (Exception e) {
-                throw new OntopConnectionException(e);
-            }
+            // Moves cursor one result ahead
+            foundNextElement = tracedMoveCursor();
         }
         lastCalledIsHasNext = false;
         if (!foundNextElement) {
             throw new NoSuchElementException("No next OntopBindingSet in this TupleResultSet");
         }
-        return readCurrentRow();
+        if (!isTraced)
+            return readCurrentRow();
+
+        long startTime = System.nanoTime();
+        OntopBindingSet bindingSet = readCurrentRow();
+        trace.recordStage(RESULT_CONVERSION, System.nanoTime() - startTime);
+        trace.addToCounter(FETCHED_ROWS, 1);
+        return bindingSet;
     }
 
     @Override
     public boolean hasNext() throws OntopConnectionException {
         if (!lastCalledIsHasNext) {
             lastCalledIsHasNext = true;
-            try {
-                // Moves cursor one result ahead
-                foundNextElement = moveCursor();
-            } catch (Exception e) {
-                throw new OntopConnectionException(e);
-            }
+            // Moves cursor one result ahead
+            foundNextElement = tracedMoveCursor();
         }
         return foundNextElement;
     }
 
+    /**
+     * The trace is closed once all the results have been read
+     */
+    private boolean tracedMoveCursor() throws OntopConnectionException {
+        long startTime = isTraced ? System.nanoTime() : 0;
+        boolean hasMoved;
+        try {
+            hasMoved = moveCursor();
+        } catch (Exception e) {
+            throw new OntopConnectionException(e);
+        } finally {
+            if (isTraced)
+                trace.recordStage(NATIVE_QUERY_EXECUTION, System.nanoTime() - startTime);
+        }
+        if (!hasMoved)
+            trace.close();
+        return hasMoved;
+    }
+
     /* This method can be overwritten to ensure distinct rows */
     protected boolean moveCursor() throws SQLException, OntopConnectionException {
         return rs.next();
@@ -97,6 +128,8 @@ public abstract class AbstractTupleResultSet implements TupleResultSet {
             rs.close();
         } catch (Exception e) {
             throw new OntopConnectionException(e);
+        } finally {
+            trace.close();
         }
     }
 
@@ -22,6 +22,7 @@ package it.unibz.inf.ontop.answering.resultset.impl;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.iq.node.ConstructionNode;
@@ -30,27 +31,39 @@ import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.type.DBTermType;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.*;
 
 /**
  * Class to handle distinct in SPARQL query. Avoid returning duplicate rows.
  * See test case DistinctResultSetTest
+ *
+ * Two rows are considered as duplicates when they have the same values for the columns used for computing
+ * the bindings. The rows already seen are kept within a memory budget, beyond which they are spilled to the disk
+ * (see SpillingRowSet).
  */
 
 public class DistinctJDBCTupleResultSet extends JDBCTupleResultSet implements TupleResultSet {
 
-    private Set<List<Object>> rowKeys;
+    private static final Logger log = LoggerFactory.getLogger(DistinctJDBCTupleResultSet.class);
+
+    private final SpillingRowSet rowSet;
+    private String[] currentRow;
 
+    /**
+     * maxMemory: in bytes
+     */
     public DistinctJDBCTupleResultSet(ResultSet rs, ImmutableSortedSet<Variable> sqlSignature, ImmutableMap<Variable, DBTermType> sqlTypes,
                                       ConstructionNode constructionNode,
                                       DistinctVariableOnlyDataAtom answerAtom, TermFactory termFactory,
-                                      SubstitutionFactory substitutionFactory) {
+                                      SubstitutionFactory substitutionFactory, long maxMemory, QueryTrace trace) {
 
-        super(rs, sqlSignature, sqlTypes, constructionNode, answerAtom, termFactory, substitutionFactory);
-        rowKeys = new HashSet<>();
+        super(rs, sqlSignature, sqlTypes, constructionNode, answerAtom, termFactory, substitutionFactory, trace);
+        rowSet = new SpillingRowSet(maxMemory);
     }
 
     /**
@@ -58,35 +71,53 @@ public class DistinctJDBCTupleResultSet extends JDBCTupleResultSet implements Tu
      */
     @Override
     protected boolean moveCursor() throws SQLException, OntopConnectionException {
-        boolean foundFreshTuple;
-        List<Object> currentKey;
-        do{
-           foundFreshTuple = rs.next();
-           // Cannot use this in the while condition: limit case where the last row was a duplicate
-           if(!foundFreshTuple) {
-               break;
-           }
-           currentKey = computeTupleKey(rs);
-        } while(!rowKeys.add(currentKey));
-
-        return foundFreshTuple;
+        try {
+            while (rs.next()) {
+                String[] row = super.readRowValues();
+                if (rowSet.add(row)) {
+                    currentRow = row;
+                    return true;
+                }
+            }
+            // All the rows have been read: the spilled rows are not needed anymore
+            rowSet.close();
+            return false;
+        } catch (IOException e) {
+            throw new OntopConnectionException(e);
+        }
     }
 
-    private List<Object> computeTupleKey(ResultSet rs) throws OntopConnectionException {
-
-        ArrayList rowKey = new ArrayList<>();
-        for (int i = 1; i <= getSignature().size();  i ++ ) {
-            rowKey.add(getRawObject(i)); //value
-        }
-        return rowKey;
+    @Override
+    protected String[] readRowValues() {
+        return currentRow;
     }
 
-    Object getRawObject(int column) throws OntopConnectionException {
+    @Override
+    public void close() throws OntopConnectionException {
         try {
-            Object realValue = rs.getObject(column);
-            return realValue;
-        } catch (Exception e) {
-            throw new OntopConnectionException(e);
+            super.close();
+        } finally {
+            log.debug("DISTINCT post-processing: {} rows read, {} distinct (deduplication ratio: {}), " +
+                            "{} runs spilled ({} bytes)",
+                    rowSet.getAddedRowCount(), rowSet.getDistinctRowCount(),
+                    String.format("%.3f", rowSet.getDeduplicationRatio()),
+                    rowSet.getSpilledRunCount(), rowSet.getSpilledByteCount());
+            try {
+                rowSet.close();
+            } catch (IOException e) {
+                log.warn("Could not delete the spilled rows: " + e.getMessage());
+            }
         }
     }
+
+    /**
+     * Proportion of the rows read from the DB that have been filtered out as duplicates
+     */
+    public double getDeduplicationRatio() {
+        return rowSet.getDeduplicationRatio();
+    }
+
+    public int getSpilledRunCount() {
+        return rowSet.getSpilledRunCount();
+    }
 }
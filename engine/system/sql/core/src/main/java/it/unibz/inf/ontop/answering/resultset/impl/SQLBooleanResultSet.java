@@ -20,6 +20,8 @@ package it.unibz.inf.ontop.answering.resultset.impl;
  * #L%
  */
 
+import it.unibz.inf.ontop.answering.monitoring.QueryStage;
+import it.unibz.inf.ontop.answering.monitoring.QueryTrace;
 import it.unibz.inf.ontop.answering.resultset.BooleanResultSet;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 
@@ -29,21 +31,27 @@ import java.sql.SQLException;
 public class SQLBooleanResultSet implements BooleanResultSet {
 
     private final ResultSet set;
+    private final QueryTrace trace;
     private boolean hasRead;
 
-    public SQLBooleanResultSet(ResultSet set) {
+    /**
+     * Closes the trace when closed or once the value has been read
+     */
+    public SQLBooleanResultSet(ResultSet set, QueryTrace trace) {
         this.set = set;
+        this.trace = trace;
         this.hasRead = false;
     }
 
     @Override
     public void close() throws OntopConnectionException {
-        if (set == null)
-            return;
         try {
-            set.close();
+            if (set != null)
+                set.close();
         } catch (SQLException e) {
             throw new OntopConnectionException(e);
+        } finally {
+            trace.close();
         }
     }
 
@@ -55,10 +63,15 @@ public class SQLBooleanResultSet implements BooleanResultSet {
         if (hasRead)
             throw new IllegalStateException("getValue() can only called once!");
         hasRead = true;
+        long startTime = System.nanoTime();
         try {
             return set.next();
         } catch (SQLException e) {
             throw new OntopConnectionException(e);
+        } finally {
+            trace.recordStage(QueryStage.NATIVE_QUERY_EXECUTION, System.nanoTime() - startTime);
+            // Nothing else to read
+            trace.close();
         }
     }
 }
@@ -1,67 +1,76 @@
 package it.unibz.inf.ontop.answering.resultset.impl;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Maps;
 import it.unibz.inf.ontop.answering.resultset.OntopBinding;
 import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
 import it.unibz.inf.ontop.exception.OntopInternalBugException;
 import it.unibz.inf.ontop.model.term.*;
-import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
 
+import javax.annotation.Nullable;
 import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
+/**
+ * Decodes the values of its row lazily: a binding is only computed when requested.
+ */
 public class SQLOntopBindingSet extends AbstractOntopBindingSet implements OntopBindingSet {
 
-    SQLOntopBindingSet(ImmutableList<Variable> signature,
-                       ImmutableSubstitution<Constant> sqlVar2Constant,
-                       ImmutableSubstitution<ImmutableTerm> sparqlVar2Term) {
-        super(computeBindingMap(signature, sqlVar2Constant, sparqlVar2Term));
+    private final SQLRowDecoder decoder;
+    private final String[] row;
+    // Computed on demand
+    private final OntopBinding[] bindings;
+    private final boolean[] decoded;
+
+    SQLOntopBindingSet(SQLRowDecoder decoder, String[] row) {
+        this.decoder = decoder;
+        this.row = row;
+        int size = decoder.getSignature().size();
+        this.bindings = new OntopBinding[size];
+        this.decoded = new boolean[size];
     }
 
-    private static LinkedHashMap<String, OntopBinding> computeBindingMap(ImmutableList<Variable> signature,
-                                                                    ImmutableSubstitution<Constant> sqlVar2Constant,
-                                                                    ImmutableSubstitution<ImmutableTerm> sparqlVar2Term) {
+    @Override
+    protected LinkedHashMap<String, OntopBinding> computeBindingMap() {
+        ImmutableList<Variable> signature = decoder.getSignature();
+        LinkedHashMap<String, OntopBinding> bindingMap = new LinkedHashMap<>();
+        for (int i = 0; i < signature.size(); i++) {
+            OntopBinding binding = getBinding(i);
+            if (binding != null)
+                bindingMap.putIfAbsent(signature.get(i).getName(), binding);
+        }
+        return bindingMap;
+    }
 
-        ImmutableSubstitution<ImmutableTerm> composition = sqlVar2Constant.composeWith(sparqlVar2Term);
+    @Nullable
+    @Override
+    public OntopBinding getBinding(String name) {
+        int index = decoder.getVariableIndex(name);
+        return index < 0 ? null : getBinding(index);
+    }
 
-        return signature.stream()
-                .map(v -> getBinding(v,composition))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
+    @Nullable
+    @Override
+    public RDFConstant getConstant(String name) {
+        OntopBinding binding = getBinding(name);
+        return (binding == null)
+                ? null
+                : binding.getValue();
     }
 
-    private static Optional<Map.Entry<String,OntopBinding>> getBinding(Variable v, ImmutableSubstitution<ImmutableTerm> composition) {
-        Optional<RDFConstant> constant = evaluate(composition.apply(v));
-        return constant
-                .map(rdfConstant -> Maps.immutableEntry(v.getName(), new OntopBindingImpl(v, rdfConstant)));
+    @Override
+    public boolean hasBinding(String bindingName) {
+        return getBinding(bindingName) != null;
     }
 
-    private static Optional<RDFConstant> evaluate(ImmutableTerm term) {
-        ImmutableTerm simplifiedTerm = term.simplify();
-        if (simplifiedTerm instanceof Constant){
-            if (simplifiedTerm instanceof RDFConstant) {
-                return Optional.of((RDFConstant) simplifiedTerm);
-            }
-            Constant constant = (Constant) simplifiedTerm;
-            if (constant.isNull()) {
-                return Optional.empty();
-            }
-            if(constant instanceof DBConstant){
-                throw new InvalidConstantTypeInResultException(
-                         constant +"is a DB constant. But a binding cannot have a DB constant as value");
-            }
-            throw new InvalidConstantTypeInResultException("Unexpected constant type for "+constant);
+    @Nullable
+    private OntopBinding getBinding(int index) {
+        if (!decoded[index]) {
+            RDFConstant constant = decoder.decode(index, row);
+            bindings[index] = (constant == null)
+                    ? null
+                    : new OntopBindingImpl(decoder.getSignature().get(index), constant);
+            decoded[index] = true;
         }
-        throw new InvalidTermAsResultException(simplifiedTerm);
+        return bindings[index];
     }
 
     public static class InvalidTermAsResultException extends OntopInternalBugException {
@@ -75,4 +84,4 @@ public class SQLOntopBindingSet extends AbstractOntopBindingSet implements Ontop
             super(message);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,242 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.RDFTermFunctionSymbol;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.RDFTermType;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import javax.annotation.Nullable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.stream.IntStream;
+
+/**
+ * Decoding plan of the rows of a JDBC result set, computed once from the substitution of the construction node
+ * (instead of composing substitutions for each row).
+ *
+ * Only the columns used by the substitution are read. The values of the SPARQL variables are then computed
+ * independently of each other, on demand:
+ *   - RDF(x, type), x being a column and type a concrete RDF type: the RDF constant is built directly
+ *   - ground term: evaluated once
+ *   - otherwise: the term is instantiated with the values of its columns and simplified.
+ *
+ * Thread-safe.
+ */
+class SQLRowDecoder {
+
+    private final ImmutableList<Variable> signature;
+    private final ImmutableMap<String, Integer> variableIndexes;
+    private final ImmutableList<VariableDecoder> variableDecoders;
+    // JDBC column indexes (starting at 1) of the columns read
+    private final int[] columnIndexes;
+
+    SQLRowDecoder(ImmutableList<Variable> signature, ImmutableSortedSet<Variable> sqlSignature,
+                  ImmutableMap<Variable, DBTermType> sqlTypeMap,
+                  ImmutableSubstitution<ImmutableTerm> sparqlVar2Term,
+                  TermFactory termFactory, SubstitutionFactory substitutionFactory) {
+        this.signature = signature;
+        this.variableIndexes = IntStream.range(0, signature.size())
+                .boxed()
+                .collect(ImmutableCollectors.toMap(i -> signature.get(i).getName(), i -> i));
+
+        ImmutableList<ImmutableTerm> terms = signature.stream()
+                .map(sparqlVar2Term::apply)
+                .collect(ImmutableCollectors.toList());
+
+        ImmutableList<Variable> sqlColumns = ImmutableList.copyOf(sqlSignature);
+        ImmutableList<Variable> readColumns = sqlColumns.stream()
+                .filter(c -> terms.stream().anyMatch(t -> t.getVariableStream().anyMatch(c::equals)))
+                .collect(ImmutableCollectors.toList());
+        this.columnIndexes = readColumns.stream()
+                .mapToInt(c -> sqlColumns.indexOf(c) + 1)
+                .toArray();
+
+        ImmutableMap<Variable, Integer> positions = IntStream.range(0, readColumns.size())
+                .boxed()
+                .collect(ImmutableCollectors.toMap(readColumns::get, i -> i));
+
+        this.variableDecoders = terms.stream()
+                .map(t -> createVariableDecoder(t, positions, sqlTypeMap, termFactory, substitutionFactory))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    ImmutableList<Variable> getSignature() {
+        return signature;
+    }
+
+    /**
+     * Position of the variable in the signature, -1 if absent
+     */
+    int getVariableIndex(String variableName) {
+        Integer index = variableIndexes.get(variableName);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Reads the values of the current row that are needed by the decoder
+     */
+    String[] readRow(ResultSet rs) throws SQLException {
+        String[] row = new String[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++)
+            row[i] = rs.getString(columnIndexes[i]);
+        return row;
+    }
+
+    /**
+     * Returns null if the variable is unbound
+     */
+    @Nullable
+    RDFConstant decode(int variableIndex, String[] row) {
+        return variableDecoders.get(variableIndex).decode(row);
+    }
+
+    private static VariableDecoder createVariableDecoder(ImmutableTerm term, ImmutableMap<Variable, Integer> positions,
+                                                         ImmutableMap<Variable, DBTermType> sqlTypeMap,
+                                                         TermFactory termFactory,
+                                                         SubstitutionFactory substitutionFactory) {
+        if (term.isGround())
+            return new GroundTermDecoder(term);
+
+        GenericDecoder genericDecoder = new GenericDecoder(term, positions, sqlTypeMap, termFactory,
+                substitutionFactory);
+
+        if (term instanceof ImmutableFunctionalTerm) {
+            ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+            if (functionalTerm.getFunctionSymbol() instanceof RDFTermFunctionSymbol) {
+                ImmutableTerm lexicalTerm = functionalTerm.getTerm(0);
+                ImmutableTerm typeTerm = functionalTerm.getTerm(1);
+
+                if ((lexicalTerm instanceof Variable)
+                        && positions.containsKey(lexicalTerm)
+                        && (typeTerm instanceof RDFTermTypeConstant)
+                        && (!((RDFTermTypeConstant) typeTerm).getRDFTermType().isAbstract()))
+                    return new ColumnDecoder(positions.get(lexicalTerm),
+                            ((RDFTermTypeConstant) typeTerm).getRDFTermType(), termFactory, genericDecoder);
+            }
+        }
+        return genericDecoder;
+    }
+
+    /**
+     * Same behavior as simplifying the term obtained by applying the substitution of the construction node
+     */
+    @Nullable
+    private static RDFConstant evaluate(ImmutableTerm term) {
+        ImmutableTerm simplifiedTerm = term.simplify();
+        if (simplifiedTerm instanceof Constant){
+            if (simplifiedTerm instanceof RDFConstant) {
+                return (RDFConstant) simplifiedTerm;
+            }
+            Constant constant = (Constant) simplifiedTerm;
+            if (constant.isNull()) {
+                return null;
+            }
+            if(constant instanceof DBConstant){
+                throw new SQLOntopBindingSet.InvalidConstantTypeInResultException(
+                        constant +"is a DB constant. But a binding cannot have a DB constant as value");
+            }
+            throw new SQLOntopBindingSet.InvalidConstantTypeInResultException("Unexpected constant type for "+constant);
+        }
+        throw new SQLOntopBindingSet.InvalidTermAsResultException(simplifiedTerm);
+    }
+
+
+    private interface VariableDecoder {
+        @Nullable
+        RDFConstant decode(String[] row);
+    }
+
+
+    private static class GroundTermDecoder implements VariableDecoder {
+        private final ImmutableTerm term;
+        private volatile boolean evaluated = false;
+        @Nullable
+        private volatile RDFConstant value;
+
+        GroundTermDecoder(ImmutableTerm term) {
+            this.term = term;
+        }
+
+        @Nullable
+        @Override
+        public RDFConstant decode(String[] row) {
+            if (!evaluated) {
+                value = evaluate(term);
+                evaluated = true;
+            }
+            return value;
+        }
+    }
+
+
+    private static class ColumnDecoder implements VariableDecoder {
+        private final int position;
+        private final RDFTermType termType;
+        private final TermFactory termFactory;
+        // For NULLs (RDF(NULL, type) is not simplified into NULL)
+        private final GenericDecoder genericDecoder;
+
+        ColumnDecoder(int position, RDFTermType termType, TermFactory termFactory, GenericDecoder genericDecoder) {
+            this.position = position;
+            this.termType = termType;
+            this.termFactory = termFactory;
+            this.genericDecoder = genericDecoder;
+        }
+
+        @Nullable
+        @Override
+        public RDFConstant decode(String[] row) {
+            String value = row[position];
+            return value == null
+                    ? genericDecoder.decode(row)
+                    : termFactory.getRDFConstant(value, termType);
+        }
+    }
+
+
+    private static class GenericDecoder implements VariableDecoder {
+        private final ImmutableTerm term;
+        private final ImmutableList<Variable> columns;
+        private final int[] positions;
+        private final ImmutableList<DBTermType> columnTypes;
+        private final TermFactory termFactory;
+        private final SubstitutionFactory substitutionFactory;
+
+        GenericDecoder(ImmutableTerm term, ImmutableMap<Variable, Integer> positions,
+                       ImmutableMap<Variable, DBTermType> sqlTypeMap, TermFactory termFactory,
+                       SubstitutionFactory substitutionFactory) {
+            this.term = term;
+            this.columns = term.getVariableStream()
+                    .distinct()
+                    .filter(positions::containsKey)
+                    .collect(ImmutableCollectors.toList());
+            this.positions = columns.stream()
+                    .mapToInt(positions::get)
+                    .toArray();
+            this.columnTypes = columns.stream()
+                    .map(sqlTypeMap::get)
+                    .collect(ImmutableCollectors.toList());
+            this.termFactory = termFactory;
+            this.substitutionFactory = substitutionFactory;
+        }
+
+        @Nullable
+        @Override
+        public RDFConstant decode(String[] row) {
+            ImmutableMap.Builder<Variable, Constant> builder = ImmutableMap.builder();
+            for (int i = 0; i < positions.length; i++) {
+                String value = row[positions[i]];
+                builder.put(columns.get(i), value == null
+                        ? termFactory.getNullConstant()
+                        : termFactory.getDBConstant(value, columnTypes.get(i)));
+            }
+            return evaluate(substitutionFactory.getSubstitution(builder.build()).apply(term));
+        }
+    }
+}
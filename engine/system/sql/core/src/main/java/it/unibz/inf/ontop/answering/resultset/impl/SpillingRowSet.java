@@ -0,0 +1,486 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Set of rows (arrays of nullable strings) for deduplicating them.
+ *
+ * Rows are stored in a serialized form and indexed by a 64-bit fingerprint. Rows sharing the same fingerprint
+ * are compared byte per byte, so collisions do not cause rows to be dropped.
+ *
+ * When the estimated size of the in-memory rows exceeds the memory budget, they are spilled into a run on the disk,
+ * sorted by fingerprint. Only a sparse index and a Bloom filter of each run are kept in memory, and they are
+ * counted against the memory budget.
+ *
+ * Runs are merged MERGE_FACTOR at a time with runs of the same level (spilled runs are at level 0), so that
+ * the number of runs, and of open files, only grows logarithmically with the number of spills.
+ *
+ * The files of the runs are deleted when merged and when the set is closed. They are not registered
+ * with File.deleteOnExit(), which keeps every path in memory until the JVM exits.
+ *
+ * Not thread-safe.
+ */
+class SpillingRowSet implements AutoCloseable {
+
+    // Rough estimation of the memory used by a map entry, the boxed fingerprint and the array header
+    private static final int ENTRY_OVERHEAD = 96;
+    // Number of records between two entries of the sparse index of a run
+    private static final int INDEX_INTERVAL = 64;
+    private static final double BLOOM_FILTER_FPP = 0.01;
+    // Number of runs of the same level merged together
+    private static final int MERGE_FACTOR = 8;
+    // 1/MIN_IN_MEMORY_DIVISOR of the memory budget is always left to the in-memory rows
+    private static final int MIN_IN_MEMORY_DIVISOR = 4;
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final long maxMemory;
+    // byte[] or List<byte[]> in case of fingerprint collisions
+    private final Map<Long, Object> inMemoryRows = new HashMap<>();
+    // By non-increasing level
+    private final List<Run> runs = new ArrayList<>();
+
+    private long memoryUsage = 0;
+    private long runMemoryUsage = 0;
+    private long addedRowCount = 0;
+    private long distinctRowCount = 0;
+    private int spilledRunCount = 0;
+    private long spilledByteCount = 0;
+
+    /**
+     * maxMemory: in bytes
+     */
+    SpillingRowSet(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * Returns true if the row was not already present
+     */
+    boolean add(String[] row) throws IOException {
+        addedRowCount++;
+        byte[] serializedRow = serialize(row);
+        long fingerprint = HASH_FUNCTION.hashBytes(serializedRow).asLong();
+
+        if (containsInMemory(fingerprint, serializedRow))
+            return false;
+        for (Run run : runs) {
+            if (run.contains(fingerprint, serializedRow))
+                return false;
+        }
+
+        addInMemory(fingerprint, serializedRow);
+        distinctRowCount++;
+
+        if (memoryUsage > getInMemoryBudget())
+            spill();
+        return true;
+    }
+
+    long getAddedRowCount() {
+        return addedRowCount;
+    }
+
+    long getDistinctRowCount() {
+        return distinctRowCount;
+    }
+
+    /**
+     * Proportion of the added rows that were duplicates
+     */
+    double getDeduplicationRatio() {
+        return addedRowCount == 0
+                ? 0.0
+                : (double) (addedRowCount - distinctRowCount) / addedRowCount;
+    }
+
+    /**
+     * Including the runs that have been merged since
+     */
+    int getSpilledRunCount() {
+        return spilledRunCount;
+    }
+
+    /**
+     * Runs currently on the disk
+     */
+    int getRunCount() {
+        return runs.size();
+    }
+
+    long getSpilledByteCount() {
+        return spilledByteCount;
+    }
+
+    /**
+     * Estimated memory used by the in-memory rows and by the Bloom filters and sparse indexes of the runs
+     */
+    long getMemoryUsage() {
+        return memoryUsage + runMemoryUsage;
+    }
+
+    /**
+     * Deletes the runs
+     */
+    @Override
+    public void close() throws IOException {
+        inMemoryRows.clear();
+        memoryUsage = 0;
+        IOException exception = null;
+        for (Run run : runs) {
+            try {
+                run.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        runs.clear();
+        runMemoryUsage = 0;
+        if (exception != null)
+            throw exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean containsInMemory(long fingerprint, byte[] serializedRow) {
+        Object value = inMemoryRows.get(fingerprint);
+        if (value == null)
+            return false;
+        if (value instanceof byte[])
+            return Arrays.equals((byte[]) value, serializedRow);
+
+        for (byte[] otherRow : (List<byte[]>) value) {
+            if (Arrays.equals(otherRow, serializedRow))
+                return true;
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addInMemory(long fingerprint, byte[] serializedRow) {
+        Object previousValue = inMemoryRows.putIfAbsent(fingerprint, serializedRow);
+        if (previousValue instanceof byte[]) {
+            List<byte[]> collidingRows = new ArrayList<>(2);
+            collidingRows.add((byte[]) previousValue);
+            collidingRows.add(serializedRow);
+            inMemoryRows.put(fingerprint, collidingRows);
+        }
+        else if (previousValue != null)
+            ((List<byte[]>) previousValue).add(serializedRow);
+
+        memoryUsage += serializedRow.length + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * What remains of the memory budget once the runs are counted, but never less than a fraction of it
+     * (otherwise, a run would be spilled for every row once the runs fill the budget)
+     */
+    private long getInMemoryBudget() {
+        return Math.max(maxMemory - runMemoryUsage, maxMemory / MIN_IN_MEMORY_DIVISOR);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void spill() throws IOException {
+        List<Map.Entry<Long, byte[]>> entries = new ArrayList<>();
+        for (Map.Entry<Long, Object> entry : inMemoryRows.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof byte[])
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), (byte[]) value));
+            else
+                for (byte[] serializedRow : (List<byte[]>) value)
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), serializedRow));
+        }
+        entries.sort(Map.Entry.comparingByKey());
+
+        Run run;
+        try (RunWriter writer = new RunWriter(entries.size(), 0)) {
+            for (Map.Entry<Long, byte[]> entry : entries)
+                writer.write(entry.getKey(), entry.getValue());
+            run = writer.finish();
+        }
+        runs.add(run);
+        runMemoryUsage += run.getMemoryUsage();
+        spilledRunCount++;
+        spilledByteCount += run.length;
+
+        inMemoryRows.clear();
+        memoryUsage = 0;
+
+        mergeRuns();
+    }
+
+    /**
+     * Merges the last MERGE_FACTOR runs as long as they have the same level.
+     * As the levels are non-increasing, comparing the levels of the first and last runs is enough.
+     */
+    private void mergeRuns() throws IOException {
+        while (runs.size() >= MERGE_FACTOR
+                && runs.get(runs.size() - MERGE_FACTOR).level == runs.get(runs.size() - 1).level) {
+            List<Run> mergedRuns = runs.subList(runs.size() - MERGE_FACTOR, runs.size());
+            Run run = merge(mergedRuns, mergedRuns.get(0).level + 1);
+
+            for (Run mergedRun : mergedRuns) {
+                runMemoryUsage -= mergedRun.getMemoryUsage();
+                mergedRun.close();
+            }
+            mergedRuns.clear();
+
+            runs.add(run);
+            runMemoryUsage += run.getMemoryUsage();
+        }
+    }
+
+    /**
+     * A row appears in at most one run, so the records are only interleaved by fingerprint
+     */
+    private static Run merge(List<Run> mergedRuns, int level) throws IOException {
+        long recordCount = 0;
+        for (Run run : mergedRuns)
+            recordCount += run.recordCount;
+
+        Closer closer = Closer.create();
+        try {
+            PriorityQueue<RunReader> queue = new PriorityQueue<>(mergedRuns.size(),
+                    Comparator.comparingLong(r -> r.fingerprint));
+            for (Run run : mergedRuns) {
+                RunReader reader = closer.register(new RunReader(run));
+                if (reader.next())
+                    queue.add(reader);
+            }
+
+            RunWriter writer = closer.register(new RunWriter(recordCount, level));
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                writer.write(reader.fingerprint, reader.serializedRow);
+                if (reader.next())
+                    queue.add(reader);
+            }
+            return writer.finish();
+        } catch (Throwable e) {
+            throw closer.rethrow(e);
+        } finally {
+            closer.close();
+        }
+    }
+
+    private static byte[] serialize(String[] row) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(64);
+        DataOutputStream output = new DataOutputStream(byteStream);
+        for (String value : row) {
+            if (value == null)
+                output.writeInt(-1);
+            else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        }
+        output.flush();
+        return byteStream.toByteArray();
+    }
+
+
+
+    /**
+     * Sorted sequence of records (fingerprint, length, serialized row) stored in a temporary file.
+     */
+    private static class Run implements Closeable {
+
+        private final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final long length;
+        private final long recordCount;
+        private final int level;
+        // Fingerprints and offsets of every INDEX_INTERVAL-th record
+        private final long[] indexFingerprints;
+        private final long[] indexOffsets;
+        private final BloomFilter<Long> bloomFilter;
+        private final long bloomFilterSize;
+
+        private Run(File file, long length, long recordCount, int level, long[] indexFingerprints,
+                    long[] indexOffsets, BloomFilter<Long> bloomFilter, long bloomFilterSize) throws IOException {
+            this.file = file;
+            this.randomAccessFile = new RandomAccessFile(file, "r");
+            this.length = length;
+            this.recordCount = recordCount;
+            this.level = level;
+            this.indexFingerprints = indexFingerprints;
+            this.indexOffsets = indexOffsets;
+            this.bloomFilter = bloomFilter;
+            this.bloomFilterSize = bloomFilterSize;
+        }
+
+        /**
+         * Estimated size (in bytes) of the Bloom filter and of the sparse index
+         */
+        long getMemoryUsage() {
+            return bloomFilterSize + (long) indexOffsets.length * 2 * Long.BYTES;
+        }
+
+        boolean contains(long fingerprint, byte[] serializedRow) throws IOException {
+            if (!bloomFilter.mightContain(fingerprint))
+                return false;
+
+            // Records having this fingerprint may start in the block preceding the first indexed one
+            int position = Arrays.binarySearch(indexFingerprints, fingerprint);
+            int block = position >= 0
+                    ? firstIndexEntry(position, fingerprint)
+                    : -position - 1;
+            block = Math.max(0, block - 1);
+
+            for (; block < indexOffsets.length; block++) {
+                long start = indexOffsets[block];
+                long end = block + 1 < indexOffsets.length ? indexOffsets[block + 1] : length;
+                byte[] bytes = new byte[(int) (end - start)];
+                randomAccessFile.seek(start);
+                randomAccessFile.readFully(bytes);
+
+                DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+                while (input.available() > 0) {
+                    long recordFingerprint = input.readLong();
+                    byte[] recordRow = new byte[input.readInt()];
+                    input.readFully(recordRow);
+
+                    int comparison = Long.compare(recordFingerprint, fingerprint);
+                    if (comparison > 0)
+                        return false;
+                    if (comparison == 0 && Arrays.equals(recordRow, serializedRow))
+                        return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Several index entries may share the same fingerprint (collisions)
+         */
+        private int firstIndexEntry(int position, long fingerprint) {
+            while (position > 0 && indexFingerprints[position - 1] == fingerprint)
+                position--;
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                randomAccessFile.close();
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+
+    /**
+     * Writes a run from records sorted by fingerprint.
+     * The file is deleted if closed before the run is finished.
+     */
+    private static class RunWriter implements Closeable {
+
+        private final File file;
+        private final DataOutputStream output;
+        private final int level;
+        private final long[] indexFingerprints;
+        private final long[] indexOffsets;
+        private final BloomFilter<Long> bloomFilter;
+        private final long bloomFilterSize;
+        private long offset = 0;
+        private long recordCount = 0;
+        private boolean finished = false;
+
+        RunWriter(long expectedRecordCount, int level) throws IOException {
+            this.level = level;
+            int indexSize = (int) ((expectedRecordCount + INDEX_INTERVAL - 1) / INDEX_INTERVAL);
+            this.indexFingerprints = new long[indexSize];
+            this.indexOffsets = new long[indexSize];
+            int expectedInsertions = (int) Math.min(Math.max(expectedRecordCount, 1), Integer.MAX_VALUE);
+            this.bloomFilter = BloomFilter.create(Funnels.longFunnel(), expectedInsertions, BLOOM_FILTER_FPP);
+            // Same number of bits as chosen by Guava
+            this.bloomFilterSize = (long) (-(double) expectedInsertions * Math.log(BLOOM_FILTER_FPP)
+                    / (Math.log(2) * Math.log(2))) / Byte.SIZE;
+
+            this.file = File.createTempFile("ontop-distinct-", ".run");
+            try {
+                this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            } catch (IOException e) {
+                file.delete();
+                throw e;
+            }
+        }
+
+        void write(long fingerprint, byte[] serializedRow) throws IOException {
+            if (recordCount % INDEX_INTERVAL == 0) {
+                int indexEntry = (int) (recordCount / INDEX_INTERVAL);
+                indexFingerprints[indexEntry] = fingerprint;
+                indexOffsets[indexEntry] = offset;
+            }
+            bloomFilter.put(fingerprint);
+
+            output.writeLong(fingerprint);
+            output.writeInt(serializedRow.length);
+            output.write(serializedRow);
+            offset += Long.BYTES + Integer.BYTES + serializedRow.length;
+            recordCount++;
+        }
+
+        Run finish() throws IOException {
+            output.close();
+            Run run = new Run(file, offset, recordCount, level, indexFingerprints, indexOffsets, bloomFilter,
+                    bloomFilterSize);
+            finished = true;
+            return run;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                try {
+                    output.close();
+                } finally {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Reads the records of a run sequentially
+     */
+    private static class RunReader implements Closeable {
+
+        private final DataInputStream input;
+        private long remainingRecordCount;
+        private long fingerprint;
+        private byte[] serializedRow;
+
+        RunReader(Run run) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file)));
+            this.remainingRecordCount = run.recordCount;
+        }
+
+        /**
+         * Returns false if there is no more record
+         */
+        boolean next() throws IOException {
+            if (remainingRecordCount == 0)
+                return false;
+            fingerprint = input.readLong();
+            serializedRow = new byte[input.readInt()];
+            input.readFully(serializedRow);
+            remainingRecordCount--;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
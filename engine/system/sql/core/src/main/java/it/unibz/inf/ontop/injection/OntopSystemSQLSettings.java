@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection;
 
+import java.util.Optional;
 
 public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReformulationSQLSettings,
         OntopSQLCredentialSettings {
@@ -14,6 +15,20 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
     int getConnectionPoolInitialSize();
     int getConnectionPoolMaxSize();
 
+    /**
+     * Number of rows fetched at once from the DB when iterating over a result set.
+     *
+     * If not set, defaults to Integer.MIN_VALUE for MySQL (rows streamed one by one; no other query can then
+     * be sent over the same connection while a result set is being read) and to 1000 for PostgreSQL.
+     * Otherwise, the default of the JDBC driver is used (some drivers fetch all the rows at once).
+     * 0 also stands for the default of the JDBC driver.
+     *
+     * PostgreSQL only fetches the rows by batches when autocommit is disabled: autocommit is then disabled
+     * while statements are open on the connection.
+     * MySQL ignores positive values unless useCursorFetch=true is set in the JDBC URL.
+     */
+    Optional<Integer> getFetchSize();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -24,4 +39,5 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
     // Connection timeout (in ms)
     String CONNECTION_TIMEOUT = "jdbc.pool.connectionTimeout";
     String KEEP_ALIVE = "jdbc.pool.keepAlive";
+    String FETCH_SIZE = "jdbc.fetchSize";
 }
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.injection.impl;
 import it.unibz.inf.ontop.injection.OntopStandaloneSQLSettings;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
 
+import java.util.Optional;
 import java.util.Properties;
 
 
@@ -31,6 +32,46 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return getRequiredBoolean(DISTINCT_RESULTSET);
     }
 
+    @Override
+    public int getDistinctResultSetMaxMemory() {
+        return systemSettings.getDistinctResultSetMaxMemory();
+    }
+
+    @Override
+    public boolean isQueryCacheEnabled() {
+        return systemSettings.isQueryCacheEnabled();
+    }
+
+    @Override
+    public long getQueryCacheMaxWeight() {
+        return systemSettings.getQueryCacheMaxWeight();
+    }
+
+    @Override
+    public Optional<Integer> getQueryCacheExpirationTime() {
+        return systemSettings.getQueryCacheExpirationTime();
+    }
+
+    @Override
+    public boolean isQueryParameterizationEnabled() {
+        return systemSettings.isQueryParameterizationEnabled();
+    }
+
+    @Override
+    public boolean isQueryMonitoringEnabled() {
+        return systemSettings.isQueryMonitoringEnabled();
+    }
+
+    @Override
+    public boolean isQueryMonitoringJmxEnabled() {
+        return systemSettings.isQueryMonitoringJmxEnabled();
+    }
+
+    @Override
+    public Optional<Integer> getSlowQueryThreshold() {
+        return systemSettings.getSlowQueryThreshold();
+    }
+
     @Override
     public boolean isKeepAliveEnabled() {
         return systemSettings.isKeepAliveEnabled();
@@ -56,8 +97,33 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.getConnectionPoolMaxSize();
     }
 
+    @Override
+    public Optional<Integer> getFetchSize() {
+        return systemSettings.getFetchSize();
+    }
+
     @Override
     public boolean isPermanentDBConnectionEnabled() {
         return systemSettings.isPermanentDBConnectionEnabled();
     }
+
+    @Override
+    public int getMaxConcurrentQueries() {
+        return systemSettings.getMaxConcurrentQueries();
+    }
+
+    @Override
+    public int getQueryQueueSize() {
+        return systemSettings.getQueryQueueSize();
+    }
+
+    @Override
+    public Optional<Integer> getQueryTimeout() {
+        return systemSettings.getQueryTimeout();
+    }
+
+    @Override
+    public boolean isVirtualThreadExecutionEnabled() {
+        return systemSettings.isVirtualThreadExecutionEnabled();
+    }
 }
@@ -4,12 +4,14 @@ import it.unibz.inf.ontop.injection.OntopSQLCredentialSettings;
 import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 
+import java.util.Optional;
 import java.util.Properties;
 
 
 public class OntopSystemSQLSettingsImpl extends OntopReformulationSQLSettingsImpl implements OntopSystemSQLSettings {
 
     private static final String DEFAULT_FILE = "system-sql-default.properties";
+    private static final int POSTGRESQL_DEFAULT_FETCH_SIZE = 1000;
     private final OntopSystemSettings systemSettings;
     private final OntopSQLCredentialSettings sqlCredentialSettings;
 
@@ -61,11 +63,47 @@ public class OntopSystemSQLSettingsImpl extends OntopReformulationSQLSettingsImp
         return getRequiredInteger(MAX_POOL_SIZE);
     }
 
+    @Override
+    public Optional<Integer> getFetchSize() {
+        Optional<Integer> fetchSize = getInteger(FETCH_SIZE);
+        if (fetchSize.isPresent())
+            return fetchSize;
+
+        // These drivers otherwise fetch all the rows at once
+        String driver = getJdbcDriver();
+        if (driver.contains("mysql"))
+            // Streams the rows one by one
+            return Optional.of(Integer.MIN_VALUE);
+        if (driver.contains("postgresql"))
+            return Optional.of(POSTGRESQL_DEFAULT_FETCH_SIZE);
+        return Optional.empty();
+    }
+
     @Override
     public boolean isPermanentDBConnectionEnabled() {
         return systemSettings.isPermanentDBConnectionEnabled();
     }
 
+    @Override
+    public int getMaxConcurrentQueries() {
+        return systemSettings.getMaxConcurrentQueries();
+    }
+
+    @Override
+    public int getQueryQueueSize() {
+        return systemSettings.getQueryQueueSize();
+    }
+
+    @Override
+    public Optional<Integer> getQueryTimeout() {
+        return systemSettings.getQueryTimeout();
+    }
+
+    @Override
+    public boolean isVirtualThreadExecutionEnabled() {
+        return systemSettings.isVirtualThreadExecutionEnabled();
+    }
+
     @Override
     public String getJdbcUser() {
         return sqlCredentialSettings.getJdbcUser();
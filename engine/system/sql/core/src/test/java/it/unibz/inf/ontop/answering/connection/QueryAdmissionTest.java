@@ -0,0 +1,164 @@
+package it.unibz.inf.ontop.answering.connection;
+
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.exception.OBDASpecificationException;
+import it.unibz.inf.ontop.exception.OntopQueryEvaluationException;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Only one query can be admitted at a time.
+ * Abandoned result sets must not keep their admission.
+ */
+public class QueryAdmissionTest {
+
+    private static final String OBDA_FILE = "src/test/resources/timeout/timeout.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/timeout/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:admissiondb;MULTI_THREADED=1";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final String PERSON_QUERY_STRING = "PREFIX : <http://example.org/timeout/voc#>\n" +
+            "SELECT ?x WHERE { ?x a :Person . }";
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+    private static OntopQueryEngine QUERY_ENGINE;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate(new String(Files.readAllBytes(Paths.get(CREATE_DB_FILE))));
+        }
+        CONN.commit();
+
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSettings.MAX_CONCURRENT_QUERIES, "1");
+        properties.setProperty(OntopSystemSettings.QUERY_QUEUE_SIZE, "0");
+        QUERY_ENGINE = createQueryEngine(properties);
+        QUERY_ENGINE.connect();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        QUERY_ENGINE.close();
+        CONN.close();
+    }
+
+    @Test
+    public void testAbandonedResultSetOfClosedStatement() throws Exception {
+        try (OntopConnection connection = QUERY_ENGINE.getConnection()) {
+            SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+
+            OntopStatement statement = connection.createStatement();
+            TupleResultSet resultSet = statement.execute(query);
+            assertTrue(resultSet.hasNext());
+            resultSet.next();
+
+            // Still admitted
+            assertRejected(connection, query);
+
+            // Without closing the result set
+            statement.close();
+            assertEquals(3, countResults(connection, query));
+        }
+    }
+
+    @Test
+    public void testAbandonedResultSetOfReusedStatement() throws Exception {
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+
+            TupleResultSet resultSet = statement.execute(query);
+            assertTrue(resultSet.hasNext());
+            resultSet.next();
+
+            // The first result set is abandoned
+            try (TupleResultSet secondResultSet = statement.execute(query)) {
+                int count = 0;
+                while (secondResultSet.hasNext()) {
+                    secondResultSet.next();
+                    count++;
+                }
+                assertEquals(3, count);
+            }
+        }
+    }
+
+    @Test
+    public void testCancelledResultSet() throws Exception {
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+
+            TupleResultSet resultSet = statement.execute(query);
+            assertTrue(resultSet.hasNext());
+            resultSet.next();
+
+            statement.cancel();
+            assertEquals(3, countResults(connection, query));
+        }
+    }
+
+    private static void assertRejected(OntopConnection connection, SelectQuery query) throws Exception {
+        try (OntopStatement statement = connection.createStatement()) {
+            statement.execute(query);
+            fail("The query should have been rejected");
+        } catch (OntopQueryEvaluationException e) {
+            assertTrue(e.getMessage().contains("Too many queries"));
+        }
+    }
+
+    private static int countResults(OntopConnection connection, SelectQuery query) throws Exception {
+        try (OntopStatement statement = connection.createStatement();
+             TupleResultSet resultSet = statement.execute(query)) {
+            int count = 0;
+            while (resultSet.hasNext()) {
+                resultSet.next();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static OntopQueryEngine createQueryEngine(Properties properties) throws OBDASpecificationException {
+        OntopMappingSQLAllConfiguration mappingConfiguration = OntopMappingSQLAllConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .enableTestMode()
+                .build();
+
+        OntopSystemSQLConfiguration systemConfiguration = OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(mappingConfiguration.loadSpecification())
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .properties(properties)
+                .enableTestMode()
+                .build();
+
+        return systemConfiguration.loadQueryEngine();
+    }
+}
@@ -0,0 +1,153 @@
+package it.unibz.inf.ontop.answering.connection;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.exception.*;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The slow query sleeps one second per row (3 rows)
+ */
+public class QueryTimeoutTest {
+
+    private static final String OBDA_FILE = "src/test/resources/timeout/timeout.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/timeout/create-db.sql";
+    // Otherwise, H2 evaluates one statement at a time
+    private static final String JDBC_URL = "jdbc:h2:mem:timeoutdb;MULTI_THREADED=1";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final String PERSON_QUERY_STRING = "PREFIX : <http://example.org/timeout/voc#>\n" +
+            "SELECT ?x WHERE { ?x a :Person . }";
+    private static final String SLOW_PERSON_QUERY_STRING = "PREFIX : <http://example.org/timeout/voc#>\n" +
+            "SELECT ?x WHERE { ?x a :SlowPerson . }";
+    private static final String VAR = "x";
+    private static final String PERSON_PREFIX = "http://example.com/person/";
+    private static final ImmutableSet<String> PERSONS = ImmutableSet.of(
+            PERSON_PREFIX + 1, PERSON_PREFIX + 2, PERSON_PREFIX + 3);
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate(new String(Files.readAllBytes(Paths.get(CREATE_DB_FILE))));
+        }
+        CONN.commit();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        CONN.close();
+    }
+
+    /**
+     * The first query times out while a second one is evaluated by another statement.
+     * The evaluation of the first query, still running after its deadline, must not interfere
+     * with the next query of its statement.
+     */
+    @Test
+    public void testTimeoutDuringConcurrentQuery() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSettings.MAX_CONCURRENT_QUERIES, "2");
+        properties.setProperty(OntopSystemSettings.QUERY_QUEUE_SIZE, "0");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (OntopQueryEngine queryEngine = createQueryEngine(properties)) {
+            queryEngine.connect();
+
+            try (OntopConnection slowConnection = queryEngine.getConnection();
+                 OntopStatement slowStatement = slowConnection.createStatement();
+                 OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                InputQueryFactory inputQueryFactory = connection.getInputQueryFactory();
+                SelectQuery personQuery = inputQueryFactory.createSelectQuery(PERSON_QUERY_STRING);
+                SelectQuery slowQuery = inputQueryFactory.createSelectQuery(SLOW_PERSON_QUERY_STRING);
+
+                slowStatement.setQueryTimeout(1);
+                Future<ImmutableSet<String>> slowResults = executor.submit(() -> evaluate(slowStatement, slowQuery));
+
+                // Before and after the timeout
+                for (int i = 0; i < 4; i++) {
+                    assertEquals(PERSONS, evaluate(statement, personQuery));
+                    Thread.sleep(500);
+                }
+
+                try {
+                    slowResults.get();
+                    fail("The slow query should have timed out");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof OntopQueryEvaluationException);
+                    assertTrue(e.getCause().getMessage().contains("timeout"));
+                }
+
+                assertEquals(PERSONS, evaluate(slowStatement, personQuery));
+                assertEquals(PERSONS, evaluate(statement, personQuery));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ImmutableSet<String> evaluate(OntopStatement statement, SelectQuery query)
+            throws OntopReformulationException, OntopQueryEvaluationException, OntopConnectionException,
+            OntopResultConversionException {
+        try (TupleResultSet resultSet = statement.execute(query)) {
+            ImmutableSet.Builder<String> answerBuilder = ImmutableSet.builder();
+            while (resultSet.hasNext()) {
+                OntopBinding binding = resultSet.next().getBinding(VAR);
+                if (binding != null)
+                    answerBuilder.add(binding.getValue().getValue());
+            }
+            return answerBuilder.build();
+        }
+    }
+
+    private static OntopQueryEngine createQueryEngine(Properties properties) throws OBDASpecificationException {
+        OntopMappingSQLAllConfiguration mappingConfiguration = OntopMappingSQLAllConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .enableTestMode()
+                .build();
+
+        OntopSystemSQLConfiguration systemConfiguration = OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(mappingConfiguration.loadSpecification())
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .properties(properties)
+                .enableTestMode()
+                .build();
+
+        return systemConfiguration.loadQueryEngine();
+    }
+}
@@ -0,0 +1,84 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FetchingTransactionTest {
+
+    @Test
+    public void testAutoCommitDisabledWhileStatementsAreOpen() throws Exception {
+        List<String> calls = new ArrayList<>();
+        FetchingTransaction transaction = new FetchingTransaction(createConnection(calls, true));
+
+        transaction.registerStatement();
+        transaction.registerStatement();
+        // Another statement may still be reading rows
+        transaction.beforeExecution();
+        transaction.unregisterStatement();
+        // Only open statement
+        transaction.beforeExecution();
+        transaction.unregisterStatement();
+
+        assertEquals(ImmutableList.of("setAutoCommit(false)", "rollback", "rollback", "setAutoCommit(true)"), calls);
+    }
+
+    /**
+     * The transaction of the user is left untouched
+     */
+    @Test
+    public void testAutoCommitAlreadyDisabled() throws Exception {
+        List<String> calls = new ArrayList<>();
+        FetchingTransaction transaction = new FetchingTransaction(createConnection(calls, false));
+
+        transaction.registerStatement();
+        transaction.beforeExecution();
+        transaction.unregisterStatement();
+        transaction.end();
+
+        assertEquals(ImmutableList.of(), calls);
+    }
+
+    @Test
+    public void testEndWithOpenStatement() throws Exception {
+        List<String> calls = new ArrayList<>();
+        FetchingTransaction transaction = new FetchingTransaction(createConnection(calls, true));
+
+        transaction.registerStatement();
+        transaction.end();
+
+        assertEquals(ImmutableList.of("setAutoCommit(false)", "rollback", "setAutoCommit(true)"), calls);
+    }
+
+    /**
+     * Connection recording the changes of autocommit and the rollbacks
+     */
+    private static Connection createConnection(List<String> calls, boolean initialAutoCommit) {
+        boolean[] autoCommit = {initialAutoCommit};
+        return (Connection) Proxy.newProxyInstance(FetchingTransactionTest.class.getClassLoader(),
+                new Class[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAutoCommit":
+                            return autoCommit[0];
+                        case "setAutoCommit":
+                            autoCommit[0] = (Boolean) args[0];
+                            calls.add("setAutoCommit(" + args[0] + ")");
+                            return null;
+                        case "rollback":
+                            calls.add("rollback");
+                            return null;
+                        case "isClosed":
+                            return false;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
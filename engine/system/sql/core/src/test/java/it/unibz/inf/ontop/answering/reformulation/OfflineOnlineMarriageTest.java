@@ -5,32 +5,46 @@ import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.monitoring.QueryMetrics;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
 import it.unibz.inf.ontop.answering.resultset.OntopBinding;
 import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
 import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.dbschema.RelationID;
 import it.unibz.inf.ontop.exception.*;
 import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
 import it.unibz.inf.ontop.injection.OntopReformulationSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.iq.IQ;
 import it.unibz.inf.ontop.iq.UnaryIQTree;
 import it.unibz.inf.ontop.iq.node.NativeNode;
+import it.unibz.inf.ontop.model.term.functionsymbol.db.DBParameterFunctionSymbol;
 import it.unibz.inf.ontop.spec.OBDASpecification;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.junit.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.lang.management.ManagementFactory;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
 import java.util.Optional;
+import java.util.Properties;
+
+import javax.management.ObjectName;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import static it.unibz.inf.ontop.answering.monitoring.QueryCounter.*;
+import static it.unibz.inf.ontop.answering.monitoring.QueryStage.*;
 
 /**
  * Examples showing how to separate the offline (OBDA specification extraction) from the online stage
@@ -50,8 +64,22 @@ public class OfflineOnlineMarriageTest {
             "WHERE {\n" +
             "  ?x a :Person .\n" +
             "}";
+    private static final String FIRST_NAME_QUERY_TEMPLATE = "PREFIX : <http://example.org/marriage/voc#>\n" +
+            "\n" +
+            "SELECT ?x \n" +
+            "WHERE {\n" +
+            "  ?x :firstName \"%s\" .\n" +
+            "}";
+    private static final String LAST_NAME_FILTER_QUERY_TEMPLATE = "PREFIX : <http://example.org/marriage/voc#>\n" +
+            "\n" +
+            "SELECT ?x \n" +
+            "WHERE {\n" +
+            "  ?x :lastName ?n .\n" +
+            "  FILTER (?n = \"%s\")\n" +
+            "}";
     private static final String VAR = "x";
     private static final String PERSON_PREFIX = "http://example.com/person/";
+    private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
 
     /*
      * DB connection (keeps it alive)
@@ -103,16 +131,85 @@ public class OfflineOnlineMarriageTest {
         LOGGER.info(sqlQuery);
     }
 
+    @Test
+    public void testQueryCache() throws OBDASpecificationException, OntopReformulationException {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_CACHE, "true");
+        // Above the integer range
+        properties.setProperty(OntopReformulationSettings.QUERY_CACHE_MAX_WEIGHT, "5000000000");
+
+        QueryReformulator queryReformulator = createReformulator(properties);
+        SelectQuery query = queryReformulator.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+
+        IQ firstExecutableQuery = queryReformulator.reformulateIntoNativeQuery(query);
+        IQ secondExecutableQuery = queryReformulator.reformulateIntoNativeQuery(query);
+        assertSame(firstExecutableQuery, secondExecutableQuery);
+
+        QueryCacheStats stats = queryReformulator.getQueryCacheStats();
+        LOGGER.info(stats.toString());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getLoadSuccessCount());
+        assertEquals(1, stats.getSize());
+        assertTrue(stats.getTotalWeight() > 0);
+    }
+
+    @Test
+    public void testSourceRelations() throws OBDASpecificationException, OntopReformulationException {
+        QueryReformulator queryReformulator = createReformulator();
+        InputQueryFactory inputQueryFactory = queryReformulator.getInputQueryFactory();
+
+        IQ executableQuery = queryReformulator.reformulateIntoNativeQuery(
+                inputQueryFactory.createSelectQuery(PERSON_QUERY_STRING));
+        Optional<ImmutableSet<RelationID>> relations = queryReformulator.getSourceRelations(executableQuery);
+        assertTrue(relations.isPresent());
+        assertEquals(ImmutableSet.of("person"), relations.get().stream()
+                .map(RelationID::getTableName)
+                .collect(ImmutableCollectors.toSet()));
+
+        // Not mapped: does not depend on the data source
+        IQ emptyQuery = queryReformulator.reformulateIntoNativeQuery(
+                inputQueryFactory.createSelectQuery("PREFIX : <http://example.org/marriage/voc#>\n" +
+                        "SELECT ?x WHERE { ?x a :Unmapped }"));
+        assertEquals(Optional.of(ImmutableSet.of()), queryReformulator.getSourceRelations(emptyQuery));
+    }
+
+    @Test
+    public void testStatementSourceRelations() throws OBDASpecificationException, OntopConnectionException,
+            OntopReformulationException, OntopResultConversionException, OntopQueryEvaluationException {
+        try (OntopQueryEngine queryEngine = createQueryEngine()) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                assertEquals(Optional.empty(), statement.getSourceRelations());
+
+                SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+                try (TupleResultSet resultSet = statement.execute(query)) {
+                    assertEquals(Optional.of(ImmutableSet.of("person")), statement.getSourceRelations()
+                            .map(rs -> rs.stream()
+                                    .map(RelationID::getTableName)
+                                    .collect(ImmutableCollectors.toSet())));
+                }
+            }
+        }
+    }
+
     /**
      * Instantiation of the query reformulator
      */
     private static QueryReformulator createReformulator() throws OBDASpecificationException {
+        return createReformulator(new Properties());
+    }
+
+    private static QueryReformulator createReformulator(Properties properties) throws OBDASpecificationException {
 
         OBDASpecification obdaSpecification = loadOBDASpecification();
 
         OntopReformulationSQLConfiguration reformulationConfiguration = OntopReformulationSQLConfiguration.defaultBuilder()
                 .obdaSpecification(obdaSpecification)
                 .jdbcUrl(JDBC_URL)
+                .properties(properties)
                 .enableTestMode()
                 .build();
 
@@ -159,10 +256,265 @@ public class OfflineOnlineMarriageTest {
         }
     }
 
+    @Test
+    public void testParameterizedQueries() throws OBDASpecificationException, OntopConnectionException,
+            OntopReformulationException, OntopResultConversionException, OntopQueryEvaluationException {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_CACHE, "true");
+
+        try (OntopQueryEngine queryEngine = createQueryEngine(properties)) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                InputQueryFactory inputQueryFactory = connection.getInputQueryFactory();
+
+                assertEquals(ImmutableSet.of(PERSON_PREFIX + 1), evaluate(statement,
+                        inputQueryFactory.createSelectQuery(String.format(FIRST_NAME_QUERY_TEMPLATE, "Mary"))));
+                assertEquals(ImmutableSet.of(PERSON_PREFIX + 3), evaluate(statement,
+                        inputQueryFactory.createSelectQuery(String.format(FIRST_NAME_QUERY_TEMPLATE, "Bob"))));
+                assertEquals(ImmutableSet.of(PERSON_PREFIX + 2), evaluate(statement,
+                        inputQueryFactory.createSelectQuery(String.format(LAST_NAME_FILTER_QUERY_TEMPLATE, "Doe"))));
+                assertEquals(ImmutableSet.of(), evaluate(statement,
+                        inputQueryFactory.createSelectQuery(String.format(LAST_NAME_FILTER_QUERY_TEMPLATE, "Jones"))));
+            }
+
+            QueryCacheStats stats = queryEngine.getQueryCacheStats();
+            LOGGER.info(stats.toString());
+            assertEquals(2, stats.getHitCount());
+            assertEquals(2, stats.getMissCount());
+        }
+    }
+
+    /**
+     * The traces are reported when the result sets are closed
+     */
+    @Test
+    public void testQueryMonitoring() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_CACHE, "true");
+        properties.setProperty(OntopReformulationSettings.QUERY_MONITORING, "true");
+        properties.setProperty(OntopReformulationSettings.QUERY_MONITORING_JMX, "true");
+        properties.setProperty(OntopReformulationSettings.SLOW_QUERY_THRESHOLD, "0");
+
+        ObjectName jmxPattern = new ObjectName("it.unibz.inf.ontop:type=QueryMonitor,*");
+        int initialJmxBeanCount = ManagementFactory.getPlatformMBeanServer().queryNames(jmxPattern, null).size();
+
+        try (OntopQueryEngine queryEngine = createQueryEngine(properties)) {
+            queryEngine.connect();
+            assertEquals(initialJmxBeanCount + 1,
+                    ManagementFactory.getPlatformMBeanServer().queryNames(jmxPattern, null).size());
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+
+                for (int i = 0; i < 2; i++) {
+                    try (TupleResultSet resultSet = statement.execute(query)) {
+                        int count = 0;
+                        while (resultSet.hasNext()) {
+                            resultSet.next();
+                            count++;
+                        }
+                        assertEquals(3, count);
+                    }
+                }
+            }
+
+            QueryMetrics metrics = queryEngine.getQueryMetrics();
+            LOGGER.info(metrics.toString());
+            assertEquals(2, metrics.getQueryCount());
+            assertEquals(0, metrics.getFailedQueryCount());
+            assertEquals(2, metrics.getSlowQueryCount());
+            assertEquals(1, metrics.getCounterTotal(QUERY_CACHE_HITS));
+            assertEquals(1, metrics.getCounterTotal(QUERY_CACHE_MISSES));
+            assertEquals(6, metrics.getCounterTotal(FETCHED_ROWS));
+            assertTrue(metrics.getCounterMax(PLANNED_IQ_SIZE) > 0);
+            assertTrue(metrics.getStageTotalTime(TRANSLATION) > 0);
+            assertTrue(metrics.getStageTotalTime(UNFOLDING) > 0);
+            assertTrue(metrics.getStageTotalTime(NATIVE_QUERY_EXECUTION) > 0);
+            assertTrue(metrics.getTotalTime() >= metrics.getStageTotalTime(NATIVE_QUERY_EXECUTION));
+        }
+        assertEquals(initialJmxBeanCount,
+                ManagementFactory.getPlatformMBeanServer().queryNames(jmxPattern, null).size());
+    }
+
+    /**
+     * A slow query is reported while its results are still being consumed, and again when closed
+     */
+    @Test
+    public void testRunningSlowQueryMonitoring() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_MONITORING, "true");
+        properties.setProperty(OntopReformulationSettings.SLOW_QUERY_THRESHOLD, "50");
+
+        try (OntopQueryEngine queryEngine = createQueryEngine(properties)) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+
+                try (TupleResultSet resultSet = statement.execute(query)) {
+                    assertTrue(resultSet.hasNext());
+                    resultSet.next();
+
+                    for (int i = 0; i < 100 && queryEngine.getQueryMetrics().getRunningSlowQueryCount() == 0; i++)
+                        Thread.sleep(50);
+
+                    QueryMetrics metrics = queryEngine.getQueryMetrics();
+                    assertEquals(1, metrics.getRunningSlowQueryCount());
+                    assertEquals(0, metrics.getQueryCount());
+                    assertEquals(0, metrics.getSlowQueryCount());
+                }
+            }
+
+            QueryMetrics metrics = queryEngine.getQueryMetrics();
+            assertEquals(1, metrics.getRunningSlowQueryCount());
+            assertEquals(1, metrics.getQueryCount());
+            assertEquals(1, metrics.getSlowQueryCount());
+        }
+    }
+
+    /**
+     * A single query admitted at a time: the admission must be released after each evaluation
+     */
+    @Test
+    public void testSingleQueryAdmission() throws OBDASpecificationException, OntopConnectionException,
+            OntopReformulationException, OntopResultConversionException, OntopQueryEvaluationException {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSystemSettings.MAX_CONCURRENT_QUERIES, "1");
+        properties.setProperty(OntopSystemSettings.QUERY_QUEUE_SIZE, "0");
+        properties.setProperty(OntopSystemSettings.QUERY_TIMEOUT, "60");
+
+        try (OntopQueryEngine queryEngine = createQueryEngine(properties)) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                SelectQuery query = connection.getInputQueryFactory().createSelectQuery(PERSON_QUERY_STRING);
+
+                for (int i = 0; i < 3; i++) {
+                    assertEquals(
+                            ImmutableSet.of(PERSON_PREFIX + 1, PERSON_PREFIX + 2, PERSON_PREFIX + 3),
+                            evaluate(statement, query));
+                }
+            }
+        }
+    }
+
+    /**
+     * Variable properties and classes, with a constant subject or object
+     */
+    @Test
+    public void testStarPatterns() throws OBDASpecificationException, OntopConnectionException,
+            OntopReformulationException, OntopResultConversionException, OntopQueryEvaluationException {
+        String voc = "http://example.org/marriage/voc#";
+        try (OntopQueryEngine queryEngine = createQueryEngine()) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                InputQueryFactory inputQueryFactory = connection.getInputQueryFactory();
+
+                assertEquals(ImmutableSet.of(RDF_TYPE, voc + "firstName", voc + "lastName", voc + "hasSpouse"),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "SELECT ?x WHERE { <" + PERSON_PREFIX + "1> ?x ?o }")));
+                assertEquals(ImmutableSet.of(PERSON_PREFIX + 1),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "SELECT ?x WHERE { ?x ?p <" + PERSON_PREFIX + "2> }")));
+                assertEquals(ImmutableSet.of(voc + "firstName"),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "SELECT ?x WHERE { ?s ?x \"Mary\" }")));
+                assertEquals(ImmutableSet.of(voc + "Person"),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "SELECT ?x WHERE { <" + PERSON_PREFIX + "3> a ?x }")));
+                assertEquals(ImmutableSet.of(),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "SELECT ?x WHERE { <http://example.com/company/1> ?x ?o }")));
+                assertEquals(ImmutableSet.of(PERSON_PREFIX + 1, PERSON_PREFIX + 2, PERSON_PREFIX + 3),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "SELECT DISTINCT ?x WHERE { ?x ?p ?o }")));
+            }
+        }
+    }
+
+    /**
+     * Constant subject or object, with a constant property or class
+     */
+    @Test
+    public void testConstantIRIs() throws OBDASpecificationException, OntopConnectionException,
+            OntopReformulationException, OntopResultConversionException, OntopQueryEvaluationException {
+        try (OntopQueryEngine queryEngine = createQueryEngine()) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                InputQueryFactory inputQueryFactory = connection.getInputQueryFactory();
+
+                assertEquals(ImmutableSet.of("Mary"),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "PREFIX : <http://example.org/marriage/voc#>\n" +
+                                        "SELECT ?x WHERE { <" + PERSON_PREFIX + "1> :firstName ?x }")));
+                assertEquals(ImmutableSet.of(PERSON_PREFIX + 2),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "PREFIX : <http://example.org/marriage/voc#>\n" +
+                                        "SELECT ?x WHERE { ?x :hasSpouse <" + PERSON_PREFIX + "1> }")));
+                assertEquals(ImmutableSet.of(),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "PREFIX : <http://example.org/marriage/voc#>\n" +
+                                        "SELECT ?x WHERE { ?x :hasSpouse <http://example.com/company/1> }")));
+                assertEquals(ImmutableSet.of(),
+                        evaluate(statement, inputQueryFactory.createSelectQuery(
+                                "PREFIX : <http://example.org/marriage/voc#>\n" +
+                                        "SELECT ?x WHERE { <http://example.com/company/1> a :Person ; :lastName ?x }")));
+            }
+        }
+    }
+
+    /**
+     * The positions of the parameters are recorded when generating the SQL query, which does not contain
+     * any placeholder anymore
+     */
+    @Test
+    public void testParameterPositions() throws OBDASpecificationException, OntopReformulationException {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_CACHE, "true");
+        QueryReformulator queryReformulator = createReformulator(properties);
+
+        IQ executableQuery = queryReformulator.reformulateIntoNativeQuery(queryReformulator.getInputQueryFactory()
+                .createSelectQuery(String.format(FIRST_NAME_QUERY_TEMPLATE, "Mary")));
+        NativeNode nativeNode = (NativeNode) ((UnaryIQTree) executableQuery.getTree()).getChild();
+
+        assertEquals(1, nativeNode.getParameters().size());
+        assertEquals("Mary", nativeNode.getParameters().get(0).getValue());
+        assertTrue(nativeNode.getParameterIndexes().isEmpty());
+        assertEquals(1, nativeNode.getNativeQueryString().chars().filter(c -> c == '?').count());
+        assertFalse(nativeNode.getNativeQueryString().contains(DBParameterFunctionSymbol.PLACEHOLDER_PREFIX));
+    }
+
+    private static ImmutableSet<String> evaluate(OntopStatement statement, SelectQuery query)
+            throws OntopReformulationException, OntopQueryEvaluationException, OntopConnectionException,
+            OntopResultConversionException {
+        TupleResultSet resultSet = statement.execute(query);
+
+        ImmutableSet.Builder<String> answerBuilder = ImmutableSet.builder();
+        while (resultSet.hasNext()) {
+            OntopBinding binding = resultSet.next().getBinding(VAR);
+            if (binding != null)
+                answerBuilder.add(binding.getValue().getValue());
+        }
+        return answerBuilder.build();
+    }
+
     /**
      * Instantiation of the query engine
      */
     private static OntopQueryEngine createQueryEngine() throws OBDASpecificationException {
+        return createQueryEngine(new Properties());
+    }
+
+    private static OntopQueryEngine createQueryEngine(Properties properties) throws OBDASpecificationException {
         OBDASpecification obdaSpecification = loadOBDASpecification();
 
         OntopSystemSQLConfiguration systemConfiguration = OntopSystemSQLConfiguration.defaultBuilder()
@@ -170,6 +522,7 @@ public class OfflineOnlineMarriageTest {
                 .jdbcUser(JDBC_USER)
                 .jdbcPassword(JDBC_PASSWORD)
                 .jdbcUrl(JDBC_URL)
+                .properties(properties)
                 .enableTestMode()
                 .build();
 
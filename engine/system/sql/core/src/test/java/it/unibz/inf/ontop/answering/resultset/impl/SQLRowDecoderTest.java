@@ -0,0 +1,155 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import it.unibz.inf.ontop.injection.OntopModelConfiguration;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.type.DBTermType;
+import it.unibz.inf.ontop.model.type.RDFDatatype;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import it.unibz.inf.ontop.substitution.SubstitutionFactory;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SQLRowDecoderTest {
+
+    private static final OntopModelConfiguration CONFIGURATION = OntopModelConfiguration.defaultBuilder().build();
+    private static final TermFactory TERM_FACTORY = CONFIGURATION.getTermFactory();
+    private static final TypeFactory TYPE_FACTORY = CONFIGURATION.getTypeFactory();
+    private static final SubstitutionFactory SUBSTITUTION_FACTORY = CONFIGURATION.getInjector()
+            .getInstance(SubstitutionFactory.class);
+
+    private static final DBTermType DB_STRING = TYPE_FACTORY.getDBTypeFactory().getDBStringType();
+    private static final RDFDatatype XSD_STRING = TYPE_FACTORY.getXsdStringDatatype();
+
+    // SPARQL variables
+    private static final Variable X = TERM_FACTORY.getVariable("x");
+    private static final Variable NAME = TERM_FACTORY.getVariable("name");
+    private static final Variable NICKNAME = TERM_FACTORY.getVariable("nickname");
+    private static final Variable LABEL = TERM_FACTORY.getVariable("label");
+    private static final Variable INVALID = TERM_FACTORY.getVariable("invalid");
+
+    // Columns (JDBC indexes in the order of the variable names: 1 to 5)
+    private static final Variable C_ID = TERM_FACTORY.getVariable("c1");
+    private static final Variable C_NAME = TERM_FACTORY.getVariable("c2");
+    private static final Variable C_NICKNAME = TERM_FACTORY.getVariable("c3");
+    private static final Variable C_UNUSED = TERM_FACTORY.getVariable("c4");
+    private static final Variable C_RAW = TERM_FACTORY.getVariable("c5");
+
+    /**
+     * x: IRI template, name: column of a concrete type, nickname: nullable column (conditional type),
+     * label: ground term, invalid: DB value that is not an RDF term (decoding error)
+     */
+    private static final SQLRowDecoder DECODER = new SQLRowDecoder(
+            ImmutableList.of(X, NAME, NICKNAME, LABEL, INVALID),
+            ImmutableSortedSet.of(C_ID, C_NAME, C_NICKNAME, C_UNUSED, C_RAW),
+            ImmutableMap.of(C_ID, DB_STRING, C_NAME, DB_STRING, C_NICKNAME, DB_STRING, C_UNUSED, DB_STRING,
+                    C_RAW, DB_STRING),
+            SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.of(
+                    X, TERM_FACTORY.getIRIFunctionalTerm("http://example.org/person/{}", ImmutableList.of(C_ID)),
+                    NAME, createLiteral(C_NAME),
+                    NICKNAME, TERM_FACTORY.getRDFFunctionalTerm(C_NICKNAME,
+                            TERM_FACTORY.getIfElseNull(TERM_FACTORY.getDBIsNotNull(C_NICKNAME),
+                                    TERM_FACTORY.getRDFTermTypeConstant(XSD_STRING))),
+                    LABEL, createLiteral(TERM_FACTORY.getDBStringConstant("person")),
+                    INVALID, C_RAW)),
+            TERM_FACTORY, SUBSTITUTION_FACTORY);
+
+    @Test
+    public void testReadOnlyUsedColumns() throws Exception {
+        List<Integer> readColumns = new ArrayList<>();
+        String[] row = DECODER.readRow(createResultSet(readColumns, "1", "Mary", "Mimi", "unused", "raw"));
+
+        assertEquals(ImmutableList.of(1, 2, 3, 5), readColumns);
+        assertArrayEquals(new String[]{"1", "Mary", "Mimi", "raw"}, row);
+    }
+
+    @Test
+    public void testDecoding() {
+        SQLOntopBindingSet bindingSet = new SQLOntopBindingSet(DECODER, new String[]{"John Doe", "John", "Johnny", "raw"});
+
+        // Same IRI-safe encoding as the template function symbol
+        RDFConstant iri = bindingSet.getConstant("x");
+        assertTrue(iri instanceof IRIConstant);
+        assertEquals("http://example.org/person/John%20Doe", iri.getValue());
+        assertEquals(TERM_FACTORY.getRDFLiteralConstant("John", XSD_STRING), bindingSet.getConstant("name"));
+        assertEquals(TERM_FACTORY.getRDFLiteralConstant("Johnny", XSD_STRING), bindingSet.getConstant("nickname"));
+        assertEquals(TERM_FACTORY.getRDFLiteralConstant("person", XSD_STRING), bindingSet.getConstant("label"));
+        assertNull(bindingSet.getConstant("unknown"));
+    }
+
+    /**
+     * The invalid binding is never decoded
+     */
+    @Test
+    public void testBindingNeverRead() {
+        SQLOntopBindingSet bindingSet = new SQLOntopBindingSet(DECODER, new String[]{"1", "Mary", "Mimi", "raw"});
+
+        assertTrue(bindingSet.hasBinding("name"));
+        assertEquals("Mary", bindingSet.getConstant("name").getValue());
+    }
+
+    @Test
+    public void testNullColumns() {
+        SQLOntopBindingSet bindingSet = new SQLOntopBindingSet(DECODER, new String[]{"1", "Mary", null, null});
+
+        assertFalse(bindingSet.hasBinding("nickname"));
+        assertNull(bindingSet.getBinding("nickname"));
+        assertNull(bindingSet.getConstant("nickname"));
+        // A null DB value is not a decoding error
+        assertFalse(bindingSet.hasBinding("invalid"));
+        assertEquals(ImmutableSet.of("x", "name", "label"), ImmutableSet.copyOf(bindingSet.getBindingNames()));
+    }
+
+    @Test
+    public void testDecodingErrorOnAccess() {
+        SQLOntopBindingSet bindingSet = new SQLOntopBindingSet(DECODER, new String[]{"1", "Mary", "Mimi", "raw"});
+
+        try {
+            bindingSet.getBinding("invalid");
+            fail("A DB constant cannot be a binding value");
+        }
+        catch (SQLOntopBindingSet.InvalidConstantTypeInResultException e) {
+            // expected
+        }
+        // Does not affect the other bindings
+        assertEquals("Mary", bindingSet.getConstant("name").getValue());
+
+        try {
+            // Decodes all the bindings
+            bindingSet.getBindings();
+            fail("A DB constant cannot be a binding value");
+        }
+        catch (SQLOntopBindingSet.InvalidConstantTypeInResultException e) {
+            // expected
+        }
+    }
+
+    private static ImmutableFunctionalTerm createLiteral(ImmutableTerm lexicalTerm) {
+        return TERM_FACTORY.getRDFFunctionalTerm(lexicalTerm, TERM_FACTORY.getRDFTermTypeConstant(XSD_STRING));
+    }
+
+    /**
+     * Single-row result set recording the indexes of the columns read
+     */
+    private static ResultSet createResultSet(List<Integer> readColumns, String... values) {
+        return (ResultSet) Proxy.newProxyInstance(SQLRowDecoderTest.class.getClassLoader(),
+                new Class[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getString") && args[0] instanceof Integer) {
+                        int index = (Integer) args[0];
+                        readColumns.add(index);
+                        return values[index - 1];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
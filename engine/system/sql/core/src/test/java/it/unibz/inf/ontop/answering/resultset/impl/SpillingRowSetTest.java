@@ -0,0 +1,87 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class SpillingRowSetTest {
+
+    @Test
+    public void testInMemory() throws Exception {
+        try (SpillingRowSet rowSet = new SpillingRowSet(1024 * 1024)) {
+            assertTrue(rowSet.add(new String[]{"a", "b"}));
+            assertTrue(rowSet.add(new String[]{"a", null}));
+            assertTrue(rowSet.add(new String[]{"ab", ""}));
+            assertFalse(rowSet.add(new String[]{"a", "b"}));
+            assertFalse(rowSet.add(new String[]{"a", null}));
+
+            assertEquals(5, rowSet.getAddedRowCount());
+            assertEquals(3, rowSet.getDistinctRowCount());
+            assertEquals(0.4, rowSet.getDeduplicationRatio(), 0.0001);
+            assertEquals(0, rowSet.getSpilledRunCount());
+        }
+    }
+
+    @Test
+    public void testSpilling() throws Exception {
+        // Forces a spill every few rows
+        try (SpillingRowSet rowSet = new SpillingRowSet(1000)) {
+            for (int i = 0; i < 2000; i++) {
+                assertTrue(rowSet.add(new String[]{"row" + i, i % 3 == 0 ? null : String.valueOf(i)}));
+            }
+            assertTrue(rowSet.getSpilledRunCount() > 10);
+
+            for (int i = 0; i < 2000; i++) {
+                assertFalse(rowSet.add(new String[]{"row" + i, i % 3 == 0 ? null : String.valueOf(i)}));
+                assertTrue(rowSet.add(new String[]{"row" + i, "other" + i}));
+            }
+            assertEquals(6000, rowSet.getAddedRowCount());
+            assertEquals(4000, rowSet.getDistinctRowCount());
+        }
+    }
+
+    /**
+     * The runs are merged, and the files of the merged runs are deleted
+     */
+    @Test
+    public void testRunMerging() throws Exception {
+        int initialRunFileCount = countRunFiles();
+        try (SpillingRowSet rowSet = new SpillingRowSet(1000)) {
+            for (int i = 0; i < 5000; i++) {
+                assertTrue(rowSet.add(new String[]{"row" + i}));
+            }
+            assertTrue(rowSet.getSpilledRunCount() > 100);
+            assertTrue(rowSet.getRunCount() < 20);
+            assertEquals(initialRunFileCount + rowSet.getRunCount(), countRunFiles());
+
+            for (int i = 0; i < 5000; i++) {
+                assertFalse(rowSet.add(new String[]{"row" + i}));
+            }
+            assertEquals(5000, rowSet.getDistinctRowCount());
+        }
+        assertEquals(initialRunFileCount, countRunFiles());
+    }
+
+    /**
+     * The Bloom filters and sparse indexes of the runs count against the memory budget
+     */
+    @Test
+    public void testMemoryBudget() throws Exception {
+        long maxMemory = 100000;
+        try (SpillingRowSet rowSet = new SpillingRowSet(maxMemory)) {
+            for (int i = 0; i < 20000; i++) {
+                rowSet.add(new String[]{"row" + i});
+                assertTrue(rowSet.getMemoryUsage() <= maxMemory);
+            }
+            assertTrue(rowSet.getSpilledRunCount() > 10);
+        }
+    }
+
+    private static int countRunFiles() {
+        File[] files = new File(System.getProperty("java.io.tmpdir"))
+                .listFiles((dir, name) -> name.startsWith("ontop-distinct-") && name.endsWith(".run"));
+        return files == null ? 0 : files.length;
+    }
+}
@@ -0,0 +1,44 @@
+package it.unibz.inf.ontop.injection.impl;
+
+import it.unibz.inf.ontop.injection.OntopSQLCoreSettings;
+import it.unibz.inf.ontop.injection.OntopSQLCredentialSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSQLSettings;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+public class OntopSystemSQLSettingsTest {
+
+    @Test
+    public void testDefaultFetchSizes() {
+        assertEquals(Optional.of(Integer.MIN_VALUE),
+                createSettings("jdbc:mysql://localhost/db", "com.mysql.jdbc.Driver").getFetchSize());
+        assertEquals(Optional.of(1000),
+                createSettings("jdbc:postgresql://localhost/db", "org.postgresql.Driver").getFetchSize());
+        assertEquals(Optional.empty(),
+                createSettings("jdbc:h2:mem:db", "org.h2.Driver").getFetchSize());
+    }
+
+    @Test
+    public void testFetchSizeSetByUser() {
+        Properties properties = createProperties("jdbc:mysql://localhost/db", "com.mysql.jdbc.Driver");
+        properties.setProperty(OntopSystemSQLSettings.FETCH_SIZE, "0");
+        assertEquals(Optional.of(0), new OntopSystemSQLSettingsImpl(properties).getFetchSize());
+    }
+
+    private static OntopSystemSQLSettings createSettings(String jdbcUrl, String jdbcDriver) {
+        return new OntopSystemSQLSettingsImpl(createProperties(jdbcUrl, jdbcDriver));
+    }
+
+    private static Properties createProperties(String jdbcUrl, String jdbcDriver) {
+        Properties properties = new Properties();
+        properties.setProperty(OntopSQLCoreSettings.JDBC_URL, jdbcUrl);
+        properties.setProperty(OntopSQLCoreSettings.JDBC_DRIVER, jdbcDriver);
+        properties.setProperty(OntopSQLCredentialSettings.JDBC_USER, "user");
+        properties.setProperty(OntopSQLCredentialSettings.JDBC_PASSWORD, "password");
+        return properties;
+    }
+}
@@ -50,18 +50,24 @@ import it.unibz.inf.ontop.spec.ontology.Assertion;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.apache.commons.rdf.api.IRI;
 import org.apache.commons.rdf.api.RDF;
+import org.junit.After;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class OntopMaterializerTest {
 
@@ -195,6 +201,288 @@ public class OntopMaterializerTest {
 
 	}
 
+	@Test
+	public void testParallelWithCheckpoint() throws Exception {
+
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(createMapping())
+				.build();
+
+		Connection conn = createDatabase();
+
+		ImmutableSet<IRI> vocabulary = Stream.of(fnIRI, lnIRI, ageIRI, hasschoolIRI, schoolIRI)
+				.collect(ImmutableCollectors.toSet());
+
+		File checkpointFile = File.createTempFile("materialization", ".checkpoint");
+		checkpointFile.delete();
+		checkpointFile.deleteOnExit();
+		InMemoryOutput output = new InMemoryOutput();
+		List<IRI> completed = new ArrayList<>();
+
+		MaterializationParams params = MaterializationParams.defaultBuilder()
+				.parallelism(2)
+				.checkpoint(checkpointFile, output)
+				.progressListener((iri, count, isPossiblyIncomplete, completedCount, totalCount) -> completed.add(iri))
+				.build();
+		OntopRDFMaterializer materializer = OntopRDFMaterializer.defaultMaterializer(configuration, params);
+
+		// Interrupted after the completion of 2 properties
+		try (MaterializedGraphResultSet materializationResultSet = materializer.materialize(vocabulary)) {
+			while (completed.size() < 2 && materializationResultSet.hasNext()) {
+				output.write(materializationResultSet.next());
+			}
+		}
+		assertEquals(2, completed.size());
+		// Triples written after the last checkpoint are lost
+		output.crash();
+
+		// Resumes
+		try (MaterializedGraphResultSet materializationResultSet = materializer.materialize(vocabulary)) {
+			while (materializationResultSet.hasNext()) {
+				output.write(materializationResultSet.next());
+			}
+			assertFalse(materializationResultSet.hasEncounteredProblemsSoFar());
+		}
+		assertEquals(vocabulary, ImmutableSet.copyOf(completed));
+		assertEquals(5, completed.size());
+		assertEquals(15, ImmutableSet.copyOf(output.triples).size());
+		assertEquals(15, output.triples.size());
+
+		// Everything has already been materialized
+		try (MaterializedGraphResultSet materializationResultSet = materializer.materialize(vocabulary)) {
+			assertFalse(materializationResultSet.hasNext());
+		}
+		assertEquals(15, ImmutableSet.copyOf(output.triples).size());
+
+		conn.close();
+	}
+
+	/**
+	 * The triples of the classes and properties in progress when interrupted are not written twice
+	 */
+	@Test
+	public void testParallelResumeWithoutDuplicates() throws Exception {
+
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(createMapping())
+				.build();
+
+		Connection conn = createDatabase();
+
+		ImmutableSet<IRI> vocabulary = Stream.of(fnIRI, lnIRI, ageIRI, hasschoolIRI, schoolIRI)
+				.collect(ImmutableCollectors.toSet());
+
+		File checkpointFile = File.createTempFile("materialization", ".checkpoint");
+		checkpointFile.delete();
+		checkpointFile.deleteOnExit();
+		InMemoryOutput output = new InMemoryOutput();
+		List<IRI> completed = new ArrayList<>();
+
+		MaterializationParams params = MaterializationParams.defaultBuilder()
+				.parallelism(vocabulary.size())
+				.checkpoint(checkpointFile, output)
+				.progressListener((iri, count, isPossiblyIncomplete, completedCount, totalCount) -> completed.add(iri))
+				.build();
+		OntopRDFMaterializer materializer = OntopRDFMaterializer.defaultMaterializer(configuration, params);
+
+		// Interrupted after the completion of the first property, while the others are in progress
+		try (MaterializedGraphResultSet materializationResultSet = materializer.materialize(vocabulary)) {
+			while (completed.isEmpty() && materializationResultSet.hasNext()) {
+				output.write(materializationResultSet.next());
+			}
+			// Written but not synced
+			while (output.triples.size() < 5 && materializationResultSet.hasNext()) {
+				output.write(materializationResultSet.next());
+			}
+		}
+		assertEquals(1, completed.size());
+		output.crash();
+
+		try (MaterializedGraphResultSet materializationResultSet = materializer.materialize(vocabulary)) {
+			while (materializationResultSet.hasNext()) {
+				output.write(materializationResultSet.next());
+			}
+		}
+		assertEquals(15, output.triples.size());
+		assertEquals(15, ImmutableSet.copyOf(output.triples).size());
+
+		conn.close();
+	}
+
+	@Test
+	public void testIncrementalWithWatermark() throws Exception {
+
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(createMapping())
+				.build();
+
+		Connection conn = createDatabase();
+
+		MaterializationParams params = MaterializationParams.defaultBuilder()
+				.relationChanges(RelationChanges.watermark("\"data\"", "\"age\"", "26"))
+				.build();
+		OntopRDFMaterializer materializer = OntopRDFMaterializer.defaultMaterializer(configuration, params);
+
+		// 2 persons with their 6 triples
+		assertEquals(12, materializeDistinctTriples(materializer.materializeAddedTriples()).size());
+		// Deletions are not detected with watermarks
+		assertEquals(0, materializeDistinctTriples(materializer.materializeRemovedTriples()).size());
+
+		conn.close();
+	}
+
+	@Test
+	public void testIncrementalWithChangeTable() throws Exception {
+
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(createMapping())
+				.build();
+
+		Connection conn = createDatabase();
+		Statement st = conn.createStatement();
+		st.executeUpdate("CREATE TABLE \"data_changes\" (\"fn\" VARCHAR, \"ln\" VARCHAR, \"age\" INTEGER, " +
+				"\"schooluri\" VARCHAR, \"op\" VARCHAR)");
+		st.executeUpdate("INSERT INTO \"data_changes\" VALUES ('roman','kontchakov',40,'http://schools.com/bbk','I')");
+		st.executeUpdate("INSERT INTO \"data_changes\" VALUES ('alexandra','eckert',26,'http://schools.com/tnt','D')");
+		// Update
+		st.executeUpdate("INSERT INTO \"data_changes\" VALUES ('vlad','rhyzikov',27,'http://schools.com/fub','D')");
+		st.executeUpdate("INSERT INTO \"data_changes\" VALUES ('vlad','rhyzikov',28,'http://schools.com/fub','I')");
+		// Changes already applied to the relation
+		st.executeUpdate("INSERT INTO \"data\" VALUES ('roman','kontchakov',40,'http://schools.com/bbk')");
+		st.executeUpdate("DELETE FROM \"data\" WHERE \"fn\" = 'alexandra'");
+		st.executeUpdate("UPDATE \"data\" SET \"age\" = 28 WHERE \"fn\" = 'vlad'");
+		conn.commit();
+
+		MaterializationParams params = MaterializationParams.defaultBuilder()
+				.relationChanges(RelationChanges.changeTable("\"data\"", "\"data_changes\"", "\"op\""))
+				.build();
+		OntopRDFMaterializer materializer = OntopRDFMaterializer.defaultMaterializer(configuration, params);
+
+		ImmutableSet<String> addedTriples = materializeDistinctTriples(materializer.materializeAddedTriples());
+		assertEquals(12, addedTriples.size());
+		assertTrue(addedTriples.stream().allMatch(t -> t.contains("kontchakov") || t.contains("bbk")
+				|| t.contains("rhyzikov") || t.contains("fub")));
+
+		// The school fub and the other triples of vlad are still derivable
+		ImmutableSet<String> removedTriples = materializeDistinctTriples(materializer.materializeRemovedTriples());
+		assertEquals(7, removedTriples.size());
+		assertTrue(removedTriples.stream().allMatch(t -> t.contains("eckert") || t.contains("tnt")
+				|| (t.contains("rhyzikov") && t.contains("27"))));
+
+		conn.close();
+	}
+
+	/**
+	 * The student and its school are deleted together (cascade delete)
+	 */
+	@Test
+	public void testIncrementalWithChangeTablesOnBothSidesOfJoin() throws Exception {
+
+		Connection conn = DriverManager.getConnection(url, username, password);
+		Statement st = conn.createStatement();
+		st.executeUpdate("CREATE TABLE \"school\" (\"id\" INTEGER NOT NULL, \"name\" VARCHAR)");
+		st.executeUpdate("CREATE TABLE \"student\" (\"id\" INTEGER NOT NULL, \"schoolid\" INTEGER)");
+		st.executeUpdate("CREATE TABLE \"school_changes\" (\"id\" INTEGER, \"name\" VARCHAR, \"op\" VARCHAR)");
+		st.executeUpdate("CREATE TABLE \"student_changes\" (\"id\" INTEGER, \"schoolid\" INTEGER, \"op\" VARCHAR)");
+		st.executeUpdate("INSERT INTO \"school\" VALUES (1, 'bbk')");
+		st.executeUpdate("INSERT INTO \"student\" VALUES (10, 1)");
+		st.executeUpdate("INSERT INTO \"student\" VALUES (30, 1)");
+		st.executeUpdate("INSERT INTO \"school_changes\" VALUES (2, 'fub', 'D')");
+		st.executeUpdate("INSERT INTO \"student_changes\" VALUES (20, 2, 'D')");
+		st.executeUpdate("INSERT INTO \"student_changes\" VALUES (30, 1, 'I')");
+		conn.commit();
+
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(createJoinMapping())
+				.build();
+
+		MaterializationParams params = MaterializationParams.defaultBuilder()
+				.relationChanges(RelationChanges.changeTable("\"school\"", "\"school_changes\"", "\"op\""))
+				.relationChanges(RelationChanges.changeTable("\"student\"", "\"student_changes\"", "\"op\""))
+				.build();
+		OntopRDFMaterializer materializer = OntopRDFMaterializer.defaultMaterializer(configuration, params);
+
+		ImmutableSet<String> addedTriples = materializeDistinctTriples(materializer.materializeAddedTriples());
+		assertEquals(1, addedTriples.size());
+		assertTrue(addedTriples.iterator().next().contains("student/30"));
+
+		ImmutableSet<String> removedTriples = materializeDistinctTriples(materializer.materializeRemovedTriples());
+		assertEquals(1, removedTriples.size());
+		assertTrue(removedTriples.iterator().next().contains("student/20"));
+		assertTrue(removedTriples.iterator().next().contains("fub"));
+
+		conn.close();
+	}
+
+	private static ImmutableSet<String> materializeDistinctTriples(MaterializedGraphResultSet resultSet)
+			throws Exception {
+		try (MaterializedGraphResultSet materializationResultSet = resultSet) {
+			ImmutableSet.Builder<String> triples = ImmutableSet.builder();
+			while (materializationResultSet.hasNext()) {
+				triples.add(materializationResultSet.next().toString());
+			}
+			return triples.build();
+		}
+	}
+
+	/**
+	 * Triples are durable once synced
+	 */
+	private static class InMemoryOutput implements MaterializationOutput {
+		private final List<String> triples = new ArrayList<>();
+		private int syncedSize = 0;
+
+		void write(Assertion assertion) {
+			triples.add(assertion.toString());
+		}
+
+		void crash() {
+			truncate(syncedSize);
+		}
+
+		@Override
+		public long sync() {
+			syncedSize = triples.size();
+			return syncedSize;
+		}
+
+		@Override
+		public void truncate(long position) {
+			triples.subList((int) position, triples.size()).clear();
+			syncedSize = Math.min(syncedSize, (int) position);
+		}
+	}
+
+	/**
+	 * The in-memory DB may be kept alive by the connections of the query engines
+	 */
+	@After
+	public void dropDatabase() throws Exception {
+		try (Connection conn = DriverManager.getConnection(url, username, password);
+			 Statement st = conn.createStatement()) {
+			st.executeUpdate("DROP ALL OBJECTS");
+		}
+	}
+
+	private Connection createDatabase() throws Exception {
+		Connection conn = DriverManager.getConnection(url, username, password);
+		Statement st = conn.createStatement();
+
+		FileReader reader = new FileReader("src/test/resources/mapping-test-db.sql");
+		BufferedReader in = new BufferedReader(reader);
+		StringBuilder bf = new StringBuilder();
+		String line = in.readLine();
+		while (line != null) {
+			bf.append(line);
+			line = in.readLine();
+		}
+		in.close();
+
+		st.executeUpdate(bf.toString());
+		conn.commit();
+		return conn;
+	}
+
 
 
 	private SQLPPMapping createMapping() throws DuplicateMappingException {
@@ -240,6 +528,30 @@ public class OntopMaterializerTest {
 		return ppMappingFactory.createSQLPreProcessedMapping(ImmutableList.of(map1), mappingMetadata);
 	}
 
+	private SQLPPMapping createJoinMapping() throws DuplicateMappingException {
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.build();
+		Injector injector = configuration.getInjector();
+		SpecificationFactory specificationFactory = injector.getInstance(SpecificationFactory.class);
+		SQLPPMappingFactory ppMappingFactory = injector.getInstance(SQLPPMappingFactory.class);
+
+		String sql = "SELECT \"student\".\"id\", \"school\".\"name\" FROM \"student\", \"school\" " +
+				"WHERE \"student\".\"schoolid\" = \"school\".\"id\"";
+
+		ImmutableFunctionalTerm studentTemplate = termFactory.getIRIFunctionalTerm(
+				"http://schools.com/student/{}",
+				ImmutableList.of(termFactory.getVariable("id")));
+		ImmutableTerm schoolName = termFactory.getConstantIRI(rdfFactory.createIRI(PREFIX + "schoolName"));
+
+		SQLPPTriplesMap map1 = new OntopNativeSQLPPTriplesMap(mappingFactory.getSQLQuery(sql),
+				ImmutableList.of(getTripleTargetAtom(studentTemplate, schoolName,
+						termFactory.getRDFLiteralFunctionalTerm(termFactory.getVariable("name"), xsdStringDt))));
+
+		PrefixManager prefixManager = specificationFactory.createPrefixManager(ImmutableMap.of());
+		MappingMetadata mappingMetadata = specificationFactory.createMetadata(prefixManager);
+		return ppMappingFactory.createSQLPreProcessedMapping(ImmutableList.of(map1), mappingMetadata);
+	}
+
 	private TargetAtom getTripleTargetAtom(ImmutableTerm s, ImmutableTerm p, ImmutableTerm o) {
 		return targetAtomFactory.getTripleTargetAtom(s, p, o);
 	}
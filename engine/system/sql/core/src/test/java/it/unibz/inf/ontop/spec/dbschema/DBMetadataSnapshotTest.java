@@ -0,0 +1,280 @@
+package it.unibz.inf.ontop.spec.dbschema;
+
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.dbschema.DatabaseRelationDefinition;
+import it.unibz.inf.ontop.dbschema.RDBMetadata;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
+import it.unibz.inf.ontop.spec.dbschema.impl.DefaultRDBMetadataExtractor;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DBMetadataSnapshotTest {
+
+    private static final String OBDA_FILE = "src/test/resources/marriage/marriage.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/marriage/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:snapshotjunitdb";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        StringBuilder bf = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new FileReader(CREATE_DB_FILE))) {
+            String line = in.readLine();
+            while (line != null) {
+                bf.append(line);
+                line = in.readLine();
+            }
+        }
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate(bf.toString());
+        }
+        CONN.commit();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        CONN.close();
+    }
+
+    /**
+     * The file written in advance (as by "ontop extract-db-metadata") is used as the cache
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        File cacheFile = extract(OBDA_FILE);
+
+        RDBMetadata extractedMetadata = loadDBMetadata(createConfiguration(
+                OntopMappingSQLAllConfiguration.defaultBuilder().nativeOntopMappingFile(OBDA_FILE)));
+
+        OntopMappingSQLAllConfiguration cachingConfiguration = createConfiguration(
+                OntopMappingSQLAllConfiguration.defaultBuilder()
+                        .nativeOntopMappingFile(OBDA_FILE)
+                        .dbMetadataCacheFile(cacheFile.getPath()));
+        RDBMetadata cachedMetadata = loadDBMetadata(cachingConfiguration);
+        assertEquals(render(extractedMetadata), render(cachedMetadata));
+        // Loaded from the cache
+        assertTrue(getExtractor(cachingConfiguration).awaitCacheRevalidation());
+    }
+
+    @Test
+    public void testStaleCache() throws Exception {
+        File cacheFile = extract(OBDA_FILE);
+
+        String modifiedMapping = new String(Files.readAllBytes(Paths.get(OBDA_FILE)), StandardCharsets.UTF_8)
+                .replace("SELECT * FROM \"person\"", "SELECT * FROM \"person\" WHERE \"id\" > 0");
+
+        // Different source queries: the cache is ignored and the metadata is extracted again
+        OntopMappingSQLAllConfiguration configuration = createConfiguration(
+                OntopMappingSQLAllConfiguration.defaultBuilder()
+                        .nativeOntopMappingReader(new StringReader(modifiedMapping))
+                        .dbMetadataCacheFile(cacheFile.getPath()));
+        loadDBMetadata(configuration);
+        assertFalse(getExtractor(configuration).awaitCacheRevalidation());
+    }
+
+    @Test
+    public void testCorruptedCache() throws Exception {
+        File cacheFile = temporaryFolder.newFile("corrupted.cache");
+        Files.write(cacheFile.toPath(), "not a cache".getBytes(StandardCharsets.UTF_8));
+
+        OntopMappingSQLAllConfiguration configuration = createConfiguration(
+                OntopMappingSQLAllConfiguration.defaultBuilder()
+                        .nativeOntopMappingFile(OBDA_FILE)
+                        .dbMetadataCacheFile(cacheFile.getPath()));
+        RDBMetadata metadata = loadDBMetadata(configuration);
+
+        assertEquals(4, getPersonRelation(metadata).getAttributes().size());
+        assertFalse(getExtractor(configuration).awaitCacheRevalidation());
+        // Rewritten
+        assertTrue(loadDBMetadataSnapshot(configuration, cacheFile).isPresent());
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        File cacheFile = new File(temporaryFolder.getRoot(), "marriage.cache");
+        OntopMappingSQLAllConfiguration extractingConfiguration = createCachingConfiguration(cacheFile);
+        RDBMetadata extractedMetadata = loadDBMetadata(extractingConfiguration);
+        assertTrue(cacheFile.exists());
+        // Nothing to revalidate
+        assertFalse(getExtractor(extractingConfiguration).awaitCacheRevalidation());
+
+        executeUpdate("ALTER TABLE \"person\" ADD \"nickname\" VARCHAR(40)");
+        try {
+            // The cached metadata is used, the schema change is detected in the background
+            OntopMappingSQLAllConfiguration cachingConfiguration = createCachingConfiguration(cacheFile);
+            RDBMetadata cachedMetadata = loadDBMetadata(cachingConfiguration);
+            assertEquals(render(extractedMetadata), render(cachedMetadata));
+            assertTrue(getExtractor(cachingConfiguration).awaitCacheRevalidation());
+
+            // Refreshed for the next boots
+            assertEquals(5, getPersonRelation(loadDBMetadata(createCachingConfiguration(cacheFile)))
+                    .getAttributes().size());
+        }
+        finally {
+            executeUpdate("ALTER TABLE \"person\" DROP COLUMN \"nickname\"");
+        }
+    }
+
+    /**
+     * Same columns, new integrity constraint
+     */
+    @Test
+    public void testCacheConstraintChange() throws Exception {
+        File cacheFile = new File(temporaryFolder.getRoot(), "marriage-constraint.cache");
+        RDBMetadata extractedMetadata = loadDBMetadata(createCachingConfiguration(cacheFile));
+        assertEquals(1, getPersonRelation(extractedMetadata).getUniqueConstraints().size());
+
+        executeUpdate("ALTER TABLE \"person\" ADD CONSTRAINT \"unique_name\" UNIQUE (\"first_name\", \"last_name\")");
+        try {
+            OntopMappingSQLAllConfiguration cachingConfiguration = createCachingConfiguration(cacheFile);
+            loadDBMetadata(cachingConfiguration);
+            assertTrue(getExtractor(cachingConfiguration).awaitCacheRevalidation());
+
+            assertEquals(2, getPersonRelation(loadDBMetadata(createCachingConfiguration(cacheFile)))
+                    .getUniqueConstraints().size());
+        }
+        finally {
+            executeUpdate("ALTER TABLE \"person\" DROP CONSTRAINT \"unique_name\"");
+        }
+    }
+
+    @Test
+    public void testCachedStatistics() throws Exception {
+        File cacheFile = new File(temporaryFolder.getRoot(), "marriage-statistics.cache");
+        RDBMetadata extractedMetadata = loadDBMetadata(createCachingConfiguration(cacheFile, true));
+        assertTrue(getPersonRelation(extractedMetadata).getStatistics().isPresent());
+
+        RDBMetadata cachedMetadata = loadDBMetadata(createCachingConfiguration(cacheFile, true));
+        assertEquals(render(extractedMetadata), render(cachedMetadata));
+    }
+
+    /**
+     * Unchanged relations of the mapping: the cache is not refreshed
+     */
+    @Test
+    public void testCacheUnrelatedSchemaChange() throws Exception {
+        File cacheFile = new File(temporaryFolder.getRoot(), "marriage-unrelated.cache");
+        loadDBMetadata(createCachingConfiguration(cacheFile));
+        long lastModified = cacheFile.lastModified();
+
+        executeUpdate("CREATE TABLE \"unmapped\" (\"id\" INT PRIMARY KEY)");
+        try {
+            OntopMappingSQLAllConfiguration cachingConfiguration = createCachingConfiguration(cacheFile);
+            loadDBMetadata(cachingConfiguration);
+            assertTrue(getExtractor(cachingConfiguration).awaitCacheRevalidation());
+            assertEquals(lastModified, cacheFile.lastModified());
+        }
+        finally {
+            executeUpdate("DROP TABLE \"unmapped\"");
+        }
+    }
+
+    private static DefaultRDBMetadataExtractor getExtractor(OntopMappingSQLAllConfiguration configuration) {
+        return (DefaultRDBMetadataExtractor) configuration.getInjector().getInstance(RDBMetadataExtractor.class);
+    }
+
+    private static OntopMappingSQLAllConfiguration createCachingConfiguration(File cacheFile) {
+        return createCachingConfiguration(cacheFile, false);
+    }
+
+    private static OntopMappingSQLAllConfiguration createCachingConfiguration(File cacheFile,
+                                                                              boolean extractStatistics) {
+        Properties properties = new Properties();
+        properties.setProperty(OntopMappingSQLSettings.DB_METADATA_CACHE_FILE, cacheFile.getPath());
+        properties.setProperty(OntopMappingSQLSettings.DB_STATISTICS_EXTRACTION, String.valueOf(extractStatistics));
+        return createConfiguration(OntopMappingSQLAllConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .properties(properties));
+    }
+
+    /**
+     * Same as "ontop extract-db-metadata"
+     */
+    private File extract(String mappingFile) throws Exception {
+        File cacheFile = new File(temporaryFolder.getRoot(), "marriage-extracted.cache");
+        loadDBMetadata(createConfiguration(
+                OntopMappingSQLAllConfiguration.defaultBuilder()
+                        .nativeOntopMappingFile(mappingFile)
+                        .dbMetadataCacheFile(cacheFile.getPath())));
+        assertTrue(cacheFile.exists());
+        return cacheFile;
+    }
+
+    private static Optional<DBMetadataSnapshotManager.DBMetadataSnapshot> loadDBMetadataSnapshot(
+            OntopMappingSQLAllConfiguration configuration, File cacheFile) throws Exception {
+        return configuration.getInjector().getInstance(DBMetadataSnapshotManager.class)
+                .load(configuration.loadProvidedPPMapping(), Optional.empty(), cacheFile);
+    }
+
+    private static OntopMappingSQLAllConfiguration createConfiguration(
+            OntopMappingSQLAllConfiguration.Builder<? extends OntopMappingSQLAllConfiguration.Builder> builder) {
+        return builder
+                .jdbcUrl(JDBC_URL)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .enableTestMode()
+                .build();
+    }
+
+    private static RDBMetadata loadDBMetadata(OntopMappingSQLAllConfiguration configuration) throws Exception {
+        return (RDBMetadata) configuration.loadSpecification().getDBMetadata();
+    }
+
+    private static DatabaseRelationDefinition getPersonRelation(RDBMetadata metadata) {
+        return metadata.getDatabaseRelations().stream()
+                .filter(r -> r.getID().getTableName().equals("person"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No person relation"));
+    }
+
+    /**
+     * Relations, attributes, constraints and statistics
+     */
+    private static ImmutableList<String> render(RDBMetadata metadata) {
+        return metadata.getDatabaseRelations().stream()
+                .map(r -> r + " " + r.getAttributes().stream()
+                                .map(a -> a.getID() + ":" + a.getSQLTypeName() + ":" + a.getTermType() + ":" + a.canNull())
+                                .collect(ImmutableCollectors.toList())
+                        + " " + r.getUniqueConstraints() + " " + r.getOtherFunctionalDependencies()
+                        + " " + r.getForeignKeys() + " " + r.getStatistics())
+                .sorted()
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private static void executeUpdate(String sql) throws Exception {
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate(sql);
+        }
+    }
+}
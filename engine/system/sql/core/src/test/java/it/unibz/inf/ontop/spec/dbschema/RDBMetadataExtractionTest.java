@@ -0,0 +1,132 @@
+package it.unibz.inf.ontop.spec.dbschema;
+
+
+import it.unibz.inf.ontop.dbschema.DatabaseRelationDefinition;
+import it.unibz.inf.ontop.dbschema.RDBMetadata;
+import it.unibz.inf.ontop.dbschema.RDBMetadataExtractionTools;
+import it.unibz.inf.ontop.dbschema.RelationStatistics;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The DB metadata extracted over several connections (and with the columns retrieved per schema)
+ * is the same as the one extracted over a single connection.
+ *
+ * Also checks the extraction of the statistics.
+ */
+public class RDBMetadataExtractionTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:extractionjunitdb";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final int TABLE_COUNT = 40;
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate("CREATE SCHEMA \"shop\"");
+            for (int i = 0; i < TABLE_COUNT; i++) {
+                st.executeUpdate("CREATE TABLE \"shop\".\"t" + i + "\" (\"id\" INT PRIMARY KEY, " +
+                        "\"code\" VARCHAR(10) NOT NULL UNIQUE, \"label\" VARCHAR(100), \"parent\" INT" +
+                        (i == 0 ? ")" : ", FOREIGN KEY (\"parent\") REFERENCES \"shop\".\"t" + (i - 1) + "\"(\"id\"))"));
+            }
+            st.executeUpdate("CREATE TABLE \"item\" (\"id\" INT PRIMARY KEY, \"shop\" INT NOT NULL, " +
+                    "FOREIGN KEY (\"shop\") REFERENCES \"shop\".\"t0\"(\"id\"))");
+        }
+        CONN.commit();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        CONN.close();
+    }
+
+    @Test
+    public void testSeveralConnections() throws SQLException {
+        OntopMappingSQLAllConfiguration configuration = OntopMappingSQLAllConfiguration.defaultBuilder()
+                .jdbcUrl(JDBC_URL)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcDriver("org.h2.Driver")
+                .enableTestMode()
+                .build();
+
+        String expected = describe(extract(configuration, 1));
+        assertEquals(expected, describe(extract(configuration, 4)));
+        assertEquals(TABLE_COUNT + 1, expected.split("CREATE TABLE").length - 1);
+    }
+
+    @Test
+    public void testStatistics() throws SQLException {
+        try (Statement st = CONN.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"order\" (\"id\" INT PRIMARY KEY, \"item\" INT NOT NULL)");
+            st.executeUpdate("CREATE INDEX \"order_item\" ON \"order\"(\"item\")");
+            for (int i = 0; i < 25; i++)
+                st.executeUpdate("INSERT INTO \"order\" VALUES (" + i + ", " + (i % 5) + ")");
+        }
+        try {
+            OntopMappingSQLAllConfiguration configuration = OntopMappingSQLAllConfiguration.defaultBuilder()
+                    .jdbcUrl(JDBC_URL)
+                    .jdbcUser(JDBC_USER)
+                    .jdbcPassword(JDBC_PASSWORD)
+                    .jdbcDriver("org.h2.Driver")
+                    .enableTestMode()
+                    .build();
+
+            RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(CONN, configuration.getTypeFactory());
+            RDBMetadataExtractionTools.loadMetadata(metadata, CONN, null, configuration.getSettings(), 1, true);
+
+            DatabaseRelationDefinition orderRelation = metadata.getDatabaseRelations().stream()
+                    .filter(r -> r.getID().getTableName().equals("order"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No order relation"));
+            RelationStatistics statistics = orderRelation.getStatistics()
+                    .orElseThrow(() -> new IllegalStateException("No statistics"));
+
+            assertEquals(25, statistics.getRowCount());
+            assertTrue(statistics.isIndexed(1));
+            assertTrue(statistics.isIndexed(2));
+        }
+        finally {
+            try (Statement st = CONN.createStatement()) {
+                st.executeUpdate("DROP TABLE \"order\"");
+            }
+        }
+    }
+
+    private static RDBMetadata extract(OntopMappingSQLAllConfiguration configuration, int connectionCount)
+            throws SQLException {
+        RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(CONN, configuration.getTypeFactory());
+        RDBMetadataExtractionTools.loadMetadata(metadata, CONN, null, configuration.getSettings(), connectionCount);
+        return metadata;
+    }
+
+    private static String describe(RDBMetadata metadata) {
+        StringBuilder bf = new StringBuilder();
+        for (DatabaseRelationDefinition relation : metadata.getDatabaseRelations()) {
+            if (relation.getID().getSchemaName().equals("INFORMATION_SCHEMA"))
+                continue;
+            bf.append(relation).append("\n")
+                    .append(relation.getUniqueConstraints()).append("\n")
+                    .append(relation.getForeignKeys()).append("\n");
+        }
+        return bf.toString();
+    }
+}
@@ -0,0 +1,13 @@
+CREATE TABLE "person" (
+"id" INT NOT NULL PRIMARY KEY,
+"name" VARCHAR(40)
+);
+
+INSERT INTO "person" ("id","name") VALUES
+(1,'Mary'),
+(2,'John'),
+(3,'Bob');
+
+CREATE ALIAS SLEEP FOR "java.lang.Thread.sleep";
+
+CREATE VIEW "slow_person" AS SELECT "id" FROM "person" WHERE SLEEP(1000) IS NULL;
@@ -42,6 +42,14 @@ public interface OntopMappingSettings extends OntopOBDASettings, OntopOptimizati
      */
     boolean isCanIRIComplete();
 
+    /**
+     * Number of threads used for transforming the mapping assertions and for saturating the mapping
+     * when building the specification. By default, the number of available processors.
+     *
+     * The resulting mapping does not depend on it.
+     */
+    int getMappingProcessingParallelism();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -52,6 +60,7 @@ public interface OntopMappingSettings extends OntopOBDASettings, OntopOptimizati
     String INFER_DEFAULT_DATATYPE = "ontop.inferDefaultDatatype";
     String TOLERATE_ABSTRACT_DATATYPE = "ontop.tolerateAbstractDatatype";
     String IS_CANONICAL_IRI_COMPLETE = "ontop.isCanonicalIRIComplete";
+    String MAPPING_PROCESSING_PARALLELISM = "ontop.mappingProcessingParallelism";
 
 
     /**
@@ -56,4 +56,10 @@ class OntopMappingSettingsImpl extends OntopOBDASettingsImpl implements OntopMap
     public boolean isCanIRIComplete() {
         return getRequiredBoolean(IS_CANONICAL_IRI_COMPLETE);
     }
+
+    @Override
+    public int getMappingProcessingParallelism() {
+        return getInteger(MAPPING_PROCESSING_PARALLELISM)
+                .orElseGet(() -> Runtime.getRuntime().availableProcessors());
+    }
 }
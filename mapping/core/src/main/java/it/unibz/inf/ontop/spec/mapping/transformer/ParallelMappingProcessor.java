@@ -0,0 +1,23 @@
+package it.unibz.inf.ontop.spec.mapping.transformer;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Applies a transformation to mapping assertions (or to any other independent elements, like the nodes
+ * of a DAG during the saturation) concurrently, when building the specification.
+ *
+ * The results are always in the order of the elements, so the output does not depend on the parallelism
+ * (see OntopMappingSettings.getMappingProcessingParallelism()).
+ *
+ * The transformation must be thread-safe.
+ */
+public interface ParallelMappingProcessor {
+
+    <T, R, E extends Exception> ImmutableList<R> map(ImmutableList<T> elements, Transformation<T, R, E> transformation)
+            throws E;
+
+    @FunctionalInterface
+    interface Transformation<T, R, E extends Exception> {
+        R apply(T element) throws E;
+    }
+}
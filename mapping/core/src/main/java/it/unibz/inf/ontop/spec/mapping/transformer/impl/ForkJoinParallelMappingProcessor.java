@@ -0,0 +1,89 @@
+package it.unibz.inf.ontop.spec.mapping.transformer.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
+import it.unibz.inf.ontop.spec.mapping.transformer.ParallelMappingProcessor;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Ordered parallel stream, run in a dedicated fork-join pool (not in the common one).
+ *
+ * Sequential if the parallelism is 1.
+ */
+@Singleton
+public class ForkJoinParallelMappingProcessor implements ParallelMappingProcessor {
+
+    private final Optional<ForkJoinPool> pool;
+
+    @Inject
+    private ForkJoinParallelMappingProcessor(OntopMappingSettings settings) {
+        int parallelism = settings.getMappingProcessingParallelism();
+        // The worker threads are daemon threads and terminate when idle
+        this.pool = (parallelism > 1)
+                ? Optional.of(new ForkJoinPool(parallelism))
+                : Optional.empty();
+    }
+
+    @Override
+    public <T, R, E extends Exception> ImmutableList<R> map(ImmutableList<T> elements,
+                                                           Transformation<T, R, E> transformation) throws E {
+        if (!pool.isPresent() || elements.size() < 2) {
+            ImmutableList.Builder<R> builder = ImmutableList.builder();
+            for (T element : elements)
+                builder.add(transformation.apply(element));
+            return builder.build();
+        }
+
+        try {
+            List<R> results = pool.get().submit(() -> elements.parallelStream()
+                    .map(e -> {
+                        try {
+                            return transformation.apply(e);
+                        }
+                        catch (RuntimeException ex) {
+                            throw ex;
+                        }
+                        catch (Exception ex) {
+                            throw new CheckedTransformationException(ex);
+                        }
+                    })
+                    // Ordered
+                    .collect(Collectors.toList()))
+                    .get();
+            return ImmutableList.copyOf(results);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing the mapping", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CheckedTransformationException)
+                // Only the exceptions declared by the transformation are wrapped
+                throw ForkJoinParallelMappingProcessor.<E>castException(cause.getCause());
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E castException(Throwable exception) {
+        return (E) exception;
+    }
+
+    private static class CheckedTransformationException extends RuntimeException {
+        CheckedTransformationException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -4,7 +4,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import it.unibz.inf.ontop.constraints.LinearInclusionDependencies;
-import it.unibz.inf.ontop.constraints.impl.ImmutableCQContainmentCheckUnderLIDs;
+import it.unibz.inf.ontop.constraints.impl.MemoizingCQContainmentCheckUnderLIDs;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
 import it.unibz.inf.ontop.dbschema.DatabaseRelationDefinition;
 import it.unibz.inf.ontop.dbschema.ForeignKeyConstraint;
@@ -20,6 +20,8 @@ import it.unibz.inf.ontop.spec.mapping.TMappingExclusionConfig;
 import it.unibz.inf.ontop.spec.mapping.transformer.MappingSaturator;
 import it.unibz.inf.ontop.spec.ontology.ClassifiedTBox;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 
@@ -29,6 +31,8 @@ import java.util.List;
 @Singleton
 public class LegacyMappingSaturator implements MappingSaturator {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(LegacyMappingSaturator.class);
+
     private final TMappingExclusionConfig tMappingExclusionConfig;
     private final TermFactory termFactory;
     private final TMappingProcessor tMappingProcessor;
@@ -60,9 +64,12 @@ public class LegacyMappingSaturator implements MappingSaturator {
 
         LinearInclusionDependencies<RelationPredicate> lids = b.build();
 
-        ImmutableCQContainmentCheckUnderLIDs<RelationPredicate> cqContainmentCheck = new ImmutableCQContainmentCheckUnderLIDs(lids);
+        // the saturation compares the same pairs of CQs many times
+        MemoizingCQContainmentCheckUnderLIDs<RelationPredicate> cqContainmentCheck = new MemoizingCQContainmentCheckUnderLIDs<>(lids);
 
-        return tMappingProcessor.getTMappings(mapping, saturatedTBox, tMappingExclusionConfig, cqContainmentCheck);
+        Mapping saturatedMapping = tMappingProcessor.getTMappings(mapping, saturatedTBox, tMappingExclusionConfig, cqContainmentCheck);
+        LOGGER.debug("Mapping saturation: {}", cqContainmentCheck);
+        return saturatedMapping;
     }
 
 
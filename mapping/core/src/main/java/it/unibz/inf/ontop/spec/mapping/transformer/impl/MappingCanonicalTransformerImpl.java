@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.spec.mapping.transformer.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.exception.OntopInternalBugException;
@@ -18,7 +19,9 @@ import it.unibz.inf.ontop.model.atom.*;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.model.vocabulary.Ontop;
 import it.unibz.inf.ontop.spec.mapping.MappingWithProvenance;
+import it.unibz.inf.ontop.spec.mapping.pp.PPMappingAssertionProvenance;
 import it.unibz.inf.ontop.spec.mapping.transformer.MappingCanonicalTransformer;
+import it.unibz.inf.ontop.spec.mapping.transformer.ParallelMappingProcessor;
 import it.unibz.inf.ontop.spec.mapping.utils.MappingTools;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.CoreUtilsFactory;
@@ -40,6 +43,7 @@ public class MappingCanonicalTransformerImpl implements MappingCanonicalTransfor
     private final UnionBasedQueryMerger queryMerger;
     private final CoreUtilsFactory coreUtilsFactory;
     private final OntopMappingSettings settings;
+    private final ParallelMappingProcessor parallelProcessor;
 
     private enum Position {SUBJECT, PROPERTY, OBJECT}
 
@@ -51,7 +55,8 @@ public class MappingCanonicalTransformerImpl implements MappingCanonicalTransfor
                                             AtomFactory atomFactory,
                                             CoreUtilsFactory coreUtilsFactory,
                                             UnionBasedQueryMerger queryMerger,
-                                            OntopMappingSettings settings) {
+                                            OntopMappingSettings settings,
+                                            ParallelMappingProcessor parallelProcessor) {
         this.coreUtilsFactory = coreUtilsFactory;
         this.settings = settings;
         this.iqFactory = iqFactory;
@@ -60,6 +65,7 @@ public class MappingCanonicalTransformerImpl implements MappingCanonicalTransfor
         this.substitutionFactory = substitutionFactory;
         this.atomFactory = atomFactory;
         this.queryMerger = queryMerger;
+        this.parallelProcessor = parallelProcessor;
     }
 
     @Override
@@ -82,16 +88,15 @@ public class MappingCanonicalTransformerImpl implements MappingCanonicalTransfor
     }
 
     private MappingWithProvenance transformMapping(MappingWithProvenance mapping, IntensionalQueryMerger intensionalQueryMerger) {
+        ImmutableList<Map.Entry<IQ, PPMappingAssertionProvenance>> entries = mapping.getProvenanceMap().entrySet().stream()
+                .filter(e -> !(MappingTools.extractRDFPredicate(e.getKey()).getIri().equals(Ontop.CANONICAL_IRI)))
+                .collect(ImmutableCollectors.toList());
+
         return provenanceMappingFactory.create(
-                mapping.getProvenanceMap().entrySet().stream()
-                        .filter(e -> !(MappingTools.extractRDFPredicate(e.getKey()).getIri().equals(Ontop.CANONICAL_IRI)))
-                        .collect(ImmutableCollectors.toMap(
-                                e -> transformAssertion(
-                                        e.getKey(),
-                                        intensionalQueryMerger
-                                ),
-                                Map.Entry::getValue
-                        )),
+                parallelProcessor.map(entries,
+                        e -> Maps.immutableEntry(transformAssertion(e.getKey(), intensionalQueryMerger), e.getValue()))
+                        .stream()
+                        .collect(ImmutableCollectors.toMap()),
                 mapping.getMetadata()
         );
     }
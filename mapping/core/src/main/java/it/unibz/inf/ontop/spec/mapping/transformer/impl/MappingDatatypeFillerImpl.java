@@ -21,12 +21,12 @@ import it.unibz.inf.ontop.model.type.*;
 import it.unibz.inf.ontop.spec.mapping.MappingWithProvenance;
 import it.unibz.inf.ontop.spec.mapping.pp.PPMappingAssertionProvenance;
 import it.unibz.inf.ontop.spec.mapping.transformer.MappingDatatypeFiller;
+import it.unibz.inf.ontop.spec.mapping.transformer.ParallelMappingProcessor;
 import it.unibz.inf.ontop.iq.type.UniqueTermTypeExtractor;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
-import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -39,12 +39,14 @@ public class MappingDatatypeFillerImpl implements MappingDatatypeFiller {
     private final TypeFactory typeFactory;
     private final IntermediateQueryFactory iqFactory;
     private final UniqueTermTypeExtractor typeExtractor;
+    private final ParallelMappingProcessor parallelProcessor;
 
     @Inject
     private MappingDatatypeFillerImpl(ProvenanceMappingFactory mappingFactory, OntopMappingSettings settings,
                                       TermFactory termFactory, SubstitutionFactory substitutionFactory,
                                       TypeFactory typeFactory, IntermediateQueryFactory iqFactory,
-                                      UniqueTermTypeExtractor typeExtractor) {
+                                      UniqueTermTypeExtractor typeExtractor,
+                                      ParallelMappingProcessor parallelProcessor) {
         this.mappingFactory = mappingFactory;
         this.settings = settings;
         this.termFactory = termFactory;
@@ -52,20 +54,19 @@ public class MappingDatatypeFillerImpl implements MappingDatatypeFiller {
         this.typeFactory = typeFactory;
         this.iqFactory = iqFactory;
         this.typeExtractor = typeExtractor;
+        this.parallelProcessor = parallelProcessor;
     }
 
     @Override
     public MappingWithProvenance transform(MappingWithProvenance mapping)
             throws UnknownDatatypeException {
 
-        ImmutableMap.Builder<IQ, PPMappingAssertionProvenance> newProvenanceMapBuilder = ImmutableMap.builder();
+        ImmutableMap<IQ, PPMappingAssertionProvenance> newProvenanceMap = parallelProcessor.map(
+                mapping.getProvenanceMap().entrySet().asList(),
+                e -> Maps.immutableEntry(transformMappingAssertion(e.getKey(), e.getValue()), e.getValue())).stream()
+                .collect(ImmutableCollectors.toMap());
 
-        for (Map.Entry<IQ, PPMappingAssertionProvenance> entry : mapping.getProvenanceMap().entrySet()) {
-            IQ newIQ = transformMappingAssertion(entry.getKey(), entry.getValue());
-            newProvenanceMapBuilder.put(newIQ, entry.getValue());
-        }
-
-        return mappingFactory.create(newProvenanceMapBuilder.build(), mapping.getMetadata());
+        return mappingFactory.create(newProvenanceMap, mapping.getMetadata());
     }
 
     private IQ transformMappingAssertion(IQ mappingAssertion, PPMappingAssertionProvenance provenance)
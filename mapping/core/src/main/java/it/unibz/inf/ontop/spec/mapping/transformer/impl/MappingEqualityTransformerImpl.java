@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.spec.mapping.transformer.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
 import it.unibz.inf.ontop.injection.CoreSingletons;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
@@ -20,6 +21,7 @@ import it.unibz.inf.ontop.model.type.TermType;
 import it.unibz.inf.ontop.spec.mapping.MappingWithProvenance;
 import it.unibz.inf.ontop.spec.mapping.pp.PPMappingAssertionProvenance;
 import it.unibz.inf.ontop.spec.mapping.transformer.MappingEqualityTransformer;
+import it.unibz.inf.ontop.spec.mapping.transformer.ParallelMappingProcessor;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
@@ -34,21 +36,24 @@ public class MappingEqualityTransformerImpl implements MappingEqualityTransforme
     private final ProvenanceMappingFactory mappingFactory;
     private final IQTreeTransformer expressionTransformer;
     private final IntermediateQueryFactory iqFactory;
+    private final ParallelMappingProcessor parallelProcessor;
 
     @Inject
     protected MappingEqualityTransformerImpl(ProvenanceMappingFactory mappingFactory,
-                                             UniqueTermTypeExtractor typeExtractor, CoreSingletons coreSingletons) {
+                                             UniqueTermTypeExtractor typeExtractor, CoreSingletons coreSingletons,
+                                             ParallelMappingProcessor parallelProcessor) {
         this.mappingFactory = mappingFactory;
+        this.parallelProcessor = parallelProcessor;
         this.expressionTransformer = new ExpressionTransformer(typeExtractor, coreSingletons);
         this.iqFactory = coreSingletons.getIQFactory();
     }
 
     @Override
     public MappingWithProvenance transform(MappingWithProvenance mapping) {
-        ImmutableMap<IQ, PPMappingAssertionProvenance> newProvenanceMap = mapping.getProvenanceMap().entrySet().stream()
-                .collect(ImmutableCollectors.toMap(
-                        e -> transformMappingAssertion(e.getKey()),
-                        Map.Entry::getValue));
+        ImmutableMap<IQ, PPMappingAssertionProvenance> newProvenanceMap = parallelProcessor.map(
+                mapping.getProvenanceMap().entrySet().asList(),
+                e -> Maps.immutableEntry(transformMappingAssertion(e.getKey()), e.getValue())).stream()
+                .collect(ImmutableCollectors.toMap());
         return mappingFactory.create(newProvenanceMap, mapping.getMetadata());
     }
 
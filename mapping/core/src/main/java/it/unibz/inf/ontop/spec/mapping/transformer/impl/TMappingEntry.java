@@ -2,7 +2,6 @@ package it.unibz.inf.ontop.spec.mapping.transformer.impl;
 
 import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.constraints.ImmutableHomomorphism;
-import it.unibz.inf.ontop.constraints.ImmutableHomomorphismIterator;
 import it.unibz.inf.ontop.constraints.impl.ImmutableCQContainmentCheckUnderLIDs;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
 import it.unibz.inf.ontop.iq.IQ;
@@ -133,9 +132,7 @@ public class TMappingEntry {
 
                 Optional<ImmutableHomomorphism> to =
                         fixHeadTermMapping(current.getHeadTerms(), assertion.getHeadTerms())
-                        .map(h -> cqc.homomorphismIterator(h, IQ2CQ.toDataAtoms(current.getDatabaseAtoms()), IQ2CQ.toDataAtoms(assertion.getDatabaseAtoms())))
-                        .filter(ImmutableHomomorphismIterator::hasNext)
-                        .map(ImmutableHomomorphismIterator::next);
+                        .flatMap(h -> cqc.findHomomorphism(h, IQ2CQ.toDataAtoms(current.getDatabaseAtoms()), IQ2CQ.toDataAtoms(assertion.getDatabaseAtoms())));
 
                 if (to.isPresent()) {
                     if (current.getConditions().isEmpty() ||
@@ -158,9 +155,7 @@ public class TMappingEntry {
 
                 Optional<ImmutableHomomorphism> from =
                         fixHeadTermMapping(assertion.getHeadTerms(), current.getHeadTerms())
-                        .map(h -> cqc.homomorphismIterator(h, IQ2CQ.toDataAtoms(assertion.getDatabaseAtoms()), IQ2CQ.toDataAtoms(current.getDatabaseAtoms())))
-                        .filter(ImmutableHomomorphismIterator::hasNext)
-                        .map(ImmutableHomomorphismIterator::next);
+                        .flatMap(h -> cqc.findHomomorphism(h, IQ2CQ.toDataAtoms(assertion.getDatabaseAtoms()), IQ2CQ.toDataAtoms(current.getDatabaseAtoms())));
 
                 if (from.isPresent()) {
                     if (assertion.getConditions().isEmpty() ||
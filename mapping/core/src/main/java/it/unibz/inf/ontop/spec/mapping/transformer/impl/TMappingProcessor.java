@@ -37,6 +37,7 @@ import it.unibz.inf.ontop.model.term.TermFactory;
 import it.unibz.inf.ontop.spec.mapping.Mapping;
 import it.unibz.inf.ontop.spec.mapping.TMappingExclusionConfig;
 import it.unibz.inf.ontop.spec.mapping.transformer.MappingCQCOptimizer;
+import it.unibz.inf.ontop.spec.mapping.transformer.ParallelMappingProcessor;
 import it.unibz.inf.ontop.spec.mapping.utils.MappingTools;
 import it.unibz.inf.ontop.spec.ontology.*;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
@@ -47,6 +48,7 @@ import java.util.*;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class TMappingProcessor {
@@ -63,6 +65,7 @@ public class TMappingProcessor {
     private final IntermediateQueryFactory iqFactory;
     private final UnionBasedQueryMerger queryMerger;
     private final SubstitutionFactory substitutionFactory;
+    private final ParallelMappingProcessor parallelProcessor;
 
     @Inject
 	private TMappingProcessor(AtomFactory atomFactory, TermFactory termFactory,
@@ -70,7 +73,8 @@ public class TMappingProcessor {
                               UnionFlattener unionNormalizer, MappingCQCOptimizer mappingCqcOptimizer,
                               NoNullValueEnforcer noNullValueEnforcer,
                               SpecificationFactory specificationFactory, IntermediateQueryFactory iqFactory,
-                              UnionBasedQueryMerger queryMerger, SubstitutionFactory substitutionFactory) {
+                              UnionBasedQueryMerger queryMerger, SubstitutionFactory substitutionFactory,
+                              ParallelMappingProcessor parallelProcessor) {
 		this.atomFactory = atomFactory;
 		this.termFactory = termFactory;
         this.unionSplitter = unionSplitter;
@@ -81,6 +85,7 @@ public class TMappingProcessor {
         this.iqFactory = iqFactory;
         this.queryMerger = queryMerger;
         this.substitutionFactory = substitutionFactory;
+        this.parallelProcessor = parallelProcessor;
     }
 
 
@@ -98,11 +103,17 @@ public class TMappingProcessor {
         //     but the same IRI cannot be an object and a data or annotation property name at the same time
         // see https://www.w3.org/TR/owl2-new-features/#F12:_Punning
 
-        ImmutableMultimap<MappingTools.RDFPredicateInfo, TMappingRule> source = mapping.getRDFAtomPredicates().stream()
+        ImmutableList<IQ> queries = mapping.getRDFAtomPredicates().stream()
                 .flatMap(p -> mapping.getQueries(p).stream())
-                .flatMap(q -> unionSplitter.splitUnion(unionNormalizer.optimize(q)))
-                .map(q -> mappingCqcOptimizer.optimize(cqContainmentCheck, q))
-                .map(q -> new TMappingRule(q, termFactory, atomFactory))
+                .collect(ImmutableCollectors.toList());
+
+        ImmutableMultimap<MappingTools.RDFPredicateInfo, TMappingRule> source = parallelProcessor.map(queries,
+                q -> unionSplitter.splitUnion(unionNormalizer.optimize(q))
+                        .map(cq -> mappingCqcOptimizer.optimize(cqContainmentCheck, cq))
+                        .map(cq -> new TMappingRule(cq, termFactory, atomFactory))
+                        .collect(ImmutableCollectors.toList()))
+                .stream()
+                .flatMap(Collection::stream)
                 .collect(ImmutableCollectors.toMultimap(q -> q.getPredicateInfo(), q -> q));
 
         ImmutableMap<MappingTools.RDFPredicateInfo, TMappingEntry> saturated = Stream.concat(Stream.concat(
@@ -130,17 +141,23 @@ public class TMappingProcessor {
                                 .collect(TMappingEntry.toTMappingEntry(cqContainmentCheck, termFactory))))
                 .collect(ImmutableCollectors.toList());
 
+        ImmutableList<Table.Cell<RDFAtomPredicate, IRI, IQ>> cells = parallelProcessor.map(entries, this::toCell);
+
         return specificationFactory.createMapping(mapping.getMetadata(),
-                        entries.stream()
-                                .filter(e -> !e.getPredicateInfo().isClass())
-                                .map(this::toCell)
+                        getCells(entries, cells, false)
                                 .collect(ImmutableCollectors.toTable()),
-                        entries.stream()
-                                .filter(e -> e.getPredicateInfo().isClass())
-                                .map(this::toCell)
+                        getCells(entries, cells, true)
                                 .collect(ImmutableCollectors.toTable()));
     }
 
+    private static Stream<Table.Cell<RDFAtomPredicate, IRI, IQ>> getCells(ImmutableList<TMappingEntry> entries,
+                                                                        ImmutableList<Table.Cell<RDFAtomPredicate, IRI, IQ>> cells,
+                                                                        boolean isClass) {
+	    return IntStream.range(0, entries.size())
+                .filter(i -> entries.get(i).getPredicateInfo().isClass() == isClass)
+                .mapToObj(cells::get);
+    }
+
     private Table.Cell<RDFAtomPredicate, IRI, IQ> toCell(TMappingEntry e) {
 	    return Tables.immutableCell(
 	            e.getRDFAtomPredicate(),
@@ -160,15 +177,20 @@ public class TMappingProcessor {
 	    java.util.function.BiFunction<T, T, java.util.function.Function<TMappingRule, TMappingRule>> headReplacer =
                 (s, d) -> (m -> new TMappingRule(getNewHeadGen.apply(s).apply(m.getHeadTerms()), indexOf.apply(d), m, substitutionFactory));
 
-	    ImmutableMap<MappingTools.RDFPredicateInfo, TMappingEntry> representatives = dag.stream()
-                .filter(s -> representativeFilter.test(s.getRepresentative()))
-                .collect(ImmutableCollectors.toMap(
-                        s -> indexOf.apply(s.getRepresentative()),
-                        s -> dag.getSub(s).stream()
+	    // the DAG nodes are saturated independently
+	    ImmutableMap<MappingTools.RDFPredicateInfo, TMappingEntry> representatives = parallelProcessor.map(
+	            dag.stream()
+                        .filter(s -> representativeFilter.test(s.getRepresentative()))
+                        .collect(ImmutableCollectors.toList()),
+                s -> Maps.immutableEntry(
+                        indexOf.apply(s.getRepresentative()),
+                        dag.getSub(s).stream()
                                 .flatMap(ss -> ss.getMembers().stream())
                                 .flatMap(d -> originalMappingIndex.get(indexOf.apply(d)).stream()
                                         .map(headReplacer.apply(d, s.getRepresentative())))
-                                .collect(TMappingEntry.toTMappingEntry(cqc, termFactory))));
+                                .collect(TMappingEntry.toTMappingEntry(cqc, termFactory))))
+                .stream()
+                .collect(ImmutableCollectors.toMap());
 
         java.util.function.BiFunction<T, T, java.util.function.Function<TMappingRule, TMappingRule>> headReplacer2 =
                 (s, d) -> (m -> new TMappingRule(getNewHeadGen.apply(d).apply(m.getHeadTerms()), indexOf.apply(d), m, substitutionFactory));
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.spec.mapping.transformer.impl;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.exception.MinorOntopInternalBugException;
 import it.unibz.inf.ontop.injection.IntermediateQueryFactory;
@@ -22,6 +23,7 @@ import it.unibz.inf.ontop.model.type.*;
 import it.unibz.inf.ontop.spec.mapping.MappingWithProvenance;
 import it.unibz.inf.ontop.spec.mapping.pp.PPMappingAssertionProvenance;
 import it.unibz.inf.ontop.spec.mapping.transformer.MappingCaster;
+import it.unibz.inf.ontop.spec.mapping.transformer.ParallelMappingProcessor;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
 import it.unibz.inf.ontop.substitution.SubstitutionFactory;
 import it.unibz.inf.ontop.utils.ImmutableCollectors;
@@ -43,13 +45,14 @@ public class UniqueTermTypeMappingCaster implements MappingCaster {
     private final UniqueTermTypeExtractor typeExtractor;
     private final TermFactory termFactory;
     private final DBTermType dBStringType;
+    private final ParallelMappingProcessor parallelProcessor;
 
     @Inject
     private UniqueTermTypeMappingCaster(FunctionSymbolFactory functionSymbolFactory,
                                         ProvenanceMappingFactory mappingFactory,
                                         TypeFactory typeFactory, IntermediateQueryFactory iqFactory,
                                         SubstitutionFactory substitutionFactory, UniqueTermTypeExtractor typeExtractor,
-                                        TermFactory termFactory) {
+                                        TermFactory termFactory, ParallelMappingProcessor parallelProcessor) {
         this.functionSymbolFactory = functionSymbolFactory;
         this.mappingFactory = mappingFactory;
         this.iqFactory = iqFactory;
@@ -57,14 +60,15 @@ public class UniqueTermTypeMappingCaster implements MappingCaster {
         this.typeExtractor = typeExtractor;
         this.termFactory = termFactory;
         this.dBStringType = typeFactory.getDBTypeFactory().getDBStringType();
+        this.parallelProcessor = parallelProcessor;
     }
 
     @Override
     public MappingWithProvenance transform(MappingWithProvenance mapping) {
-        ImmutableMap<IQ, PPMappingAssertionProvenance> newProvenanceMap = mapping.getProvenanceMap().entrySet().stream()
-                .collect(ImmutableCollectors.toMap(
-                        e -> transformMappingAssertion(e.getKey()),
-                        Map.Entry::getValue));
+        ImmutableMap<IQ, PPMappingAssertionProvenance> newProvenanceMap = parallelProcessor.map(
+                mapping.getProvenanceMap().entrySet().asList(),
+                e -> Maps.immutableEntry(transformMappingAssertion(e.getKey()), e.getValue())).stream()
+                .collect(ImmutableCollectors.toMap());
         return mappingFactory.create(newProvenanceMap, mapping.getMetadata());
     }
 
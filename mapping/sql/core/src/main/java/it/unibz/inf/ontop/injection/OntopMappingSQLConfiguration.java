@@ -34,6 +34,11 @@ public interface OntopMappingSQLConfiguration extends OntopSQLCredentialConfigur
     interface OntopMappingSQLBuilderFragment<B extends Builder<B>> {
 
         B ppMapping(@Nonnull SQLPPMapping ppMapping);
+
+        /**
+         * See OntopMappingSQLSettings.getDBMetadataCacheFile()
+         */
+        B dbMetadataCacheFile(@Nonnull String cacheFilePath);
     }
 
     interface Builder<B extends Builder<B>> extends OntopMappingSQLBuilderFragment<B>,
@@ -1,6 +1,41 @@
 package it.unibz.inf.ontop.injection;
 
 
+import java.util.Optional;
+
 public interface OntopMappingSQLSettings extends OntopMappingSettings, OntopSQLCredentialSettings {
 
+    /**
+     * File in which the extracted DB metadata is cached (unless it is provided).
+     * It can also be written in advance by "ontop extract-db-metadata".
+     *
+     * The next boots load the DB metadata from it (if it is still valid for the mapping, the constraint file
+     * and the JDBC settings) and check in the background whether the relations used by the mapping have changed since;
+     * if so, the cache is refreshed for the following boots.
+     */
+    Optional<String> getDBMetadataCacheFile();
+
+    /**
+     * Maximal number of JDBC connections used concurrently for extracting the DB metadata.
+     *
+     * Additional connections are opened with the JDBC settings, so they must reach the same database
+     * (which is not the case, for instance, of an unnamed in-memory H2 database).
+     */
+    int getDBMetadataExtractionConnections();
+
+    /**
+     * If true, the statistics of the relations (number of rows, distinct values of the indexed columns)
+     * are retrieved from the catalog of the DBMS with the DB metadata, for the query planner.
+     *
+     * They are stored in the DB metadata cache, like the rest of the DB metadata.
+     */
+    boolean isDBStatisticsExtractionEnabled();
+
+    //--------------------------
+    // Keys
+    //--------------------------
+
+    String DB_METADATA_CACHE_FILE = "ontop.dbMetadataCacheFile";
+    String DB_METADATA_EXTRACTION_CONNECTIONS = "ontop.dbMetadataExtractionConnections";
+    String DB_STATISTICS_EXTRACTION = "ontop.dbStatisticsExtraction";
 }
@@ -170,6 +170,7 @@ public class OntopMappingSQLConfigurationImpl extends OntopMappingConfigurationI
         private final Supplier<Boolean> isMappingDefinedSupplier;
         private final Runnable declareMappingDefinedCB;
         private Optional<SQLPPMapping> ppMapping = Optional.empty();
+        private Optional<String> dbMetadataCacheFile = Optional.empty();
 
         /**
          * Default constructor
@@ -195,6 +196,12 @@ public class OntopMappingSQLConfigurationImpl extends OntopMappingConfigurationI
             return builder;
         }
 
+        @Override
+        public B dbMetadataCacheFile(@Nonnull String cacheFilePath) {
+            this.dbMetadataCacheFile = Optional.of(cacheFilePath);
+            return builder;
+        }
+
 
         final OntopMappingSQLOptions generateMappingSQLOptions(OntopSQLCredentialOptions sqlOptions,
                                                                OntopMappingOptions mappingOptions) {
@@ -202,7 +209,9 @@ public class OntopMappingSQLConfigurationImpl extends OntopMappingConfigurationI
         }
 
         Properties generateProperties() {
-            return new Properties();
+            Properties properties = new Properties();
+            dbMetadataCacheFile.ifPresent(f -> properties.put(OntopMappingSQLSettings.DB_METADATA_CACHE_FILE, f));
+            return properties;
         }
     }
 
@@ -228,6 +237,11 @@ public class OntopMappingSQLConfigurationImpl extends OntopMappingConfigurationI
             return localBuilderFragment.ppMapping(ppMapping);
         }
 
+        @Override
+        public B dbMetadataCacheFile(@Nonnull String cacheFilePath) {
+            return localBuilderFragment.dbMetadataCacheFile(cacheFilePath);
+        }
+
         @Override
         protected Properties generateProperties() {
             Properties properties = super.generateProperties();
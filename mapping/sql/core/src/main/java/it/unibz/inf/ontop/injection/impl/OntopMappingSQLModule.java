@@ -4,6 +4,7 @@ package it.unibz.inf.ontop.injection.impl;
 import it.unibz.inf.ontop.injection.OntopMappingSQLConfiguration;
 import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.injection.SQLPPMappingFactory;
+import it.unibz.inf.ontop.spec.dbschema.DBMetadataSnapshotManager;
 import it.unibz.inf.ontop.spec.dbschema.PreProcessedImplicitRelationalDBConstraintExtractor;
 import it.unibz.inf.ontop.spec.dbschema.RDBMetadataExtractor;
 import it.unibz.inf.ontop.spec.mapping.MappingExtractor;
@@ -30,6 +31,7 @@ public class OntopMappingSQLModule extends OntopAbstractModule {
         bindFromSettings(PreProcessedImplicitRelationalDBConstraintExtractor.class);
         bindFromSettings(MappingExtractor.class);
         bindFromSettings(RDBMetadataExtractor.class);
+        bindFromSettings(DBMetadataSnapshotManager.class);
 
 //        Module nativeQLFactoryModule = buildFactory(
 //                ImmutableList.of(RDBMetadataExtractor.class),
@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.injection.impl;
 import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.injection.OntopSQLCredentialSettings;
 
+import java.util.Optional;
 import java.util.Properties;
 
 import static it.unibz.inf.ontop.injection.impl.OntopSQLCoreSettingsImpl.loadSQLCoreProperties;
@@ -52,4 +53,19 @@ public class OntopMappingSQLSettingsImpl extends OntopMappingSettingsImpl implem
     public String getJdbcDriver() {
         return sqlSettings.getJdbcDriver();
     }
+
+    @Override
+    public Optional<String> getDBMetadataCacheFile() {
+        return getProperty(DB_METADATA_CACHE_FILE);
+    }
+
+    @Override
+    public int getDBMetadataExtractionConnections() {
+        return getRequiredInteger(DB_METADATA_EXTRACTION_CONNECTIONS);
+    }
+
+    @Override
+    public boolean isDBStatisticsExtractionEnabled() {
+        return getRequiredBoolean(DB_STATISTICS_EXTRACTION);
+    }
 }
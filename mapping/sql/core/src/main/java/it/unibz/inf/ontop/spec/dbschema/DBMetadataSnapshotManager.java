@@ -0,0 +1,54 @@
+package it.unibz.inf.ontop.spec.dbschema;
+
+import it.unibz.inf.ontop.dbschema.RDBMetadata;
+import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Persists the DB metadata extracted for a mapping, for the DB metadata cache
+ * (see OntopMappingSQLSettings.getDBMetadataCacheFile()).
+ * The rest of the OBDA specification (saturated mapping, classified TBox) is not persisted.
+ *
+ * A snapshot is only valid for the source queries of the mapping, the constraint file
+ * and the JDBC settings it has been produced with.
+ */
+public interface DBMetadataSnapshotManager {
+
+    /**
+     * The schema fingerprint (see RDBMetadataExtractionTools.getSchemaFingerprint) allows to detect
+     * later whether the database schema has changed.
+     */
+    void save(RDBMetadata dbMetadata, Optional<String> schemaFingerprint, SQLPPMapping ppMapping,
+              Optional<File> constraintFile, File snapshotFile) throws IOException;
+
+    /**
+     * Returns empty if the snapshot cannot be used (missing, corrupted or stale);
+     * the DB metadata then has to be extracted from the database.
+     */
+    Optional<DBMetadataSnapshot> load(SQLPPMapping ppMapping, Optional<File> constraintFile, File snapshotFile);
+
+
+    class DBMetadataSnapshot {
+        private final RDBMetadata dbMetadata;
+        private final Optional<String> schemaFingerprint;
+
+        public DBMetadataSnapshot(RDBMetadata dbMetadata, Optional<String> schemaFingerprint) {
+            this.dbMetadata = dbMetadata;
+            this.schemaFingerprint = schemaFingerprint;
+        }
+
+        /**
+         * Not frozen
+         */
+        public RDBMetadata getDBMetadata() {
+            return dbMetadata;
+        }
+
+        public Optional<String> getSchemaFingerprint() {
+            return schemaFingerprint;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package it.unibz.inf.ontop.spec.dbschema.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import it.unibz.inf.ontop.dbschema.RDBMetadata;
+import it.unibz.inf.ontop.dbschema.RDBMetadataSerializer;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
+import it.unibz.inf.ontop.model.type.TypeFactory;
+import it.unibz.inf.ontop.spec.dbschema.DBMetadataSnapshotManager;
+import it.unibz.inf.ontop.spec.dbschema.DBMetadataSnapshotManager.DBMetadataSnapshot;
+import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Binary snapshot: magic number, format version, checksum of the inputs of the extraction,
+ * schema fingerprint (optional) and the DB metadata (see RDBMetadataSerializer).
+ *
+ * The checksum covers the JDBC URL and user, the extraction mode (including the extraction of the statistics),
+ * the source queries of the mapping
+ * and the content of the constraint file.
+ * Changes of the database schema itself are NOT detected here: they are detected by comparing
+ * the schema fingerprint with the current one (see DefaultRDBMetadataExtractor).
+ */
+public class DefaultDBMetadataSnapshotManager implements DBMetadataSnapshotManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDBMetadataSnapshotManager.class);
+
+    private static final int MAGIC_NUMBER = 0x4F6E4D44; // "OnMD"
+    private static final int FORMAT_VERSION = 3;
+
+    private final OntopMappingSQLSettings settings;
+    private final TypeFactory typeFactory;
+
+    @Inject
+    private DefaultDBMetadataSnapshotManager(OntopMappingSQLSettings settings, TypeFactory typeFactory) {
+        this.settings = settings;
+        this.typeFactory = typeFactory;
+    }
+
+    @Override
+    public void save(RDBMetadata dbMetadata, Optional<String> schemaFingerprint, SQLPPMapping ppMapping,
+                     Optional<File> constraintFile, File snapshotFile) throws IOException {
+        byte[] checksum = computeChecksum(ppMapping, constraintFile);
+
+        File directory = snapshotFile.getAbsoluteFile().getParentFile();
+        File tmpFile = File.createTempFile(snapshotFile.getName(), ".tmp", directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC_NUMBER);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(checksum.length);
+                out.write(checksum);
+                out.writeBoolean(schemaFingerprint.isPresent());
+                if (schemaFingerprint.isPresent())
+                    out.writeUTF(schemaFingerprint.get());
+                RDBMetadataSerializer.write(dbMetadata, out);
+            }
+            // Readers never see a partially written snapshot
+            java.nio.file.Files.move(tmpFile.toPath(), snapshotFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            tmpFile.delete();
+        }
+    }
+
+    @Override
+    public Optional<DBMetadataSnapshot> load(SQLPPMapping ppMapping, Optional<File> constraintFile, File snapshotFile) {
+        if (!snapshotFile.exists()) {
+            LOGGER.debug("No DB metadata snapshot {}", snapshotFile);
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC_NUMBER || in.readInt() != FORMAT_VERSION) {
+                LOGGER.warn("{} is not a DB metadata snapshot of this version of Ontop. " +
+                        "Extracting the DB metadata from the database.", snapshotFile);
+                return Optional.empty();
+            }
+            byte[] checksum = new byte[in.readInt()];
+            in.readFully(checksum);
+            if (!Arrays.equals(checksum, computeChecksum(ppMapping, constraintFile))) {
+                LOGGER.warn("The DB metadata snapshot {} is stale (the mapping, the constraint file or the JDBC " +
+                        "settings have changed). Extracting the DB metadata from the database.", snapshotFile);
+                return Optional.empty();
+            }
+            Optional<String> schemaFingerprint = in.readBoolean()
+                    ? Optional.of(in.readUTF())
+                    : Optional.empty();
+            RDBMetadata dbMetadata = RDBMetadataSerializer.read(in, typeFactory);
+            LOGGER.debug("DB metadata loaded from the snapshot {}", snapshotFile);
+            return Optional.of(new DBMetadataSnapshot(dbMetadata, schemaFingerprint));
+        }
+        catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot read the DB metadata snapshot {} ({}). Extracting the DB metadata from the database.",
+                    snapshotFile, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    private byte[] computeChecksum(SQLPPMapping ppMapping, Optional<File> constraintFile) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putInt(FORMAT_VERSION)
+                .putString(settings.getJdbcUrl(), StandardCharsets.UTF_8)
+                .putString(settings.getJdbcUser(), StandardCharsets.UTF_8)
+                .putBoolean(settings.isFullMetadataExtractionEnabled())
+                .putBoolean(settings.isDBStatisticsExtractionEnabled());
+
+        // Independent of the order of the mapping assertions
+        ImmutableList<String> sourceQueries = ppMapping.getTripleMaps().stream()
+                .map(m -> m.getSourceQuery().getSQLQuery())
+                .sorted()
+                .collect(ImmutableCollectors.toList());
+        hasher.putInt(sourceQueries.size());
+        for (String sourceQuery : sourceQueries) {
+            hasher.putInt(sourceQuery.length())
+                    .putString(sourceQuery, StandardCharsets.UTF_8);
+        }
+
+        hasher.putBoolean(constraintFile.isPresent());
+        if (constraintFile.isPresent())
+            hasher.putBytes(Files.toByteArray(constraintFile.get()));
+
+        HashCode hashCode = hasher.hash();
+        return hashCode.asBytes();
+    }
+}
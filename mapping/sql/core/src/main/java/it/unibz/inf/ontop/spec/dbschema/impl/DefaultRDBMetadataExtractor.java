@@ -1,18 +1,25 @@
 package it.unibz.inf.ontop.spec.dbschema.impl;
 
 
+import com.google.inject.Singleton;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.exception.DBMetadataExtractionException;
 import it.unibz.inf.ontop.model.type.TypeFactory;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
+import it.unibz.inf.ontop.spec.dbschema.DBMetadataSnapshotManager;
+import it.unibz.inf.ontop.spec.dbschema.DBMetadataSnapshotManager.DBMetadataSnapshot;
 import it.unibz.inf.ontop.spec.dbschema.RDBMetadataExtractor;
 import it.unibz.inf.ontop.spec.dbschema.PreProcessedImplicitRelationalDBConstraintExtractor;
 import it.unibz.inf.ontop.spec.dbschema.PreProcessedImplicitRelationalDBConstraintSet;
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -23,8 +30,11 @@ import static it.unibz.inf.ontop.spec.dbschema.impl.SQLTableNameExtractor.getRea
 /**
  * DBMetadataExtractor for JDBC-enabled DBs.
  */
+@Singleton
 public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultRDBMetadataExtractor.class);
+
     /**
      * If we have to parse the full metadata or just the table list in the mappings.
      */
@@ -38,28 +48,125 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
      */
     private final PreProcessedImplicitRelationalDBConstraintExtractor implicitDBConstraintExtractor;
     private final TypeFactory typeFactory;
+    private final OntopMappingSQLSettings settings;
+    /**
+     * Cache of the extracted DB metadata (see OntopMappingSQLSettings.getDBMetadataCacheFile())
+     */
+    private final Optional<File> cacheFile;
+    private final DBMetadataSnapshotManager snapshotManager;
+    private volatile Optional<Thread> cacheRevalidation = Optional.empty();
 
     @Inject
     private DefaultRDBMetadataExtractor(OntopMappingSQLSettings settings,
                                         PreProcessedImplicitRelationalDBConstraintExtractor implicitDBConstraintExtractor,
-                                        TypeFactory typeFactory) {
+                                        TypeFactory typeFactory, DBMetadataSnapshotManager snapshotManager) {
         this.obtainFullMetadata = settings.isFullMetadataExtractionEnabled();
         this.implicitDBConstraintExtractor = implicitDBConstraintExtractor;
         this.typeFactory = typeFactory;
+        this.settings = settings;
+        this.cacheFile = settings.getDBMetadataCacheFile().map(File::new);
+        this.snapshotManager = snapshotManager;
     }
 
     @Override
     public RDBMetadata extract(SQLPPMapping ppMapping, Connection connection, Optional<File> constraintFile)
             throws DBMetadataExtractionException {
+        if (cacheFile.isPresent()) {
+            Optional<DBMetadataSnapshot> cachedSnapshot = snapshotManager.load(ppMapping, constraintFile,
+                    cacheFile.get())
+                    // cannot be revalidated otherwise
+                    .filter(c -> c.getSchemaFingerprint().isPresent());
+            if (cachedSnapshot.isPresent()) {
+                RDBMetadata metadata = cachedSnapshot.get().getDBMetadata();
+                revalidateInBackground(ppMapping, constraintFile, cachedSnapshot.get().getSchemaFingerprint().get());
+                return metadata;
+            }
+        }
+        return extractAndCache(ppMapping, connection, constraintFile);
+    }
+
+    private RDBMetadata extractAndCache(SQLPPMapping ppMapping, Connection connection, Optional<File> constraintFile)
+            throws DBMetadataExtractionException {
         try {
             RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(connection, typeFactory);
-            return extract(ppMapping, connection, metadata, constraintFile);
+
+            // Computed before the extraction: a concurrent schema change is detected at the next boot
+            Optional<String> schemaFingerprint = cacheFile.isPresent()
+                    ? Optional.of(computeSchemaFingerprint(ppMapping, connection, metadata.getQuotedIDFactory(),
+                            constraintFile))
+                    : Optional.empty();
+
+            extract(ppMapping, connection, metadata, constraintFile);
+
+            if (cacheFile.isPresent()) {
+                try {
+                    snapshotManager.save(metadata, schemaFingerprint, ppMapping, constraintFile, cacheFile.get());
+                }
+                catch (IOException e) {
+                    LOGGER.warn("Cannot write the DB metadata cache {}: {}", cacheFile.get(), e.toString());
+                }
+            }
+            return metadata;
         }
         catch (SQLException e) {
             throw new DBMetadataExtractionException(e.getMessage());
         }
     }
 
+    /**
+     * Fingerprint of the relations used by the mapping and by the constraint file,
+     * whatever the extraction mode.
+     */
+    private String computeSchemaFingerprint(SQLPPMapping ppMapping, Connection connection, QuotedIDFactory idfac,
+                                            Optional<File> constraintFile)
+            throws SQLException, DBMetadataExtractionException {
+        Set<RelationID> relationIds = getRealTables(idfac, ppMapping.getTripleMaps());
+        if (constraintFile.isPresent())
+            relationIds.addAll(implicitDBConstraintExtractor.extract(constraintFile.get()).getReferredTables(idfac));
+        return RDBMetadataExtractionTools.getSchemaFingerprint(connection, relationIds);
+    }
+
+    /**
+     * Compares the fingerprint of the current database schema with the cached one (in a separate connection).
+     * If they differ, the DB metadata is extracted again for the next boots:
+     * the one of the cache is kept for this one (the specification built from it cannot be updated).
+     */
+    private void revalidateInBackground(SQLPPMapping ppMapping, Optional<File> constraintFile,
+                                        String cachedFingerprint) {
+        Thread thread = new Thread(() -> {
+            try (Connection connection = LocalJDBCConnectionUtils.createConnection(settings)) {
+                String fingerprint = computeSchemaFingerprint(ppMapping, connection,
+                        RDBMetadataExtractionTools.createMetadata(connection, typeFactory).getQuotedIDFactory(),
+                        constraintFile);
+                if (cachedFingerprint.equals(fingerprint)) {
+                    LOGGER.debug("The DB metadata cache {} is up to date", cacheFile.get());
+                    return;
+                }
+                LOGGER.warn("The database schema has changed since the DB metadata cache {} was written. " +
+                        "The cache is refreshed for the next boots.", cacheFile.get());
+                extractAndCache(ppMapping, connection, constraintFile);
+            }
+            catch (SQLException | DBMetadataExtractionException | RuntimeException e) {
+                LOGGER.warn("Cannot revalidate the DB metadata cache {}: {}", cacheFile.get(), e.toString());
+            }
+        }, "ontop-db-metadata-cache");
+        thread.setDaemon(true);
+        cacheRevalidation = Optional.of(thread);
+        thread.start();
+    }
+
+    /**
+     * Waits for the end of the background revalidation of the DB metadata cache.
+     *
+     * Returns false if no revalidation has been started, that is, if the cached DB metadata has not been used.
+     */
+    public boolean awaitCacheRevalidation() throws InterruptedException {
+        Optional<Thread> thread = cacheRevalidation;
+        if (thread.isPresent())
+            thread.get().join();
+        return thread.isPresent();
+    }
+
     @Override
     public RDBMetadata extract(SQLPPMapping ppMapping, @Nullable Connection connection,
                                DBMetadata partiallyDefinedMetadata, Optional<File> constraintFile)
@@ -78,7 +185,8 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
 
             // if we have to parse the full metadata or just the table list in the mappings
             if (obtainFullMetadata) {
-                RDBMetadataExtractionTools.loadMetadata(metadata, connection, null);
+                RDBMetadataExtractionTools.loadMetadata(metadata, connection, null, settings,
+                        settings.getDBMetadataExtractionConnections(), settings.isDBStatisticsExtractionEnabled());
             }
             else {
                 try {
@@ -94,7 +202,8 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
                         realTables.addAll(referredTables);
                     });
 
-                    RDBMetadataExtractionTools.loadMetadata(metadata, connection, realTables);
+                    RDBMetadataExtractionTools.loadMetadata(metadata, connection, realTables, settings,
+                            settings.getDBMetadataExtractionConnections(), settings.isDBStatisticsExtractionEnabled());
                 }
                 catch (SQLException e) {
                     System.out.println("Error obtaining the metadata " + e);
@@ -0,0 +1,95 @@
+package it.unibz.inf.ontop.spec.mapping.transformer;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSettings;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.model.atom.RDFAtomPredicate;
+import it.unibz.inf.ontop.spec.mapping.Mapping;
+import it.unibz.inf.ontop.spec.mapping.validation.TestConnectionManager;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.apache.commons.rdf.api.IRI;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The saturated mapping does not depend on the parallelism of the mapping processing
+ */
+public class ParallelMappingProcessingTest {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:mapping-parallel-processing";
+    private static final String DB_USER = "sa";
+    private static final String DB_PASSWORD = "";
+    private static final String DIR = "/mismatch/";
+    private static final String CREATE_SCRIPT = DIR + "create-db.sql";
+    private static final String DROP_SCRIPT = DIR + "drop-db.sql";
+    private static final String OWL_FILE = DIR + "marriage.ttl";
+    private static final String OBDA_FILE = DIR + "marriage_valid.obda";
+    private static TestConnectionManager TEST_MANAGER;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        TEST_MANAGER = new TestConnectionManager(JDBC_URL, DB_USER, DB_PASSWORD, CREATE_SCRIPT, DROP_SCRIPT);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        TEST_MANAGER.close();
+    }
+
+    @Test
+    public void testSameSaturatedMapping() throws Exception {
+        ImmutableMap<String, IQ> sequentialDefinitions = getDefinitions(loadSaturatedMapping(1));
+
+        for (int i = 0; i < 5; i++) {
+            ImmutableMap<String, IQ> parallelDefinitions = getDefinitions(loadSaturatedMapping(4));
+            assertEquals(sequentialDefinitions.keySet(), parallelDefinitions.keySet());
+            for (String key : sequentialDefinitions.keySet())
+                assertEquals(key, sequentialDefinitions.get(key), parallelDefinitions.get(key));
+        }
+    }
+
+    private static Mapping loadSaturatedMapping(int parallelism) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopMappingSettings.MAPPING_PROCESSING_PARALLELISM, String.valueOf(parallelism));
+
+        OntopMappingSQLAllOWLAPIConfiguration configuration = OntopMappingSQLAllOWLAPIConfiguration.defaultBuilder()
+                .ontologyFile(ParallelMappingProcessingTest.class.getResource(OWL_FILE).getFile())
+                .nativeOntopMappingFile(ParallelMappingProcessingTest.class.getResource(OBDA_FILE).getFile())
+                .jdbcUrl(JDBC_URL)
+                .jdbcUser(DB_USER)
+                .jdbcPassword(DB_PASSWORD)
+                .properties(properties)
+                .build();
+        return configuration.loadSpecification().getSaturatedMapping();
+    }
+
+    /**
+     * Definitions of the classes and properties, indexed by the RDF atom predicate and the IRI
+     */
+    private static ImmutableMap<String, IQ> getDefinitions(Mapping mapping) {
+        return mapping.getRDFAtomPredicates().stream()
+                .flatMap(p -> Stream.concat(
+                        mapping.getRDFClasses(p).stream()
+                                .map(c -> new Definition(p, c, mapping.getRDFClassDefinition(p, c).get())),
+                        mapping.getRDFProperties(p).stream()
+                                .map(c -> new Definition(p, c, mapping.getRDFPropertyDefinition(p, c).get()))))
+                .collect(ImmutableCollectors.toMap(d -> d.key, d -> d.query));
+    }
+
+    private static class Definition {
+        private final String key;
+        private final IQ query;
+
+        Definition(RDFAtomPredicate predicate, IRI iri, IQ query) {
+            this.key = predicate + " " + iri;
+            this.query = query;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package it.unibz.inf.ontop.benchmark;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Ontology, mapping and in-memory H2 database shared by the benchmarks.
+ *
+ * The resources are loaded from the classpath, so that the benchmarks can run from the uber-jar.
+ * The database lives as long as the scenario is not closed.
+ */
+class BenchmarkScenario implements AutoCloseable {
+
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private final Connection connection;
+    private final OntopSQLOWLAPIConfiguration configuration;
+
+    private BenchmarkScenario(Connection connection, OntopSQLOWLAPIConfiguration configuration) {
+        this.connection = connection;
+        this.configuration = configuration;
+    }
+
+    static BenchmarkScenario create(String databaseName, String ontologyResource, String mappingResource,
+                                    String sqlScriptResource) throws SQLException, IOException,
+            OWLOntologyCreationException {
+        return create(databaseName, ontologyResource, mappingResource, sqlScriptResource, new Properties());
+    }
+
+    /**
+     * The SQL script is split into statements on the blank lines.
+     *
+     * The properties are added to the configuration (e.g. for comparing the settings of Ontop).
+     */
+    static BenchmarkScenario create(String databaseName, String ontologyResource, String mappingResource,
+                                    String sqlScriptResource, Properties properties) throws SQLException,
+            IOException, OWLOntologyCreationException {
+        String jdbcUrl = "jdbc:h2:mem:" + databaseName;
+        Connection connection = DriverManager.getConnection(jdbcUrl, USER, PASSWORD);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : loadResource(sqlScriptResource).split("\\n\\s*\\n")) {
+                if (!sql.trim().isEmpty())
+                    statement.executeUpdate(sql);
+            }
+        }
+
+        OWLOntology ontology;
+        try (InputStream ontologyStream = Resources.getResource(ontologyResource).openStream()) {
+            ontology = OWLManager.createOWLOntologyManager().loadOntologyFromOntologyDocument(ontologyStream);
+        }
+
+        OntopSQLOWLAPIConfiguration configuration = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .ontology(ontology)
+                .nativeOntopMappingReader(new StringReader(loadResource(mappingResource)))
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser(USER)
+                .jdbcPassword(PASSWORD)
+                .jdbcDriver("org.h2.Driver")
+                .properties(properties)
+                .enableTestMode()
+                .build();
+
+        return new BenchmarkScenario(connection, configuration);
+    }
+
+    static String loadResource(String name) throws IOException {
+        URL url = Resources.getResource(name);
+        return Resources.toString(url, Charsets.UTF_8);
+    }
+
+    OntopSQLOWLAPIConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Connection to the in-memory database, e.g. for loading data
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Drops the in-memory database
+     */
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
@@ -0,0 +1,118 @@
+package it.unibz.inf.ontop.benchmark;
+
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
+import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
+import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
+import it.unibz.inf.ontop.injection.OntopModelSettings;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.TranslationFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.optimizer.GeneralStructuralAndSemanticIQOptimizer;
+import it.unibz.inf.ontop.iq.planner.QueryPlanner;
+import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the impact of the hash-consing of the terms and substitutions (ontop.hashConsing)
+ * on the reformulation of queries producing big unions, and on the comparison of their unfolded queries
+ * (as performed by the fixed-point checks of the optimizers).
+ *
+ * Scenario: the movie ontology (IMDB schema), as in ReformulationBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashConsingBenchmark {
+
+    private static final String MOVIE_DIRECTORY = "movies/";
+
+    @Param({"false", "true"})
+    public boolean hashConsing;
+
+    @Param({"actor", "company-location", "top-genre", "movie-information", "eastern-asia"})
+    public String query;
+
+    private BenchmarkScenario scenario;
+    private ExecutorRegistry executorRegistry;
+    private InputQueryTranslator inputQueryTranslator;
+    private QueryRewriter rewriter;
+    private QueryUnfolder queryUnfolder;
+    private GeneralStructuralAndSemanticIQOptimizer generalOptimizer;
+    private QueryPlanner queryPlanner;
+    private NativeQueryGenerator queryGenerator;
+
+    private SelectQuery selectQuery;
+    // Two unfoldings of the same query (distinct instances, unless shared by hash-consing)
+    private IQ unfoldedIQ;
+    private IQ otherUnfoldedIQ;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopModelSettings.HASH_CONSING, String.valueOf(hashConsing));
+
+        scenario = BenchmarkScenario.create("ontop-benchmark-movies-hash-consing",
+                MOVIE_DIRECTORY + "movieontology.owl",
+                MOVIE_DIRECTORY + "movieontology.obda",
+                MOVIE_DIRECTORY + "imdb-schema-create-h2.sql",
+                properties);
+
+        OntopSQLOWLAPIConfiguration configuration = scenario.getConfiguration();
+        OBDASpecification specification = configuration.loadSpecification();
+        executorRegistry = configuration.getExecutorRegistry();
+
+        Injector injector = configuration.getInjector();
+        inputQueryTranslator = injector.getInstance(InputQueryTranslator.class);
+        rewriter = injector.getInstance(QueryRewriter.class);
+        rewriter.setTBox(specification.getSaturatedTBox());
+        TranslationFactory translationFactory = injector.getInstance(TranslationFactory.class);
+        queryUnfolder = translationFactory.create(specification.getSaturatedMapping());
+        queryGenerator = translationFactory.create(specification.getDBMetadata());
+        generalOptimizer = injector.getInstance(GeneralStructuralAndSemanticIQOptimizer.class);
+        queryPlanner = injector.getInstance(QueryPlanner.class);
+
+        selectQuery = injector.getInstance(InputQueryFactory.class).createSelectQuery(
+                BenchmarkScenario.loadResource(MOVIE_DIRECTORY + "queries/" + query + ".rq"));
+        unfoldedIQ = unfold();
+        otherUnfoldedIQ = unfold();
+        if (!unfoldedIQ.equals(otherUnfoldedIQ))
+            throw new IllegalStateException("The query " + query + " is not unfolded deterministically");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        scenario.close();
+    }
+
+    private IQ unfold() throws Exception {
+        return queryUnfolder.optimize(rewriter.rewrite(selectQuery.translate(inputQueryTranslator)));
+    }
+
+    /**
+     * All the stages, as in ReformulationBenchmark
+     */
+    @Benchmark
+    public IQ reformulate() throws Exception {
+        IQ unfolded = unfold();
+        if (unfolded.getTree().isDeclaredAsEmpty())
+            return unfolded;
+        return queryGenerator.generateSourceQuery(
+                queryPlanner.optimize(generalOptimizer.optimize(unfolded, executorRegistry), executorRegistry));
+    }
+
+    @Benchmark
+    public boolean compareUnfoldedQueries() {
+        return unfoldedIQ.getTree().isEquivalentTo(otherUnfoldedIQ.getTree());
+    }
+}
@@ -0,0 +1,49 @@
+package it.unibz.inf.ontop.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Entry point of the benchmark jar, accepting the usual JMH command-line options (see -h).
+ *
+ * Unless specified otherwise (-rf, -rff), the results are written in JSON
+ * into ontop-benchmarks-[version].json, so that the results of different versions can be compared.
+ */
+public class OntopBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp()) {
+            commandLineOptions.showHelp();
+            return;
+        }
+        if (commandLineOptions.shouldList()) {
+            new Runner(commandLineOptions).list();
+            return;
+        }
+
+        ChainedOptionsBuilder optionsBuilder = new OptionsBuilder()
+                .parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue())
+            optionsBuilder.resultFormat(ResultFormatType.JSON);
+        if (!commandLineOptions.getResult().hasValue())
+            optionsBuilder.result("ontop-benchmarks-" + loadVersion() + ".json");
+
+        new Runner(optionsBuilder.build()).run();
+    }
+
+    private static String loadVersion() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream stream = OntopBenchmarks.class.getResourceAsStream("/ontop-benchmarks.properties")) {
+            properties.load(stream);
+        }
+        return properties.getProperty("version");
+    }
+}
@@ -0,0 +1,141 @@
+package it.unibz.inf.ontop.benchmark;
+
+import com.google.inject.Injector;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
+import it.unibz.inf.ontop.answering.reformulation.rewriting.QueryRewriter;
+import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.TranslationFactory;
+import it.unibz.inf.ontop.iq.IQ;
+import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.iq.optimizer.GeneralStructuralAndSemanticIQOptimizer;
+import it.unibz.inf.ontop.iq.planner.QueryPlanner;
+import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures separately each stage of the reformulation of a SPARQL query into SQL
+ * (as performed by QuestQueryProcessor, without its query cache):
+ *   translation of the SPARQL algebra into an IQ, rewriting, unfolding, structural and semantic optimization,
+ *   planning and SQL generation.
+ *
+ * Each stage is given the output of the previous stages, computed once during the setup.
+ *
+ * Scenario: the movie ontology (IMDB schema), whose large hierarchies produce big unions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReformulationBenchmark {
+
+    private static final String MOVIE_DIRECTORY = "movies/";
+
+    @Param({"actor", "company-location", "top-genre", "movie-information", "eastern-asia"})
+    public String query;
+
+    private BenchmarkScenario scenario;
+    private ExecutorRegistry executorRegistry;
+    private InputQueryTranslator inputQueryTranslator;
+    private QueryRewriter rewriter;
+    private QueryUnfolder queryUnfolder;
+    private GeneralStructuralAndSemanticIQOptimizer generalOptimizer;
+    private QueryPlanner queryPlanner;
+    private NativeQueryGenerator queryGenerator;
+
+    // Inputs of the stages
+    private SelectQuery selectQuery;
+    private IQ translatedIQ;
+    private IQ rewrittenIQ;
+    private IQ unfoldedIQ;
+    private IQ optimizedIQ;
+    private IQ plannedIQ;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        scenario = BenchmarkScenario.create("ontop-benchmark-movies",
+                MOVIE_DIRECTORY + "movieontology.owl",
+                MOVIE_DIRECTORY + "movieontology.obda",
+                MOVIE_DIRECTORY + "imdb-schema-create-h2.sql");
+
+        OntopSQLOWLAPIConfiguration configuration = scenario.getConfiguration();
+        OBDASpecification specification = configuration.loadSpecification();
+        executorRegistry = configuration.getExecutorRegistry();
+
+        Injector injector = configuration.getInjector();
+        inputQueryTranslator = injector.getInstance(InputQueryTranslator.class);
+        rewriter = injector.getInstance(QueryRewriter.class);
+        rewriter.setTBox(specification.getSaturatedTBox());
+        TranslationFactory translationFactory = injector.getInstance(TranslationFactory.class);
+        queryUnfolder = translationFactory.create(specification.getSaturatedMapping());
+        queryGenerator = translationFactory.create(specification.getDBMetadata());
+        generalOptimizer = injector.getInstance(GeneralStructuralAndSemanticIQOptimizer.class);
+        queryPlanner = injector.getInstance(QueryPlanner.class);
+
+        selectQuery = injector.getInstance(InputQueryFactory.class).createSelectQuery(
+                BenchmarkScenario.loadResource(MOVIE_DIRECTORY + "queries/" + query + ".rq"));
+        translatedIQ = translate();
+        rewrittenIQ = rewrite();
+        unfoldedIQ = unfold();
+        if (unfoldedIQ.getTree().isDeclaredAsEmpty())
+            throw new IllegalStateException("The query " + query + " is unfolded into an empty query");
+        optimizedIQ = optimize();
+        plannedIQ = plan();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        scenario.close();
+    }
+
+    @Benchmark
+    public IQ translate() throws Exception {
+        return selectQuery.translate(inputQueryTranslator);
+    }
+
+    @Benchmark
+    public IQ rewrite() throws OntopReformulationException, EmptyQueryException {
+        return rewriter.rewrite(translatedIQ);
+    }
+
+    @Benchmark
+    public IQ unfold() {
+        return queryUnfolder.optimize(rewrittenIQ);
+    }
+
+    @Benchmark
+    public IQ optimize() {
+        return generalOptimizer.optimize(unfoldedIQ, executorRegistry);
+    }
+
+    @Benchmark
+    public IQ plan() {
+        return queryPlanner.optimize(optimizedIQ, executorRegistry);
+    }
+
+    @Benchmark
+    public IQ generateSQL() {
+        return queryGenerator.generateSourceQuery(plannedIQ);
+    }
+
+    /**
+     * All the stages
+     */
+    @Benchmark
+    public IQ reformulate() throws Exception {
+        IQ unfolded = queryUnfolder.optimize(rewriter.rewrite(selectQuery.translate(inputQueryTranslator)));
+        if (unfolded.getTree().isDeclaredAsEmpty())
+            return unfolded;
+        return queryGenerator.generateSourceQuery(
+                queryPlanner.optimize(generalOptimizer.optimize(unfolded, executorRegistry), executorRegistry));
+    }
+}
@@ -0,0 +1,103 @@
+package it.unibz.inf.ontop.benchmark;
+
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.PreparedStatement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end evaluation of a SPARQL SELECT query over an in-memory H2 database,
+ * dominated by the decoding of the JDBC rows into RDF terms (JDBCTupleResultSet) for large results.
+ *
+ * The reformulation is only performed once, thanks to the query cache (enabled here).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultDecodingBenchmark {
+
+    private static final String PEOPLE_DIRECTORY = "people/";
+
+    /**
+     * Number of rows of the result
+     */
+    @Param({"10000", "100000"})
+    public int rowCount;
+
+    private BenchmarkScenario scenario;
+    private OntopQueryEngine queryEngine;
+    private OntopConnection connection;
+    private OntopStatement statement;
+    private SelectQuery selectQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_CACHE, "true");
+
+        scenario = BenchmarkScenario.create("ontop-benchmark-people",
+                PEOPLE_DIRECTORY + "people.ttl",
+                PEOPLE_DIRECTORY + "people.obda",
+                PEOPLE_DIRECTORY + "schema.sql",
+                properties);
+        insertPersons();
+
+        queryEngine = scenario.getConfiguration().loadQueryEngine();
+        connection = queryEngine.getConnection();
+        statement = connection.createStatement();
+        selectQuery = connection.getInputQueryFactory().createSelectQuery(
+                BenchmarkScenario.loadResource(PEOPLE_DIRECTORY + "queries/persons.rq"));
+    }
+
+    /**
+     * Deterministic data
+     */
+    private void insertPersons() throws Exception {
+        try (PreparedStatement insertion = scenario.getConnection().prepareStatement(
+                "INSERT INTO PERSON (ID, NAME, BIRTH_DATE, SCORE, FRIEND_ID) " +
+                        "SELECT X, CONCAT('Person ', X), DATEADD('DAY', MOD(X, 20000), DATE '1950-01-01'), " +
+                        "MOD(X * 7919, 100000) / 100.0, MOD(X * 31, ?) + 1 " +
+                        "FROM SYSTEM_RANGE(1, ?)")) {
+            insertion.setInt(1, rowCount);
+            insertion.setInt(2, rowCount);
+            insertion.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        statement.close();
+        connection.close();
+        queryEngine.close();
+        scenario.close();
+    }
+
+    @Benchmark
+    public long evaluate(Blackhole blackhole) throws Exception {
+        long count = 0;
+        try (TupleResultSet resultSet = statement.execute(selectQuery)) {
+            while (resultSet.hasNext()) {
+                OntopBindingSet bindingSet = resultSet.next();
+                for (OntopBinding binding : bindingSet)
+                    blackhole.consume(binding.getValue());
+                count++;
+            }
+        }
+        if (count != rowCount)
+            throw new IllegalStateException("Unexpected number of results: " + count);
+        return count;
+    }
+}
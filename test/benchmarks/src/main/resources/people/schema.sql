@@ -0,0 +1,9 @@
+CREATE TABLE PERSON
+(
+  ID INT NOT NULL,
+  NAME VARCHAR(100) NOT NULL,
+  BIRTH_DATE DATE NOT NULL,
+  SCORE DECIMAL(10,2) NOT NULL,
+  FRIEND_ID INT NOT NULL,
+  CONSTRAINT PERSON_PKEY PRIMARY KEY (ID)
+);
@@ -154,4 +154,29 @@ public class InconsistencyCheckingTest extends TestCase{
 		assertFalse(consistent);
 
 	} 
+
+	@Test
+	public void testAllViolatedAxiomsReported() throws Exception {
+
+		//Male(a), Female(a), hasMother(a,b), hasMother(a,c), func(hasMother), disjoint(Male, Female)
+		manager.addAxiom(ontology, ClassAssertion(c1, a));
+		manager.addAxiom(ontology, ClassAssertion(c2, a));
+		manager.addAxiom(ontology, DisjointClasses(c1, c2));
+		manager.addAxiom(ontology, ObjectPropertyAssertion(r1, a, b));
+		manager.addAxiom(ontology, ObjectPropertyAssertion(r1, a, c));
+		manager.addAxiom(ontology, FunctionalObjectProperty(r1));
+		// more axioms than in a batch, none of them violated
+		for (int i = 0; i < 60; i++) {
+			OWLClass ci = Class(IRI.create(prefix + "C" + i));
+			manager.addAxiom(ontology, Declaration(ci));
+			manager.addAxiom(ontology, ClassAssertion(ci, b));
+			manager.addAxiom(ontology, DisjointClasses(ci, c1));
+		}
+
+		startReasoner();
+
+		assertFalse(reasoner.isConsistent());
+		assertEquals(2, reasoner.getInconsistentAxioms().size());
+		assertEquals(reasoner.getInconsistentAxioms().get(0), reasoner.getInconsistentAxiom());
+	}
 }